@@ -0,0 +1,273 @@
+package dev.christopping.tensor;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Aggregation of the elements within a sliding window, which is updated incrementally as elements enter and leave it
+ * <p>
+ * Invertible aggregators, such as sums and means, keep a running total from which each leaving element is subtracted.
+ * Minima and maxima keep a deque of the elements which may yet become the extreme of a window, in monotonic order. Any
+ * other associative aggregator keeps two stacks of partial aggregates, so that each element is combined a constant
+ * number of times on average. Whatever the size of the window, each element therefore costs O(1) amortised time.
+ *
+ * @param <T> element value type
+ * @param <R> aggregate value type
+ */
+public final class Aggregator<T, R> {
+
+    private final Supplier<Window<T, R>> windows;
+
+    private Aggregator(Supplier<Window<T, R>> windows) {
+        this.windows = windows;
+    }
+
+    /**
+     * Returns an aggregator summing numeric elements, with compensation for the rounding error of each addition and
+     * subtraction
+     *
+     * @return the sum aggregator
+     */
+    public static Aggregator<Number, Double> sum() {
+        return new Aggregator<>(() -> new Sum(false));
+    }
+
+    /**
+     * Returns an aggregator averaging the numeric elements present in each window
+     *
+     * @return the mean aggregator
+     */
+    public static Aggregator<Number, Double> mean() {
+        return new Aggregator<>(() -> new Sum(true));
+    }
+
+    /**
+     * Returns an aggregator selecting the greatest element of each window, the latest of equal elements
+     *
+     * @param comparator the comparator by which to order elements
+     * @param <T>        element value type
+     * @return the maximum aggregator
+     */
+    public static <T> Aggregator<T, T> max(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator, "Comparator cannot be null");
+        return new Aggregator<>(() -> new Extreme<>(comparator));
+    }
+
+    /**
+     * Returns an aggregator selecting the least element of each window, the latest of equal elements
+     *
+     * @param comparator the comparator by which to order elements
+     * @param <T>        element value type
+     * @return the minimum aggregator
+     */
+    public static <T> Aggregator<T, T> min(Comparator<? super T> comparator) {
+        Objects.requireNonNull(comparator, "Comparator cannot be null");
+        return new Aggregator<>(() -> new Extreme<>(comparator.reversed()));
+    }
+
+    /**
+     * Returns an aggregator accumulating elements with an operator which leaving elements can be subtracted from, such
+     * as addition or exclusive or
+     *
+     * @param identity the aggregate of an empty window
+     * @param add      the accumulating operator
+     * @param subtract the inverse of the accumulating operator
+     * @param <T>      element value type
+     * @return the invertible aggregator
+     */
+    public static <T> Aggregator<T, T> invertible(T identity, BinaryOperator<T> add, BinaryOperator<T> subtract) {
+        Objects.requireNonNull(add, "Add operator cannot be null");
+        Objects.requireNonNull(subtract, "Subtract operator cannot be null");
+        return new Aggregator<>(() -> new Invertible<>(identity, add, subtract));
+    }
+
+    /**
+     * Returns an aggregator combining the elements of each window in order with any associative operator, such as
+     * a product, greatest common divisor or string concatenation
+     *
+     * @param combiner the associative combining operator
+     * @param <T>      element value type
+     * @return the associative aggregator
+     */
+    public static <T> Aggregator<T, T> associative(BinaryOperator<T> combiner) {
+        Objects.requireNonNull(combiner, "Combiner cannot be null");
+        return new Aggregator<>(() -> new TwoStacks<>(combiner));
+    }
+
+    /**
+     * Returns new, empty window state
+     */
+    Window<T, R> window() {
+        return windows.get();
+    }
+
+    /**
+     * State of a single sliding window, to which elements are added in order and from which the oldest is removed
+     */
+    abstract static class Window<T, R> {
+
+        abstract void add(T element);
+
+        /**
+         * Removes the oldest element in the window, which is the given element
+         */
+        abstract void remove(T element);
+
+        /**
+         * Returns the aggregate of the elements in the window, or {@code null} if it is empty
+         */
+        abstract R result();
+    }
+
+    private static final class Sum extends Window<Number, Double> {
+        private final boolean mean;
+        private double sum;
+        private double compensation;
+        private long count;
+
+        private Sum(boolean mean) {
+            this.mean = mean;
+        }
+
+        @Override
+        void add(Number element) {
+            accumulate(element.doubleValue());
+            count++;
+        }
+
+        @Override
+        void remove(Number element) {
+            accumulate(-element.doubleValue());
+            if (--count == 0) {
+                sum = 0;
+                compensation = 0;
+            }
+        }
+
+        private void accumulate(double value) {
+            double total = sum + value;
+            compensation += Math.abs(sum) >= Math.abs(value) ? (sum - total) + value : (value - total) + sum;
+            sum = total;
+        }
+
+        @Override
+        Double result() {
+            if (count == 0) return null;
+            return mean ? (sum + compensation) / count : sum + compensation;
+        }
+    }
+
+    private static final class Extreme<T> extends Window<T, T> {
+        private final Comparator<? super T> comparator;
+        private final Deque<T> candidates = new ArrayDeque<>();
+        private final Deque<Long> sequences = new ArrayDeque<>();
+        private long added;
+        private long removed;
+
+        private Extreme(Comparator<? super T> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        void add(T element) {
+            while (!candidates.isEmpty() && comparator.compare(candidates.peekLast(), element) <= 0) {
+                candidates.pollLast();
+                sequences.pollLast();
+            }
+            candidates.addLast(element);
+            sequences.addLast(added++);
+        }
+
+        @Override
+        void remove(T element) {
+            if (!sequences.isEmpty() && sequences.peekFirst() == removed) {
+                candidates.pollFirst();
+                sequences.pollFirst();
+            }
+            removed++;
+        }
+
+        @Override
+        T result() {
+            return candidates.peekFirst();
+        }
+    }
+
+    private static final class Invertible<T> extends Window<T, T> {
+        private final T identity;
+        private final BinaryOperator<T> add;
+        private final BinaryOperator<T> subtract;
+        private T aggregate;
+        private long count;
+
+        private Invertible(T identity, BinaryOperator<T> add, BinaryOperator<T> subtract) {
+            this.identity = identity;
+            this.add = add;
+            this.subtract = subtract;
+            this.aggregate = identity;
+        }
+
+        @Override
+        void add(T element) {
+            aggregate = add.apply(aggregate, element);
+            count++;
+        }
+
+        @Override
+        void remove(T element) {
+            aggregate = --count == 0 ? identity : subtract.apply(aggregate, element);
+        }
+
+        @Override
+        T result() {
+            return count == 0 ? null : aggregate;
+        }
+    }
+
+    /**
+     * Queue of two stacks: elements are pushed onto the back stack, which keeps the aggregate of all its elements, and
+     * popped from the front stack, which keeps the aggregate of every element above each position. The back stack is
+     * reversed onto the front stack whenever the front stack runs out.
+     */
+    private static final class TwoStacks<T> extends Window<T, T> {
+        private final BinaryOperator<T> combiner;
+        private final Deque<T> back = new ArrayDeque<>();
+        private final Deque<T> front = new ArrayDeque<>();
+        private T backAggregate;
+
+        private TwoStacks(BinaryOperator<T> combiner) {
+            this.combiner = combiner;
+        }
+
+        @Override
+        void add(T element) {
+            back.push(element);
+            backAggregate = back.size() == 1 ? element : combiner.apply(backAggregate, element);
+        }
+
+        @Override
+        void remove(T element) {
+            if (front.isEmpty()) {
+                T aggregate = null;
+                while (!back.isEmpty()) {
+                    T next = back.pop();
+                    aggregate = aggregate == null ? next : combiner.apply(next, aggregate);
+                    front.push(aggregate);
+                }
+                backAggregate = null;
+            }
+            front.pop();
+        }
+
+        @Override
+        T result() {
+            if (front.isEmpty()) return back.isEmpty() ? null : backAggregate;
+            return back.isEmpty() ? front.peek() : combiner.apply(front.peek(), backAggregate);
+        }
+    }
+
+}
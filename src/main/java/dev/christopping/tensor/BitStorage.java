@@ -0,0 +1,125 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Boolean {@link Map} implementation storing one bit per index of a fixed shape in a {@link Bitmap}
+ * <p>
+ * Every index within the shape is present, and is {@code true} exactly when its bit is set. Bits are addressed by the
+ * contiguous offset of their index, with dimension 0 varying fastest. Elements may be replaced within the shape, but not
+ * removed or added outside it.
+ */
+final class BitStorage extends AbstractMap<Index, Boolean> {
+
+    final long[] shape;
+    final long[] strides;
+    final long volume;
+    final Bitmap bits;
+
+    BitStorage(long[] shape, Bitmap bits) {
+        this.shape = shape.clone();
+        this.strides = DenseStorage.contiguousStrides(shape);
+        this.volume = DensityPolicy.volume(shape);
+        if (volume == Long.MAX_VALUE) throw new IllegalArgumentException("Shape cannot be addressed by long offsets");
+        this.bits = bits;
+    }
+
+    /**
+     * Returns the offset of the bit of the given index, or -1 if the index is outside the shape
+     */
+    long offset(Index index) {
+        if (index.order() != shape.length) return -1;
+        long offset = 0;
+        for (int d = 0; d < shape.length; d++) {
+            if (index.get(d) >= shape[d]) return -1;
+            offset += index.get(d) * strides[d];
+        }
+        return offset;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(volume, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return volume == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Index index && offset(index) >= 0;
+    }
+
+    @Override
+    public Boolean get(Object key) {
+        if (!(key instanceof Index index)) return null;
+        long offset = offset(index);
+        return offset < 0 ? null : bits.get(offset);
+    }
+
+    @Override
+    public Boolean put(Index key, Boolean value) {
+        long offset = offset(key);
+        if (offset < 0) throw new UnsupportedOperationException("Index " + key + " is outside the shape " + Arrays.toString(shape));
+        if (value == null) throw new UnsupportedOperationException("Bit storage cannot contain null elements");
+        return bits.set(offset, value);
+    }
+
+    @Override
+    public Boolean remove(Object key) {
+        throw new UnsupportedOperationException("Cannot remove elements from bit storage");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Cannot remove elements from bit storage");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof BitStorage other) return Arrays.equals(shape, other.shape) && bits.equals(other.bits);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public Set<Entry<Index, Boolean>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return BitStorage.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<Index, Boolean>> iterator() {
+                return new Iterator<>() {
+                    private final long[] coordinates = new long[shape.length];
+                    private long offset = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return offset < volume;
+                    }
+
+                    @Override
+                    public Entry<Index, Boolean> next() {
+                        if (offset >= volume) throw new NoSuchElementException();
+                        Entry<Index, Boolean> entry = new SimpleImmutableEntry<>(new Index(coordinates.clone()), bits.get(offset++));
+                        for (int d = 0; d < coordinates.length; d++) {
+                            if (++coordinates[d] < shape[d]) break;
+                            coordinates[d] = 0;
+                        }
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+}
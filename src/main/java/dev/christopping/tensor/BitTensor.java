@@ -0,0 +1,220 @@
+package dev.christopping.tensor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Boolean tensor of a fixed shape storing one bit per element, intended for masks
+ * <p>
+ * Every index within the shape is present, and bits are held in a compressed bitmap which stores runs of unset bits for
+ * free and sparse regions as sorted arrays, so that a mask costs at most one bit per element. Bitwise operations combine
+ * whole words at a time, and {@link Tensor#mask(Tensor, Object)} applies a {@code BitTensor} word by word.
+ * <p>
+ * Elements may be set within the shape, but not removed or set outside it.
+ */
+public class BitTensor extends Tensor<Boolean> {
+
+    BitTensor(long[] shape, Bitmap bits) {
+        super(new BitStorage(shape, bits), false);
+    }
+
+    private BitStorage storage() {
+        return (BitStorage) map;
+    }
+
+    /**
+     * Creates a new {@code BitTensor} of the given dimensions with every element {@code false}
+     *
+     * @param dimensions the dimensions of the tensor
+     * @return the new tensor
+     */
+    public static BitTensor zeros(long... dimensions) {
+        return new BitTensor(dimensions, new Bitmap());
+    }
+
+    /**
+     * Creates a new {@code BitTensor} of the given dimensions with every element {@code true}
+     *
+     * @param dimensions the dimensions of the tensor
+     * @return the new tensor
+     */
+    public static BitTensor ones(long... dimensions) {
+        return new BitTensor(dimensions, Bitmap.ones(DensityPolicy.volume(dimensions)));
+    }
+
+    /**
+     * Creates a new {@code BitTensor} of the same dimensions as the given boolean tensor, in which non-present elements are {@code false}
+     *
+     * @param tensor the boolean tensor
+     * @return the new tensor
+     */
+    public static BitTensor of(Tensor<Boolean> tensor) {
+        if (tensor instanceof BitTensor bits) return bits.copy();
+        return where(tensor, Boolean.TRUE::equals);
+    }
+
+    /**
+     * Creates a new {@code BitTensor} of the same dimensions as the given tensor, which is {@code true} wherever an
+     * element is present and satisfies the predicate
+     *
+     * @param tensor    the tensor to test
+     * @param predicate the predicate tested against each present element
+     * @param <T>       the type of values contained in the tested tensor
+     * @return the new tensor
+     */
+    public static <T> BitTensor where(Tensor<T> tensor, Predicate<? super T> predicate) {
+        long[] shape = tensor.dimensions().stream().mapToLong(Long::longValue).toArray();
+        BitTensor result = new BitTensor(shape, new Bitmap());
+        BitStorage storage = result.storage();
+        for (Map.Entry<Index, T> entry : tensor.map.entrySet()) {
+            long offset = storage.offset(entry.getKey());
+            if (offset >= 0 && predicate.test(entry.getValue())) storage.bits.set(offset, true);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a mask which is {@code true} wherever an element of the given numeric tensor is greater than the threshold
+     *
+     * @param tensor    the numeric tensor
+     * @param threshold the exclusive lower bound
+     * @return the mask
+     */
+    public static BitTensor greaterThan(Tensor<? extends Number> tensor, double threshold) {
+        return where(tensor, value -> value != null && value.doubleValue() > threshold);
+    }
+
+    /**
+     * Creates a mask which is {@code true} wherever an element of the given numeric tensor is less than the threshold
+     *
+     * @param tensor    the numeric tensor
+     * @param threshold the exclusive upper bound
+     * @return the mask
+     */
+    public static BitTensor lessThan(Tensor<? extends Number> tensor, double threshold) {
+        return where(tensor, value -> value != null && value.doubleValue() < threshold);
+    }
+
+    /**
+     * Creates a mask which is {@code true} wherever an element of the given numeric tensor equals the value
+     *
+     * @param tensor the numeric tensor
+     * @param value  the value to compare against
+     * @return the mask
+     */
+    public static BitTensor equalTo(Tensor<? extends Number> tensor, double value) {
+        return where(tensor, element -> element != null && element.doubleValue() == value);
+    }
+
+    /**
+     * Returns a new mask which is {@code true} wherever both this mask and the other are {@code true}
+     *
+     * @param other the other mask, of the same dimensions
+     * @return the conjunction of the masks
+     * @throws IllegalArgumentException if the other mask is null or its dimensions differ
+     */
+    public BitTensor and(BitTensor other) {
+        return new BitTensor(shape(other), storage().bits.and(other.storage().bits));
+    }
+
+    /**
+     * Returns a new mask which is {@code true} wherever this mask or the other is {@code true}
+     *
+     * @param other the other mask, of the same dimensions
+     * @return the disjunction of the masks
+     * @throws IllegalArgumentException if the other mask is null or its dimensions differ
+     */
+    public BitTensor or(BitTensor other) {
+        return new BitTensor(shape(other), storage().bits.or(other.storage().bits));
+    }
+
+    /**
+     * Returns a new mask which is {@code true} wherever exactly one of this mask and the other is {@code true}
+     *
+     * @param other the other mask, of the same dimensions
+     * @return the exclusive disjunction of the masks
+     * @throws IllegalArgumentException if the other mask is null or its dimensions differ
+     */
+    public BitTensor xor(BitTensor other) {
+        return new BitTensor(shape(other), storage().bits.xor(other.storage().bits));
+    }
+
+    /**
+     * Returns a new mask of the same dimensions which is {@code true} wherever this mask is {@code false}
+     *
+     * @return the complement of this mask
+     */
+    public BitTensor not() {
+        return new BitTensor(storage().shape, storage().bits.not(storage().volume));
+    }
+
+    /**
+     * Returns the number of {@code true} elements
+     *
+     * @return the population count
+     */
+    public long cardinality() {
+        return storage().bits.cardinality();
+    }
+
+    private long[] shape(BitTensor other) {
+        if (other == null || !Arrays.equals(storage().shape, other.storage().shape))
+            throw new IllegalArgumentException("Tensor dimensions must match");
+        return storage().shape;
+    }
+
+    private BitTensor copy() {
+        return new BitTensor(storage().shape, storage().bits.copy());
+    }
+
+    @Override
+    public int order() {
+        return storage().volume == 0 ? 0 : storage().shape.length;
+    }
+
+    @Override
+    public List<Long> dimensions() {
+        if (storage().volume == 0) return List.of();
+        return Arrays.stream(storage().shape).boxed().toList();
+    }
+
+    /**
+     * Applies this mask to a tensor of the same dimensions, visiting the bits a word at a time
+     * <p>
+     * Fully dense, contiguous storage is copied in bulk, after which only the elements under unset bits are overwritten.
+     * Any other storage is traversed by element, testing the bit at the offset of each index.
+     */
+    <T> Tensor<T> applyTo(Tensor<T> tensor, T maskedValue) {
+        BitStorage storage = storage();
+        DenseStorage<T> dense = tensor.dense();
+        if (dense != null && dense.isFull() && dense.isContiguous() && maskedValue != null
+                && maskedValue.getClass() == dense.elementType()) {
+            DenseStorage<T> masked = dense.copy();
+            long volume = storage.volume;
+            for (long block = 0; block * Bitmap.BLOCK_BITS < volume; block++) {
+                long[] words = storage.bits.words((int) block);
+                for (int word = 0; word < Bitmap.BLOCK_WORDS; word++) {
+                    long base = block * Bitmap.BLOCK_BITS + word * 64L;
+                    if (base >= volume) break;
+                    long unset = words == null ? -1L : ~words[word];
+                    if (volume - base < 64) unset &= (1L << (volume - base)) - 1;
+                    for (; unset != 0; unset &= unset - 1) {
+                        masked.write((int) (base + Long.numberOfTrailingZeros(unset)), maskedValue);
+                    }
+                }
+            }
+            return new Tensor<>(new CopyOnWriteMap<>(masked), false);
+        }
+        Map<Index, T> result = new HashMap<>((int) (tensor.map.size() / 0.75f) + 1);
+        for (Map.Entry<Index, T> entry : tensor.map.entrySet()) {
+            long offset = storage.offset(entry.getKey());
+            boolean set = offset >= 0 && storage.bits.get(offset);
+            result.put(entry.getKey(), set ? entry.getValue() : maskedValue);
+        }
+        return adopt(result);
+    }
+
+}
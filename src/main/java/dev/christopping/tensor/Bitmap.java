@@ -0,0 +1,320 @@
+package dev.christopping.tensor;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed bitmap in the style of Roaring bitmaps
+ * <p>
+ * Bits are grouped into blocks of 2<sup>16</sup>. Blocks without set bits are not stored, blocks with at most
+ * {@value #ARRAY_LIMIT} set bits are stored as sorted arrays of their low 16 bits, and other blocks are stored as
+ * uncompressed words. Bitwise operations combine blocks word by word, or by intersecting arrays where cheaper.
+ */
+final class Bitmap {
+
+    static final int BLOCK_BITS = 1 << 16;
+    static final int BLOCK_WORDS = BLOCK_BITS / 64;
+    private static final int ARRAY_LIMIT = 4096;
+
+    private int[] keys;
+    private Object[] containers;
+    private int[] cardinalities;
+    private int blocks;
+
+    Bitmap() {
+        this(4);
+    }
+
+    private Bitmap(int capacity) {
+        keys = new int[capacity];
+        containers = new Object[capacity];
+        cardinalities = new int[capacity];
+    }
+
+    /**
+     * Returns a bitmap with every bit below the given length set
+     */
+    static Bitmap ones(long length) {
+        return new Bitmap().not(length);
+    }
+
+    private int find(int key) {
+        return Arrays.binarySearch(keys, 0, blocks, key);
+    }
+
+    boolean get(long bit) {
+        int position = find((int) (bit >>> 16));
+        return position >= 0 && getAt(position, (int) bit & 0xFFFF);
+    }
+
+    /**
+     * Sets or clears the given bit, returning its previous value
+     */
+    boolean set(long bit, boolean value) {
+        int key = (int) (bit >>> 16);
+        int low = (int) bit & 0xFFFF;
+        int position = find(key);
+        if (position < 0) {
+            if (!value) return false;
+            position = insert(-position - 1, key, new char[4], 0);
+        }
+        int cardinality = cardinalities[position];
+        if (containers[position] instanceof long[] words) {
+            boolean previous = (words[low >>> 6] & (1L << low)) != 0;
+            if (previous == value) return previous;
+            words[low >>> 6] ^= 1L << low;
+            cardinality += value ? 1 : -1;
+            if (cardinality <= ARRAY_LIMIT) {
+                replace(position, toArray(words, cardinality), cardinality);
+            } else {
+                cardinalities[position] = cardinality;
+            }
+            return previous;
+        }
+        char[] array = (char[]) containers[position];
+        int index = Arrays.binarySearch(array, 0, cardinality, (char) low);
+        boolean previous = index >= 0;
+        if (previous == value) return previous;
+        if (value) {
+            index = -index - 1;
+            if (cardinality == ARRAY_LIMIT) {
+                long[] words = toWords(array, cardinality);
+                words[low >>> 6] |= 1L << low;
+                replace(position, words, cardinality + 1);
+                return false;
+            }
+            if (cardinality == array.length) array = Arrays.copyOf(array, Math.min(ARRAY_LIMIT, cardinality * 2));
+            System.arraycopy(array, index, array, index + 1, cardinality - index);
+            array[index] = (char) low;
+            replace(position, array, cardinality + 1);
+        } else {
+            System.arraycopy(array, index + 1, array, index, cardinality - index - 1);
+            replace(position, array, cardinality - 1);
+        }
+        return previous;
+    }
+
+    private int insert(int position, int key, Object container, int cardinality) {
+        if (blocks == keys.length) {
+            int capacity = Math.max(4, blocks * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, position, keys, position + 1, blocks - position);
+        System.arraycopy(containers, position, containers, position + 1, blocks - position);
+        System.arraycopy(cardinalities, position, cardinalities, position + 1, blocks - position);
+        keys[position] = key;
+        containers[position] = container;
+        cardinalities[position] = cardinality;
+        blocks++;
+        return position;
+    }
+
+    private void replace(int position, Object container, int cardinality) {
+        if (cardinality == 0) {
+            System.arraycopy(keys, position + 1, keys, position, blocks - position - 1);
+            System.arraycopy(containers, position + 1, containers, position, blocks - position - 1);
+            System.arraycopy(cardinalities, position + 1, cardinalities, position, blocks - position - 1);
+            containers[--blocks] = null;
+            return;
+        }
+        containers[position] = container;
+        cardinalities[position] = cardinality;
+    }
+
+    /**
+     * Returns the number of set bits
+     */
+    long cardinality() {
+        long cardinality = 0;
+        for (int position = 0; position < blocks; position++) cardinality += cardinalities[position];
+        return cardinality;
+    }
+
+    /**
+     * Returns the words of the given block, or {@code null} if no bit of the block is set; the words must not be modified
+     */
+    long[] words(int key) {
+        int position = find(key);
+        if (position < 0) return null;
+        if (containers[position] instanceof long[] words) return words;
+        return toWords((char[]) containers[position], cardinalities[position]);
+    }
+
+    /**
+     * Calls the given consumer with each set bit, in ascending order
+     */
+    void forEachSetBit(LongConsumer consumer) {
+        for (int position = 0; position < blocks; position++) {
+            long base = (long) keys[position] << 16;
+            if (containers[position] instanceof long[] words) {
+                for (int word = 0; word < BLOCK_WORDS; word++) {
+                    for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                        consumer.accept(base + word * 64L + Long.numberOfTrailingZeros(bits));
+                    }
+                }
+            } else {
+                char[] array = (char[]) containers[position];
+                for (int i = 0; i < cardinalities[position]; i++) consumer.accept(base + array[i]);
+            }
+        }
+    }
+
+    Bitmap and(Bitmap other) {
+        Bitmap result = new Bitmap(Math.min(blocks, other.blocks) + 1);
+        for (int i = 0, j = 0; i < blocks && j < other.blocks; ) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                if (containers[i] instanceof char[] array) {
+                    result.appendFiltered(keys[i], array, cardinalities[i], other, j);
+                } else if (other.containers[j] instanceof char[] array) {
+                    result.appendFiltered(keys[i], array, other.cardinalities[j], this, i);
+                } else {
+                    long[] words = ((long[]) containers[i]).clone();
+                    long[] otherWords = (long[]) other.containers[j];
+                    for (int word = 0; word < BLOCK_WORDS; word++) words[word] &= otherWords[word];
+                    result.appendWords(keys[i], words);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    Bitmap copy() {
+        return combine(new Bitmap(), false);
+    }
+
+    Bitmap or(Bitmap other) {
+        return combine(other, false);
+    }
+
+    Bitmap xor(Bitmap other) {
+        return combine(other, true);
+    }
+
+    private Bitmap combine(Bitmap other, boolean exclusive) {
+        Bitmap result = new Bitmap(blocks + other.blocks + 1);
+        int i = 0;
+        int j = 0;
+        while (i < blocks || j < other.blocks) {
+            if (j == other.blocks || (i < blocks && keys[i] < other.keys[j])) {
+                result.appendCopy(keys[i], containers[i], cardinalities[i]);
+                i++;
+            } else if (i == blocks || keys[i] > other.keys[j]) {
+                result.appendCopy(other.keys[j], other.containers[j], other.cardinalities[j]);
+                j++;
+            } else {
+                long[] words = words(keys[i]).clone();
+                long[] otherWords = other.words(other.keys[j]);
+                for (int word = 0; word < BLOCK_WORDS; word++) {
+                    words[word] = exclusive ? words[word] ^ otherWords[word] : words[word] | otherWords[word];
+                }
+                result.appendWords(keys[i], words);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the complement of this bitmap within the bits below the given length
+     */
+    Bitmap not(long length) {
+        if (length <= 0) return new Bitmap();
+        int lastKey = (int) ((length - 1) >>> 16);
+        Bitmap result = new Bitmap(Math.max(4, lastKey + 1));
+        for (int key = 0; key <= lastKey; key++) {
+            long[] source = words(key);
+            long[] words = new long[BLOCK_WORDS];
+            for (int word = 0; word < BLOCK_WORDS; word++) words[word] = source == null ? -1L : ~source[word];
+            if (key == lastKey) {
+                int bits = (int) (length - ((long) key << 16));
+                for (int word = bits >>> 6; word < BLOCK_WORDS; word++) {
+                    words[word] &= word == bits >>> 6 && (bits & 63) != 0 ? (1L << bits) - 1 : 0;
+                }
+            }
+            result.appendWords(key, words);
+        }
+        return result;
+    }
+
+    private void appendFiltered(int key, char[] array, int cardinality, Bitmap other, int position) {
+        char[] filtered = new char[cardinality];
+        int count = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (other.getAt(position, array[i])) filtered[count++] = array[i];
+        }
+        if (count > 0) insert(blocks, key, filtered, count);
+    }
+
+    private boolean getAt(int position, int low) {
+        if (containers[position] instanceof long[] words) return (words[low >>> 6] & (1L << low)) != 0;
+        return Arrays.binarySearch((char[]) containers[position], 0, cardinalities[position], (char) low) >= 0;
+    }
+
+    private void appendCopy(int key, Object container, int cardinality) {
+        Object copy = container instanceof long[] words ? words.clone() : Arrays.copyOf((char[]) container, cardinality);
+        insert(blocks, key, copy, cardinality);
+    }
+
+    private void appendWords(int key, long[] words) {
+        int cardinality = 0;
+        for (long word : words) cardinality += Long.bitCount(word);
+        if (cardinality == 0) return;
+        insert(blocks, key, cardinality <= ARRAY_LIMIT ? toArray(words, cardinality) : words, cardinality);
+    }
+
+    private static char[] toArray(long[] words, int cardinality) {
+        char[] array = new char[Math.max(cardinality, 4)];
+        int count = 0;
+        for (int word = 0; word < words.length; word++) {
+            for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                array[count++] = (char) (word * 64 + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return array;
+    }
+
+    private static long[] toWords(char[] array, int cardinality) {
+        long[] words = new long[BLOCK_WORDS];
+        for (int i = 0; i < cardinality; i++) words[array[i] >>> 6] |= 1L << array[i];
+        return words;
+    }
+
+    /**
+     * Returns an estimate, in bytes, of the memory retained by this bitmap
+     */
+    long footprint() {
+        long bytes = 16L + keys.length * 12L;
+        for (int position = 0; position < blocks; position++) {
+            bytes += containers[position] instanceof long[] ? 16 + BLOCK_WORDS * 8L : 16 + ((char[]) containers[position]).length * 2L;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Bitmap other) || blocks != other.blocks) return false;
+        for (int position = 0; position < blocks; position++) {
+            if (keys[position] != other.keys[position] || cardinalities[position] != other.cardinalities[position]) return false;
+            if (!Arrays.equals(words(keys[position]), other.words(other.keys[position]))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int position = 0; position < blocks; position++) hash = 31 * hash + keys[position] * 31 + cardinalities[position];
+        return hash;
+    }
+
+}
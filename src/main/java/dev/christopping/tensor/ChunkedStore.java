@@ -0,0 +1,481 @@
+package dev.christopping.tensor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Chunked, compressed on-disk tensor store
+ * <p>
+ * The tensor is split into chunks of a fixed shape, each stored in its own file within a directory and compressed
+ * independently. Chunks are named by their chunk index, with coordinates joined by {@code .}, and chunks without any
+ * present elements are not stored at all. Chunks in which every element is present are encoded densely, and all others
+ * as offset-value pairs, so both dense and sparse tensors are stored compactly.
+ * <p>
+ * Chunks are written as soon as every one of their elements has been visited, so a dense tensor is written while only
+ * the chunks which its storage order is passing through are buffered. Chunks which are never filled are written last.
+ * <p>
+ * {@link #extract(Index, Index)} and {@link #slice(Map)} read and decompress only the chunks which overlap the query.
+ *
+ * @param <T> element value type
+ */
+public final class ChunkedStore<T> {
+
+    /**
+     * Compression applied to each chunk
+     */
+    public enum Codec {
+        NONE, DEFLATE, LZ4
+    }
+
+    private static final String METADATA = ".tensor";
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final Path directory;
+    private final Dtype dtype;
+    private final long[] shape;
+    private final long[] chunkShape;
+    private final Codec codec;
+
+    private ChunkedStore(Path directory, Dtype dtype, long[] shape, long[] chunkShape, Codec codec) {
+        this.directory = directory;
+        this.dtype = dtype;
+        this.shape = shape;
+        this.chunkShape = chunkShape;
+        this.codec = codec;
+    }
+
+    /**
+     * Writes a tensor to a chunked store in the given directory, replacing any store already there
+     * <p>
+     * The chunks of a previous store are deleted only if the directory holds its metadata, so unrelated files named like
+     * chunks are never deleted.
+     *
+     * @param tensor     the tensor to write
+     * @param directory  the directory of the store, which is created if necessary
+     * @param chunkShape the size of each chunk in each dimension
+     * @param codec      the compression applied to each chunk
+     * @param <T>        element type
+     * @return the store
+     * @throws IOException              if the store cannot be written
+     * @throws IllegalArgumentException if the chunk shape does not match the tensor order or the tensor elements do
+     *                                  not correspond to a supported primitive type
+     */
+    public static <T> ChunkedStore<T> write(Tensor<T> tensor, Path directory, long[] chunkShape, Codec codec) throws IOException {
+        long[] shape = tensor.dimensions().stream().mapToLong(Long::longValue).toArray();
+        if (chunkShape.length != shape.length)
+            throw new IllegalArgumentException("Chunk shape must have the same order as the tensor");
+        long volume = 1;
+        for (long size : chunkShape) {
+            if (size <= 0) throw new IllegalArgumentException("Chunk sizes must be positive");
+            volume *= size;
+            if (volume > Integer.MAX_VALUE) throw new IllegalArgumentException("Chunks cannot exceed " + Integer.MAX_VALUE + " elements");
+        }
+
+        ChunkedStore<T> store = new ChunkedStore<>(directory, Dtype.of(tensor.map), shape, chunkShape.clone(), Objects.requireNonNull(codec));
+        Files.createDirectories(directory);
+        store.clear();
+
+        Map<Index, PendingChunk> pending = new HashMap<>();
+        for (Map.Entry<Index, T> entry : tensor.map.entrySet()) {
+            long[] coordinates = entry.getKey().coordinates();
+            Index chunk = store.chunkOf(coordinates);
+            PendingChunk elements = pending.computeIfAbsent(chunk, key -> new PendingChunk(store.box(key.coordinates())));
+            elements.add(store.localOffset(coordinates, elements.box), entry.getValue());
+            if (elements.isFull()) {
+                store.writeChunk(chunk, elements);
+                pending.remove(chunk);
+            }
+        }
+        for (Map.Entry<Index, PendingChunk> chunk : pending.entrySet()) {
+            store.writeChunk(chunk.getKey(), chunk.getValue());
+        }
+
+        Properties metadata = new Properties();
+        metadata.setProperty("dtype", store.dtype.name());
+        metadata.setProperty("shape", join(shape));
+        metadata.setProperty("chunks", join(chunkShape));
+        metadata.setProperty("codec", codec.name());
+        try (OutputStream output = Files.newOutputStream(directory.resolve(METADATA))) {
+            metadata.store(output, null);
+        }
+        return store;
+    }
+
+    /**
+     * Opens the chunked store in the given directory
+     *
+     * @param directory the directory of the store
+     * @return the store
+     * @throws IOException              if the store metadata cannot be read
+     * @throws IllegalArgumentException if the directory does not contain a valid store
+     */
+    public static ChunkedStore<?> open(Path directory) throws IOException {
+        Properties metadata = new Properties();
+        Path path = directory.resolve(METADATA);
+        if (!Files.exists(path)) throw new IllegalArgumentException("Directory does not contain a chunked store");
+        try (InputStream input = Files.newInputStream(path)) {
+            metadata.load(input);
+        }
+        try {
+            long[] shape = split(metadata.getProperty("shape"));
+            long[] chunkShape = split(metadata.getProperty("chunks"));
+            if (shape.length != chunkShape.length) throw new IllegalArgumentException("Chunk shape must have the same order as the tensor");
+            return new ChunkedStore<>(directory, Dtype.valueOf(metadata.getProperty("dtype")), shape, chunkShape,
+                    Codec.valueOf(metadata.getProperty("codec")));
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed chunked store metadata", e);
+        }
+    }
+
+    /**
+     * Opens the chunked store in the given directory, which must contain elements of the given type
+     *
+     * @param directory the directory of the store
+     * @param type      the expected element type
+     * @param <T>       element type
+     * @return the store
+     * @throws IOException              if the store metadata cannot be read
+     * @throws IllegalArgumentException if the directory does not contain a valid store of the given type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ChunkedStore<T> open(Path directory, Class<T> type) throws IOException {
+        ChunkedStore<?> store = open(directory);
+        if (!type.isAssignableFrom(store.dtype.type()))
+            throw new IllegalArgumentException("Chunked store cannot be expected to be of given type");
+        return (ChunkedStore<T>) store;
+    }
+
+    /**
+     * Returns the size of the stored tensor in each dimension
+     *
+     * @return the dimensions
+     */
+    public List<Long> dimensions() {
+        return Arrays.stream(shape).boxed().toList();
+    }
+
+    /**
+     * Returns the size of each chunk in each dimension
+     *
+     * @return the chunk dimensions
+     */
+    public List<Long> chunkDimensions() {
+        return Arrays.stream(chunkShape).boxed().toList();
+    }
+
+    /**
+     * Reads the whole stored tensor
+     *
+     * @return the tensor
+     * @throws IOException if a chunk cannot be read
+     */
+    public Tensor<T> read() throws IOException {
+        long[] max = Arrays.stream(shape).map(size -> size - 1).toArray();
+        return extract(Index.zeros(shape.length), new Index(max));
+    }
+
+    /**
+     * Reads the elements between the given indices, inclusive, as {@link Tensor#extract(Index, Index)} would
+     *
+     * @param min the minimum index
+     * @param max the maximum index
+     * @return the extracted tensor
+     * @throws IOException              if a chunk cannot be read
+     * @throws IllegalArgumentException if the indices do not match the order of the store or min is not bounded by max
+     */
+    public Tensor<T> extract(Index min, Index max) throws IOException {
+        if (min.order() != max.order()) {
+            throw new IllegalArgumentException("Min and max must have the same number of dimensions.");
+        }
+        if (min.order() != shape.length) {
+            throw new IllegalArgumentException("Min and max must have the same number of dimensions as the store.");
+        }
+        if (!min.isWithinBounds(max)) {
+            throw new IllegalArgumentException("Min must be bounded by max");
+        }
+
+        long[] lower = min.coordinates();
+        long[] upper = max.coordinates();
+        Map<Index, T> extracted = new HashMap<>();
+        readChunks(lower, upper, (coordinates, value) -> {
+            long[] shifted = new long[coordinates.length];
+            for (int d = 0; d < coordinates.length; d++) {
+                shifted[d] = coordinates[d] - lower[d];
+            }
+            extracted.put(new Index(shifted), value);
+        });
+        return result(extracted);
+    }
+
+    /**
+     * Reads the elements matching the given constraints, as {@link Tensor#slice(Map)} would
+     *
+     * @param constraints a map of constraints by which to slice the tensor - each constraint locking the sub-tensor to a fixed value in the given dimension
+     * @return the sliced tensor
+     * @throws IOException               if a chunk cannot be read
+     * @throws IndexOutOfBoundsException if a constrained dimension exceeds the order of the store
+     */
+    public Tensor<T> slice(Map<Integer, Long> constraints) throws IOException {
+        long[] lower = new long[shape.length];
+        long[] upper = Arrays.stream(shape).map(size -> size - 1).toArray();
+        for (Map.Entry<Integer, Long> constraint : constraints.entrySet()) {
+            int dimension = constraint.getKey();
+            if (dimension < 0 || dimension >= shape.length)
+                throw new IndexOutOfBoundsException("Dimension " + dimension + " exceeds order of store");
+            lower[dimension] = constraint.getValue();
+            upper[dimension] = constraint.getValue();
+        }
+
+        boolean[] constrained = new boolean[shape.length];
+        constraints.keySet().forEach(dimension -> constrained[dimension] = true);
+        int order = shape.length - constraints.size();
+        Map<Index, T> sliced = new HashMap<>();
+        readChunks(lower, upper, (coordinates, value) -> {
+            long[] remaining = new long[order];
+            for (int d = 0, i = 0; d < coordinates.length; d++) {
+                if (!constrained[d]) remaining[i++] = coordinates[d];
+            }
+            sliced.put(new Index(remaining), value);
+        });
+        return result(sliced);
+    }
+
+    private Tensor<T> result(Map<Index, T> map) {
+        Tensor<T> tensor = Tensor.adopt(map);
+        tensor.assumeElementType(dtype.type());
+        return tensor;
+    }
+
+    private interface ElementConsumer<T> {
+        void accept(long[] coordinates, T value);
+    }
+
+    // Visits the present elements within the inclusive bounds, reading only the chunks which overlap them
+    private void readChunks(long[] lower, long[] upper, ElementConsumer<T> consumer) throws IOException {
+        int order = shape.length;
+        long[] firstChunk = new long[order];
+        long[] lastChunk = new long[order];
+        for (int d = 0; d < order; d++) {
+            if (lower[d] >= shape[d]) return;
+            firstChunk[d] = lower[d] / chunkShape[d];
+            lastChunk[d] = Math.min(upper[d], shape[d] - 1) / chunkShape[d];
+        }
+
+        long[] chunk = firstChunk.clone();
+        while (true) {
+            readChunk(chunk, lower, upper, consumer);
+            int d = 0;
+            while (d < order && ++chunk[d] > lastChunk[d]) {
+                chunk[d] = firstChunk[d];
+                d++;
+            }
+            if (d == order) return;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readChunk(long[] chunk, long[] lower, long[] upper, ElementConsumer<T> consumer) throws IOException {
+        Path path = directory.resolve(chunkName(chunk));
+        if (!Files.exists(path)) return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(decompress(Files.readAllBytes(path))).order(ByteOrder.LITTLE_ENDIAN);
+        long[] box = box(chunk);
+        long[] origin = new long[chunk.length];
+        for (int d = 0; d < chunk.length; d++) {
+            origin[d] = chunk[d] * chunkShape[d];
+        }
+
+        long[] coordinates = new long[chunk.length];
+        byte encoding = buffer.get();
+        int count = encoding == DENSE ? volume(box) : buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            long offset = encoding == DENSE ? i : buffer.getInt();
+            T value = (T) dtype.get(buffer);
+            boolean within = true;
+            for (int d = 0; d < chunk.length; d++) {
+                coordinates[d] = origin[d] + offset % box[d];
+                offset /= box[d];
+                within &= coordinates[d] >= lower[d] && coordinates[d] <= upper[d];
+            }
+            if (within) consumer.accept(coordinates, value);
+        }
+    }
+
+    /**
+     * Present elements of a chunk which is being written, as offsets within the chunk and their values
+     */
+    private static final class PendingChunk {
+        private final long[] box;
+        private final int volume;
+        private int[] offsets = new int[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        private PendingChunk(long[] box) {
+            this.box = box;
+            this.volume = volume(box);
+        }
+
+        private void add(int offset, Object value) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.min(volume, size * 2));
+                values = Arrays.copyOf(values, offsets.length);
+            }
+            offsets[size] = offset;
+            values[size++] = value;
+        }
+
+        private boolean isFull() {
+            return size == volume;
+        }
+    }
+
+    private void writeChunk(Index chunk, PendingChunk elements) throws IOException {
+        ByteBuffer buffer;
+        if (elements.isFull()) {
+            Object[] values = new Object[elements.volume];
+            for (int i = 0; i < elements.size; i++) values[elements.offsets[i]] = elements.values[i];
+            buffer = ByteBuffer.allocate(1 + elements.volume * dtype.width()).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(DENSE);
+            for (Object value : values) dtype.put(buffer, value);
+        } else {
+            buffer = ByteBuffer.allocate(1 + Integer.BYTES + elements.size * (Integer.BYTES + dtype.width())).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(SPARSE);
+            buffer.putInt(elements.size);
+            for (int i = 0; i < elements.size; i++) {
+                buffer.putInt(elements.offsets[i]);
+                dtype.put(buffer, elements.values[i]);
+            }
+        }
+        Files.write(directory.resolve(chunkName(chunk.coordinates())), compress(buffer.array()));
+    }
+
+    private byte[] compress(byte[] raw) {
+        byte[] compressed = switch (codec) {
+            case NONE -> raw;
+            case LZ4 -> Lz4.compress(raw);
+            case DEFLATE -> {
+                Deflater deflater = new Deflater();
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 2 + 16);
+                byte[] block = new byte[8192];
+                while (!deflater.finished()) {
+                    output.write(block, 0, deflater.deflate(block));
+                }
+                deflater.end();
+                yield output.toByteArray();
+            }
+        };
+        return ByteBuffer.allocate(Integer.BYTES + compressed.length).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(raw.length)
+                .put(compressed)
+                .array();
+    }
+
+    private byte[] decompress(byte[] stored) {
+        ByteBuffer buffer = ByteBuffer.wrap(stored).order(ByteOrder.LITTLE_ENDIAN);
+        int length = buffer.getInt();
+        byte[] compressed = Arrays.copyOfRange(stored, Integer.BYTES, stored.length);
+        return switch (codec) {
+            case NONE -> compressed;
+            case LZ4 -> Lz4.decompress(compressed, length);
+            case DEFLATE -> {
+                Inflater inflater = new Inflater();
+                inflater.setInput(compressed);
+                byte[] raw = new byte[length];
+                try {
+                    int read = 0;
+                    while (read < length && !inflater.finished()) {
+                        int inflated = inflater.inflate(raw, read, length - read);
+                        if (inflated == 0 && inflater.needsInput()) break;
+                        read += inflated;
+                    }
+                    if (read != length) throw new IllegalArgumentException("Corrupt chunk");
+                } catch (DataFormatException e) {
+                    throw new IllegalArgumentException("Corrupt chunk", e);
+                } finally {
+                    inflater.end();
+                }
+                yield raw;
+            }
+        };
+    }
+
+    private Index chunkOf(long[] coordinates) {
+        long[] chunk = new long[coordinates.length];
+        for (int d = 0; d < coordinates.length; d++) {
+            chunk[d] = coordinates[d] / chunkShape[d];
+        }
+        return new Index(chunk);
+    }
+
+    // The shape of the given chunk, which is smaller than the chunk shape at the far edges of the tensor
+    private long[] box(long[] chunk) {
+        long[] box = new long[chunk.length];
+        for (int d = 0; d < chunk.length; d++) {
+            box[d] = Math.min(chunkShape[d], shape[d] - chunk[d] * chunkShape[d]);
+        }
+        return box;
+    }
+
+    private int localOffset(long[] coordinates, long[] box) {
+        long offset = 0;
+        for (int d = coordinates.length - 1; d >= 0; d--) {
+            offset = offset * box[d] + coordinates[d] % chunkShape[d];
+        }
+        return (int) offset;
+    }
+
+    private static int volume(long[] box) {
+        long volume = 1;
+        for (long size : box) volume *= size;
+        return (int) volume;
+    }
+
+    private static String chunkName(long[] chunk) {
+        return chunk.length == 0 ? "0" : join(chunk, ".");
+    }
+
+    /**
+     * Deletes the chunks of a store already in the directory, which is recognised by its metadata, so that files in any
+     * other directory are never deleted. The metadata is kept until it is replaced, so a write which fails part way is
+     * still cleared by the next.
+     */
+    private void clear() throws IOException {
+        if (!Files.exists(directory.resolve(METADATA))) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "[0-9]*")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().matches("\\d+(\\.\\d+)*")) Files.delete(file);
+            }
+        }
+    }
+
+    private static String join(long[] values) {
+        return join(values, ",");
+    }
+
+    private static String join(long[] values, String delimiter) {
+        StringJoiner joiner = new StringJoiner(delimiter);
+        for (long value : values) joiner.add(Long.toString(value));
+        return joiner.toString();
+    }
+
+    private static long[] split(String values) {
+        if (values.isEmpty()) return new long[0];
+        return Arrays.stream(values.split(",")).mapToLong(Long::parseLong).toArray();
+    }
+
+}
@@ -0,0 +1,273 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Concatenation and stacking of tensors along a dimension, computing the resultant shape before copying anything
+ * <p>
+ * Concatenating joins tensors end to end along an existing dimension, whereas stacking inserts a new dimension whose
+ * coordinate is the position of each tensor. When every tensor is backed by full, contiguous dense storage of the same
+ * dtype, runs of elements which are contiguous in both the source and the result are copied buffer to buffer. Otherwise
+ * each element is copied once into a hash map sized up front. Empty tensors contribute nothing.
+ */
+final class Concatenation {
+
+    private Concatenation() {
+    }
+
+    static <T> Tensor<T> concat(int dimension, List<Tensor<T>> tensors) {
+        List<Tensor<T>> sources = nonEmpty(tensors);
+        if (sources.isEmpty()) return Tensor.empty();
+        long[][] shapes = shapes(sources);
+        int order = shapes[0].length;
+        if (dimension < 0 || dimension >= order) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        long[] shape = shapes[0].clone();
+        shape[dimension] = 0;
+        for (long[] source : shapes) {
+            if (source.length != order) throw new IllegalArgumentException("Tensor orders must match");
+            for (int d = 0; d < order; d++) {
+                if (d != dimension && source[d] != shape[d])
+                    throw new IllegalArgumentException("Tensor dimensions must match except along the concatenated dimension");
+            }
+            shape[dimension] += source[dimension];
+        }
+
+        long[] runs = new long[sources.size()];
+        for (int i = 0; i < runs.length; i++) runs[i] = volume(shapes[i], dimension + 1);
+        Map<Index, T> dense = denseJoin(sources, shape, runs);
+        if (dense != null) return new Tensor<>(new CopyOnWriteMap<>(dense), false);
+
+        Map<Index, T> map = new HashMap<>(capacity(sources));
+        long offset = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            for (Map.Entry<Index, T> entry : sources.get(i).map.entrySet()) {
+                long[] coordinates = entry.getKey().coordinates().clone();
+                coordinates[dimension] += offset;
+                map.put(new Index(coordinates), entry.getValue());
+            }
+            offset += shapes[i][dimension];
+        }
+        return Tensor.adopt(map);
+    }
+
+    static <T> Tensor<T> stack(int dimension, List<Tensor<T>> tensors) {
+        List<Tensor<T>> sources = nonEmpty(tensors);
+        if (sources.isEmpty()) return Tensor.empty();
+        long[][] shapes = shapes(sources);
+        int order = shapes[0].length;
+        if (dimension < 0 || dimension > order) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        for (long[] source : shapes) {
+            if (!Arrays.equals(source, shapes[0])) throw new IllegalArgumentException("Tensor dimensions must match");
+        }
+        long[] shape = new long[order + 1];
+        for (int d = 0; d <= order; d++) {
+            shape[d] = d < dimension ? shapes[0][d] : d == dimension ? sources.size() : shapes[0][d - 1];
+        }
+
+        long[] runs = new long[sources.size()];
+        Arrays.fill(runs, volume(shapes[0], dimension));
+        Map<Index, T> dense = denseJoin(sources, shape, runs);
+        if (dense != null) return new Tensor<>(new CopyOnWriteMap<>(dense), false);
+
+        Map<Index, T> map = new HashMap<>(capacity(sources));
+        for (int i = 0; i < sources.size(); i++) {
+            for (Map.Entry<Index, T> entry : sources.get(i).map.entrySet()) {
+                long[] source = entry.getKey().coordinates();
+                long[] coordinates = new long[order + 1];
+                System.arraycopy(source, 0, coordinates, 0, dimension);
+                coordinates[dimension] = i;
+                System.arraycopy(source, dimension, coordinates, dimension + 1, order - dimension);
+                map.put(new Index(coordinates), entry.getValue());
+            }
+        }
+        return Tensor.adopt(map);
+    }
+
+    /**
+     * Joins full, contiguous dense sources by interleaving runs of the given lengths, one run of each source in turn, or
+     * returns {@code null} if any source is not dense or the dtypes differ
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> DenseStorage<T> denseJoin(List<Tensor<T>> sources, long[] shape, long[] runs) {
+        List<DenseStorage<T>> dense = new ArrayList<>(sources.size());
+        for (Tensor<T> source : sources) {
+            DenseStorage<T> storage = source.dense();
+            if (storage == null || !storage.isFull() || !storage.isContiguous()
+                    || storage.elementType() != sources.get(0).dense().elementType()) return null;
+            dense.add(storage);
+        }
+        Dtype dtype = Dtype.exact(dense.get(0).elementType()).orElse(null);
+        if (dtype == null || !DensityPolicy.fits(DensityPolicy.volume(shape), dtype)) return null;
+        DenseStorage<T> result = (DenseStorage<T>) DenseStorage.allocate(dtype, shape);
+        int runsPerSource = runs[0] == 0 ? 0 : (int) (dense.get(0).volume() / runs[0]);
+        int target = 0;
+        for (int run = 0; run < runsPerSource; run++) {
+            for (int i = 0; i < dense.size(); i++) {
+                int length = (int) runs[i];
+                dense.get(i).copyTo(run * length, result, target, length);
+                target += length;
+            }
+        }
+        result.markFull();
+        return result;
+    }
+
+    private static <T> List<Tensor<T>> nonEmpty(List<Tensor<T>> tensors) {
+        if (tensors == null) throw new IllegalArgumentException("Tensors must not be null");
+        List<Tensor<T>> sources = new ArrayList<>(tensors.size());
+        for (Tensor<T> tensor : tensors) {
+            if (tensor == null) throw new IllegalArgumentException("Tensors must not be null");
+            if (!tensor.isEmpty()) sources.add(tensor);
+        }
+        return sources;
+    }
+
+    private static long[][] shapes(List<? extends Tensor<?>> sources) {
+        long[][] shapes = new long[sources.size()][];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = sources.get(i).dimensions().stream().mapToLong(Long::longValue).toArray();
+        }
+        return shapes;
+    }
+
+    /**
+     * Returns the product of the first dimensions of the given shape
+     */
+    private static long volume(long[] shape, int dimensions) {
+        long volume = 1;
+        for (int d = 0; d < Math.min(dimensions, shape.length); d++) volume *= shape[d];
+        return volume;
+    }
+
+    private static int capacity(List<? extends Tensor<?>> sources) {
+        long size = 0;
+        for (Tensor<?> source : sources) size += source.map.size();
+        return (int) Math.min(size / 0.75f + 1, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Read-only view of tensors concatenated along a dimension, which translates each index to the tensor containing it
+     * <p>
+     * Copy-on-write and persistent sources are captured as they were when the view was created, in O(1), whereas any
+     * other source is read live.
+     */
+    static final class View<T> extends AbstractMap<Index, T> {
+
+        private final List<Map<Index, T>> sources;
+        private final int dimension;
+        private final int order;
+        private final long[] offsets;
+
+        View(int dimension, List<Tensor<T>> tensors) {
+            List<Tensor<T>> nonEmpty = nonEmpty(tensors);
+            long[][] shapes = shapes(nonEmpty);
+            this.order = shapes.length == 0 ? 0 : shapes[0].length;
+            if (shapes.length > 0 && (dimension < 0 || dimension >= order))
+                throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+            this.dimension = dimension;
+            this.sources = new ArrayList<>(nonEmpty.size());
+            this.offsets = new long[nonEmpty.size() + 1];
+            for (int i = 0; i < nonEmpty.size(); i++) {
+                if (shapes[i].length != order) throw new IllegalArgumentException("Tensor orders must match");
+                for (int d = 0; d < order; d++) {
+                    if (d != dimension && shapes[i][d] != shapes[0][d])
+                        throw new IllegalArgumentException("Tensor dimensions must match except along the concatenated dimension");
+                }
+                Map<Index, T> map = nonEmpty.get(i).map;
+                if (map instanceof CopyOnWriteMap<Index, T> shared) map = shared.share();
+                if (map instanceof PersistentMap<Index, T> persistent) map = persistent.fork();
+                sources.add(map);
+                offsets[i + 1] = offsets[i] + shapes[i][dimension];
+            }
+        }
+
+        /**
+         * Returns the position of the source containing the given index, or -1 if it is outside every source
+         */
+        private int source(Index index) {
+            if (index.order() != order || sources.isEmpty()) return -1;
+            long coordinate = index.get(dimension);
+            int position = Arrays.binarySearch(offsets, coordinate);
+            position = position >= 0 ? position : -position - 2;
+            return position < sources.size() ? position : -1;
+        }
+
+        private Index translate(Index index, int source) {
+            long[] coordinates = index.coordinates().clone();
+            coordinates[dimension] -= offsets[source];
+            return new Index(coordinates);
+        }
+
+        @Override
+        public int size() {
+            long size = 0;
+            for (Map<Index, T> source : sources) size += source.size();
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof Index index)) return false;
+            int source = source(index);
+            return source >= 0 && sources.get(source).containsKey(translate(index, source));
+        }
+
+        @Override
+        public T get(Object key) {
+            if (!(key instanceof Index index)) return null;
+            int source = source(index);
+            return source < 0 ? null : sources.get(source).get(translate(index, source));
+        }
+
+        @Override
+        public T put(Index key, T value) {
+            throw new UnsupportedOperationException("Concatenated views are read-only");
+        }
+
+        @Override
+        public T remove(Object key) {
+            throw new UnsupportedOperationException("Concatenated views are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Concatenated views are read-only");
+        }
+
+        @Override
+        public Set<Entry<Index, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+
+                @Override
+                public Iterator<Entry<Index, T>> iterator() {
+                    return new Iterator<>() {
+                        private int source = -1;
+                        private Iterator<Entry<Index, T>> entries = Collections.emptyIterator();
+
+                        @Override
+                        public boolean hasNext() {
+                            while (!entries.hasNext() && source + 1 < sources.size()) {
+                                entries = sources.get(++source).entrySet().iterator();
+                            }
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Index, T> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Entry<Index, T> entry = entries.next();
+                            long[] coordinates = entry.getKey().coordinates().clone();
+                            coordinates[dimension] += offsets[source];
+                            return new SimpleImmutableEntry<>(new Index(coordinates), entry.getValue());
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+}
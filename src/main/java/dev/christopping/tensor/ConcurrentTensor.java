@@ -0,0 +1,293 @@
+package dev.christopping.tensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+/**
+ * Thread-safe sparse tensor implementation
+ * <p>
+ * Elements are stored in a {@link ConcurrentHashMap}, so concurrent writers to different indices do not contend.
+ * The order is fixed atomically by the first element set, and released once the last element is removed, so that the
+ * tensor may then be refilled with indices of another order. The maximum coordinate in each dimension is tracked
+ * atomically so that {@link #order()} and {@link #dimensions()} do not scan the elements. Null elements are not supported.
+ *
+ * @param <T> element value type
+ */
+public class ConcurrentTensor<T> extends Tensor<T> {
+
+    private static final AtomicLongArray NO_MAXIMA = new AtomicLongArray(0);
+
+    private final AtomicInteger order = new AtomicInteger(-1);
+    private final AtomicReference<AtomicLongArray> maxima = new AtomicReference<>(NO_MAXIMA);
+
+    protected ConcurrentTensor() {
+        super(new ConcurrentHashMap<>(), false);
+    }
+
+    /**
+     * Creates a new empty {@code ConcurrentTensor}
+     *
+     * @param <T> the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> ConcurrentTensor<T> empty() {
+        return new ConcurrentTensor<>();
+    }
+
+    /**
+     * Creates a new {@code ConcurrentTensor} comprising the elements of the provided tensor
+     *
+     * @param tensor the tensor to copy
+     * @param <T>    the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> ConcurrentTensor<T> of(Tensor<T> tensor) {
+        ConcurrentTensor<T> concurrent = new ConcurrentTensor<>();
+        tensor.map.forEach((index, element) -> concurrent.set(element, index));
+        return concurrent;
+    }
+
+    /**
+     * Creates a new empty {@code DoubleSum} for contention-free concurrent scatter-add
+     *
+     * @return The new tensor
+     */
+    public static DoubleSum doubleSum() {
+        return new DoubleSum();
+    }
+
+    /**
+     * Creates a new empty {@code LongSum} for contention-free concurrent scatter-add
+     *
+     * @return The new tensor
+     */
+    public static LongSum longSum() {
+        return new LongSum();
+    }
+
+    @Override
+    public void set(T element, Index index) {
+        assertOrder(index);
+        map.put(index, element);
+        track(index);
+    }
+
+    @Override
+    public void setIfAbsent(T element, Index index) {
+        assertOrder(index);
+        map.putIfAbsent(index, element);
+        track(index);
+    }
+
+    /**
+     * Atomically combines the provided delta into the element at the given index
+     * </p>
+     * If no element is present, the delta itself is set. Concurrent accumulations into the same index are serialized
+     * per index only.
+     *
+     * @param index       the index at which to accumulate
+     * @param delta       the value to combine into the element
+     * @param accumulator the function combining the present element and the delta
+     * @return the new element value
+     */
+    public T accumulate(Index index, T delta, BinaryOperator<T> accumulator) {
+        if (accumulator == null) throw new IllegalArgumentException("Accumulator must not be null");
+        return merge(index, delta, accumulator);
+    }
+
+    /**
+     * Atomically sets the given value if no element is present at the index, and otherwise replaces the element with the
+     * result of the remapping function, removing it if that result is null, as {@link java.util.Map#merge} does
+     *
+     * @param index     the index of the element
+     * @param value     the value to set, or to combine into the present element
+     * @param remapping the function combining the present element and the value
+     * @return the new element value, or null if the element was removed
+     */
+    public T merge(Index index, T value, BinaryOperator<T> remapping) {
+        if (value == null) throw new IllegalArgumentException("Value must not be null");
+        if (remapping == null) throw new IllegalArgumentException("Remapping function must not be null");
+        assertOrder(index);
+        T result = map.merge(index, value, remapping);
+        if (result == null) {
+            retrack();
+        } else {
+            track(index);
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(Index index) {
+        if (map.remove(index) != null) {
+            retrack();
+        }
+    }
+
+    @Override
+    public int order() {
+        return isEmpty() ? 0 : Math.max(order.get(), 0);
+    }
+
+    @Override
+    public long size(int dimension) {
+        List<Long> dimensions = dimensions();
+        return dimension < dimensions.size() ? dimensions.get(dimension) : 0;
+    }
+
+    @Override
+    public List<Long> dimensions() {
+        AtomicLongArray current = maxima.get();
+        if (isEmpty()) return new ArrayList<>();
+        List<Long> dimensions = new ArrayList<>(current.length());
+        for (int d = 0; d < current.length(); d++) {
+            dimensions.add(current.get(d) + 1);
+        }
+        return dimensions;
+    }
+
+    /**
+     * Fixes the order from the given index if it is released, retrying should it be released again in the meantime
+     */
+    void assertOrder(Index index) {
+        int indexOrder = index.order();
+        while (true) {
+            int current = order.get();
+            if (current == indexOrder) return;
+            if (current >= 0) throw new IllegalArgumentException("Index order should be equal to tensor order");
+            if (order.compareAndSet(-1, indexOrder)) return;
+        }
+    }
+
+    /**
+     * Raises the tracked maxima to include the given index, which must already be present in the map
+     */
+    void track(Index index) {
+        int length = index.order();
+        AtomicLongArray current = maxima.updateAndGet(tracked -> tracked.length() == length ? tracked : new AtomicLongArray(length));
+        long[] coordinates = index.coordinates();
+        for (int d = 0; d < coordinates.length; d++) {
+            if (current.get(d) < coordinates[d]) {
+                current.accumulateAndGet(d, coordinates[d], Math::max);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the tracked maxima after a removal, and releases the order once no element remains
+     * </p>
+     * New maxima are published before the scan, and are never unset, so that a writer racing with the rebuild either
+     * updates the new maxima itself or has already put its element, which the scan then observes. On release the maxima
+     * are emptied, and a writer racing with the release fixes the order again from its own index.
+     */
+    private void retrack() {
+        int currentOrder = order.get();
+        if (currentOrder < 0) return;
+        if (map.isEmpty() && order.compareAndSet(currentOrder, -1)) {
+            maxima.set(NO_MAXIMA);
+            for (Index index : map.keySet()) {
+                assertOrder(index);
+                track(index);
+            }
+            return;
+        }
+        maxima.set(new AtomicLongArray(currentOrder));
+        map.keySet().forEach(this::track);
+    }
+
+    /**
+     * Concurrent tensor of {@link DoubleAdder} cells for high-throughput scatter-add
+     */
+    public static class DoubleSum extends ConcurrentTensor<DoubleAdder> {
+
+        protected DoubleSum() {
+            super();
+        }
+
+        /**
+         * Adds the delta to the cell at the given index without contending with other writers to the same cell
+         *
+         * @param delta the amount to add
+         * @param index the index of the cell
+         */
+        public void add(double delta, Index index) {
+            DoubleAdder adder = map.get(index);
+            if (adder == null) {
+                assertOrder(index);
+                adder = map.computeIfAbsent(index, key -> new DoubleAdder());
+                track(index);
+            }
+            adder.add(delta);
+        }
+
+        public void add(double delta, long... coordinates) {
+            add(delta, Index.of(coordinates));
+        }
+
+        public void add(double delta, int... coordinates) {
+            add(delta, Index.of(coordinates));
+        }
+
+        /**
+         * Returns a snapshot of the current sums
+         *
+         * @return the tensor of sums
+         */
+        public Tensor<Double> sum() {
+            return compute(DoubleAdder::sum);
+        }
+
+    }
+
+    /**
+     * Concurrent tensor of {@link LongAdder} cells for high-throughput scatter-add
+     */
+    public static class LongSum extends ConcurrentTensor<LongAdder> {
+
+        protected LongSum() {
+            super();
+        }
+
+        /**
+         * Adds the delta to the cell at the given index without contending with other writers to the same cell
+         *
+         * @param delta the amount to add
+         * @param index the index of the cell
+         */
+        public void add(long delta, Index index) {
+            LongAdder adder = map.get(index);
+            if (adder == null) {
+                assertOrder(index);
+                adder = map.computeIfAbsent(index, key -> new LongAdder());
+                track(index);
+            }
+            adder.add(delta);
+        }
+
+        public void add(long delta, long... coordinates) {
+            add(delta, Index.of(coordinates));
+        }
+
+        public void add(long delta, int... coordinates) {
+            add(delta, Index.of(coordinates));
+        }
+
+        /**
+         * Returns a snapshot of the current sums
+         *
+         * @return the tensor of sums
+         */
+        public Tensor<Long> sum() {
+            return compute(LongAdder::sum);
+        }
+
+    }
+
+}
@@ -0,0 +1,515 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Contraction engine for tensors
+ * <p>
+ * Einstein summation over numeric tensors contracts operands pairwise in an order chosen greedily by estimated intermediate size. Each pairwise
+ * contraction dispatches to a blocked dense kernel when both operands fully populate their bounding boxes, and to a
+ * sparse hash-join kernel otherwise.
+ * <p>
+ * Generic contraction under a {@link Semiring} always uses the sparse hash-join kernel, so its cost is proportional to
+ * the number of matched element pairs rather than to the shapes of the operands.
+ * <p>
+ * Structured operands, such as identity and banded matrices, only contribute the elements inside their band whenever
+ * their implied zero is the zero of the contraction, so they are never enumerated in full.
+ */
+final class Contraction {
+
+    private static final int BLOCK_SIZE = 64;
+    private static final long MAX_DENSE_CELLS = 1L << 26;
+
+    private Contraction() {
+    }
+
+    /**
+     * A contraction operand: its distinct dimension labels and non-zero entries
+     */
+    private record Term(int[] labels, Map<Index, Double> entries) {
+
+        int position(int label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) return i;
+            }
+            return -1;
+        }
+
+        boolean has(int label) {
+            return position(label) >= 0;
+        }
+    }
+
+    static Tensor<Double> einsum(String spec, Tensor<?>... operands) {
+        if (spec == null) throw new IllegalArgumentException("Einsum specification must not be null");
+        if (operands == null || operands.length == 0)
+            throw new IllegalArgumentException("Einsum requires at least one operand");
+
+        String normalised = spec.replace(" ", "");
+        String[] sides = normalised.split("->", -1);
+        if (sides.length > 2) throw new IllegalArgumentException("Einsum specification may contain at most one '->'");
+        String[] inputs = sides[0].split(",", -1);
+        if (inputs.length != operands.length)
+            throw new IllegalArgumentException("Einsum specification has " + inputs.length + " operands but " + operands.length + " were provided");
+
+        Map<Integer, Long> sizes = new HashMap<>();
+        Map<Integer, Integer> occurrences = new TreeMap<>();
+        Map<Integer, Long> exactSizes = new HashMap<>();
+        Map<Integer, Long> lowerBounds = new HashMap<>();
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < operands.length; i++) {
+            terms.add(toTerm(inputs[i], operands[i], sizes, occurrences));
+            checkSizes(inputs[i], operands[i], exactSizes, lowerBounds);
+        }
+        lowerBounds.forEach((label, bound) -> {
+            Long size = exactSizes.get(label);
+            if (size != null && bound > size)
+                throw new IllegalArgumentException("Label '" + (char) label.intValue() + "' has size " + size + " but an element at " + (bound - 1));
+        });
+
+        int[] output;
+        if (sides.length == 2) {
+            output = sides[1].chars().toArray();
+            validateLabels(sides[1]);
+            for (int label : output) {
+                if (!occurrences.containsKey(label))
+                    throw new IllegalArgumentException("Output label '" + (char) label + "' does not appear in any operand");
+            }
+            if (Arrays.stream(output).distinct().count() != output.length)
+                throw new IllegalArgumentException("Output labels must not repeat");
+        } else {
+            output = occurrences.entrySet().stream()
+                    .filter(entry -> entry.getValue() == 1)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
+        }
+
+        return evaluate(terms, output, sizes);
+    }
+
+    static Tensor<Double> tensordot(Tensor<?> first, Tensor<?> second, int[] axesA, int[] axesB) {
+        if (second == null) throw new IllegalArgumentException("Other tensor must not be null");
+        if (axesA == null || axesB == null || axesA.length != axesB.length)
+            throw new IllegalArgumentException("Contracted axes must be of equal length");
+        int orderA = first.order();
+        int orderB = second.order();
+        if (orderA + orderB > 52) throw new IllegalArgumentException("Combined tensor order must not exceed 52");
+
+        int[] labelsA = new int[orderA];
+        int[] labelsB = new int[orderB];
+        for (int i = 0; i < orderA; i++) labelsA[i] = label(i);
+        for (int i = 0; i < orderB; i++) labelsB[i] = label(orderA + i);
+        for (int i = 0; i < axesA.length; i++) {
+            if (axesA[i] < 0 || axesA[i] >= orderA || axesB[i] < 0 || axesB[i] >= orderB)
+                throw new IndexOutOfBoundsException("Contracted axis exceeds tensor order");
+            labelsB[axesB[i]] = labelsA[axesA[i]];
+        }
+
+        StringBuilder output = new StringBuilder();
+        Set<Integer> contractedA = new HashSet<>();
+        Set<Integer> contractedB = new HashSet<>();
+        for (int i = 0; i < axesA.length; i++) {
+            if (!contractedA.add(axesA[i]) || !contractedB.add(axesB[i]))
+                throw new IllegalArgumentException("Contracted axes must not repeat");
+        }
+        for (int i = 0; i < orderA; i++) if (!contractedA.contains(i)) output.appendCodePoint(labelsA[i]);
+        for (int i = 0; i < orderB; i++) if (!contractedB.contains(i)) output.appendCodePoint(labelsB[i]);
+
+        String spec = new String(labelsA, 0, orderA) + "," + new String(labelsB, 0, orderB) + "->" + output;
+        return einsum(spec, first, second);
+    }
+
+    static <T> Tensor<T> contract(Tensor<T> first, Tensor<T> second, int[] dimensions, int[] otherDimensions, Semiring<T> semiring) {
+        if (second == null) throw new IllegalArgumentException("Other tensor must not be null");
+        if (semiring == null) throw new IllegalArgumentException("Semiring must not be null");
+        if (dimensions == null || otherDimensions == null || dimensions.length != otherDimensions.length)
+            throw new IllegalArgumentException("Contracted dimensions must be of equal length");
+        int orderA = first.order();
+        int orderB = second.order();
+        for (int i = 0; i < dimensions.length; i++) {
+            if (dimensions[i] < 0 || dimensions[i] >= orderA || otherDimensions[i] < 0 || otherDimensions[i] >= orderB)
+                throw new IndexOutOfBoundsException("Contracted dimension exceeds tensor order");
+        }
+        if (Arrays.stream(dimensions).distinct().count() != dimensions.length || Arrays.stream(otherDimensions).distinct().count() != otherDimensions.length)
+            throw new IllegalArgumentException("Contracted dimensions must not repeat");
+
+        BinaryOperator<T> add = semiring.add();
+        BinaryOperator<T> multiply = semiring.multiply();
+        Map<Index, T> result = new HashMap<>();
+        join(entries(first, semiring.zero()), entries(second, semiring.zero()),
+                entry -> entry.getKey().select(dimensions), entry -> entry.getKey().select(otherDimensions),
+                (firstEntry, secondEntry) -> {
+                    Index index = firstEntry.getKey().constrain(dimensions).concatenate(secondEntry.getKey().constrain(otherDimensions));
+                    result.merge(index, multiply.apply(firstEntry.getValue(), secondEntry.getValue()), add);
+                });
+        return Tensor.adopt(result);
+    }
+
+    /**
+     * Returns the elements of a tensor which may contribute to a contraction, skipping the implied zeros of structured
+     * tensors whose zero is that of the contraction
+     */
+    private static <T> Collection<Map.Entry<Index, T>> entries(Tensor<T> tensor, T zero) {
+        StructuredStorage<T> structured = tensor.structured();
+        if (structured != null && Objects.equals(structured.zero, zero)) return structured.support();
+        return tensor.map.entrySet();
+    }
+
+    private static int label(int position) {
+        return position < 26 ? 'a' + position : 'A' + position - 26;
+    }
+
+    private static void validateLabels(String labels) {
+        if (!labels.chars().allMatch(Character::isLetter))
+            throw new IllegalArgumentException("Einsum labels must be letters: '" + labels + "'");
+    }
+
+    private static Term toTerm(String input, Tensor<?> operand, Map<Integer, Long> sizes, Map<Integer, Integer> occurrences) {
+        if (operand == null) throw new IllegalArgumentException("Einsum operands must not be null");
+        validateLabels(input);
+        int[] labels = input.chars().toArray();
+        if (!operand.isEmpty() && operand.order() != labels.length)
+            throw new IllegalArgumentException("Operand of order " + operand.order() + " does not match labels '" + input + "'");
+
+        int[] distinct = Arrays.stream(labels).distinct().toArray();
+        for (int label : labels) occurrences.merge(label, 1, Integer::sum);
+
+        Map<Index, Double> entries = new HashMap<>();
+        StructuredStorage<?> structured = operand.structured();
+        boolean banded = structured != null && structured.zero instanceof Number zero && zero.doubleValue() == 0;
+        Collection<? extends Map.Entry<Index, ?>> elements = banded ? structured.support() : operand.map.entrySet();
+        for (Map.Entry<Index, ?> entry : elements) {
+            long[] coordinates = entry.getKey().coordinates();
+            long[] collapsed = new long[distinct.length];
+            boolean onDiagonal = true;
+            for (int d = 0; d < labels.length && onDiagonal; d++) {
+                int position = indexOf(distinct, labels[d]);
+                if (d > indexOf(labels, labels[d])) {
+                    onDiagonal = collapsed[position] == coordinates[d];
+                } else {
+                    collapsed[position] = coordinates[d];
+                }
+            }
+            if (!onDiagonal) continue;
+            for (int i = 0; i < distinct.length; i++) sizes.merge(distinct[i], collapsed[i] + 1, Math::max);
+            entries.merge(new Index(collapsed), numeric(entry.getValue()), Double::sum);
+        }
+        if (banded) {
+            for (int label : distinct) {
+                long size = Long.MAX_VALUE;
+                for (int d = 0; d < labels.length; d++) if (labels[d] == label) size = Math.min(size, structured.shape[d]);
+                sizes.merge(label, size, Math::max);
+            }
+        }
+        return new Term(distinct, entries);
+    }
+
+    /**
+     * Records the size of each dimension of an operand under its label, which is exact if every element of the operand
+     * is present and otherwise only a lower bound, since absent trailing elements are not part of its dimensions
+     *
+     * @throws IllegalArgumentException if a label has already been given a different exact size
+     */
+    private static void checkSizes(String input, Tensor<?> operand, Map<Integer, Long> exactSizes, Map<Integer, Long> lowerBounds) {
+        if (operand.isEmpty()) return;
+        StructuredStorage<?> structured = operand.structured();
+        long[] shape = structured != null ? structured.shape : operand.dimensions().stream().mapToLong(Long::longValue).toArray();
+        boolean exact = structured != null || operand.map.size() == DensityPolicy.volume(shape);
+        for (int d = 0; d < shape.length; d++) {
+            int label = input.charAt(d);
+            if (!exact) {
+                lowerBounds.merge(label, shape[d], Math::max);
+                continue;
+            }
+            Long previous = exactSizes.putIfAbsent(label, shape[d]);
+            if (previous != null && previous != shape[d])
+                throw new IllegalArgumentException("Label '" + (char) label + "' has sizes " + previous + " and " + shape[d]);
+        }
+    }
+
+    static double numeric(Object value) {
+        if (!(value instanceof Number number))
+            throw new IllegalArgumentException("Contraction requires numeric tensor elements");
+        return number.doubleValue();
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) if (array[i] == value) return i;
+        return -1;
+    }
+
+    private static Tensor<Double> evaluate(List<Term> terms, int[] output, Map<Integer, Long> sizes) {
+        List<Term> remaining = new ArrayList<>(terms);
+        for (int i = 0; i < remaining.size(); i++) {
+            remaining.set(i, sumOut(remaining.get(i), neededLabels(remaining, i, output)));
+        }
+
+        while (remaining.size() > 1) {
+            int bestFirst = 0;
+            int bestSecond = 1;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < remaining.size(); i++) {
+                for (int j = i + 1; j < remaining.size(); j++) {
+                    double cost = estimateSize(remaining, i, j, output, sizes);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestFirst = i;
+                        bestSecond = j;
+                    }
+                }
+            }
+            Term second = remaining.remove(bestSecond);
+            Term first = remaining.remove(bestFirst);
+            remaining.add(contract(first, second, neededLabels(remaining, -1, output), sizes));
+        }
+
+        Term result = sumOut(remaining.get(0), toSet(output));
+        int[] positions = Arrays.stream(output).map(result::position).toArray();
+        Map<Index, Double> resultMap = new HashMap<>();
+        for (Map.Entry<Index, Double> entry : result.entries().entrySet()) {
+            if (output.length > 0 && entry.getValue() == 0) continue;
+            long[] coordinates = entry.getKey().coordinates();
+            long[] reordered = new long[positions.length];
+            for (int d = 0; d < positions.length; d++) reordered[d] = coordinates[positions[d]];
+            resultMap.put(new Index(reordered), entry.getValue());
+        }
+        // A scalar is always emitted, even when no pair of operand entries met
+        if (output.length == 0 && resultMap.isEmpty()) resultMap.put(Index.of(), 0.0);
+        return Tensor.adopt(resultMap);
+    }
+
+    /**
+     * Returns the labels which must survive a contraction because they appear in the output or in any term other than the one at the given position
+     */
+    private static Set<Integer> neededLabels(List<Term> terms, int position, int[] output) {
+        Set<Integer> needed = new HashSet<>(toSet(output));
+        for (int i = 0; i < terms.size(); i++) {
+            if (i == position) continue;
+            for (int label : terms.get(i).labels()) needed.add(label);
+        }
+        return needed;
+    }
+
+    private static Set<Integer> toSet(int[] labels) {
+        Set<Integer> set = new HashSet<>();
+        for (int label : labels) set.add(label);
+        return set;
+    }
+
+    private static double estimateSize(List<Term> terms, int i, int j, int[] output, Map<Integer, Long> sizes) {
+        Term first = terms.get(i);
+        Term second = terms.get(j);
+        Set<Integer> needed = toSet(output);
+        for (int k = 0; k < terms.size(); k++) {
+            if (k == i || k == j) continue;
+            for (int label : terms.get(k).labels()) needed.add(label);
+        }
+        Set<Integer> kept = new HashSet<>();
+        for (int label : first.labels()) if (needed.contains(label)) kept.add(label);
+        for (int label : second.labels()) if (needed.contains(label)) kept.add(label);
+        double dense = kept.stream().mapToDouble(label -> sizes.getOrDefault(label, 1L)).reduce(1, (a, b) -> a * b);
+        double pairs = (double) first.entries().size() * second.entries().size();
+        return Math.min(dense, pairs);
+    }
+
+    private static Term sumOut(Term term, Set<Integer> needed) {
+        int[] kept = Arrays.stream(term.labels()).filter(needed::contains).toArray();
+        if (kept.length == term.labels().length) return term;
+        int[] positions = Arrays.stream(kept).map(term::position).toArray();
+        Map<Index, Double> entries = new HashMap<>();
+        for (Map.Entry<Index, Double> entry : term.entries().entrySet()) {
+            entries.merge(project(entry.getKey().coordinates(), positions), entry.getValue(), Double::sum);
+        }
+        return new Term(kept, entries);
+    }
+
+    private static Index project(long[] coordinates, int[] positions) {
+        long[] projected = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) projected[i] = coordinates[positions[i]];
+        return new Index(projected);
+    }
+
+    private static Term contract(Term first, Term second, Set<Integer> needed, Map<Integer, Long> sizes) {
+        int[] batch = Arrays.stream(first.labels()).filter(second::has).filter(needed::contains).toArray();
+        int[] contracted = Arrays.stream(first.labels()).filter(second::has).filter(label -> !needed.contains(label)).toArray();
+        int[] freeFirst = Arrays.stream(first.labels()).filter(label -> !second.has(label)).toArray();
+        int[] freeSecond = Arrays.stream(second.labels()).filter(label -> !first.has(label)).toArray();
+
+        int[] labels = new int[batch.length + freeFirst.length + freeSecond.length];
+        System.arraycopy(batch, 0, labels, 0, batch.length);
+        System.arraycopy(freeFirst, 0, labels, batch.length, freeFirst.length);
+        System.arraycopy(freeSecond, 0, labels, batch.length + freeFirst.length, freeSecond.length);
+
+        if (isFull(first, sizes) && isFull(second, sizes)) {
+            long batches = volume(batch, sizes);
+            long left = batches * volume(freeFirst, sizes) * volume(contracted, sizes);
+            long right = batches * volume(contracted, sizes) * volume(freeSecond, sizes);
+            long result = batches * volume(freeFirst, sizes) * volume(freeSecond, sizes);
+            if (left <= MAX_DENSE_CELLS && right <= MAX_DENSE_CELLS && result <= MAX_DENSE_CELLS) {
+                return new Term(labels, denseContract(first, second, batch, contracted, freeFirst, freeSecond, sizes));
+            }
+        }
+        return new Term(labels, sparseContract(first, second, batch, contracted, freeFirst, freeSecond));
+    }
+
+    private static boolean isFull(Term term, Map<Integer, Long> sizes) {
+        return term.entries().size() == volume(term.labels(), sizes);
+    }
+
+    private static long volume(int[] labels, Map<Integer, Long> sizes) {
+        long volume = 1;
+        for (int label : labels) volume = Math.multiplyExact(volume, sizes.getOrDefault(label, 0L));
+        return volume;
+    }
+
+    /**
+     * Joins the two operands on their shared labels
+     */
+    private static Map<Index, Double> sparseContract(Term first, Term second, int[] batch, int[] contracted, int[] freeFirst, int[] freeSecond) {
+        int[] shared = new int[batch.length + contracted.length];
+        System.arraycopy(batch, 0, shared, 0, batch.length);
+        System.arraycopy(contracted, 0, shared, batch.length, contracted.length);
+        int[] firstShared = Arrays.stream(shared).map(first::position).toArray();
+        int[] secondShared = Arrays.stream(shared).map(second::position).toArray();
+
+        int[] batchPositions = Arrays.stream(batch).map(first::position).toArray();
+        int[] freeFirstPositions = Arrays.stream(freeFirst).map(first::position).toArray();
+        int[] freeSecondPositions = Arrays.stream(freeSecond).map(second::position).toArray();
+        int order = batch.length + freeFirst.length + freeSecond.length;
+
+        Map<Index, Double> result = new HashMap<>();
+        join(first.entries().entrySet(), second.entries().entrySet(),
+                entry -> project(entry.getKey().coordinates(), firstShared),
+                entry -> project(entry.getKey().coordinates(), secondShared),
+                (firstEntry, secondEntry) -> {
+                    long[] firstCoordinates = firstEntry.getKey().coordinates();
+                    long[] secondCoordinates = secondEntry.getKey().coordinates();
+                    long[] coordinates = new long[order];
+                    int d = 0;
+                    for (int position : batchPositions) coordinates[d++] = firstCoordinates[position];
+                    for (int position : freeFirstPositions) coordinates[d++] = firstCoordinates[position];
+                    for (int position : freeSecondPositions) coordinates[d++] = secondCoordinates[position];
+                    result.merge(new Index(coordinates), firstEntry.getValue() * secondEntry.getValue(), Double::sum);
+                });
+        return result;
+    }
+
+    /**
+     * Hash joins two collections of elements on their keys, by indexing the smaller collection and streaming the larger
+     * one against it, and passes every matched pair to the action in the order of the collections
+     */
+    private static <A, B> void join(Collection<A> first, Collection<B> second, Function<? super A, Index> firstKey,
+                                    Function<? super B, Index> secondKey, BiConsumer<? super A, ? super B> action) {
+        if (first.size() <= second.size()) {
+            Map<Index, List<A>> hashIndex = index(first, firstKey);
+            for (B element : second) {
+                List<A> matches = hashIndex.get(secondKey.apply(element));
+                if (matches != null) for (A match : matches) action.accept(match, element);
+            }
+        } else {
+            Map<Index, List<B>> hashIndex = index(second, secondKey);
+            for (A element : first) {
+                List<B> matches = hashIndex.get(firstKey.apply(element));
+                if (matches != null) for (B match : matches) action.accept(element, match);
+            }
+        }
+    }
+
+    private static <E> Map<Index, List<E>> index(Collection<E> elements, Function<? super E, Index> key) {
+        Map<Index, List<E>> hashIndex = new HashMap<>();
+        for (E element : elements) hashIndex.computeIfAbsent(key.apply(element), k -> new ArrayList<>()).add(element);
+        return hashIndex;
+    }
+
+    /**
+     * Lays both operands out as batched row-major matrices and multiplies them with a cache-blocked kernel
+     */
+    private static Map<Index, Double> denseContract(Term first, Term second, int[] batch, int[] contracted, int[] freeFirst, int[] freeSecond, Map<Integer, Long> sizes) {
+        int batches = (int) volume(batch, sizes);
+        int rows = (int) volume(freeFirst, sizes);
+        int inner = (int) volume(contracted, sizes);
+        int columns = (int) volume(freeSecond, sizes);
+
+        double[] left = new double[batches * rows * inner];
+        for (Map.Entry<Index, Double> entry : first.entries().entrySet()) {
+            long[] coordinates = entry.getKey().coordinates();
+            long b = offset(coordinates, first, batch, sizes);
+            long r = offset(coordinates, first, freeFirst, sizes);
+            long k = offset(coordinates, first, contracted, sizes);
+            left[(int) ((b * rows + r) * inner + k)] = entry.getValue();
+        }
+        double[] right = new double[batches * inner * columns];
+        for (Map.Entry<Index, Double> entry : second.entries().entrySet()) {
+            long[] coordinates = entry.getKey().coordinates();
+            long b = offset(coordinates, second, batch, sizes);
+            long k = offset(coordinates, second, contracted, sizes);
+            long c = offset(coordinates, second, freeSecond, sizes);
+            right[(int) ((b * inner + k) * columns + c)] = entry.getValue();
+        }
+
+        double[] product = new double[batches * rows * columns];
+        for (int b = 0; b < batches; b++) {
+            multiply(left, b * rows * inner, right, b * inner * columns, product, b * rows * columns, rows, inner, columns);
+        }
+
+        int order = batch.length + freeFirst.length + freeSecond.length;
+        Map<Index, Double> result = new HashMap<>(product.length * 4 / 3 + 1);
+        long[] coordinates = new long[order];
+        for (int cell = 0; cell < product.length; cell++) {
+            int c = cell % columns;
+            int r = (cell / columns) % rows;
+            int b = cell / columns / rows;
+            int d = unpack(b, batch, sizes, coordinates, 0);
+            d = unpack(r, freeFirst, sizes, coordinates, d);
+            unpack(c, freeSecond, sizes, coordinates, d);
+            result.put(new Index(coordinates.clone()), product[cell]);
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies row-major matrices starting at the given bases with a cache-blocked kernel, accumulating into the product
+     */
+    static void multiply(double[] left, int leftBase, double[] right, int rightBase, double[] product, int productBase, int rows, int inner, int columns) {
+        for (int rowBlock = 0; rowBlock < rows; rowBlock += BLOCK_SIZE) {
+            int rowEnd = Math.min(rowBlock + BLOCK_SIZE, rows);
+            for (int innerBlock = 0; innerBlock < inner; innerBlock += BLOCK_SIZE) {
+                int innerEnd = Math.min(innerBlock + BLOCK_SIZE, inner);
+                for (int columnBlock = 0; columnBlock < columns; columnBlock += BLOCK_SIZE) {
+                    int columnEnd = Math.min(columnBlock + BLOCK_SIZE, columns);
+                    for (int r = rowBlock; r < rowEnd; r++) {
+                        for (int k = innerBlock; k < innerEnd; k++) {
+                            double value = left[leftBase + r * inner + k];
+                            int rightRow = rightBase + k * columns;
+                            int productRow = productBase + r * columns;
+                            for (int c = columnBlock; c < columnEnd; c++) {
+                                product[productRow + c] += value * right[rightRow + c];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static long offset(long[] coordinates, Term term, int[] labels, Map<Integer, Long> sizes) {
+        long offset = 0;
+        for (int label : labels) {
+            offset = offset * sizes.get(label) + coordinates[term.position(label)];
+        }
+        return offset;
+    }
+
+    private static int unpack(long offset, int[] labels, Map<Integer, Long> sizes, long[] coordinates, int start) {
+        for (int i = labels.length - 1; i >= 0; i--) {
+            long size = sizes.get(labels[i]);
+            coordinates[start + i] = offset % size;
+            offset /= size;
+        }
+        return start + labels.length;
+    }
+
+}
@@ -0,0 +1,281 @@
+package dev.christopping.tensor;
+
+import java.util.stream.IntStream;
+
+/**
+ * Convolution and pooling of numeric tensors over their first one, two or three dimensions
+ * <p>
+ * The spatial dimensions of an input are followed by an optional dimension of input channels. Those of a kernel are
+ * followed by optional dimensions of input and then output channels, and those of the result by a dimension of output
+ * channels whenever the kernel has one. As in most neural network libraries, kernels are not flipped, i.e. each
+ * element of the result is the cross-correlation of the kernel with a window of the input.
+ * <p>
+ * Tensors are read into primitive arrays in index order, absent elements reading as zero, and every problem is treated
+ * as three dimensional by giving missing spatial dimensions a size of 1. The direct kernel accumulates one kernel
+ * element at a time into runs of the output, whereas the im2col kernel copies the windows of the input into the columns
+ * of a matrix, which is then multiplied by the kernel with the blocked kernel of {@link Contraction}. The im2col kernel
+ * is chosen when enough output channels share its columns and they fit in memory. Either kernel evaluates output
+ * channels concurrently once there is enough work.
+ */
+final class Convolution {
+
+    enum Strategy {
+        DIRECT, IM2COL
+    }
+
+    private static final int IM2COL_MINIMUM_CHANNELS = 16;
+    private static final long IM2COL_MAXIMUM_CELLS = 1L << 24;
+    private static final long PARALLEL_WORK = 1L << 18;
+    private static final int CHANNEL_BLOCK = 8;
+
+    private Convolution() {
+    }
+
+    /**
+     * Extents of a convolution or pooling problem, each spatial extent being that of dimension 0, 1 and 2 in turn
+     */
+    private record Geometry(int[] input, int[] window, int[] output, int[] stride, int[] padding, int[] dilation,
+                            int channels, int outputChannels) {
+
+        int inputVolume() {
+            return input[0] * input[1] * input[2];
+        }
+
+        int windowVolume() {
+            return window[0] * window[1] * window[2];
+        }
+
+        int outputVolume() {
+            return output[0] * output[1] * output[2];
+        }
+
+        /**
+         * Returns the first output coordinate in the given dimension whose window element at the given offset from the
+         * start of the window lies within the input
+         */
+        int first(int dimension, int offset) {
+            return Math.max(0, -Math.floorDiv(offset, stride[dimension]));
+        }
+
+        /**
+         * Returns one past the last output coordinate in the given dimension whose window element at the given offset
+         * lies within the input
+         */
+        int last(int dimension, int offset) {
+            return Math.min(output[dimension], Math.floorDiv(input[dimension] - 1 - offset, stride[dimension]) + 1);
+        }
+
+        /**
+         * Returns the offset from the start of the window at output coordinate 0 of the given window element
+         */
+        int offset(int dimension, int element) {
+            return element * dilation[dimension] - padding[dimension];
+        }
+    }
+
+    static Tensor<Double> convolve(Tensor<?> input, Tensor<?> kernel, int dimensions, int stride, int padding, int dilation) {
+        return convolve(input, kernel, dimensions, stride, padding, dilation, null);
+    }
+
+    static Tensor<Double> convolve(Tensor<?> input, Tensor<?> kernel, int dimensions, int stride, int padding, int dilation, Strategy strategy) {
+        if (kernel == null) throw new IllegalArgumentException("Kernel must not be null");
+        if (stride < 1 || dilation < 1) throw new IllegalArgumentException("Stride and dilation must be positive");
+        if (padding < 0) throw new IllegalArgumentException("Padding cannot be negative");
+        long[] inputShape = shape(input, dimensions + 1, "Input");
+        long[] kernelShape = shape(kernel, dimensions + 2, "Kernel");
+        int channels = extent(inputShape, dimensions);
+        if (extent(kernelShape, dimensions) != channels)
+            throw new IllegalArgumentException("Kernel must have as many input channels as the input [" + channels + "]");
+
+        int[] in = spatial(inputShape, dimensions);
+        int[] window = spatial(kernelShape, dimensions);
+        int[] out = new int[3];
+        int[] strides = {1, 1, 1};
+        int[] paddings = new int[3];
+        int[] dilations = {1, 1, 1};
+        for (int d = 0; d < dimensions; d++) {
+            strides[d] = stride;
+            paddings[d] = padding;
+            dilations[d] = dilation;
+        }
+        for (int d = 0; d < 3; d++) {
+            long span = in[d] + 2L * paddings[d] - (long) dilations[d] * (window[d] - 1) - 1;
+            if (span < 0) throw new IllegalArgumentException("Kernel must fit within the padded input");
+            out[d] = (int) (span / strides[d] + 1);
+        }
+        Geometry geometry = new Geometry(in, window, out, strides, paddings, dilations, channels, extent(kernelShape, dimensions + 1));
+
+        double[] x = Doubles.of(input, inputShape);
+        double[] w = Doubles.of(kernel, kernelShape);
+        double[] y = new double[Math.multiplyExact(geometry.outputChannels(), geometry.outputVolume())];
+        long columns = (long) channels * geometry.windowVolume() * geometry.outputVolume();
+        boolean parallel = geometry.outputChannels() > 1 && columns * geometry.outputChannels() >= PARALLEL_WORK;
+        if (strategy == null) {
+            strategy = geometry.outputChannels() >= IM2COL_MINIMUM_CHANNELS && columns <= IM2COL_MAXIMUM_CELLS ? Strategy.IM2COL : Strategy.DIRECT;
+        }
+        if (strategy == Strategy.IM2COL) {
+            im2col(x, w, y, geometry, parallel);
+        } else {
+            range(geometry.outputChannels(), parallel).forEach(channel -> direct(x, w, y, geometry, channel));
+        }
+
+        long[] shape = new long[kernelShape.length > dimensions + 1 ? dimensions + 1 : dimensions];
+        for (int d = 0; d < shape.length; d++) shape[d] = d < dimensions ? out[d] : geometry.outputChannels();
+        return Doubles.tensor(y, shape);
+    }
+
+    static Tensor<Double> pool(Tensor<?> input, int dimensions, int size, int stride, boolean max) {
+        if (size < 1 || stride < 1) throw new IllegalArgumentException("Window size and stride must be positive");
+        long[] inputShape = shape(input, dimensions + 1, "Input");
+        int[] in = spatial(inputShape, dimensions);
+        int[] window = {1, 1, 1};
+        int[] out = in.clone();
+        int[] strides = {1, 1, 1};
+        for (int d = 0; d < dimensions; d++) {
+            if (in[d] < size) throw new IllegalArgumentException("Window must fit within the input");
+            window[d] = size;
+            strides[d] = stride;
+            out[d] = (in[d] - size) / stride + 1;
+        }
+        int channels = extent(inputShape, dimensions);
+        Geometry geometry = new Geometry(in, window, out, strides, new int[3], new int[]{1, 1, 1}, channels, channels);
+
+        double[] x = Doubles.of(input, inputShape);
+        double[] y = new double[Math.multiplyExact(channels, geometry.outputVolume())];
+        boolean parallel = channels > 1 && (long) channels * geometry.windowVolume() * geometry.outputVolume() >= PARALLEL_WORK;
+        range(channels, parallel).forEach(channel -> pool(x, y, geometry, channel, max));
+
+        long[] shape = new long[inputShape.length > dimensions ? dimensions + 1 : dimensions];
+        for (int d = 0; d < shape.length; d++) shape[d] = d < dimensions ? out[d] : channels;
+        return Doubles.tensor(y, shape);
+    }
+
+    /**
+     * Accumulates each kernel element of the given output channel into the runs of output elements whose windows
+     * place it within the input
+     */
+    private static void direct(double[] x, double[] w, double[] y, Geometry g, int outputChannel) {
+        int[] in = g.input();
+        int[] out = g.output();
+        int outputBase = outputChannel * g.outputVolume();
+        for (int channel = 0; channel < g.channels(); channel++) {
+            int kernelBase = (outputChannel * g.channels() + channel) * g.windowVolume();
+            int inputBase = channel * g.inputVolume();
+            for (int kz = 0; kz < g.window()[2]; kz++) {
+                int offsetZ = g.offset(2, kz);
+                for (int ky = 0; ky < g.window()[1]; ky++) {
+                    int offsetY = g.offset(1, ky);
+                    for (int kx = 0; kx < g.window()[0]; kx++) {
+                        double weight = w[kernelBase + (kz * g.window()[1] + ky) * g.window()[0] + kx];
+                        if (weight == 0) continue;
+                        int offsetX = g.offset(0, kx);
+                        int firstX = g.first(0, offsetX);
+                        int lastX = g.last(0, offsetX);
+                        int strideX = g.stride()[0];
+                        for (int oz = g.first(2, offsetZ); oz < g.last(2, offsetZ); oz++) {
+                            int iz = oz * g.stride()[2] + offsetZ;
+                            for (int oy = g.first(1, offsetY); oy < g.last(1, offsetY); oy++) {
+                                int iy = oy * g.stride()[1] + offsetY;
+                                int source = inputBase + (iz * in[1] + iy) * in[0] + offsetX;
+                                int target = outputBase + (oz * out[1] + oy) * out[0];
+                                for (int ox = firstX; ox < lastX; ox++) {
+                                    y[target + ox] += weight * x[source + ox * strideX];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the window of every output element into a column of a matrix with a row per input channel and kernel
+     * element, and multiplies the kernel by it
+     */
+    private static void im2col(double[] x, double[] w, double[] y, Geometry g, boolean parallel) {
+        int[] in = g.input();
+        int[] out = g.output();
+        int rows = g.channels() * g.windowVolume();
+        int columns = g.outputVolume();
+        double[] matrix = new double[rows * columns];
+        range(rows, parallel).forEach(row -> {
+            int channel = row / g.windowVolume();
+            int element = row % g.windowVolume();
+            int offsetX = g.offset(0, element % g.window()[0]);
+            int offsetY = g.offset(1, element / g.window()[0] % g.window()[1]);
+            int offsetZ = g.offset(2, element / g.window()[0] / g.window()[1]);
+            int firstX = g.first(0, offsetX);
+            int lastX = g.last(0, offsetX);
+            int strideX = g.stride()[0];
+            for (int oz = g.first(2, offsetZ); oz < g.last(2, offsetZ); oz++) {
+                int iz = oz * g.stride()[2] + offsetZ;
+                for (int oy = g.first(1, offsetY); oy < g.last(1, offsetY); oy++) {
+                    int iy = oy * g.stride()[1] + offsetY;
+                    int source = channel * g.inputVolume() + (iz * in[1] + iy) * in[0] + offsetX;
+                    int target = row * columns + (oz * out[1] + oy) * out[0];
+                    for (int ox = firstX; ox < lastX; ox++) {
+                        matrix[target + ox] = x[source + ox * strideX];
+                    }
+                }
+            }
+        });
+        int blocks = (g.outputChannels() + CHANNEL_BLOCK - 1) / CHANNEL_BLOCK;
+        range(blocks, parallel).forEach(block -> {
+            int first = block * CHANNEL_BLOCK;
+            int count = Math.min(CHANNEL_BLOCK, g.outputChannels() - first);
+            Contraction.multiply(w, first * rows, matrix, 0, y, first * columns, count, rows, columns);
+        });
+    }
+
+    private static void pool(double[] x, double[] y, Geometry g, int channel, boolean max) {
+        int[] in = g.input();
+        int[] out = g.output();
+        int[] window = g.window();
+        int[] stride = g.stride();
+        int inputBase = channel * g.inputVolume();
+        int target = channel * g.outputVolume();
+        for (int oz = 0; oz < out[2]; oz++) {
+            for (int oy = 0; oy < out[1]; oy++) {
+                for (int ox = 0; ox < out[0]; ox++) {
+                    double result = max ? Double.NEGATIVE_INFINITY : 0;
+                    for (int kz = 0; kz < window[2]; kz++) {
+                        for (int ky = 0; ky < window[1]; ky++) {
+                            int source = inputBase + ((oz * stride[2] + kz) * in[1] + oy * stride[1] + ky) * in[0] + ox * stride[0];
+                            for (int kx = 0; kx < window[0]; kx++) {
+                                result = max ? Math.max(result, x[source + kx]) : result + x[source + kx];
+                            }
+                        }
+                    }
+                    y[target++] = max ? result : result / g.windowVolume();
+                }
+            }
+        }
+    }
+
+    private static IntStream range(int count, boolean parallel) {
+        IntStream range = IntStream.range(0, count);
+        return parallel ? range.parallel() : range;
+    }
+
+    private static long[] shape(Tensor<?> tensor, int maximumOrder, String name) {
+        if (tensor.isEmpty()) throw new IllegalStateException(name + " must not be empty");
+        long[] shape = Doubles.shape(tensor);
+        if (shape.length > maximumOrder) throw new IllegalArgumentException(name + " must be of order at most " + maximumOrder);
+        return shape;
+    }
+
+    /**
+     * Returns the first three dimensions of the given shape, of which only the given number are spatial
+     */
+    private static int[] spatial(long[] shape, int dimensions) {
+        int[] spatial = {1, 1, 1};
+        for (int d = 0; d < Math.min(dimensions, shape.length); d++) spatial[d] = Math.toIntExact(shape[d]);
+        return spatial;
+    }
+
+    private static int extent(long[] shape, int dimension) {
+        return dimension < shape.length ? Math.toIntExact(shape[dimension]) : 1;
+    }
+
+}
@@ -0,0 +1,398 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copy-on-write {@link Map} wrapper used as the default tensor storage
+ * <p>
+ * {@link #share()} returns a new wrapper over the same underlying {@link HashMap} in O(1). Whichever wrapper is
+ * written to first while the underlying map is shared copies it before writing, so sharers never observe each other's
+ * writes. Views returned by {@link #entrySet()}, {@link #keySet()} and {@link #values()} are read-only.
+ * <p>
+ * The count of sharers is atomic, since wrappers sharing a map may belong to tensors written from different threads. A
+ * writer releases its share only once it has finished copying, so a wrapper never writes in place while another is
+ * still copying from the same map; two wrappers which copy concurrently both copy, and the map is left to the garbage
+ * collector. A wrapper which is garbage collected without being written to never releases its share, so the last
+ * remaining wrapper still copies the map once before its first write.
+ * <p>
+ * Each wrapper also carries an optional element type tag, asserting that every value is an instance of that type. The
+ * tag is cleared as soon as a value which does not match it is written.
+ * <p>
+ * Unless constructed {@link #fixed(Map) fixed}, the underlying map adapts to the density of its {@link Index} keys: it
+ * migrates to {@link DenseStorage} once the elements densely fill their bounding box with values of a single primitive
+ * type, and back to a {@link HashMap} once they no longer do, as set out by {@link DensityPolicy}. The bounding box only
+ * grows as elements are written, so removing elements lowers the density. Implicit {@link StructuredStorage}, as well as
+ * {@link PackedKeyStorage} and {@link CsrStorage} chosen by the {@link StorageAdvisor}, are kept until an element is
+ * removed or written which they cannot hold, when they are materialized into a hash map.
+ * <p>
+ * A wrapper constructed as a {@link #view(Map) view} reads through to a map it does not own, such as storage laid out
+ * afresh over the buffer of another tensor, and copies it into storage of its own before the first write. A view may
+ * hold a share {@link #view(Map, Map) captured} from the wrapper of that tensor, which it releases once it has copied,
+ * so that the tensor need not copy its own storage before writing to it from then on.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class CopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+
+    private Storage<K, V> storage;
+    private Class<?> elementType;
+
+    CopyOnWriteMap() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * Wraps the provided map, which must not be referenced or modified elsewhere afterwards
+     */
+    CopyOnWriteMap(Map<K, V> owned) {
+        this.storage = new Storage<>(owned, true);
+    }
+
+    /**
+     * Wraps the provided map without ever migrating it to a different layout
+     */
+    static <K, V> CopyOnWriteMap<K, V> fixed(Map<K, V> owned) {
+        return new CopyOnWriteMap<>(new Storage<>(owned, false), null);
+    }
+
+    /**
+     * Wraps a view over storage owned elsewhere, which is never written to but copied before the first write
+     */
+    static <K, V> CopyOnWriteMap<K, V> view(Map<K, V> view) {
+        return view(view, null);
+    }
+
+    /**
+     * Wraps a view over storage captured from another wrapper by {@link #share()}, releasing the share once the view has
+     * been copied; storage captured any other way is not released
+     */
+    static <K, V> CopyOnWriteMap<K, V> view(Map<K, V> view, Map<?, ?> captured) {
+        return new CopyOnWriteMap<>(new Storage<>(view, captured instanceof CopyOnWriteMap<?, ?> shared ? shared : null), null);
+    }
+
+    private CopyOnWriteMap(Storage<K, V> storage, Class<?> elementType) {
+        this.storage = storage;
+        this.elementType = elementType;
+    }
+
+    /**
+     * Returns a new wrapper sharing the underlying map in O(1)
+     *
+     * @return the sharing wrapper
+     */
+    CopyOnWriteMap<K, V> share() {
+        storage.sharers.incrementAndGet();
+        return new CopyOnWriteMap<>(storage, elementType);
+    }
+
+    /**
+     * Returns whether all values are known to be instances of the given type, without inspecting them
+     */
+    boolean isKnownToContain(Class<?> type) {
+        return elementType != null && type.isAssignableFrom(elementType);
+    }
+
+    /**
+     * Records that all values are instances of the given type
+     */
+    void elementType(Class<?> type) {
+        this.elementType = type;
+    }
+
+    /**
+     * Returns the map currently underlying this wrapper, which must not be modified
+     */
+    Map<K, V> backing() {
+        return storage.map;
+    }
+
+    /**
+     * Returns the map underlying this wrapper once it is shared with no other, whose values may then be overwritten in
+     * place, though its keys must not change
+     */
+    Map<K, V> exclusive() {
+        return writable().map;
+    }
+
+    private Storage<K, V> writable() {
+        if (storage.sharers.get() > 0) {
+            Storage<K, V> shared = storage;
+            storage = shared.copy();
+            shared.release();
+        } else if (storage.view) {
+            Storage<K, V> view = storage;
+            storage = view.copy();
+            view.release();
+        }
+        return storage;
+    }
+
+    private void checkElementType(V value) {
+        if (elementType != null && !elementType.isInstance(value)) {
+            elementType = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return storage.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return storage.map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return storage.map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return storage.map.containsValue(value);
+    }
+
+    @Override
+    public V get(Object key) {
+        return storage.map.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return storage.map.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkElementType(value);
+        return writable().put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (storage.map.containsKey(key)) return storage.map.get(key);
+        checkElementType(value);
+        return writable().put(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        map.values().forEach(this::checkElementType);
+        Storage<K, V> writable = writable();
+        map.forEach(writable::put);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!storage.map.containsKey(key)) return null;
+        return writable().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        storage.release();
+        storage = new Storage<>(new HashMap<>(), storage.adaptive);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return Collections.unmodifiableMap(storage.map).entrySet();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(storage.map.keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return Collections.unmodifiableCollection(storage.map.values());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof CopyOnWriteMap<?, ?> other) return storage.map.equals(other.storage.map);
+        return storage.map.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return storage.map.hashCode();
+    }
+
+    private static final class Storage<K, V> {
+        private final boolean adaptive;
+        private final boolean view;
+        private final Storage<?, ?> captured;
+        private Map<K, V> map;
+        private final AtomicInteger sharers = new AtomicInteger();
+        private long[] extents;
+        private long volume;
+        private Class<?> valueClass;
+        private boolean uniform = true;
+
+        private Storage(Map<K, V> map, boolean adaptive) {
+            this.map = map;
+            this.adaptive = adaptive;
+            this.view = false;
+            this.captured = null;
+            if (adaptive && map instanceof DenseStorage<?> dense && dense.isFull()) {
+                extents = dense.shape.clone();
+                volume = dense.volume();
+                valueClass = dense.elementType();
+            } else if (adaptive && map instanceof StructuredStorage<?> structured) {
+                extents = structured.shape.clone();
+                volume = DensityPolicy.volume(extents);
+                valueClass = structured.valueClass();
+            } else if (adaptive && !map.isEmpty()) {
+                map.forEach(this::track);
+                if (!(map instanceof PackedKeyStorage<?>) && !(map instanceof CsrStorage<?>)) densifyIfDense();
+            }
+        }
+
+        /**
+         * Creates storage over a view, which is only tracked once copied, holding a share of the storage it was captured
+         * from, if any
+         */
+        private Storage(Map<K, V> view, CopyOnWriteMap<?, ?> captured) {
+            this.map = view;
+            this.adaptive = true;
+            this.view = true;
+            this.captured = captured == null ? null : captured.storage;
+        }
+
+        private Storage(Map<K, V> map, Storage<K, V> tracking) {
+            this.map = map;
+            this.adaptive = tracking.adaptive;
+            this.view = false;
+            this.captured = null;
+            this.extents = tracking.extents == null ? null : tracking.extents.clone();
+            this.volume = tracking.volume;
+            this.valueClass = tracking.valueClass;
+            this.uniform = tracking.uniform;
+        }
+
+        /**
+         * Records that a wrapper no longer refers to this storage, once it has finished reading from it, releasing the
+         * storage it was captured from once no wrapper refers to it
+         */
+        private void release() {
+            if (sharers.getAndUpdate(count -> Math.max(count - 1, 0)) == 0 && captured != null) captured.release();
+        }
+
+        private Storage<K, V> copy() {
+            if (view) return new Storage<>(copyOf(map), adaptive);
+            return new Storage<>(copyOf(map), this);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> Map<K, V> copyOf(Map<K, V> map) {
+            if (map instanceof DenseStorage<?> dense) return (Map<K, V>) dense.copy();
+            if (map instanceof StructuredStorage<?> structured) return (Map<K, V>) structured.copy();
+            if (map instanceof PackedKeyStorage<?> packed) return (Map<K, V>) packed.copy();
+            if (map instanceof CsrStorage<?> csr) return (Map<K, V>) csr.copy();
+            return new HashMap<>(map);
+        }
+
+        private V put(K key, V value) {
+            if (!adaptive) return map.put(key, value);
+            track(key, value);
+            if (map instanceof DenseStorage<?> dense && !fits(dense, key, value)) relayout(dense);
+            if (!accepts(map, key, value)) {
+                map = new HashMap<>(map);
+                V previous = map.put(key, value);
+                densifyIfDense();
+                return previous;
+            }
+            V previous = map.put(key, value);
+            if (previous == null && !(map instanceof DenseStorage<?>)) densifyIfDense();
+            return previous;
+        }
+
+        private V remove(Object key) {
+            if (map instanceof StructuredStorage<?> || map instanceof CsrStorage<?>) map = new HashMap<>(map);
+            V previous = map.remove(key);
+            if (adaptive && map instanceof DenseStorage<?> && DensityPolicy.shouldSparsify(map.size(), volume)) {
+                map = new HashMap<>(map);
+            }
+            return previous;
+        }
+
+        /**
+         * Returns whether the given map can hold an element without being materialized into a hash map
+         */
+        private static boolean accepts(Map<?, ?> map, Object key, Object value) {
+            if (map instanceof StructuredStorage<?> structured) return structured.accepts(key, value);
+            if (map instanceof PackedKeyStorage<?> packed) return packed.accepts(key);
+            if (map instanceof CsrStorage<?> csr) return csr.accepts(key);
+            return true;
+        }
+
+        /**
+         * Extends the bounding box and common value class to include the given element
+         */
+        private void track(K key, V value) {
+            if (!uniform) return;
+            if (!(key instanceof Index index) || (extents != null && index.order() != extents.length)) {
+                uniform = false;
+                return;
+            }
+            if (extents == null) {
+                extents = new long[index.order()];
+                volume = DensityPolicy.volume(extents);
+            }
+            boolean grown = false;
+            for (int d = 0; d < extents.length; d++) {
+                if (index.get(d) >= extents[d]) {
+                    extents[d] = index.get(d) + 1;
+                    grown = true;
+                }
+            }
+            if (grown) volume = DensityPolicy.volume(extents);
+            if (value == null || (valueClass != null && valueClass != value.getClass())) {
+                valueClass = Object.class;
+            } else if (valueClass == null) {
+                valueClass = value.getClass();
+            }
+        }
+
+        private Dtype dtype() {
+            return uniform && valueClass != null ? Dtype.exact(valueClass).orElse(null) : null;
+        }
+
+        private static boolean fits(DenseStorage<?> dense, Object key, Object value) {
+            return value != null && value.getClass() == dense.elementType() && key instanceof Index index && dense.offset(index) >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void densifyIfDense() {
+            Dtype dtype = dtype();
+            if (!DensityPolicy.shouldDensify(map.size(), volume, dtype)) return;
+            DenseStorage<V> dense = (DenseStorage<V>) DenseStorage.allocate(dtype, extents.clone());
+            dense.putAll((Map<Index, V>) map);
+            map = (Map<K, V>) dense;
+        }
+
+        /**
+         * Migrates dense storage which cannot hold an element about to be written, either to larger dense storage or
+         * back to a hash map
+         */
+        @SuppressWarnings("unchecked")
+        private void relayout(DenseStorage<?> dense) {
+            Dtype dtype = dtype();
+            long[] shape = uniform ? DensityPolicy.grow(dense.shape, extents) : null;
+            if (dtype != null && !DensityPolicy.shouldSparsify(map.size() + 1, volume)
+                    && DensityPolicy.fits(DensityPolicy.volume(shape), dtype)) {
+                DenseStorage<V> grown = (DenseStorage<V>) DenseStorage.allocate(dtype, shape);
+                grown.putAll((Map<Index, V>) map);
+                map = (Map<K, V>) grown;
+            } else {
+                map = new HashMap<>(map);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Compressed sparse row {@link Map} implementation for order 2 tensors
+ * <p>
+ * Rows are the second dimension and columns the first, as for {@link Matrix}. The column indices of each row are held
+ * sorted in a single primitive array delimited by row pointers, so an element is found by binary search within its row
+ * and entries are iterated in index order. The sparsity structure is fixed on construction: present elements may be
+ * replaced, but elements cannot be added or removed.
+ *
+ * @param <T> element value type
+ */
+final class CsrStorage<T> extends AbstractMap<Index, T> {
+
+    final long[] shape;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final Object[] values;
+
+    private CsrStorage(long[] shape, int[] rowPointers, int[] columnIndices, Object[] values) {
+        this.shape = shape;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Copies the given order 2 storage into compressed sparse row storage of the given shape
+     *
+     * @throws IllegalArgumentException if the shape is not of order 2, cannot be addressed by int indices, or does not
+     *                                  contain every index of the storage
+     */
+    static <T> CsrStorage<T> of(Map<Index, T> storage, long[] shape) {
+        if (shape.length != 2) throw new IllegalArgumentException("Compressed sparse row storage must be of order 2");
+        if (shape[0] > Integer.MAX_VALUE || shape[1] >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Compressed sparse row storage cannot exceed " + Integer.MAX_VALUE + " rows or columns");
+        List<Entry<Index, T>> entries = new ArrayList<>(storage.entrySet());
+        entries.sort(Entry.comparingByKey());
+        int[] rowPointers = new int[(int) shape[1] + 1];
+        int[] columnIndices = new int[entries.size()];
+        Object[] values = new Object[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            Index index = entries.get(i).getKey();
+            if (index.order() != 2 || index.get(0) >= shape[0] || index.get(1) >= shape[1])
+                throw new IllegalArgumentException("Index " + index + " is outside the shape " + Arrays.toString(shape));
+            rowPointers[(int) index.get(1) + 1]++;
+            columnIndices[i] = (int) index.get(0);
+            values[i] = entries.get(i).getValue();
+        }
+        for (int row = 0; row < shape[1]; row++) rowPointers[row + 1] += rowPointers[row];
+        return new CsrStorage<>(shape.clone(), rowPointers, columnIndices, values);
+    }
+
+    /**
+     * Returns a copy of this storage, sharing its sparsity structure, which never changes
+     */
+    CsrStorage<T> copy() {
+        return new CsrStorage<>(shape, rowPointers, columnIndices, values.clone());
+    }
+
+    private int find(Object key) {
+        if (!(key instanceof Index index) || index.order() != 2) return -1;
+        long column = index.get(0);
+        long row = index.get(1);
+        if (column >= shape[0] || row >= shape[1]) return -1;
+        int position = Arrays.binarySearch(columnIndices, rowPointers[(int) row], rowPointers[(int) row + 1], (int) column);
+        return Math.max(position, -1);
+    }
+
+    /**
+     * Returns whether an element can be written at the given index, which it can only if an element is present there
+     */
+    boolean accepts(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(Object key) {
+        int position = find(key);
+        return position < 0 ? null : (T) values[position];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T put(Index key, T value) {
+        int position = find(key);
+        if (position < 0)
+            throw new UnsupportedOperationException("Cannot add elements to compressed sparse row storage");
+        T previous = (T) values[position];
+        values[position] = value;
+        return previous;
+    }
+
+    @Override
+    public T remove(Object key) {
+        throw new UnsupportedOperationException("Cannot remove elements from compressed sparse row storage");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Cannot remove elements from compressed sparse row storage");
+    }
+
+    @Override
+    public Set<Entry<Index, T>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public Iterator<Entry<Index, T>> iterator() {
+                return new Iterator<>() {
+                    private int position = 0;
+                    private int row = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < values.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Index, T> next() {
+                        if (position >= values.length) throw new NoSuchElementException();
+                        while (rowPointers[row + 1] <= position) row++;
+                        Entry<Index, T> entry = new SimpleImmutableEntry<>(Index.of(columnIndices[position], row), (T) values[position]);
+                        position++;
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,526 @@
+package dev.christopping.tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/**
+ * Dense {@link Map} implementation backed by a primitive NIO buffer
+ * <p>
+ * The element at an index is located in the buffer by its coordinates multiplied by per-dimension strides, so heap
+ * arrays and memory-mapped files can be used without copying. Storage wrapping an existing buffer initially has every
+ * index within the shape present, whereas {@link #allocate(Dtype, long[]) allocated} storage starts empty and tracks
+ * which indices are present in a bitmap. Elements may be added, replaced and removed within the shape, but not outside it.
+ *
+ * @param <T> element value type
+ */
+abstract class DenseStorage<T> extends AbstractMap<Index, T> {
+
+    final long[] shape;
+    final long[] strides;
+    private final int volume;
+    private long[] presence;
+    private int size;
+
+    DenseStorage(long[] shape, long[] strides) {
+        if (shape.length != strides.length)
+            throw new IllegalArgumentException("Shape and strides must have the same order");
+        long volume = 1;
+        for (long dimension : shape) {
+            if (dimension < 0) throw new IllegalArgumentException("Dimensions cannot be negative");
+            volume *= dimension;
+        }
+        if (volume > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Dense storage cannot exceed " + Integer.MAX_VALUE + " elements");
+        this.shape = shape.clone();
+        this.strides = strides.clone();
+        this.volume = (int) volume;
+        this.size = this.volume;
+    }
+
+    /**
+     * Allocates empty, contiguous heap storage of the given dtype and shape
+     */
+    static DenseStorage<?> allocate(Dtype dtype, long[] shape) {
+        long volume = 1;
+        for (long dimension : shape) volume *= dimension;
+        if (volume * dtype.width() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Dense storage cannot exceed " + Integer.MAX_VALUE + " bytes");
+        DenseStorage<?> storage = dtype.storage(ByteBuffer.allocate((int) volume * dtype.width()).order(ByteOrder.nativeOrder()),
+                shape, contiguousStrides(shape));
+        storage.presence = new long[(storage.volume + 63) / 64];
+        storage.size = 0;
+        return storage;
+    }
+
+    /**
+     * Returns the strides of a contiguous layout in which dimension 0 varies fastest, i.e. in index order
+     */
+    static long[] contiguousStrides(long[] shape) {
+        long[] strides = new long[shape.length];
+        long stride = 1;
+        for (int d = 0; d < shape.length; d++) {
+            strides[d] = stride;
+            stride *= shape[d];
+        }
+        return strides;
+    }
+
+    /**
+     * Returns the strides of a contiguous layout in which the highest dimension varies fastest
+     */
+    static long[] reversedStrides(long[] shape) {
+        long[] strides = new long[shape.length];
+        long stride = 1;
+        for (int d = shape.length - 1; d >= 0; d--) {
+            strides[d] = stride;
+            stride *= shape[d];
+        }
+        return strides;
+    }
+
+    static DenseStorage<Double> ofDoubles(DoubleBuffer buffer, long[] shape, long[] strides) {
+        return new OfDouble(buffer, shape, strides);
+    }
+
+    static DenseStorage<Float> ofFloats(FloatBuffer buffer, long[] shape, long[] strides) {
+        return new OfFloat(buffer, shape, strides);
+    }
+
+    static DenseStorage<Integer> ofInts(IntBuffer buffer, long[] shape, long[] strides) {
+        return new OfInt(buffer, shape, strides);
+    }
+
+    static DenseStorage<Long> ofLongs(LongBuffer buffer, long[] shape, long[] strides) {
+        return new OfLong(buffer, shape, strides);
+    }
+
+    static DenseStorage<Boolean> ofBooleans(ByteBuffer buffer, long[] shape, long[] strides) {
+        return new OfBoolean(buffer, shape, strides);
+    }
+
+    /**
+     * Returns the type of every element of this storage
+     */
+    abstract Class<T> elementType();
+
+    abstract T read(int offset);
+
+    abstract void write(int offset, T value);
+
+    /**
+     * Copies a primitive array of the element type into the buffer from the given offset, without boxing
+     */
+    abstract void writePrimitives(int offset, Object primitives);
+
+    /**
+     * Copies a run of elements from the given offset of this buffer into the buffer of storage of the same dtype
+     */
+    abstract void copyTo(int offset, DenseStorage<T> target, int targetOffset, int length);
+
+    /**
+     * Returns a heap copy of this storage with the same layout and present indices
+     */
+    abstract DenseStorage<T> copy();
+
+    /**
+     * Returns storage over the same buffer with the given layout and the present indices of this storage, which is only
+     * valid when the layout addresses exactly the offsets addressed by this one
+     */
+    abstract DenseStorage<T> restride(long[] shape, long[] strides);
+
+    <S extends DenseStorage<T>> S withPresenceOf(DenseStorage<T> source) {
+        this.presence = source.presence == null ? null : source.presence.clone();
+        this.size = source.size;
+        @SuppressWarnings("unchecked") S copy = (S) this;
+        return copy;
+    }
+
+    /**
+     * Returns whether every index within the shape is present
+     */
+    boolean isFull() {
+        return size == volume;
+    }
+
+    int volume() {
+        return volume;
+    }
+
+    int presenceWords() {
+        return presence == null ? 0 : presence.length;
+    }
+
+    private boolean isPresent(int offset) {
+        return presence == null || (presence[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    /**
+     * Returns the buffer offset of the given index, or -1 if it is outside the shape
+     */
+    int offset(Index index) {
+        long[] coordinates = index.coordinates();
+        if (coordinates.length != shape.length) return -1;
+        long offset = 0;
+        for (int d = 0; d < coordinates.length; d++) {
+            if (coordinates[d] >= shape[d]) return -1;
+            offset += coordinates[d] * strides[d];
+        }
+        return (int) offset;
+    }
+
+    /**
+     * Returns whether the layout is contiguous in index order, i.e. the buffer can be traversed sequentially
+     */
+    boolean isContiguous() {
+        return Arrays.equals(strides, contiguousStrides(shape));
+    }
+
+    /**
+     * Returns the shape as tensor dimensions, which only coincide with the dimensions of the tensor when it is full
+     */
+    List<Long> dimensions() {
+        List<Long> dimensions = new ArrayList<>(shape.length);
+        if (volume == 0) return dimensions;
+        for (long dimension : shape) dimensions.add(dimension);
+        return dimensions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Index index)) return false;
+        int offset = offset(index);
+        return offset >= 0 && isPresent(offset);
+    }
+
+    @Override
+    public T get(Object key) {
+        if (!(key instanceof Index index)) return null;
+        int offset = offset(index);
+        return offset < 0 || !isPresent(offset) ? null : read(offset);
+    }
+
+    @Override
+    public T put(Index key, T value) {
+        int offset = offset(key);
+        if (offset < 0) throw new UnsupportedOperationException("Cannot add index " + key + " outside dense storage shape");
+        if (value == null) throw new UnsupportedOperationException("Dense storage cannot contain null elements");
+        T previous = null;
+        if (isPresent(offset)) {
+            previous = read(offset);
+        } else {
+            presence[offset >>> 6] |= 1L << offset;
+            size++;
+        }
+        write(offset, value);
+        return previous;
+    }
+
+    @Override
+    public T remove(Object key) {
+        if (!(key instanceof Index index)) return null;
+        int offset = offset(index);
+        if (offset < 0 || !isPresent(offset)) return null;
+        if (presence == null) {
+            presence = new long[(volume + 63) / 64];
+            Arrays.fill(presence, -1L);
+        }
+        T previous = read(offset);
+        presence[offset >>> 6] &= ~(1L << offset);
+        size--;
+        return previous;
+    }
+
+    /**
+     * Marks every index of the shape as present, once an element has been written at every offset
+     */
+    void markFull() {
+        presence = null;
+        size = volume;
+    }
+
+    @Override
+    public void clear() {
+        presence = new long[(volume + 63) / 64];
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Index, T>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Index, T>> iterator() {
+                return new Iterator<>() {
+                    private final long[] coordinates = new long[shape.length];
+                    private int remaining = size;
+                    private long offset = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0;
+                    }
+
+                    @Override
+                    public Entry<Index, T> next() {
+                        if (remaining == 0) throw new NoSuchElementException();
+                        while (!isPresent((int) offset)) advance();
+                        Entry<Index, T> entry = new SimpleImmutableEntry<>(new Index(coordinates.clone()), read((int) offset));
+                        remaining--;
+                        if (remaining > 0) advance();
+                        return entry;
+                    }
+
+                    private void advance() {
+                        for (int d = 0; d < coordinates.length; d++) {
+                            offset += strides[d];
+                            if (++coordinates[d] < shape[d]) break;
+                            offset -= strides[d] * shape[d];
+                            coordinates[d] = 0;
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    static final class OfDouble extends DenseStorage<Double> {
+        final DoubleBuffer buffer;
+
+        OfDouble(DoubleBuffer buffer, long[] shape, long[] strides) {
+            super(shape, strides);
+            this.buffer = buffer;
+        }
+
+        @Override
+        Class<Double> elementType() {
+            return Double.class;
+        }
+
+        @Override
+        Double read(int offset) {
+            return buffer.get(offset);
+        }
+
+        @Override
+        void write(int offset, Double value) {
+            buffer.put(offset, value);
+        }
+
+        @Override
+        void writePrimitives(int offset, Object primitives) {
+            buffer.put(offset, (double[]) primitives);
+        }
+
+        @Override
+        void copyTo(int offset, DenseStorage<Double> target, int targetOffset, int length) {
+            ((OfDouble) target).buffer.put(targetOffset, buffer, offset, length);
+        }
+
+        @Override
+        OfDouble copy() {
+            DoubleBuffer copy = DoubleBuffer.allocate(volume()).put(buffer.duplicate().clear().limit(volume()));
+            return new OfDouble(copy, shape, strides).withPresenceOf(this);
+        }
+
+        @Override
+        OfDouble restride(long[] shape, long[] strides) {
+            return new OfDouble(buffer, shape, strides).withPresenceOf(this);
+        }
+    }
+
+    static final class OfFloat extends DenseStorage<Float> {
+        final FloatBuffer buffer;
+
+        OfFloat(FloatBuffer buffer, long[] shape, long[] strides) {
+            super(shape, strides);
+            this.buffer = buffer;
+        }
+
+        @Override
+        Class<Float> elementType() {
+            return Float.class;
+        }
+
+        @Override
+        Float read(int offset) {
+            return buffer.get(offset);
+        }
+
+        @Override
+        void write(int offset, Float value) {
+            buffer.put(offset, value);
+        }
+
+        @Override
+        void writePrimitives(int offset, Object primitives) {
+            buffer.put(offset, (float[]) primitives);
+        }
+
+        @Override
+        void copyTo(int offset, DenseStorage<Float> target, int targetOffset, int length) {
+            ((OfFloat) target).buffer.put(targetOffset, buffer, offset, length);
+        }
+
+        @Override
+        OfFloat copy() {
+            FloatBuffer copy = FloatBuffer.allocate(volume()).put(buffer.duplicate().clear().limit(volume()));
+            return new OfFloat(copy, shape, strides).withPresenceOf(this);
+        }
+
+        @Override
+        OfFloat restride(long[] shape, long[] strides) {
+            return new OfFloat(buffer, shape, strides).withPresenceOf(this);
+        }
+    }
+
+    static final class OfInt extends DenseStorage<Integer> {
+        final IntBuffer buffer;
+
+        OfInt(IntBuffer buffer, long[] shape, long[] strides) {
+            super(shape, strides);
+            this.buffer = buffer;
+        }
+
+        @Override
+        Class<Integer> elementType() {
+            return Integer.class;
+        }
+
+        @Override
+        Integer read(int offset) {
+            return buffer.get(offset);
+        }
+
+        @Override
+        void write(int offset, Integer value) {
+            buffer.put(offset, value);
+        }
+
+        @Override
+        void writePrimitives(int offset, Object primitives) {
+            buffer.put(offset, (int[]) primitives);
+        }
+
+        @Override
+        void copyTo(int offset, DenseStorage<Integer> target, int targetOffset, int length) {
+            ((OfInt) target).buffer.put(targetOffset, buffer, offset, length);
+        }
+
+        @Override
+        OfInt copy() {
+            IntBuffer copy = IntBuffer.allocate(volume()).put(buffer.duplicate().clear().limit(volume()));
+            return new OfInt(copy, shape, strides).withPresenceOf(this);
+        }
+
+        @Override
+        OfInt restride(long[] shape, long[] strides) {
+            return new OfInt(buffer, shape, strides).withPresenceOf(this);
+        }
+    }
+
+    static final class OfLong extends DenseStorage<Long> {
+        final LongBuffer buffer;
+
+        OfLong(LongBuffer buffer, long[] shape, long[] strides) {
+            super(shape, strides);
+            this.buffer = buffer;
+        }
+
+        @Override
+        Class<Long> elementType() {
+            return Long.class;
+        }
+
+        @Override
+        Long read(int offset) {
+            return buffer.get(offset);
+        }
+
+        @Override
+        void write(int offset, Long value) {
+            buffer.put(offset, value);
+        }
+
+        @Override
+        void writePrimitives(int offset, Object primitives) {
+            buffer.put(offset, (long[]) primitives);
+        }
+
+        @Override
+        void copyTo(int offset, DenseStorage<Long> target, int targetOffset, int length) {
+            ((OfLong) target).buffer.put(targetOffset, buffer, offset, length);
+        }
+
+        @Override
+        OfLong copy() {
+            LongBuffer copy = LongBuffer.allocate(volume()).put(buffer.duplicate().clear().limit(volume()));
+            return new OfLong(copy, shape, strides).withPresenceOf(this);
+        }
+
+        @Override
+        OfLong restride(long[] shape, long[] strides) {
+            return new OfLong(buffer, shape, strides).withPresenceOf(this);
+        }
+    }
+
+    static final class OfBoolean extends DenseStorage<Boolean> {
+        final ByteBuffer buffer;
+
+        OfBoolean(ByteBuffer buffer, long[] shape, long[] strides) {
+            super(shape, strides);
+            this.buffer = buffer;
+        }
+
+        @Override
+        Class<Boolean> elementType() {
+            return Boolean.class;
+        }
+
+        @Override
+        Boolean read(int offset) {
+            return buffer.get(offset) != 0;
+        }
+
+        @Override
+        void write(int offset, Boolean value) {
+            buffer.put(offset, (byte) (value ? 1 : 0));
+        }
+
+        @Override
+        void writePrimitives(int offset, Object primitives) {
+            boolean[] values = (boolean[]) primitives;
+            for (int i = 0; i < values.length; i++) buffer.put(offset + i, (byte) (values[i] ? 1 : 0));
+        }
+
+        @Override
+        void copyTo(int offset, DenseStorage<Boolean> target, int targetOffset, int length) {
+            ((OfBoolean) target).buffer.put(targetOffset, buffer, offset, length);
+        }
+
+        @Override
+        OfBoolean copy() {
+            ByteBuffer copy = ByteBuffer.allocate(volume()).put(buffer.duplicate().clear().limit(volume()));
+            return new OfBoolean(copy, shape, strides).withPresenceOf(this);
+        }
+
+        @Override
+        OfBoolean restride(long[] shape, long[] strides) {
+            return new OfBoolean(buffer, shape, strides).withPresenceOf(this);
+        }
+    }
+
+}
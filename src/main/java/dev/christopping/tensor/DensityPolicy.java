@@ -0,0 +1,79 @@
+package dev.christopping.tensor;
+
+/**
+ * Thresholds at which default tensor storage migrates between hashed and dense primitive layouts
+ * <p>
+ * Density is the number of elements divided by the volume of their bounding box. Storage becomes dense once it holds at
+ * least {@link #MINIMUM_DENSE_SIZE} elements of a single primitive type with a density of at least
+ * {@link #DENSE_THRESHOLD}, and becomes hashed again once its density falls below {@link #SPARSE_THRESHOLD}. The gap
+ * between the two thresholds keeps storage hovering around either of them from migrating back and forth.
+ * <p>
+ * The thresholds are read once from the system properties {@code dev.christopping.tensor.denseThreshold},
+ * {@code dev.christopping.tensor.sparseThreshold} and {@code dev.christopping.tensor.minimumDenseSize}. A dense
+ * threshold above 1 disables dense storage altogether.
+ */
+final class DensityPolicy {
+
+    static final double DENSE_THRESHOLD = property("dev.christopping.tensor.denseThreshold", 0.5);
+    static final double SPARSE_THRESHOLD = Math.min(property("dev.christopping.tensor.sparseThreshold", 0.25), DENSE_THRESHOLD);
+    static final int MINIMUM_DENSE_SIZE = (int) property("dev.christopping.tensor.minimumDenseSize", 1024);
+
+    private DensityPolicy() {
+    }
+
+    private static double property(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("System property " + name + " must be a number", e);
+        }
+    }
+
+    /**
+     * Returns whether hashed storage of the given size, bounding box volume and dtype should become dense
+     */
+    static boolean shouldDensify(int size, long volume, Dtype dtype) {
+        return dtype != null && size >= MINIMUM_DENSE_SIZE && size >= DENSE_THRESHOLD * volume && fits(volume, dtype);
+    }
+
+    /**
+     * Returns whether dense storage of the given size and bounding box volume should become hashed
+     */
+    static boolean shouldSparsify(int size, long volume) {
+        return size < SPARSE_THRESHOLD * volume;
+    }
+
+    /**
+     * Returns whether a dense buffer of the given volume and dtype can be allocated
+     */
+    static boolean fits(long volume, Dtype dtype) {
+        return volume <= Integer.MAX_VALUE / dtype.width();
+    }
+
+    /**
+     * Returns the shape to which dense storage of the given shape grows to contain the given bounding box, growing each
+     * exceeded dimension by at least half so that repeatedly appending elements is amortised
+     */
+    static long[] grow(long[] shape, long[] extents) {
+        long[] grown = shape.clone();
+        for (int d = 0; d < shape.length; d++) {
+            if (extents[d] > shape[d]) grown[d] = Math.max(extents[d], shape[d] + (shape[d] >> 1));
+        }
+        return grown;
+    }
+
+    /**
+     * Returns the volume of the given shape, saturating at {@link Long#MAX_VALUE}
+     */
+    static long volume(long[] shape) {
+        long volume = 1;
+        for (long dimension : shape) {
+            if (dimension != 0 && volume > Long.MAX_VALUE / dimension) return Long.MAX_VALUE;
+            volume *= dimension;
+        }
+        return volume;
+    }
+
+}
@@ -0,0 +1,76 @@
+package dev.christopping.tensor;
+
+import java.nio.DoubleBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversion of numeric tensors to and from primitive {@code double} arrays laid out in index order, i.e. with
+ * dimension 0 varying fastest, for kernels which operate on contiguous values
+ * <p>
+ * Absent elements read as zero. Contiguous dense storage of doubles is copied in bulk, and arrays of a dense volume are
+ * wrapped as dense storage without copying.
+ */
+final class Doubles {
+
+    private static final int MAXIMUM_VOLUME = Integer.MAX_VALUE - 8;
+
+    private Doubles() {
+    }
+
+    /**
+     * Returns the dimensions of the given tensor as an array
+     */
+    static long[] shape(Tensor<?> tensor) {
+        return tensor.dimensions().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the elements of the given numeric tensor within the given shape, whose order must be that of the tensor
+     *
+     * @throws IllegalArgumentException if any element is not numeric or the shape is too large for an array
+     */
+    static double[] of(Tensor<?> tensor, long[] shape) {
+        long volume = DensityPolicy.volume(shape);
+        if (volume > MAXIMUM_VOLUME) throw new IllegalArgumentException("Tensor cannot exceed " + MAXIMUM_VOLUME + " elements");
+        double[] values = new double[(int) volume];
+        DenseStorage<?> dense = tensor.dense();
+        if (dense instanceof DenseStorage.OfDouble doubles && dense.isFull() && dense.isContiguous() && dense.volume() == volume) {
+            doubles.buffer.get(0, values);
+            return values;
+        }
+        long[] strides = DenseStorage.contiguousStrides(shape);
+        for (Map.Entry<Index, ?> entry : tensor.map.entrySet()) {
+            long[] coordinates = entry.getKey().coordinates();
+            long offset = 0;
+            for (int d = 0; d < Math.min(strides.length, coordinates.length); d++) offset += coordinates[d] * strides[d];
+            values[(int) offset] = Contraction.numeric(entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Returns a tensor of the given shape holding every value of the given array, taking ownership of the array
+     */
+    static Tensor<Double> tensor(double[] values, long[] shape) {
+        Tensor<Double> tensor;
+        if (DensityPolicy.shouldDensify(values.length, values.length, Dtype.FLOAT64)) {
+            DenseStorage<Double> dense = DenseStorage.ofDoubles(DoubleBuffer.wrap(values), shape, DenseStorage.contiguousStrides(shape));
+            tensor = new Tensor<>(new CopyOnWriteMap<>(dense), false);
+        } else {
+            Map<Index, Double> map = new HashMap<>((int) (values.length / 0.75f) + 1);
+            long[] coordinates = new long[shape.length];
+            for (int offset = 0; offset < values.length; offset++) {
+                map.put(new Index(coordinates.clone()), values[offset]);
+                for (int d = 0; d < coordinates.length; d++) {
+                    if (++coordinates[d] < shape[d]) break;
+                    coordinates[d] = 0;
+                }
+            }
+            tensor = Tensor.adopt(map);
+        }
+        tensor.assumeElementType(Double.class);
+        return tensor;
+    }
+
+}
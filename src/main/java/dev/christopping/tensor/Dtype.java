@@ -0,0 +1,127 @@
+package dev.christopping.tensor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Primitive element types which tensors can be encoded as in binary formats, named after their NumPy equivalents
+ */
+enum Dtype {
+    BOOL("|b1", 1, Boolean.class),
+    INT32("<i4", 4, Integer.class),
+    INT64("<i8", 8, Long.class),
+    FLOAT32("<f4", 4, Float.class),
+    FLOAT64("<f8", 8, Double.class);
+
+    private final String descr;
+    private final int width;
+    private final Class<?> type;
+
+    Dtype(String descr, int width, Class<?> type) {
+        this.descr = descr;
+        this.width = width;
+        this.type = type;
+    }
+
+    /**
+     * Returns the dtype of the given NumPy type code, such as {@code f8}, without its byte order character
+     */
+    static Dtype ofCode(String code) {
+        return Arrays.stream(values())
+                .filter(dtype -> dtype.descr.substring(1).equals(code))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported dtype " + code));
+    }
+
+    /**
+     * Returns the narrowest dtype which can represent every value of the given storage
+     * <p>
+     * Storage consisting only of one of the supported element types uses that type's dtype, storage mixing
+     * {@link Integer} and {@link Long} values uses {@link #INT64}, and any other numeric storage uses {@link #FLOAT64}.
+     *
+     * @throws IllegalArgumentException if the storage contains values which are neither numbers nor booleans
+     */
+    static Dtype of(Map<Index, ?> storage) {
+        if (storage instanceof CopyOnWriteMap<Index, ?> shared) storage = shared.backing();
+        if (storage instanceof DenseStorage<?> dense) return of(dense.elementType());
+        Class<?> common = null;
+        for (Object value : storage.values()) {
+            if (value == null) continue;
+            boolean supported = value instanceof Boolean ? common == null || common == Boolean.class
+                    : value instanceof Number && common != Boolean.class;
+            if (!supported) throw new IllegalArgumentException("Tensor elements cannot be encoded as a primitive dtype");
+            common = widen(common, value.getClass());
+        }
+        return common == null ? FLOAT64 : of(common);
+    }
+
+    private static Class<?> widen(Class<?> common, Class<?> type) {
+        if (common == null || common == type) return type;
+        if (isIntegral(common) && isIntegral(type)) return Long.class;
+        return Number.class;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Integer.class || type == Long.class;
+    }
+
+    /**
+     * Returns the dtype whose element type is exactly the given type, if any
+     */
+    static Optional<Dtype> exact(Class<?> type) {
+        return Arrays.stream(values())
+                .filter(dtype -> dtype.type == type)
+                .findFirst();
+    }
+
+    private static Dtype of(Class<?> type) {
+        return exact(type).orElse(FLOAT64);
+    }
+
+    String descr() {
+        return descr;
+    }
+
+    int width() {
+        return width;
+    }
+
+    Class<?> type() {
+        return type;
+    }
+
+    DenseStorage<?> storage(ByteBuffer payload, long[] shape, long[] strides) {
+        return switch (this) {
+            case BOOL -> DenseStorage.ofBooleans(payload, shape, strides);
+            case INT32 -> DenseStorage.ofInts(payload.asIntBuffer(), shape, strides);
+            case INT64 -> DenseStorage.ofLongs(payload.asLongBuffer(), shape, strides);
+            case FLOAT32 -> DenseStorage.ofFloats(payload.asFloatBuffer(), shape, strides);
+            case FLOAT64 -> DenseStorage.ofDoubles(payload.asDoubleBuffer(), shape, strides);
+        };
+    }
+
+    /**
+     * Writes a value to the buffer, writing zero (or {@code false}) for {@code null}
+     */
+    void put(ByteBuffer buffer, Object value) {
+        switch (this) {
+            case BOOL -> buffer.put((byte) (Boolean.TRUE.equals(value) ? 1 : 0));
+            case INT32 -> buffer.putInt(value == null ? 0 : ((Number) value).intValue());
+            case INT64 -> buffer.putLong(value == null ? 0 : ((Number) value).longValue());
+            case FLOAT32 -> buffer.putFloat(value == null ? 0 : ((Number) value).floatValue());
+            case FLOAT64 -> buffer.putDouble(value == null ? 0 : ((Number) value).doubleValue());
+        }
+    }
+
+    Object get(ByteBuffer buffer) {
+        return switch (this) {
+            case BOOL -> buffer.get() != 0;
+            case INT32 -> buffer.getInt();
+            case INT64 -> buffer.getLong();
+            case FLOAT32 -> buffer.getFloat();
+            case FLOAT64 -> buffer.getDouble();
+        };
+    }
+}
@@ -0,0 +1,377 @@
+package dev.christopping.tensor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Discrete Fourier transforms of numeric tensors along a dimension
+ * <p>
+ * Complex tensors are represented by a trailing dimension of size 2 holding the real and then the imaginary part of
+ * each element, so once read in index order the real parts occupy the first half of the array and the imaginary parts
+ * the second. Each fiber along the transformed dimension is transformed independently, concurrently once there is
+ * enough work.
+ * <p>
+ * Transforms of power of 2 lengths use the iterative radix-2 algorithm, and those of any other length Bluestein's
+ * algorithm, which re-expresses the transform as a circular convolution of a power of 2 length. Twiddle factors and the
+ * transformed chirps of Bluestein's algorithm are cached per length. Real transforms of even length are computed as a
+ * complex transform of half the length.
+ */
+final class Fourier {
+
+    private static final int CACHE_SIZE = 64;
+    private static final long PARALLEL_WORK = 1L << 16;
+    private static final int DIRECT_CONVOLUTION_WORK = 1 << 12;
+    private static final int DIRECT_CONVOLUTION_LENGTH = 32;
+    private static final Map<Integer, double[]> TWIDDLES = new ConcurrentHashMap<>();
+    private static final Map<Integer, Chirp> CHIRPS = new ConcurrentHashMap<>();
+
+    private Fourier() {
+    }
+
+    /**
+     * Bluestein chirp of a length, {@code exp(-i pi k^2 / n)}, and the transform of its conjugate padded to a power of 2
+     */
+    private record Chirp(int padded, double[] real, double[] imaginary, double[] filterReal, double[] filterImaginary) {
+    }
+
+    /**
+     * Transforms a complex tensor, whose trailing dimension holds real and imaginary parts, along the given dimension
+     */
+    static Tensor<Double> complex(Tensor<?> tensor, int dimension, boolean inverse) {
+        long[] shape = shape(tensor);
+        if (shape.length < 2 || shape[shape.length - 1] > 2)
+            throw new IllegalArgumentException("Complex tensors must have a trailing dimension of size 2");
+        if (dimension < 0 || dimension >= shape.length - 1)
+            throw new IndexOutOfBoundsException("Dimension exceeds the order of the complex tensor");
+        shape[shape.length - 1] = 2;
+        double[] values = Doubles.of(tensor, shape);
+        int plane = values.length / 2;
+        Fibers fibers = new Fibers(shape, dimension, true);
+        fibers.range(parallel(plane, fibers.length)).forEach(fiber -> {
+            double[] real = new double[fibers.length];
+            double[] imaginary = new double[fibers.length];
+            fibers.gather(values, fiber, real, 0);
+            fibers.gather(values, fiber, imaginary, plane);
+            transform(real, imaginary, inverse);
+            fibers.scatter(real, values, fiber, 0);
+            fibers.scatter(imaginary, values, fiber, plane);
+        });
+        return Doubles.tensor(values, shape);
+    }
+
+    /**
+     * Transforms a real tensor along the given dimension, keeping the {@code n / 2 + 1} non-redundant frequencies
+     */
+    static Tensor<Double> real(Tensor<?> tensor, int dimension) {
+        long[] shape = shape(tensor);
+        if (dimension < 0 || dimension >= shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        double[] values = Doubles.of(tensor, shape);
+        Fibers fibers = new Fibers(shape, dimension, false);
+        int bins = fibers.length / 2 + 1;
+        long[] spectrumShape = new long[shape.length + 1];
+        System.arraycopy(shape, 0, spectrumShape, 0, shape.length);
+        spectrumShape[dimension] = bins;
+        spectrumShape[shape.length] = 2;
+        double[] spectrum = new double[Math.multiplyExact(fibers.count() * bins, 2)];
+        int plane = spectrum.length / 2;
+        Fibers spectra = new Fibers(spectrumShape, dimension, true);
+        fibers.range(parallel(values.length, fibers.length)).forEach(fiber -> {
+            double[] signal = new double[fibers.length];
+            fibers.gather(values, fiber, signal, 0);
+            double[] real = new double[bins];
+            double[] imaginary = new double[bins];
+            forward(signal, real, imaginary);
+            spectra.scatter(real, spectrum, fiber, 0);
+            spectra.scatter(imaginary, spectrum, fiber, plane);
+        });
+        return Doubles.tensor(spectrum, spectrumShape);
+    }
+
+    /**
+     * Inverts the non-redundant frequencies of a real signal of the given length along the given dimension
+     */
+    static Tensor<Double> inverseReal(Tensor<?> tensor, int dimension, int length) {
+        long[] spectrumShape = shape(tensor);
+        if (spectrumShape.length < 2 || spectrumShape[spectrumShape.length - 1] > 2)
+            throw new IllegalArgumentException("Complex tensors must have a trailing dimension of size 2");
+        if (dimension < 0 || dimension >= spectrumShape.length - 1)
+            throw new IndexOutOfBoundsException("Dimension exceeds the order of the complex tensor");
+        if (length < 1) throw new IllegalArgumentException("Length must be positive");
+        int bins = length / 2 + 1;
+        if (spectrumShape[dimension] > bins)
+            throw new IllegalArgumentException("A signal of length " + length + " has only " + bins + " non-redundant frequencies");
+        spectrumShape[dimension] = bins;
+        spectrumShape[spectrumShape.length - 1] = 2;
+        double[] spectrum = Doubles.of(tensor, spectrumShape);
+        int plane = spectrum.length / 2;
+        long[] shape = new long[spectrumShape.length - 1];
+        System.arraycopy(spectrumShape, 0, shape, 0, shape.length);
+        shape[dimension] = length;
+        Fibers spectra = new Fibers(spectrumShape, dimension, true);
+        Fibers fibers = new Fibers(shape, dimension, false);
+        double[] values = new double[Math.multiplyExact(fibers.count(), length)];
+        spectra.range(parallel(values.length, length)).forEach(fiber -> {
+            double[] real = new double[length];
+            double[] imaginary = new double[length];
+            spectra.gather(spectrum, fiber, real, 0);
+            spectra.gather(spectrum, fiber, imaginary, plane);
+            for (int k = bins; k < length; k++) {
+                real[k] = real[length - k];
+                imaginary[k] = -imaginary[length - k];
+            }
+            transform(real, imaginary, true);
+            fibers.scatter(real, values, fiber, 0);
+        });
+        return Doubles.tensor(values, shape);
+    }
+
+    /**
+     * Returns the full linear convolution of two real signals, or their cross-correlation if {@code correlate} is set,
+     * in which case element {@code k} is the correlation at lag {@code k - (second.length - 1)}
+     */
+    static double[] convolve(double[] first, double[] second, boolean correlate) {
+        int length = first.length + second.length - 1;
+        double[] result = new double[length];
+        if (Math.min(first.length, second.length) <= DIRECT_CONVOLUTION_LENGTH || (long) first.length * second.length <= DIRECT_CONVOLUTION_WORK) {
+            for (int i = 0; i < first.length; i++) {
+                for (int j = 0; j < second.length; j++) {
+                    result[i + (correlate ? second.length - 1 - j : j)] += first[i] * second[j];
+                }
+            }
+            return result;
+        }
+        int padded = Integer.highestOneBit(length - 1) << 1;
+        double[] real = new double[padded];
+        double[] imaginary = new double[padded];
+        System.arraycopy(first, 0, real, 0, first.length);
+        for (int j = 0; j < second.length; j++) imaginary[correlate ? second.length - 1 - j : j] = second[j];
+        transform(real, imaginary, false);
+        double[] productReal = new double[padded];
+        double[] productImaginary = new double[padded];
+        for (int k = 0; k < padded; k++) {
+            int conjugate = (padded - k) & (padded - 1);
+            double firstReal = (real[k] + real[conjugate]) / 2;
+            double firstImaginary = (imaginary[k] - imaginary[conjugate]) / 2;
+            double secondReal = (imaginary[k] + imaginary[conjugate]) / 2;
+            double secondImaginary = (real[conjugate] - real[k]) / 2;
+            productReal[k] = firstReal * secondReal - firstImaginary * secondImaginary;
+            productImaginary[k] = firstReal * secondImaginary + firstImaginary * secondReal;
+        }
+        transform(productReal, productImaginary, true);
+        System.arraycopy(productReal, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Transforms the given complex signal in place, scaling by {@code 1 / n} if inverse
+     */
+    static void transform(double[] real, double[] imaginary, boolean inverse) {
+        int n = real.length;
+        if (n <= 1) return;
+        if (inverse) {
+            for (int k = 0; k < n; k++) imaginary[k] = -imaginary[k];
+        }
+        if ((n & (n - 1)) == 0) {
+            radix2(real, imaginary);
+        } else {
+            bluestein(real, imaginary);
+        }
+        if (inverse) {
+            for (int k = 0; k < n; k++) {
+                real[k] /= n;
+                imaginary[k] = -imaginary[k] / n;
+            }
+        }
+    }
+
+    /**
+     * Transforms a real signal, writing its first {@code real.length} frequencies, using a complex transform of half
+     * the length whenever the length is even
+     */
+    private static void forward(double[] signal, double[] real, double[] imaginary) {
+        int n = signal.length;
+        if (n % 2 != 0) {
+            double[] fullReal = signal.clone();
+            double[] fullImaginary = new double[n];
+            transform(fullReal, fullImaginary, false);
+            System.arraycopy(fullReal, 0, real, 0, real.length);
+            System.arraycopy(fullImaginary, 0, imaginary, 0, imaginary.length);
+            return;
+        }
+        int half = n / 2;
+        double[] evenReal = new double[half];
+        double[] oddReal = new double[half];
+        for (int k = 0; k < half; k++) {
+            evenReal[k] = signal[2 * k];
+            oddReal[k] = signal[2 * k + 1];
+        }
+        transform(evenReal, oddReal, false);
+        double[] twiddles = twiddles(n);
+        for (int k = 0; k < real.length; k++) {
+            int j = k % half;
+            int conjugate = (half - j) % half;
+            double sumReal = (evenReal[j] + evenReal[conjugate]) / 2;
+            double sumImaginary = (oddReal[j] - oddReal[conjugate]) / 2;
+            double differenceReal = (oddReal[j] + oddReal[conjugate]) / 2;
+            double differenceImaginary = (evenReal[conjugate] - evenReal[j]) / 2;
+            double cos = k < half ? twiddles[2 * k] : -1;
+            double sin = k < half ? twiddles[2 * k + 1] : 0;
+            real[k] = sumReal + cos * differenceReal + sin * differenceImaginary;
+            imaginary[k] = sumImaginary + cos * differenceImaginary - sin * differenceReal;
+        }
+    }
+
+    private static void radix2(double[] real, double[] imaginary) {
+        int n = real.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                double swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+        double[] twiddles = twiddles(n);
+        for (int length = 2; length <= n; length <<= 1) {
+            int half = length >> 1;
+            int step = n / length;
+            for (int start = 0; start < n; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double cos = twiddles[2 * k * step];
+                    double sin = twiddles[2 * k * step + 1];
+                    int even = start + k;
+                    int odd = even + half;
+                    double oddReal = real[odd] * cos + imaginary[odd] * sin;
+                    double oddImaginary = imaginary[odd] * cos - real[odd] * sin;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+                }
+            }
+        }
+    }
+
+    private static void bluestein(double[] real, double[] imaginary) {
+        int n = real.length;
+        Chirp chirp = chirp(n);
+        double[] paddedReal = new double[chirp.padded()];
+        double[] paddedImaginary = new double[chirp.padded()];
+        for (int k = 0; k < n; k++) {
+            paddedReal[k] = real[k] * chirp.real()[k] - imaginary[k] * chirp.imaginary()[k];
+            paddedImaginary[k] = real[k] * chirp.imaginary()[k] + imaginary[k] * chirp.real()[k];
+        }
+        radix2(paddedReal, paddedImaginary);
+        for (int k = 0; k < chirp.padded(); k++) {
+            double productReal = paddedReal[k] * chirp.filterReal()[k] - paddedImaginary[k] * chirp.filterImaginary()[k];
+            paddedImaginary[k] = paddedReal[k] * chirp.filterImaginary()[k] + paddedImaginary[k] * chirp.filterReal()[k];
+            paddedReal[k] = productReal;
+        }
+        transform(paddedReal, paddedImaginary, true);
+        for (int k = 0; k < n; k++) {
+            real[k] = paddedReal[k] * chirp.real()[k] - paddedImaginary[k] * chirp.imaginary()[k];
+            imaginary[k] = paddedReal[k] * chirp.imaginary()[k] + paddedImaginary[k] * chirp.real()[k];
+        }
+    }
+
+    /**
+     * Returns {@code cos} and {@code sin} of {@code 2 pi k / n} for each {@code k < n / 2}, interleaved
+     */
+    private static double[] twiddles(int n) {
+        double[] twiddles = TWIDDLES.get(n);
+        if (twiddles != null) return twiddles;
+        twiddles = new double[n / 2 * 2];
+        for (int k = 0; k < n / 2; k++) {
+            twiddles[2 * k] = Math.cos(2 * Math.PI * k / n);
+            twiddles[2 * k + 1] = Math.sin(2 * Math.PI * k / n);
+        }
+        return cache(TWIDDLES, n, twiddles);
+    }
+
+    private static Chirp chirp(int n) {
+        Chirp chirp = CHIRPS.get(n);
+        if (chirp != null) return chirp;
+        int padded = Integer.highestOneBit(2 * n - 2) << 1;
+        double[] real = new double[n];
+        double[] imaginary = new double[n];
+        double[] filterReal = new double[padded];
+        double[] filterImaginary = new double[padded];
+        for (int k = 0; k < n; k++) {
+            double angle = Math.PI * ((long) k * k % (2L * n)) / n;
+            real[k] = Math.cos(angle);
+            imaginary[k] = -Math.sin(angle);
+            filterReal[k] = real[k];
+            filterImaginary[k] = -imaginary[k];
+            if (k > 0) {
+                filterReal[padded - k] = real[k];
+                filterImaginary[padded - k] = -imaginary[k];
+            }
+        }
+        radix2(filterReal, filterImaginary);
+        return cache(CHIRPS, n, new Chirp(padded, real, imaginary, filterReal, filterImaginary));
+    }
+
+    private static <V> V cache(Map<Integer, V> cache, int n, V value) {
+        if (cache.size() >= CACHE_SIZE) cache.clear();
+        V previous = cache.putIfAbsent(n, value);
+        return previous == null ? value : previous;
+    }
+
+    private static boolean parallel(long volume, int length) {
+        return volume / Math.max(length, 1) > 1 && volume * (64 - Long.numberOfLeadingZeros(length)) >= PARALLEL_WORK;
+    }
+
+    private static long[] shape(Tensor<?> tensor) {
+        if (tensor.isEmpty()) throw new IllegalStateException("Tensor must not be empty");
+        return Doubles.shape(tensor);
+    }
+
+    /**
+     * Fibers of a shape along a dimension, each identified by its position among the fibers in index order
+     */
+    private static final class Fibers {
+        private final int length;
+        private final int stride;
+        private final int count;
+
+        private Fibers(long[] shape, int dimension, boolean complex) {
+            long stride = 1;
+            for (int d = 0; d < dimension; d++) stride *= shape[d];
+            long volume = DensityPolicy.volume(shape);
+            if (volume > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Tensor cannot exceed " + (Integer.MAX_VALUE - 8) + " elements");
+            this.length = (int) shape[dimension];
+            this.stride = (int) stride;
+            this.count = (int) (volume / (complex ? 2 : 1) / Math.max(length, 1));
+        }
+
+        private int count() {
+            return count;
+        }
+
+        private IntStream range(boolean parallel) {
+            IntStream range = IntStream.range(0, count);
+            return parallel ? range.parallel() : range;
+        }
+
+        private int start(int fiber) {
+            return fiber % stride + fiber / stride * stride * length;
+        }
+
+        private void gather(double[] values, int fiber, double[] target, int offset) {
+            int position = offset + start(fiber);
+            for (int k = 0; k < target.length && k < length; k++, position += stride) target[k] = values[position];
+        }
+
+        private void scatter(double[] source, double[] values, int fiber, int offset) {
+            int position = offset + start(fiber);
+            for (int k = 0; k < length; k++, position += stride) values[position] = source[k];
+        }
+    }
+
+}
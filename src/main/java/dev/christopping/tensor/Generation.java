@@ -0,0 +1,110 @@
+package dev.christopping.tensor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluation of a generator function over every index of a shape, split into contiguous blocks of offsets
+ * <p>
+ * Offsets enumerate the indices of the shape with dimension 0 varying fastest, i.e. in index order, so each block
+ * decodes its first index once and then steps its coordinates like an odometer. Blocks may be evaluated concurrently,
+ * after which the results are written into storage sized up front: dense primitive storage when the generator returned
+ * a value of a single primitive type at every index, and a pre-sized hash map otherwise.
+ */
+final class Generation {
+
+    static final int BLOCK_SIZE = 1 << 12;
+    private static final int MAXIMUM_VOLUME = Integer.MAX_VALUE - 8;
+
+    private Generation() {
+    }
+
+    static <T> Tensor<T> generate(Function<Index, T> generator, long[] shape, boolean parallel) {
+        long volume = DensityPolicy.volume(shape);
+        if (volume > MAXIMUM_VOLUME) throw new IllegalArgumentException("Tensor cannot exceed " + MAXIMUM_VOLUME + " elements");
+        Object[] values = new Object[(int) volume];
+        int blocks = (int) ((volume + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        Class<?>[] types = new Class<?>[blocks];
+        blocks(blocks, parallel).forEach(block -> types[block] = evaluate(generator, shape, values, block));
+
+        Class<?> type = blocks == 0 ? null : types[0];
+        for (Class<?> blockType : types) {
+            if (blockType != type) type = null;
+        }
+        Tensor<T> tensor;
+        Dtype dtype = type == null ? null : Dtype.exact(type).orElse(null);
+        if (DensityPolicy.shouldDensify(values.length, volume, dtype)) {
+            tensor = new Tensor<>(new CopyOnWriteMap<>(dense(values, shape, dtype, blocks, parallel)), false);
+        } else {
+            tensor = Tensor.adopt(hashed(values, shape));
+        }
+        if (type != null) tensor.assumeElementType(type);
+        return tensor;
+    }
+
+    private static IntStream blocks(int blocks, boolean parallel) {
+        IntStream range = IntStream.range(0, blocks);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Evaluates the generator at every offset of the given block, returning the class shared by all of its values, or
+     * {@code null} if any value is {@code null} or the classes differ
+     */
+    private static <T> Class<?> evaluate(Function<Index, T> generator, long[] shape, Object[] values, int block) {
+        int start = block * BLOCK_SIZE;
+        int end = (int) Math.min((long) start + BLOCK_SIZE, values.length);
+        long[] coordinates = decode(start, shape);
+        T first = generator.apply(new Index(coordinates.clone()));
+        values[start] = first;
+        Class<?> type = first == null ? null : first.getClass();
+        for (int offset = start + 1; offset < end; offset++) {
+            increment(coordinates, shape);
+            T value = generator.apply(new Index(coordinates.clone()));
+            values[offset] = value;
+            if (value == null || value.getClass() != type) type = null;
+        }
+        return type;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> DenseStorage<T> dense(Object[] values, long[] shape, Dtype dtype, int blocks, boolean parallel) {
+        DenseStorage<T> dense = (DenseStorage<T>) DenseStorage.allocate(dtype, shape);
+        blocks(blocks, parallel).forEach(block -> {
+            int end = Math.min(block * BLOCK_SIZE + BLOCK_SIZE, values.length);
+            for (int offset = block * BLOCK_SIZE; offset < end; offset++) dense.write(offset, (T) values[offset]);
+        });
+        dense.markFull();
+        return dense;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<Index, T> hashed(Object[] values, long[] shape) {
+        Map<Index, T> map = new HashMap<>((int) (values.length / 0.75f) + 1);
+        long[] coordinates = new long[shape.length];
+        for (int offset = 0; offset < values.length; offset++) {
+            if (offset > 0) increment(coordinates, shape);
+            map.put(new Index(coordinates.clone()), (T) values[offset]);
+        }
+        return map;
+    }
+
+    private static long[] decode(long offset, long[] shape) {
+        long[] coordinates = new long[shape.length];
+        for (int d = 0; d < shape.length; d++) {
+            coordinates[d] = offset % shape[d];
+            offset /= shape[d];
+        }
+        return coordinates;
+    }
+
+    private static void increment(long[] coordinates, long[] shape) {
+        for (int d = 0; d < coordinates.length; d++) {
+            if (++coordinates[d] < shape[d]) return;
+            coordinates[d] = 0;
+        }
+    }
+
+}
@@ -290,6 +290,23 @@ public record Index(long[] coordinates) implements Comparable<Index> {
         return new Index(constrained);
     }
 
+    /**
+     * Creates a new index comprising only the coordinates of the provided dimensions, in the order provided
+     * </p>
+     * The complement of {@link #constrain(int...)}, which removes those coordinates instead
+     *
+     * @param dimensions the dimensions to select
+     * @return the new selected index
+     * @throws IndexOutOfBoundsException if any dimension is out of bounds
+     */
+    public Index select(int... dimensions) {
+        long[] selected = new long[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++) {
+            selected[i] = get(dimensions[i]);
+        }
+        return new Index(selected);
+    }
+
     /**
      * Extrudes a new index into the next largest dimension, at the provided coordinate value
      *
@@ -337,12 +354,9 @@ public record Index(long[] coordinates) implements Comparable<Index> {
      * @return the new concatenated index
      */
     public Index concatenate(Index other) {
-        long[] newCoordinates = Stream.concat(
-                        Arrays.stream(this.coordinates).boxed(),
-                        Arrays.stream(other.coordinates).boxed()
-                ).mapToLong(Long::longValue)
-                .toArray();
-        return Index.of(newCoordinates);
+        long[] newCoordinates = Arrays.copyOf(coordinates, coordinates.length + other.coordinates.length);
+        System.arraycopy(other.coordinates, 0, newCoordinates, coordinates.length, other.coordinates.length);
+        return new Index(newCoordinates);
     }
 
     public Index add(Index other) {
@@ -0,0 +1,547 @@
+package dev.christopping.tensor;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Dense decompositions of numeric matrices, and the solvers built on them, over row-major {@code double} arrays
+ * <p>
+ * A matrix is laid out in index order, so row {@code y} of a matrix of width {@code n} starts at offset {@code y * n},
+ * and every kernel works along rows. LU with partial pivoting, Cholesky and Householder QR are all right-looking and
+ * blocked: a panel of {@value #BLOCK_SIZE} columns is factored, then the trailing matrix is updated once for the whole
+ * panel, as a matrix product which reuses each panel row while it is in cache. QR applies the reflectors of a panel at
+ * once in their compact WY form, {@code I - V T V'}. Trailing updates and multiple right-hand sides are split across
+ * threads once there is enough work.
+ * <p>
+ * In-place operations overwrite the elements of a matrix of doubles. Dense storage backed by a heap array, as that of
+ * large results of these operations is, is factored without any copy, and any other storage through a single copy.
+ */
+final class LinearAlgebra {
+
+    private static final int BLOCK_SIZE = 64;
+    private static final int COLUMN_BLOCK = 256;
+    private static final long PARALLEL_WORK = 1L << 18;
+
+    private LinearAlgebra() {
+    }
+
+    /**
+     * Returns the height and width of the given matrix
+     *
+     * @throws IllegalStateException if the matrix is empty
+     */
+    static int[] shape(Matrix<?> matrix) {
+        if (matrix.isEmpty()) throw new IllegalStateException("Matrix must not be empty");
+        long[] dimensions = Doubles.shape(matrix);
+        if (dimensions.length != 2) throw new IllegalArgumentException("Matrix must be of order 2");
+        return new int[]{Math.toIntExact(dimensions[1]), Math.toIntExact(dimensions[0])};
+    }
+
+    /**
+     * Returns the size of the given square matrix
+     *
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    static int size(Matrix<?> matrix) {
+        int[] shape = shape(matrix);
+        if (shape[0] != shape[1]) throw new IllegalArgumentException("Matrix must be square");
+        return shape[0];
+    }
+
+    static double[] values(Tensor<?> tensor, int rows, int columns) {
+        return columns == 1 && tensor.order() == 1
+                ? Doubles.of(tensor, new long[]{rows})
+                : Doubles.of(tensor, new long[]{columns, rows});
+    }
+
+    static Matrix<Double> matrix(double[] values, int rows, int columns) {
+        return Doubles.tensor(values, new long[]{columns, rows}).toMatrix();
+    }
+
+    static Vector<Double> vector(double[] values) {
+        return Doubles.tensor(values, new long[]{values.length}).toVector();
+    }
+
+    /**
+     * Returns the number of rows and columns of the given right-hand side of a system of the given size, which is either
+     * a vector or a matrix
+     */
+    static int[] rightHandSide(Tensor<?> tensor, int size) {
+        if (tensor == null) throw new IllegalArgumentException("Right-hand side must not be null");
+        int[] shape = tensor instanceof Matrix<?> matrix ? shape(matrix) : new int[]{Math.toIntExact(tensor.size(0)), 1};
+        if (shape[0] != size) throw new IllegalArgumentException("Right-hand side must have " + size + " rows");
+        return shape;
+    }
+
+    /**
+     * Applies the given operation to the elements of the given matrix of doubles, in the array backing its dense storage
+     * where there is one and otherwise in a copy which is written back
+     * <p>
+     * A non-null result may retain the array it was given. Where that is the array backing the storage, the storage is
+     * shared on its behalf, so the matrix copies it before it is next written to rather than overwriting the result.
+     *
+     * @throws IllegalStateException if any element of the matrix is absent or not a double
+     */
+    static <R> R inPlace(Tensor<?> tensor, Function<double[], R> operation) {
+        DoubleBuffer buffer = null;
+        CopyOnWriteMap<Index, ?> storage = null;
+        if (tensor.map instanceof CopyOnWriteMap<Index, ?> shared && shared.backing() instanceof DenseStorage.OfDouble dense
+                && dense.isFull() && dense.isContiguous() && !dense.buffer.isReadOnly()) {
+            Map<Index, ?> exclusive = shared.exclusive();
+            if (exclusive instanceof DenseStorage.OfDouble owned) {
+                buffer = owned.buffer;
+                storage = shared;
+            }
+        }
+        if (buffer != null && buffer.hasArray() && buffer.arrayOffset() == 0) {
+            R result = operation.apply(buffer.array());
+            if (result != null) storage.share();
+            return result;
+        }
+        if (buffer != null) {
+            double[] values = new double[tensor.map.size()];
+            buffer.get(0, values);
+            R result = operation.apply(values);
+            buffer.put(0, values);
+            return result;
+        }
+        long[] shape = Doubles.shape(tensor);
+        if (tensor.map.size() != DensityPolicy.volume(shape) || !tensor.map.values().stream().allMatch(Double.class::isInstance)) {
+            throw new IllegalStateException("In-place operations require every element to be a double");
+        }
+        double[] values = Doubles.of(tensor, shape);
+        R result = operation.apply(values);
+        @SuppressWarnings("unchecked")
+        Map<Index, Double> map = (Map<Index, Double>) tensor.map;
+        long[] coordinates = new long[shape.length];
+        for (double value : values) {
+            map.put(new Index(coordinates.clone()), value);
+            for (int d = 0; d < coordinates.length; d++) {
+                if (++coordinates[d] < shape[d]) break;
+                coordinates[d] = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Factors the given square matrix in place as {@code P A = L U}, with the multipliers of the unit lower triangle
+     * below the diagonal and the upper triangle on and above it, recording the row interchanged with each row
+     *
+     * @return whether the matrix is singular
+     */
+    static boolean lu(double[] a, int n, int[] pivots) {
+        boolean singular = false;
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+            for (int j = k0; j < k1; j++) {
+                int pivot = j;
+                double maximum = Math.abs(a[j * n + j]);
+                for (int i = j + 1; i < n; i++) {
+                    double value = Math.abs(a[i * n + j]);
+                    if (value > maximum) {
+                        maximum = value;
+                        pivot = i;
+                    }
+                }
+                pivots[j] = pivot;
+                if (pivot != j) swapRows(a, n, j, pivot);
+                double diagonal = a[j * n + j];
+                if (diagonal == 0) {
+                    singular = true;
+                    continue;
+                }
+                for (int i = j + 1; i < n; i++) {
+                    double multiplier = a[i * n + j] /= diagonal;
+                    if (multiplier == 0) continue;
+                    for (int c = j + 1; c < k1; c++) a[i * n + c] -= multiplier * a[j * n + c];
+                }
+            }
+            if (k1 == n) break;
+            for (int j = k0; j < k1; j++) {
+                for (int i = j + 1; i < k1; i++) {
+                    double multiplier = a[i * n + j];
+                    if (multiplier == 0) continue;
+                    for (int c = k1; c < n; c++) a[i * n + c] -= multiplier * a[j * n + c];
+                }
+            }
+            subtractProduct(a, n, k0, k1);
+        }
+        return singular;
+    }
+
+    /**
+     * Subtracts the product of the multipliers and the upper triangle within rows and columns {@code k0} to {@code k1}
+     * from the trailing matrix below and to the right of them
+     */
+    private static void subtractProduct(double[] a, int n, int k0, int k1) {
+        rowBlocks(n - k1, (long) (n - k1) * (n - k1) * (k1 - k0), (start, end) -> {
+            for (int c0 = k1; c0 < n; c0 += COLUMN_BLOCK) {
+                int c1 = Math.min(c0 + COLUMN_BLOCK, n);
+                for (int i = k1 + start; i < k1 + end; i++) {
+                    for (int k = k0; k < k1; k++) {
+                        double multiplier = a[i * n + k];
+                        if (multiplier == 0) continue;
+                        for (int c = c0; c < c1; c++) a[i * n + c] -= multiplier * a[k * n + c];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces the given right-hand sides, of {@code m} columns, with the solutions of the system factored by
+     * {@link #lu(double[], int, int[])}
+     */
+    static void luSolve(double[] a, int n, int[] pivots, double[] b, int m) {
+        for (int j = 0; j < n; j++) {
+            if (pivots[j] != j) swapRows(b, m, j, pivots[j]);
+        }
+        columnBlocks(m, (long) n * n * m, (c0, c1) -> {
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < i; k++) {
+                    double multiplier = a[i * n + k];
+                    if (multiplier != 0) subtractRow(b, m, i, k, multiplier, c0, c1);
+                }
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                for (int k = i + 1; k < n; k++) {
+                    double multiplier = a[i * n + k];
+                    if (multiplier != 0) subtractRow(b, m, i, k, multiplier, c0, c1);
+                }
+                double diagonal = a[i * n + i];
+                for (int c = c0; c < c1; c++) b[i * m + c] /= diagonal;
+            }
+        });
+    }
+
+    /**
+     * Replaces the given factors of {@link #lu(double[], int, int[])} with the inverse of the matrix they factor, as
+     * {@code inv(U) inv(L) P}, using a workspace of a single row
+     */
+    static void luInvert(double[] a, int n, int[] pivots) {
+        double[] work = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            double diagonal = 1 / a[i * n + i];
+            Arrays.fill(work, i + 1, n, 0);
+            for (int k = i + 1; k < n; k++) {
+                double u = a[i * n + k];
+                if (u == 0) continue;
+                for (int c = k; c < n; c++) work[c] += u * a[k * n + c];
+            }
+            a[i * n + i] = diagonal;
+            for (int c = i + 1; c < n; c++) a[i * n + c] = -diagonal * work[c];
+        }
+        for (int j = n - 2; j >= 0; j--) {
+            int column = j;
+            for (int i = j + 1; i < n; i++) {
+                work[i] = a[i * n + j];
+                a[i * n + j] = 0;
+            }
+            rowBlocks(n, (long) n * (n - j), (start, end) -> {
+                for (int r = start; r < end; r++) {
+                    double sum = 0;
+                    for (int k = column + 1; k < n; k++) sum += a[r * n + k] * work[k];
+                    a[r * n + column] -= sum;
+                }
+            });
+        }
+        for (int j = n - 2; j >= 0; j--) {
+            int pivot = pivots[j];
+            if (pivot == j) continue;
+            for (int r = 0; r < n; r++) {
+                double swap = a[r * n + j];
+                a[r * n + j] = a[r * n + pivot];
+                a[r * n + pivot] = swap;
+            }
+        }
+    }
+
+    /**
+     * Factors the given symmetric matrix in place as {@code A = L L'}, reading only its lower triangle and clearing its
+     * upper triangle
+     *
+     * @return whether the matrix is positive definite, the factors being incomplete otherwise
+     */
+    static boolean cholesky(double[] a, int n) {
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, n);
+            for (int j = k0; j < k1; j++) {
+                double sum = a[j * n + j];
+                for (int k = k0; k < j; k++) sum -= a[j * n + k] * a[j * n + k];
+                if (!(sum > 0)) return false;
+                double diagonal = Math.sqrt(sum);
+                a[j * n + j] = diagonal;
+                for (int i = j + 1; i < k1; i++) {
+                    double value = a[i * n + j];
+                    for (int k = k0; k < j; k++) value -= a[i * n + k] * a[j * n + k];
+                    a[i * n + j] = value / diagonal;
+                }
+            }
+            if (k1 == n) break;
+            choleskyPanel(a, n, k0, k1);
+        }
+        for (int i = 0; i < n; i++) Arrays.fill(a, i * n + i + 1, i * n + n, 0);
+        return true;
+    }
+
+    /**
+     * Solves for the factors of rows below {@code k1} within columns {@code k0} to {@code k1}, then subtracts their
+     * product with their transpose from the lower triangle of the trailing matrix
+     */
+    private static void choleskyPanel(double[] a, int n, int k0, int k1) {
+        int panel = k1 - k0;
+        rowBlocks(n - k1, (long) (n - k1) * panel * panel, (start, end) -> {
+            for (int i = k1 + start; i < k1 + end; i++) {
+                for (int j = k0; j < k1; j++) {
+                    double value = a[i * n + j];
+                    for (int k = k0; k < j; k++) value -= a[i * n + k] * a[j * n + k];
+                    a[i * n + j] = value / a[j * n + j];
+                }
+            }
+        });
+        rowBlocks(n - k1, (long) (n - k1) * (n - k1) * panel / 2, (start, end) -> {
+            for (int i = k1 + start; i < k1 + end; i++) {
+                for (int c = k1; c <= i; c++) {
+                    double sum = 0;
+                    for (int k = k0; k < k1; k++) sum += a[i * n + k] * a[c * n + k];
+                    a[i * n + c] -= sum;
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces the given right-hand sides, of {@code m} columns, with the solutions of the system factored by
+     * {@link #cholesky(double[], int)}
+     */
+    static void choleskySolve(double[] l, int n, double[] b, int m) {
+        columnBlocks(m, (long) n * n * m, (c0, c1) -> {
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < i; k++) {
+                    double value = l[i * n + k];
+                    if (value != 0) subtractRow(b, m, i, k, value, c0, c1);
+                }
+                double diagonal = l[i * n + i];
+                for (int c = c0; c < c1; c++) b[i * m + c] /= diagonal;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                double diagonal = l[i * n + i];
+                for (int c = c0; c < c1; c++) b[i * m + c] /= diagonal;
+                for (int k = 0; k < i; k++) {
+                    double value = l[i * n + k];
+                    if (value != 0) subtractRow(b, m, k, i, value, c0, c1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Factors the given matrix of {@code m} rows and {@code n} columns in place as {@code A = Q R}, with {@code R} on and
+     * above the diagonal and the Householder vectors of {@code Q}, whose leading 1 is implied, below it
+     */
+    static void qr(double[] a, int m, int n, double[] tau) {
+        int p = Math.min(m, n);
+        for (int k0 = 0; k0 < p; k0 += BLOCK_SIZE) {
+            int k1 = Math.min(k0 + BLOCK_SIZE, p);
+            for (int j = k0; j < k1; j++) {
+                tau[j] = householder(a, m, n, j);
+                if (tau[j] != 0) reflect(a, m, n, j, tau[j], a, n, j + 1, k1);
+            }
+            if (k1 < n) applyBlock(a, m, n, k0, k1, triangularFactor(a, m, n, k0, k1, tau));
+        }
+    }
+
+    /**
+     * Applies the transposed block reflector {@code I - V T V'} of columns {@code k0} to {@code k1} to the columns to
+     * their right, one block of columns at a time
+     */
+    private static void applyBlock(double[] a, int m, int n, int k0, int k1, double[] t) {
+        int panel = k1 - k0;
+        columnBlocks(n - k1, (long) (m - k0) * (n - k1) * panel, (c0, c1) -> {
+            int width = c1 - c0;
+            double[] w = new double[panel * width];
+            for (int i = k0; i < m; i++) {
+                for (int r = 0; r < panel; r++) {
+                    double v = reflector(a, n, i, k0 + r);
+                    if (v == 0) continue;
+                    for (int c = 0; c < width; c++) w[r * width + c] += v * a[i * n + k1 + c0 + c];
+                }
+            }
+            for (int r = panel - 1; r >= 0; r--) {
+                for (int c = 0; c < width; c++) {
+                    double sum = 0;
+                    for (int s = 0; s <= r; s++) sum += t[s * panel + r] * w[s * width + c];
+                    w[r * width + c] = sum;
+                }
+            }
+            for (int i = k0; i < m; i++) {
+                for (int r = 0; r < panel; r++) {
+                    double v = reflector(a, n, i, k0 + r);
+                    if (v == 0) continue;
+                    for (int c = 0; c < width; c++) a[i * n + k1 + c0 + c] -= v * w[r * width + c];
+                }
+            }
+        });
+    }
+
+    /**
+     * Applies the transposed {@code Q} of {@link #qr(double[], int, int, double[])} to the given right-hand sides, of
+     * {@code k} columns
+     */
+    static void qrApplyTranspose(double[] a, int m, int n, double[] tau, double[] b, int k) {
+        for (int j = 0; j < Math.min(m, n); j++) {
+            if (tau[j] != 0) reflect(a, m, n, j, tau[j], b, k, 0, k);
+        }
+    }
+
+    /**
+     * Returns the first {@code min(m, n)} columns of {@code Q} of {@link #qr(double[], int, int, double[])}
+     */
+    static double[] qrQ(double[] a, int m, int n, double[] tau) {
+        int p = Math.min(m, n);
+        double[] q = new double[m * p];
+        for (int i = 0; i < p; i++) q[i * p + i] = 1;
+        for (int j = p - 1; j >= 0; j--) {
+            if (tau[j] != 0) reflect(a, m, n, j, tau[j], q, p, j, p);
+        }
+        return q;
+    }
+
+    /**
+     * Replaces the leading {@code n} rows of the given right-hand sides, of {@code k} columns, with the solutions of the
+     * upper triangular system {@code R x = b}
+     *
+     * @return whether {@code R} is nonsingular
+     */
+    static boolean backSubstitute(double[] r, int n, int stride, double[] b, int k) {
+        for (int i = n - 1; i >= 0; i--) {
+            double diagonal = r[i * stride + i];
+            if (diagonal == 0) return false;
+            for (int j = i + 1; j < n; j++) {
+                double value = r[i * stride + j];
+                if (value != 0) subtractRow(b, k, i, j, value, 0, k);
+            }
+            for (int c = 0; c < k; c++) b[i * k + c] /= diagonal;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the Householder reflector which zeroes column {@code j} below the diagonal, storing its vector there and
+     * the resulting diagonal element on the diagonal
+     *
+     * @return the scale of the reflector, or 0 if the column is already zero below the diagonal
+     */
+    private static double householder(double[] a, int m, int n, int j) {
+        double alpha = a[j * n + j];
+        double scale = 0;
+        for (int i = j + 1; i < m; i++) scale = Math.max(scale, Math.abs(a[i * n + j]));
+        if (scale == 0) return 0;
+        double squares = 0;
+        for (int i = j + 1; i < m; i++) {
+            double scaled = a[i * n + j] / scale;
+            squares += scaled * scaled;
+        }
+        double norm = scale * Math.sqrt(squares);
+        double beta = -Math.copySign(Math.hypot(alpha, norm), alpha);
+        double reciprocal = 1 / (alpha - beta);
+        for (int i = j + 1; i < m; i++) a[i * n + j] *= reciprocal;
+        a[j * n + j] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Applies reflector {@code j} of the factors {@code a} to columns {@code c0} to {@code c1} of the given matrix of
+     * {@code width} columns
+     */
+    private static void reflect(double[] a, int m, int n, int j, double tau, double[] target, int width, int c0, int c1) {
+        double[] sums = new double[c1 - c0];
+        for (int c = c0; c < c1; c++) sums[c - c0] = target[j * width + c];
+        for (int i = j + 1; i < m; i++) {
+            double v = a[i * n + j];
+            if (v == 0) continue;
+            for (int c = c0; c < c1; c++) sums[c - c0] += v * target[i * width + c];
+        }
+        for (int c = c0; c < c1; c++) target[j * width + c] -= tau * sums[c - c0];
+        for (int i = j + 1; i < m; i++) {
+            double v = tau * a[i * n + j];
+            if (v == 0) continue;
+            for (int c = c0; c < c1; c++) target[i * width + c] -= v * sums[c - c0];
+        }
+    }
+
+    /**
+     * Returns element {@code i} of Householder vector {@code j}
+     */
+    private static double reflector(double[] a, int n, int i, int j) {
+        return i < j ? 0 : i == j ? 1 : a[i * n + j];
+    }
+
+    /**
+     * Returns the upper triangular {@code T} for which the reflectors of columns {@code k0} to {@code k1} are together
+     * {@code I - V T V'}
+     */
+    private static double[] triangularFactor(double[] a, int m, int n, int k0, int k1, double[] tau) {
+        int panel = k1 - k0;
+        double[] t = new double[panel * panel];
+        double[] products = new double[panel];
+        for (int j = 0; j < panel; j++) {
+            Arrays.fill(products, 0);
+            for (int i = k0 + j; i < m; i++) {
+                double v = reflector(a, n, i, k0 + j);
+                if (v == 0) continue;
+                for (int r = 0; r < j; r++) products[r] += reflector(a, n, i, k0 + r) * v;
+            }
+            for (int r = 0; r < j; r++) {
+                double sum = 0;
+                for (int s = r; s < j; s++) sum += t[r * panel + s] * products[s];
+                t[r * panel + j] = -tau[k0 + j] * sum;
+            }
+            t[j * panel + j] = tau[k0 + j];
+        }
+        return t;
+    }
+
+    private static void swapRows(double[] a, int n, int first, int second) {
+        for (int c = 0; c < n; c++) {
+            double swap = a[first * n + c];
+            a[first * n + c] = a[second * n + c];
+            a[second * n + c] = swap;
+        }
+    }
+
+    /**
+     * Subtracts the given multiple of row {@code source} from row {@code target}, within columns {@code c0} to {@code c1}
+     */
+    private static void subtractRow(double[] b, int m, int target, int source, double multiplier, int c0, int c1) {
+        for (int c = c0; c < c1; c++) b[target * m + c] -= multiplier * b[source * m + c];
+    }
+
+    private static void rowBlocks(int rows, long work, Range range) {
+        blocks(rows, BLOCK_SIZE, work, range);
+    }
+
+    private static void columnBlocks(int columns, long work, Range range) {
+        blocks(columns, COLUMN_BLOCK, work, range);
+    }
+
+    private static void blocks(int length, int block, long work, Range range) {
+        int blocks = (length + block - 1) / block;
+        if (blocks < 2 || work < PARALLEL_WORK || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            range.apply(0, length);
+            return;
+        }
+        IntStream.range(0, blocks).parallel().forEach(b -> range.apply(b * block, Math.min(length, (b + 1) * block)));
+    }
+
+    @FunctionalInterface
+    private interface Range {
+        void apply(int start, int end);
+    }
+
+}
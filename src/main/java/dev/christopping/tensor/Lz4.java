@@ -0,0 +1,130 @@
+package dev.christopping.tensor;
+
+import java.util.Arrays;
+
+/**
+ * Compressor and decompressor for the LZ4 block format
+ * <p>
+ * Compression is greedy, matching 4-byte sequences through a single-entry hash table, which favours speed over ratio.
+ * Blocks do not record their decompressed length, so it must be stored alongside them.
+ */
+final class Lz4 {
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 14;
+
+    private Lz4() {
+    }
+
+    static byte[] compress(byte[] input) {
+        int length = input.length;
+        byte[] output = new byte[length + length / 255 + 16];
+        int outputPosition = 0;
+        int anchor = 0;
+
+        if (length >= MATCH_FIND_LIMIT + 1) {
+            int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+            int matchLimit = length - LAST_LITERALS;
+            int position = 0;
+            while (position < length - MATCH_FIND_LIMIT) {
+                int sequence = readInt(input, position);
+                int hash = (sequence * -1640531535) >>> (32 - HASH_LOG);
+                int reference = table[hash];
+                table[hash] = position;
+                if (reference < 0 || position - reference > MAX_OFFSET || readInt(input, reference) != sequence) {
+                    position++;
+                    continue;
+                }
+                int matchLength = MIN_MATCH;
+                while (position + matchLength < matchLimit && input[reference + matchLength] == input[position + matchLength]) {
+                    matchLength++;
+                }
+                outputPosition = writeSequence(output, outputPosition, input, anchor, position - anchor, position - reference, matchLength);
+                position += matchLength;
+                anchor = position;
+            }
+        }
+
+        outputPosition = writeSequence(output, outputPosition, input, anchor, length - anchor, 0, 0);
+        return Arrays.copyOf(output, outputPosition);
+    }
+
+    static byte[] decompress(byte[] input, int length) {
+        byte[] output = new byte[length];
+        int inputPosition = 0;
+        int outputPosition = 0;
+        try {
+            while (inputPosition < input.length) {
+                int token = input[inputPosition++] & 0xFF;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int next;
+                    do {
+                        next = input[inputPosition++] & 0xFF;
+                        literals += next;
+                    } while (next == 255);
+                }
+                System.arraycopy(input, inputPosition, output, outputPosition, literals);
+                inputPosition += literals;
+                outputPosition += literals;
+                if (inputPosition == input.length) break;
+
+                int offset = (input[inputPosition++] & 0xFF) | (input[inputPosition++] & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int next;
+                    do {
+                        next = input[inputPosition++] & 0xFF;
+                        matchLength += next;
+                    } while (next == 255);
+                }
+                matchLength += MIN_MATCH;
+                int reference = outputPosition - offset;
+                if (offset == 0 || reference < 0) throw new IllegalArgumentException("Corrupt LZ4 block");
+                // Matches may overlap their own output, so they are copied byte by byte
+                for (int i = 0; i < matchLength; i++) {
+                    output[outputPosition++] = output[reference++];
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt LZ4 block", e);
+        }
+        if (outputPosition != length) throw new IllegalArgumentException("Corrupt LZ4 block");
+        return output;
+    }
+
+    private static int writeSequence(byte[] output, int position, byte[] input, int literalStart, int literals, int offset, int matchLength) {
+        int tokenPosition = position++;
+        int token = Math.min(literals, 15) << 4;
+        if (literals >= 15) position = writeLength(output, position, literals - 15);
+        System.arraycopy(input, literalStart, output, position, literals);
+        position += literals;
+        if (matchLength > 0) {
+            output[position++] = (byte) offset;
+            output[position++] = (byte) (offset >>> 8);
+            token |= Math.min(matchLength - MIN_MATCH, 15);
+            if (matchLength - MIN_MATCH >= 15) position = writeLength(output, position, matchLength - MIN_MATCH - 15);
+        }
+        output[tokenPosition] = (byte) token;
+        return position;
+    }
+
+    private static int writeLength(byte[] output, int position, int length) {
+        while (length >= 255) {
+            output[position++] = (byte) 255;
+            length -= 255;
+        }
+        output[position++] = (byte) length;
+        return position;
+    }
+
+    private static int readInt(byte[] input, int position) {
+        return (input[position] & 0xFF) | (input[position + 1] & 0xFF) << 8
+                | (input[position + 2] & 0xFF) << 16 | (input[position + 3] & 0xFF) << 24;
+    }
+
+}
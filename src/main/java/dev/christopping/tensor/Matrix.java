@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -19,35 +20,81 @@ public class Matrix<T> extends Tensor<T> {
         super(map);
     }
 
+    Matrix(Map<Index, T> storage, boolean copy) {
+        super(storage, copy);
+    }
+
     public static <T> Matrix<T> of(List<List<T>> nestedList) {
+        TensorOperationEvent event = TensorOperationEvent.begin("of");
         Matrix<T> matrix = new Matrix<>();
         for (int y = 0; y < nestedList.size(); y++) {
             for (int x = 0; x < nestedList.get(0).size(); x++) {
                 matrix.set(nestedList.get(y).get(x), x, y);
             }
         }
-        return matrix;
+        return event.end(matrix);
     }
 
     public static <T> Matrix<T> of(T[][] nestedArray) {
+        TensorOperationEvent event = TensorOperationEvent.begin("of");
         Matrix<T> matrix = new Matrix<>();
         for (int y = 0; y < nestedArray.length; y++) {
             for (int x = 0; x < nestedArray[0].length; x++) {
                 matrix.set(nestedArray[y][x], x, y);
             }
         }
-        return matrix;
+        return event.end(matrix);
     }
 
     public static <T> Matrix<T> fill(T value, long x, long y) {
         if (x < 0 || y < 0) throw new IllegalArgumentException("x and y must both be positive");
-        return Tensor.fill(value, x, y).toMatrix();
+        TensorOperationEvent event = TensorOperationEvent.begin("fill");
+        return event.end(Tensor.fill(value, x, y).toMatrix());
     }
 
     public static <T> Matrix<T> fill(T value, int x, int y) {
         return fill(value, x, (long) y);
     }
 
+    public static Matrix<Integer> identity(long size) {
+        return band(1, 0, size, size, 0, 0);
+    }
+
+    public static <T> Matrix<T> diagonal(List<T> diagonal, T zero) {
+        if (diagonal == null || diagonal.isEmpty()) throw new IllegalArgumentException("Diagonal must not be empty");
+        TensorOperationEvent event = TensorOperationEvent.begin("diagonal");
+        long size = diagonal.size();
+        return event.end(new Matrix<>(new CopyOnWriteMap<>(StructuredStorage.diagonal(new long[]{size, size}, diagonal, zero)), false));
+    }
+
+    /**
+     * Creates a new {@code Matrix} which is {@code value} within a band around the diagonal and {@code zero} elsewhere
+     * </p>
+     * The element at {@code (x, y)} is within the band when {@code -lower <= x - y <= upper}. Elements are implied by
+     * their coordinates rather than stored, until an element is written.
+     *
+     * @param value the value of elements within the band
+     * @param zero  the value of elements outside the band
+     * @param x     the width of the matrix
+     * @param y     the height of the matrix
+     * @param lower the number of diagonals below the main diagonal within the band
+     * @param upper the number of diagonals above the main diagonal within the band
+     * @param <T>   the type of values contained in this matrix
+     * @return the new matrix
+     */
+    public static <T> Matrix<T> band(T value, T zero, long x, long y, long lower, long upper) {
+        TensorOperationEvent event = TensorOperationEvent.begin("band");
+        return event.end(new Matrix<>(new CopyOnWriteMap<>(StructuredStorage.band(new long[]{x, y}, lower, upper, value, zero)), false));
+    }
+
+    public static <T> Matrix<T> lowerTriangular(T value, T zero, long x, long y) {
+        return band(value, zero, x, y, Long.MAX_VALUE, 0);
+    }
+
+    public static <T> Matrix<T> upperTriangular(T value, T zero, long x, long y) {
+        return band(value, zero, x, y, 0, Long.MAX_VALUE);
+    }
+
     @Override
     public void set(T element, long... coordinates) {
         if (coordinates.length != 2) throw new IllegalArgumentException("Element requires 2 coordinates");
@@ -66,11 +113,14 @@ public class Matrix<T> extends Tensor<T> {
         if (index >= size(dimension))
             throw new IllegalArgumentException("Index exceeds matrix size in given dimension");
 
-        return map.entrySet().stream()
+        TensorOperationEvent event = TensorOperationEvent.begin("getVector", this);
+        List<T> vector = map.entrySet().stream()
                 .filter(entry -> entry.getKey().get(dimension) == index)
                 .sorted(Map.Entry.comparingByKey())
                 .map(Map.Entry::getValue)
                 .collect(Collectors.toList());
+        event.end(1, vector.size());
+        return vector;
     }
 
     @Override
@@ -87,12 +137,16 @@ public class Matrix<T> extends Tensor<T> {
     }
 
     public List<List<T>> toNestedList() {
-        return LongStream.range(0, height())
+        TensorOperationEvent event = TensorOperationEvent.begin("toNestedList", this);
+        List<List<T>> nestedList = LongStream.range(0, height())
                 .mapToObj(y -> LongStream.range(0, width()).mapToObj(x -> get(x, y)).collect(Collectors.toList()))
                 .collect(Collectors.toList());
+        event.end(2, width() * height());
+        return nestedList;
     }
 
     public void insertColumn(List<T> column, long x) {
+        TensorOperationEvent event = TensorOperationEvent.begin("insertColumn", this);
         Map<Index, T> shiftedMap = map.entrySet().stream()
                 .map(entry -> {
                     List<Long> coordinates = Arrays.stream(entry.getKey().coordinates())
@@ -112,6 +166,7 @@ public class Matrix<T> extends Tensor<T> {
 
         map.clear();
         map.putAll(shiftedMap);
+        event.end(this);
     }
 
     public void appendColumn(List<T> column) {
@@ -119,6 +174,7 @@ public class Matrix<T> extends Tensor<T> {
     }
 
     public void insertRow(List<T> row, long y) {
+        TensorOperationEvent event = TensorOperationEvent.begin("insertRow", this);
         Map<Index, T> shiftedMap = map.entrySet().stream()
                 .map(entry -> {
                     List<Long> coordinates = Arrays.stream(entry.getKey().coordinates())
@@ -138,20 +194,535 @@ public class Matrix<T> extends Tensor<T> {
 
         map.clear();
         map.putAll(shiftedMap);
+        event.end(this);
     }
 
     public void appendRow(List<T> row) {
         insertRow(row, height());
     }
 
+    /**
+     * Returns the LU decomposition of this square numeric matrix, with partial pivoting
+     * </p>
+     * The matrix is factored by the blocked algorithm of {@link LinearAlgebra}, in parallel once it is large enough.
+     * Absent elements are treated as zero.
+     *
+     * @return the decomposition
+     * @throws IllegalArgumentException if this matrix is not square or any element is not numeric
+     * @throws IllegalStateException    if this matrix is empty
+     */
+    public LU lu() {
+        int n = LinearAlgebra.size(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("lu", this);
+        LU lu = LU.of(LinearAlgebra.values(this, n, n), n);
+        event.end(2, (long) n * n);
+        return lu;
+    }
+
+    /**
+     * Returns the LU decomposition of this square matrix of doubles, overwriting it with the packed factors, as set out
+     * by {@link LU}, rather than copying it
+     *
+     * @return the decomposition, which is unaffected by later writes to this matrix
+     * @throws IllegalStateException if any element of this matrix is absent or not a double
+     */
+    public LU luInPlace() {
+        int n = LinearAlgebra.size(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("luInPlace", this);
+        LU lu = LinearAlgebra.inPlace(this, values -> LU.of(values, n));
+        event.end(this);
+        return lu;
+    }
+
+    /**
+     * Returns the Cholesky decomposition of this symmetric, positive definite numeric matrix, of which only the lower
+     * triangle, where {@code x <= y}, is read
+     *
+     * @return the decomposition
+     * @throws IllegalArgumentException if this matrix is not square and positive definite
+     * @throws IllegalStateException    if this matrix is empty
+     */
+    public Cholesky cholesky() {
+        int n = LinearAlgebra.size(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("cholesky", this);
+        Cholesky cholesky = Cholesky.of(LinearAlgebra.values(this, n, n), n);
+        event.end(2, (long) n * n);
+        return cholesky;
+    }
+
+    /**
+     * Returns the Cholesky decomposition of this symmetric, positive definite matrix of doubles, overwriting it with its
+     * lower triangular factor rather than copying it
+     * </p>
+     * If this matrix turns out not to be positive definite it is left partially factored.
+     *
+     * @return the decomposition, which is unaffected by later writes to this matrix
+     * @throws IllegalStateException if any element of this matrix is absent or not a double
+     */
+    public Cholesky choleskyInPlace() {
+        int n = LinearAlgebra.size(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("choleskyInPlace", this);
+        Cholesky cholesky = LinearAlgebra.inPlace(this, values -> Cholesky.of(values, n));
+        event.end(this);
+        return cholesky;
+    }
+
+    /**
+     * Returns the QR decomposition of this numeric matrix, computed with blocked Householder reflections
+     *
+     * @return the decomposition
+     * @throws IllegalArgumentException if any element is not numeric
+     * @throws IllegalStateException    if this matrix is empty
+     */
+    public QR qr() {
+        int[] shape = LinearAlgebra.shape(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("qr", this);
+        QR qr = QR.of(LinearAlgebra.values(this, shape[0], shape[1]), shape[0], shape[1]);
+        event.end(2, (long) shape[0] * shape[1]);
+        return qr;
+    }
+
+    /**
+     * Returns the QR decomposition of this matrix of doubles, overwriting it with {@code R} on and above the diagonal
+     * and the Householder vectors below it, rather than copying it
+     *
+     * @return the decomposition, which is unaffected by later writes to this matrix
+     * @throws IllegalStateException if any element of this matrix is absent or not a double
+     */
+    public QR qrInPlace() {
+        int[] shape = LinearAlgebra.shape(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("qrInPlace", this);
+        QR qr = LinearAlgebra.inPlace(this, values -> QR.of(values, shape[0], shape[1]));
+        event.end(this);
+        return qr;
+    }
+
+    /**
+     * Returns the solution {@code X} of {@code A X = B}, where {@code A} is this numeric matrix, by LU decomposition if
+     * it is square and otherwise by QR decomposition, in the least squares sense
+     *
+     * @param other the right-hand sides {@code B}, one per column, with as many rows as this matrix
+     * @return the solutions, one per column
+     * @throws IllegalArgumentException if this matrix has more columns than rows, or the right-hand sides have a
+     *                                  different number of rows
+     * @throws IllegalStateException    if this matrix is singular or rank deficient
+     */
+    public Matrix<Double> solve(Matrix<?> other) {
+        if (other == null) throw new IllegalArgumentException("Right-hand side must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin("solve", this, other);
+        return event.end(width() == height() ? lu().solve(other) : qr().solve(other));
+    }
+
+    /**
+     * Returns the solution {@code x} of {@code A x = b}, as set out by {@link #solve(Matrix)}
+     *
+     * @param other the right-hand side {@code b}
+     * @return the solution
+     */
+    public Vector<Double> solve(Vector<?> other) {
+        if (other == null) throw new IllegalArgumentException("Right-hand side must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin("solve", this, other);
+        return event.end(width() == height() ? lu().solve(other) : qr().solve(other));
+    }
+
+    /**
+     * Returns the inverse of this square numeric matrix, by LU decomposition
+     *
+     * @return the inverse
+     * @throws IllegalStateException if this matrix is singular
+     */
+    public Matrix<Double> inverse() {
+        TensorOperationEvent event = TensorOperationEvent.begin("inverse", this);
+        return event.end(lu().inverse());
+    }
+
+    /**
+     * Overwrites this square matrix of doubles with its inverse, by LU decomposition in place, with a workspace of a
+     * single row
+     *
+     * @throws IllegalStateException if this matrix is singular, when it is left holding its LU factors, or any element
+     *                               is absent or not a double
+     */
+    public void invertInPlace() {
+        int n = LinearAlgebra.size(this);
+        TensorOperationEvent event = TensorOperationEvent.begin("invertInPlace", this);
+        LinearAlgebra.inPlace(this, values -> {
+            LU.of(values, n).invertInPlace();
+            return null;
+        });
+        event.end(this);
+    }
+
+    /**
+     * Returns the determinant of this square numeric matrix, by LU decomposition
+     *
+     * @return the determinant
+     */
+    public double determinant() {
+        TensorOperationEvent event = TensorOperationEvent.begin("determinant", this);
+        double determinant = lu().determinant();
+        event.end(0, 1);
+        return determinant;
+    }
+
+    /**
+     * LU decomposition {@code P A = L U} of a square matrix, with {@code L} unit lower triangular and {@code U} upper
+     * triangular, packed together with the multipliers of {@code L} below the diagonal
+     */
+    public static final class LU {
+
+        private final double[] factors;
+        private final int size;
+        private final int[] pivots;
+        private final boolean singular;
+
+        private LU(double[] factors, int size, int[] pivots, boolean singular) {
+            this.factors = factors;
+            this.size = size;
+            this.pivots = pivots;
+            this.singular = singular;
+        }
+
+        private static LU of(double[] values, int size) {
+            int[] pivots = new int[size];
+            boolean singular = LinearAlgebra.lu(values, size, pivots);
+            return new LU(values, size, pivots, singular);
+        }
+
+        /**
+         * Returns the unit lower triangular factor {@code L}
+         *
+         * @return the lower factor
+         */
+        public Matrix<Double> lower() {
+            double[] lower = new double[size * size];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(factors, i * size, lower, i * size, i);
+                lower[i * size + i] = 1;
+            }
+            return LinearAlgebra.matrix(lower, size, size);
+        }
+
+        /**
+         * Returns the upper triangular factor {@code U}
+         *
+         * @return the upper factor
+         */
+        public Matrix<Double> upper() {
+            double[] upper = new double[size * size];
+            for (int i = 0; i < size; i++) System.arraycopy(factors, i * size + i, upper, i * size + i, size - i);
+            return LinearAlgebra.matrix(upper, size, size);
+        }
+
+        /**
+         * Returns the row of {@code A} which forms each row of {@code P A}
+         *
+         * @return the permuted row of each row
+         */
+        public int[] permutation() {
+            int[] rows = IntStream.range(0, size).toArray();
+            for (int i = 0; i < size; i++) {
+                int swap = rows[i];
+                rows[i] = rows[pivots[i]];
+                rows[pivots[i]] = swap;
+            }
+            return rows;
+        }
+
+        /**
+         * Returns whether a zero pivot was met, in which case the decomposition exists but cannot be used to solve or
+         * invert
+         *
+         * @return whether the decomposed matrix is singular
+         */
+        public boolean isSingular() {
+            return singular;
+        }
+
+        /**
+         * Returns the determinant of the decomposed matrix, the product of the diagonal of {@code U} with the sign of
+         * the permutation
+         *
+         * @return the determinant
+         */
+        public double determinant() {
+            double determinant = 1;
+            for (int i = 0; i < size; i++) {
+                determinant *= factors[i * size + i];
+                if (pivots[i] != i) determinant = -determinant;
+            }
+            return determinant;
+        }
+
+        /**
+         * Returns the solution {@code X} of {@code A X = B}
+         *
+         * @param other the right-hand sides {@code B}, one per column
+         * @return the solutions, one per column
+         * @throws IllegalArgumentException if the right-hand sides do not have as many rows as the decomposed matrix
+         * @throws IllegalStateException    if the decomposed matrix is singular
+         */
+        public Matrix<Double> solve(Matrix<?> other) {
+            int columns = LinearAlgebra.rightHandSide(other, size)[1];
+            double[] values = LinearAlgebra.values(other, size, columns);
+            solve(values, columns);
+            return LinearAlgebra.matrix(values, size, columns);
+        }
+
+        /**
+         * Returns the solution {@code x} of {@code A x = b}
+         *
+         * @param other the right-hand side {@code b}
+         * @return the solution
+         */
+        public Vector<Double> solve(Vector<?> other) {
+            LinearAlgebra.rightHandSide(other, size);
+            double[] values = LinearAlgebra.values(other, size, 1);
+            solve(values, 1);
+            return LinearAlgebra.vector(values);
+        }
+
+        /**
+         * Overwrites the given right-hand sides, a matrix of doubles, with the solutions of {@code A X = B}
+         *
+         * @param other the right-hand sides {@code B}, one per column
+         * @throws IllegalStateException if any right-hand side element is absent or not a double
+         */
+        public void solveInPlace(Matrix<?> other) {
+            int columns = LinearAlgebra.rightHandSide(other, size)[1];
+            LinearAlgebra.inPlace(other, values -> {
+                solve(values, columns);
+                return null;
+            });
+        }
+
+        private void solve(double[] values, int columns) {
+            if (singular) throw new IllegalStateException("Matrix must not be singular");
+            LinearAlgebra.luSolve(factors, size, pivots, values, columns);
+        }
+
+        /**
+         * Returns the inverse of the decomposed matrix
+         *
+         * @return the inverse
+         * @throws IllegalStateException if the decomposed matrix is singular
+         */
+        public Matrix<Double> inverse() {
+            double[] identity = new double[size * size];
+            for (int i = 0; i < size; i++) identity[i * size + i] = 1;
+            solve(identity, size);
+            return LinearAlgebra.matrix(identity, size, size);
+        }
+
+        private void invertInPlace() {
+            if (singular) throw new IllegalStateException("Matrix must not be singular");
+            LinearAlgebra.luInvert(factors, size, pivots);
+        }
+    }
+
+    /**
+     * Cholesky decomposition {@code A = L L'} of a symmetric, positive definite matrix, with {@code L} lower triangular
+     */
+    public static final class Cholesky {
+
+        private final double[] lower;
+        private final int size;
+
+        private Cholesky(double[] lower, int size) {
+            this.lower = lower;
+            this.size = size;
+        }
+
+        private static Cholesky of(double[] values, int size) {
+            if (!LinearAlgebra.cholesky(values, size))
+                throw new IllegalArgumentException("Matrix must be positive definite");
+            return new Cholesky(values, size);
+        }
+
+        /**
+         * Returns the lower triangular factor {@code L}
+         *
+         * @return the lower factor
+         */
+        public Matrix<Double> lower() {
+            return LinearAlgebra.matrix(lower.clone(), size, size);
+        }
+
+        /**
+         * Returns the determinant of the decomposed matrix, the square of the product of the diagonal of {@code L}
+         *
+         * @return the determinant
+         */
+        public double determinant() {
+            double product = 1;
+            for (int i = 0; i < size; i++) product *= lower[i * size + i];
+            return product * product;
+        }
+
+        /**
+         * Returns the solution {@code X} of {@code A X = B}
+         *
+         * @param other the right-hand sides {@code B}, one per column
+         * @return the solutions, one per column
+         * @throws IllegalArgumentException if the right-hand sides do not have as many rows as the decomposed matrix
+         */
+        public Matrix<Double> solve(Matrix<?> other) {
+            int columns = LinearAlgebra.rightHandSide(other, size)[1];
+            double[] values = LinearAlgebra.values(other, size, columns);
+            LinearAlgebra.choleskySolve(lower, size, values, columns);
+            return LinearAlgebra.matrix(values, size, columns);
+        }
+
+        /**
+         * Returns the solution {@code x} of {@code A x = b}
+         *
+         * @param other the right-hand side {@code b}
+         * @return the solution
+         */
+        public Vector<Double> solve(Vector<?> other) {
+            LinearAlgebra.rightHandSide(other, size);
+            double[] values = LinearAlgebra.values(other, size, 1);
+            LinearAlgebra.choleskySolve(lower, size, values, 1);
+            return LinearAlgebra.vector(values);
+        }
+
+        /**
+         * Overwrites the given right-hand sides, a matrix of doubles, with the solutions of {@code A X = B}
+         *
+         * @param other the right-hand sides {@code B}, one per column
+         * @throws IllegalStateException if any right-hand side element is absent or not a double
+         */
+        public void solveInPlace(Matrix<?> other) {
+            int columns = LinearAlgebra.rightHandSide(other, size)[1];
+            LinearAlgebra.inPlace(other, values -> {
+                LinearAlgebra.choleskySolve(lower, size, values, columns);
+                return null;
+            });
+        }
+
+        /**
+         * Returns the inverse of the decomposed matrix
+         *
+         * @return the inverse
+         */
+        public Matrix<Double> inverse() {
+            double[] identity = new double[size * size];
+            for (int i = 0; i < size; i++) identity[i * size + i] = 1;
+            LinearAlgebra.choleskySolve(lower, size, identity, size);
+            return LinearAlgebra.matrix(identity, size, size);
+        }
+    }
+
+    /**
+     * QR decomposition {@code A = Q R} of a matrix of {@code m} rows and {@code n} columns, with {@code Q} orthogonal
+     * and {@code R} upper triangular, held as {@code R} and the Householder vectors forming {@code Q}
+     */
+    public static final class QR {
+
+        private final double[] factors;
+        private final int rows;
+        private final int columns;
+        private final double[] scales;
+
+        private QR(double[] factors, int rows, int columns, double[] scales) {
+            this.factors = factors;
+            this.rows = rows;
+            this.columns = columns;
+            this.scales = scales;
+        }
+
+        private static QR of(double[] values, int rows, int columns) {
+            double[] scales = new double[Math.min(rows, columns)];
+            LinearAlgebra.qr(values, rows, columns, scales);
+            return new QR(values, rows, columns, scales);
+        }
+
+        /**
+         * Returns the first {@code min(m, n)} orthonormal columns of {@code Q}
+         *
+         * @return the orthogonal factor
+         */
+        public Matrix<Double> q() {
+            return LinearAlgebra.matrix(LinearAlgebra.qrQ(factors, rows, columns, scales), rows, scales.length);
+        }
+
+        /**
+         * Returns the first {@code min(m, n)} rows of the upper triangular factor {@code R}
+         *
+         * @return the upper triangular factor
+         */
+        public Matrix<Double> r() {
+            double[] upper = new double[scales.length * columns];
+            for (int i = 0; i < scales.length; i++) {
+                System.arraycopy(factors, i * columns + i, upper, i * columns + i, columns - i);
+            }
+            return LinearAlgebra.matrix(upper, scales.length, columns);
+        }
+
+        /**
+         * Returns the least squares solution {@code X} of {@code A X = B}, which minimises the Euclidean norm of each
+         * column of {@code A X - B}
+         *
+         * @param other the right-hand sides {@code B}, one per column
+         * @return the solutions, one per column
+         * @throws IllegalArgumentException if the decomposed matrix has more columns than rows, or the right-hand sides
+         *                                  have a different number of rows
+         * @throws IllegalStateException    if the decomposed matrix is rank deficient
+         */
+        public Matrix<Double> solve(Matrix<?> other) {
+            int width = LinearAlgebra.rightHandSide(other, rows)[1];
+            return LinearAlgebra.matrix(solve(LinearAlgebra.values(other, rows, width), width), columns, width);
+        }
+
+        /**
+         * Returns the least squares solution {@code x} of {@code A x = b}
+         *
+         * @param other the right-hand side {@code b}
+         * @return the solution
+         */
+        public Vector<Double> solve(Vector<?> other) {
+            LinearAlgebra.rightHandSide(other, rows);
+            return LinearAlgebra.vector(solve(LinearAlgebra.values(other, rows, 1), 1));
+        }
+
+        private double[] solve(double[] values, int width) {
+            if (columns > rows) throw new IllegalArgumentException("Matrix must not have more columns than rows");
+            LinearAlgebra.qrApplyTranspose(factors, rows, columns, scales, values, width);
+            if (!LinearAlgebra.backSubstitute(factors, columns, columns, values, width))
+                throw new IllegalStateException("Matrix must have full column rank");
+            return Arrays.copyOf(values, columns * width);
+        }
+    }
+
     @Override
     public Matrix<T> backfill(T element) {
         return super.backfill(element).toMatrix();
     }
 
+    @Override
+    public Matrix<T> scan(T identity, BinaryOperator<T> operator, int dimension) {
+        return super.scan(identity, operator, dimension).toMatrix();
+    }
+
+    @Override
+    public Matrix<Double> cumsum(int dimension) {
+        return super.cumsum(dimension).toMatrix();
+    }
+
+    @Override
+    public Matrix<Double> cumprod(int dimension) {
+        return super.cumprod(dimension).toMatrix();
+    }
+
+    @Override
+    public Matrix<Double> cummax(int dimension) {
+        return super.cummax(dimension).toMatrix();
+    }
+
     @Override
     public Matrix<T> transpose() {
-        return new Matrix<T>(map);
+        TensorOperationEvent event = TensorOperationEvent.begin("transpose", this);
+        return event.end(new Matrix<T>(map));
     }
 
     @Override
@@ -0,0 +1,425 @@
+package dev.christopping.tensor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reader and writer for sparse matrices in the Matrix Market coordinate format and in plain coordinate (COO) text
+ * <p>
+ * Files are split into byte ranges on line boundaries, and each range is memory-mapped and parsed on a
+ * {@link ForkJoinPool} directly from bytes. The parsed entries are inserted into a single pre-sized map, in file order,
+ * so the last of any duplicate entries wins.
+ * <p>
+ * Matrix Market rows and columns are 1-based, whereas plain coordinate files are 0-based. Either way, row {@code i} and
+ * column {@code j} of the file become the element at {@code (j, i)}.
+ * <p>
+ * As for any sparse {@link Tensor}, the dimensions of a matrix read are those spanned by its entries. The rows and columns
+ * declared on the size line only bound the entries, so empty trailing rows and columns are not kept, and writing the
+ * matrix back declares the smaller size.
+ */
+public final class MatrixMarket {
+
+    private static final String BANNER = "%%MatrixMarket";
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 26;
+    private static final int FAST_PATH_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private MatrixMarket() {
+    }
+
+    /**
+     * Reads a Matrix Market coordinate file, parsing in parallel on the common pool
+     *
+     * @param path the file to read
+     * @return the sparse matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a supported Matrix Market file
+     * @see #read(Path, ForkJoinPool)
+     */
+    public static Matrix<Double> read(Path path) throws IOException {
+        return read(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a Matrix Market coordinate file, parsing in parallel on the given pool
+     * <p>
+     * The {@code real}, {@code integer} and {@code pattern} fields are supported, the latter reading every entry as
+     * {@code 1.0}. For {@code symmetric} and {@code skew-symmetric} matrices, the mirrored entries are also inserted.
+     * Entries must lie within the declared rows and columns, but the matrix only spans the rows and columns they occupy.
+     *
+     * @param path the file to read
+     * @param pool the pool on which to parse
+     * @return the sparse matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a supported Matrix Market file
+     */
+    public static Matrix<Double> read(Path path, ForkJoinPool pool) throws IOException {
+        Header header = Header.read(path);
+        return read(path, pool, header.dataStart, 1, header.pattern, header.symmetry, header.rows, header.columns, header.entries);
+    }
+
+    /**
+     * Reads a plain coordinate text file, parsing in parallel on the common pool
+     *
+     * @param path the file to read
+     * @return the sparse matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file contains a malformed line
+     * @see #readCoordinates(Path, ForkJoinPool)
+     */
+    public static Matrix<Double> readCoordinates(Path path) throws IOException {
+        return readCoordinates(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a plain coordinate text file, parsing in parallel on the given pool
+     * <p>
+     * Each line holds a 0-based row, a 0-based column and a value, separated by whitespace or commas. Blank lines and
+     * lines beginning with {@code #} or {@code %} are skipped.
+     *
+     * @param path the file to read
+     * @param pool the pool on which to parse
+     * @return the sparse matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file contains a malformed line
+     */
+    public static Matrix<Double> readCoordinates(Path path, ForkJoinPool pool) throws IOException {
+        return read(path, pool, 0, 0, false, Symmetry.GENERAL, Long.MAX_VALUE, Long.MAX_VALUE, -1);
+    }
+
+    /**
+     * Writes a matrix to a Matrix Market coordinate file
+     *
+     * @param matrix the matrix to write
+     * @param path   the file to write
+     * @throws IOException if the file cannot be written
+     * @see #write(Matrix, Writer)
+     */
+    public static void write(Matrix<? extends Number> matrix, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            write(matrix, writer);
+        }
+    }
+
+    /**
+     * Writes a matrix in the Matrix Market coordinate format, without closing the writer
+     * <p>
+     * Present elements are written one per line, in storage order, as they are read from the matrix. The size line
+     * declares the dimensions of the matrix, which are those spanned by its present elements.
+     *
+     * @param matrix the matrix to write
+     * @param writer the writer to write to
+     * @throws IOException if the writer cannot be written
+     */
+    public static void write(Matrix<? extends Number> matrix, Writer writer) throws IOException {
+        Writer buffered = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        buffered.write(BANNER + " matrix coordinate real general\n");
+        if (matrix.isEmpty()) {
+            buffered.write("0 0 0\n");
+        } else {
+            buffered.write(matrix.height() + " " + matrix.width() + " " + matrix.map.size() + "\n");
+            for (Map.Entry<Index, ? extends Number> entry : matrix.map.entrySet()) {
+                Index index = entry.getKey();
+                buffered.write((index.get(1) + 1) + " " + (index.get(0) + 1) + " " + entry.getValue() + "\n");
+            }
+        }
+        buffered.flush();
+    }
+
+    private static Matrix<Double> read(Path path, ForkJoinPool pool, long dataStart, int base, boolean pattern,
+                                       Symmetry symmetry, long rows, long columns, long expectedEntries) throws IOException {
+        List<ForkJoinTask<Entries>> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (pool.getParallelism() * 4L)));
+            long start = dataStart;
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : lineEnd(channel, start + chunkSize);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                long offset = start;
+                tasks.add(pool.submit(() -> new Parser(buffer, offset, base, pattern).parse()));
+                start = end;
+            }
+        }
+
+        List<Entries> chunks = new ArrayList<>(tasks.size());
+        long total = 0;
+        for (ForkJoinTask<Entries> task : tasks) {
+            Entries entries = task.join();
+            chunks.add(entries);
+            total = Math.addExact(total, entries.size);
+        }
+        if (expectedEntries >= 0 && total != expectedEntries)
+            throw new IllegalArgumentException("Expected " + expectedEntries + " entries but found " + total);
+
+        Map<Index, Double> map = new HashMap<>((int) Math.min(Integer.MAX_VALUE, Math.multiplyExact(total, symmetry == Symmetry.GENERAL ? 4L : 8L) / 3 + 1));
+        for (Entries entries : chunks) {
+            for (int i = 0; i < entries.size; i++) {
+                long row = entries.rows[i];
+                long column = entries.columns[i];
+                if (row >= rows || column >= columns)
+                    throw new IllegalArgumentException("Entry (" + (row + base) + ", " + (column + base) + ") exceeds matrix size");
+                double value = entries.values[i];
+                map.put(new Index(new long[]{column, row}), value);
+                if (symmetry != Symmetry.GENERAL && row != column) {
+                    map.put(new Index(new long[]{row, column}), symmetry == Symmetry.SKEW_SYMMETRIC ? -value : value);
+                }
+            }
+        }
+
+        CopyOnWriteMap<Index, Double> storage = new CopyOnWriteMap<>(map);
+        storage.elementType(Double.class);
+        return new Matrix<>(storage, false);
+    }
+
+    // Returns the position just after the first line break at or after the given position
+    private static long lineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private enum Symmetry {
+        GENERAL, SYMMETRIC, SKEW_SYMMETRIC
+    }
+
+    private record Header(long rows, long columns, long entries, boolean pattern, Symmetry symmetry, long dataStart) {
+
+        private static Header read(Path path) throws IOException {
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+                long[] position = {0};
+                String banner = readLine(input, position);
+                String[] tokens = banner == null ? new String[0] : banner.trim().toLowerCase(Locale.ROOT).split("\\s+");
+                if (tokens.length != 5 || !tokens[0].equals(BANNER.toLowerCase(Locale.ROOT)) || !tokens[1].equals("matrix"))
+                    throw new IllegalArgumentException("File is not in the Matrix Market format");
+                if (!tokens[2].equals("coordinate"))
+                    throw new IllegalArgumentException("Unsupported Matrix Market format " + tokens[2]);
+                if (!List.of("real", "integer", "pattern").contains(tokens[3]))
+                    throw new IllegalArgumentException("Unsupported Matrix Market field " + tokens[3]);
+                Symmetry symmetry = switch (tokens[4]) {
+                    case "general" -> Symmetry.GENERAL;
+                    case "symmetric" -> Symmetry.SYMMETRIC;
+                    case "skew-symmetric" -> Symmetry.SKEW_SYMMETRIC;
+                    default -> throw new IllegalArgumentException("Unsupported Matrix Market symmetry " + tokens[4]);
+                };
+
+                String line;
+                do {
+                    line = readLine(input, position);
+                    if (line == null) throw new IllegalArgumentException("Missing Matrix Market size line");
+                } while (line.isBlank() || line.startsWith("%"));
+
+                String[] size = line.trim().split("\\s+");
+                if (size.length != 3) throw new IllegalArgumentException("Malformed Matrix Market size line");
+                long rows = Long.parseLong(size[0]);
+                long columns = Long.parseLong(size[1]);
+                long entries = Long.parseLong(size[2]);
+                return new Header(rows, columns, entries, tokens[3].equals("pattern"), symmetry, position[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed Matrix Market size line", e);
+            }
+        }
+
+        private static String readLine(InputStream input, long[] position) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int read;
+            while ((read = input.read()) != -1) {
+                position[0]++;
+                if (read == '\n') break;
+                line.write(read);
+            }
+            if (read == -1 && line.size() == 0) return null;
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final class Entries {
+        private long[] rows = new long[1024];
+        private long[] columns = new long[1024];
+        private double[] values = new double[1024];
+        private int size;
+
+        private void add(long row, long column, double value) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                columns = Arrays.copyOf(columns, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            rows[size] = row;
+            columns[size] = column;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    private static final class Parser {
+        private final ByteBuffer buffer;
+        private final long offset;
+        private final int base;
+        private final boolean pattern;
+        private final int limit;
+        private int position;
+
+        private Parser(ByteBuffer buffer, long offset, int base, boolean pattern) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.base = base;
+            this.pattern = pattern;
+            this.limit = buffer.limit();
+        }
+
+        private Entries parse() {
+            Entries entries = new Entries();
+            while (position < limit) {
+                skipSeparators();
+                if (position >= limit) break;
+                byte next = buffer.get(position);
+                if (next == '\n' || next == '\r') {
+                    position++;
+                    continue;
+                }
+                if (next == '%' || next == '#') {
+                    skipLine();
+                    continue;
+                }
+                long row = parseLong() - base;
+                skipSeparators();
+                long column = parseLong() - base;
+                double value = 1;
+                if (!pattern) {
+                    skipSeparators();
+                    value = parseDouble();
+                }
+                if (row < 0 || column < 0) throw malformed();
+                entries.add(row, column, value);
+                skipLine();
+            }
+            return entries;
+        }
+
+        private void skipSeparators() {
+            while (position < limit) {
+                byte next = buffer.get(position);
+                if (next != ' ' && next != '\t' && next != ',') return;
+                position++;
+            }
+        }
+
+        private void skipLine() {
+            while (position < limit && buffer.get(position++) != '\n') ;
+        }
+
+        private long parseLong() {
+            int start = position;
+            long value = 0;
+            while (position < limit) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+                position++;
+            }
+            if (position == start || position - start > 18) throw malformed();
+            return value;
+        }
+
+        // Exact when the significand fits in a double and the power of ten is exactly representable, else falls back
+        private double parseDouble() {
+            int start = position;
+            boolean negative = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negative = buffer.get(position++) == '-';
+            }
+            long significand = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean anyDigits = false;
+            boolean fraction = false;
+            while (position < limit) {
+                byte next = buffer.get(position);
+                if (next == '.' && !fraction) {
+                    fraction = true;
+                } else if (next >= '0' && next <= '9') {
+                    anyDigits = true;
+                    if (significand != 0 || next != '0') digits++;
+                    if (digits <= 18) {
+                        significand = significand * 10 + (next - '0');
+                        if (fraction) exponent--;
+                    } else if (!fraction) {
+                        exponent++;
+                    }
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if (anyDigits && position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+                position++;
+                boolean negativeExponent = false;
+                if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                    negativeExponent = buffer.get(position++) == '-';
+                }
+                int exponentStart = position;
+                int explicit = 0;
+                while (position < limit && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+                    if (explicit < 100_000) explicit = explicit * 10 + (buffer.get(position) - '0');
+                    position++;
+                }
+                if (position == exponentStart) throw malformed();
+                exponent += negativeExponent ? -explicit : explicit;
+            }
+            if (!anyDigits || !isTokenEnd()) return slowParseDouble(start);
+
+            double value;
+            if (digits <= FAST_PATH_DIGITS && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                value = exponent < 0 ? significand / POWERS_OF_TEN[-exponent] : significand * POWERS_OF_TEN[exponent];
+            } else {
+                return slowParseDouble(start);
+            }
+            return negative ? -value : value;
+        }
+
+        private double slowParseDouble(int start) {
+            position = start;
+            while (!isTokenEnd()) position++;
+            byte[] token = new byte[position - start];
+            buffer.get(start, token);
+            try {
+                return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed();
+            }
+        }
+
+        private boolean isTokenEnd() {
+            if (position >= limit) return true;
+            byte next = buffer.get(position);
+            return next == ' ' || next == '\t' || next == ',' || next == '\n' || next == '\r';
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed coordinate entry at byte " + (offset + position));
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package dev.christopping.tensor;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loader of tensors from nested lists and arrays which visits every element once
+ * <p>
+ * The outermost level of nesting becomes the highest dimension and the innermost level becomes dimension 0, and an
+ * innermost level holding single elements does not form a dimension of its own. A first pass surveys the sizes of the
+ * nested levels without visiting elements, after which a second pass writes each element straight into its storage:
+ * dense primitive storage when the nesting is rectangular and its elements share a primitive type, or a pre-sized hash
+ * map otherwise. Ragged nesting is loaded sparsely, leaving the elements missing from shorter levels absent.
+ * <p>
+ * Primitive arrays, such as {@code double[][]} or {@code int[][][]}, may be loaded too, in which case rows of the
+ * innermost level are copied into dense storage in bulk, without boxing.
+ */
+final class NestedLoader<T> {
+
+    private final Class<T> type;
+    private final List<Integer> lengths = new ArrayList<>();
+    private final List<Integer> extents = new ArrayList<>();
+    private boolean regular = true;
+    private int leafDepth = -1;
+    private Class<?> leafClass;
+    private long count;
+
+    private boolean squeezed;
+    private int order;
+    private long[] strides;
+    private DenseStorage<T> dense;
+    private Map<Index, T> sparse;
+
+    private NestedLoader(Class<T> type) {
+        this.type = type;
+    }
+
+    static <T> Tensor<T> load(Object nested, Class<T> type) {
+        if (type == null) throw new IllegalArgumentException("Type must not be null");
+        if (nested == null || length(nested) == 0) return Tensor.empty();
+        return new NestedLoader<>(type).read(nested);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tensor<T> read(Object nested) {
+        survey(nested, 0);
+        if (leafDepth < 0) return Tensor.empty();
+        squeezed = extents.get(leafDepth) == 1;
+        order = squeezed ? leafDepth : leafDepth + 1;
+        long[] shape = new long[order];
+        for (int depth = 0; depth < order; depth++) shape[order - 1 - depth] = extents.get(depth);
+
+        Dtype dtype = dtype();
+        long volume = DensityPolicy.volume(shape);
+        if (regular && count == volume && DensityPolicy.shouldDensify((int) Math.min(count, Integer.MAX_VALUE), volume, dtype)) {
+            dense = (DenseStorage<T>) DenseStorage.allocate(dtype, shape);
+            strides = DenseStorage.contiguousStrides(shape);
+        } else {
+            sparse = new HashMap<>((int) Math.min(count / 0.75f + 1, Integer.MAX_VALUE - 8));
+        }
+        write(nested, 0, new long[order]);
+
+        Map<Index, T> storage;
+        if (dense != null) {
+            dense.markFull();
+            storage = new CopyOnWriteMap<>(dense);
+        } else {
+            storage = new CopyOnWriteMap<>(sparse);
+        }
+        Tensor<T> tensor;
+        if (leafDepth == 0 && order == 0) {
+            tensor = new Scalar<>(storage);
+        } else if (leafDepth == 0) {
+            tensor = new Vector<>(storage, false);
+        } else {
+            tensor = new Tensor<>(storage, false);
+        }
+        tensor.assumeElementType(type);
+        return tensor;
+    }
+
+    private static int length(Object node) {
+        if (node instanceof List<?> list) return list.size();
+        return Array.getLength(node);
+    }
+
+    private static Object child(Object node, int position) {
+        if (node instanceof List<?> list) return list.get(position);
+        return ((Object[]) node)[position];
+    }
+
+    /**
+     * Returns whether the elements of the given non-empty node are nested levels rather than tensor elements
+     */
+    private boolean isNested(Object node) {
+        if (node instanceof List<?> list) return list.get(0) instanceof List<?>;
+        if (node instanceof Object[] array) return !type.isInstance(array[0]);
+        return false;
+    }
+
+    private static boolean isLevel(Object node) {
+        return node instanceof List<?> || (node != null && node.getClass().isArray());
+    }
+
+    /**
+     * Records the length of every level without visiting elements
+     */
+    private void survey(Object node, int depth) {
+        int length = length(node);
+        if (lengths.size() == depth) {
+            lengths.add(length);
+            extents.add(length);
+        } else {
+            if (lengths.get(depth) != length) regular = false;
+            extents.set(depth, Math.max(extents.get(depth), length));
+        }
+        if (length == 0) return;
+        if (isNested(node)) {
+            if (leafDepth >= 0 && depth >= leafDepth)
+                throw new IllegalArgumentException("Nested elements must be of a consistent depth");
+            for (int position = 0; position < length; position++) {
+                Object child = child(node, position);
+                if (!isLevel(child)) throw new IllegalArgumentException("Nested elements must be of a consistent depth");
+                survey(child, depth + 1);
+            }
+        } else {
+            if (leafDepth >= 0 && depth != leafDepth)
+                throw new IllegalArgumentException("Nested elements must be of a consistent depth");
+            leafDepth = depth;
+            count += length;
+            Class<?> container = node instanceof List<?> ? List.class : node instanceof Object[] ? Object[].class : node.getClass();
+            if (leafClass == null) {
+                leafClass = container;
+            } else if (leafClass != container) {
+                leafClass = Object.class;
+            }
+        }
+    }
+
+    /**
+     * Returns the dtype shared by every element, which is known without visiting elements when all innermost levels are
+     * primitive arrays of the same type or the expected type is itself a dtype
+     */
+    private Dtype dtype() {
+        if (leafClass == List.class || leafClass == Object[].class) return Dtype.exact(type).orElse(null);
+        if (leafClass == null || leafClass == Object.class) return null;
+        Class<?> boxed = Array.get(Array.newInstance(leafClass.getComponentType(), 1), 0).getClass();
+        if (!type.isAssignableFrom(boxed)) throw new IllegalArgumentException("Tensor cannot be expected to be of given type");
+        return Dtype.exact(boxed).orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(Object node, int depth, long[] coordinates) {
+        int length = length(node);
+        if (length == 0) return;
+        if (depth < leafDepth) {
+            for (int position = 0; position < length; position++) {
+                coordinates[order - 1 - depth] = position;
+                write(child(node, position), depth + 1, coordinates);
+            }
+            return;
+        }
+        boolean primitive = !(node instanceof List<?>) && !(node instanceof Object[]);
+        if (primitive && dense != null) {
+            dense.writePrimitives((int) offset(coordinates), node);
+            return;
+        }
+        long base = dense == null ? 0 : offset(coordinates);
+        for (int position = 0; position < length; position++) {
+            Object element = primitive ? Array.get(node, position) : child(node, position);
+            if (!type.isInstance(element)) throw new IllegalArgumentException("Tensor cannot be expected to be of given type");
+            if (dense != null) {
+                dense.write((int) (base + position), (T) element);
+            } else {
+                if (order > depth) coordinates[0] = position;
+                sparse.put(new Index(coordinates.clone()), (T) element);
+            }
+        }
+    }
+
+    private long offset(long[] coordinates) {
+        long offset = 0;
+        for (int d = squeezed ? 0 : 1; d < order; d++) offset += coordinates[d] * strides[d];
+        return offset;
+    }
+
+}
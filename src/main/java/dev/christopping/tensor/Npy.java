@@ -0,0 +1,386 @@
+package dev.christopping.tensor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reader and writer for the NumPy {@code .npy} and {@code .npz} formats
+ * <p>
+ * The {@code bool}, {@code int32}, {@code int64}, {@code float32} and {@code float64} dtypes are supported, in either
+ * byte order and in C or Fortran order. NumPy's last axis corresponds to dimension 0 of a tensor, so an array of shape
+ * {@code (rows, columns)} is read as a matrix of the same rows and columns.
+ * <p>
+ * Tensors read by this class are dense: every index within the shape is present and backed by a primitive buffer.
+ * They may be written to like any other tensor, which copies the elements out of a memory-mapped file first. Non-present
+ * elements of sparse tensors are written as zero (or {@code false}).
+ */
+public final class Npy {
+
+    private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    private static final int ALIGNMENT = 64;
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final String EXTENSION = ".npy";
+
+    private static final Pattern DESCR = Pattern.compile("'descr'\\s*:\\s*'([^']*)'");
+    private static final Pattern FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+
+    private Npy() {
+    }
+
+    /**
+     * Reads a tensor from a {@code .npy} file, memory-mapping its payload without copying
+     * <p>
+     * The returned tensor reads through a read-only mapping of the file, which is copied into storage of its own before
+     * the first element is set or removed, so the file itself is never modified. Files too large to be mapped into a
+     * single buffer, of more than {@link Integer#MAX_VALUE} bytes, are read into a primitive array instead.
+     *
+     * @param path the file to read
+     * @return the dense tensor
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a supported {@code .npy} file
+     */
+    public static Tensor<?> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Reads a tensor from a channel over a {@code .npy} file, memory-mapping it if it is no larger than the given limit
+     */
+    static Tensor<?> read(FileChannel channel, long mappingLimit) throws IOException {
+        long size = channel.size();
+        if (size <= mappingLimit) return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), false);
+        ByteBuffer prefix = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(mappingLimit, Integer.MAX_VALUE));
+        Header header = header(prefix);
+        return tensor(header.read(channel, prefix.position()), true);
+    }
+
+    /**
+     * Reads a tensor of the given element type from a {@code .npy} file, memory-mapping its payload without copying
+     *
+     * @param path the file to read
+     * @param type the expected element type
+     * @param <T>  element type
+     * @return the dense tensor
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a supported {@code .npy} file or its dtype does not match the type
+     * @see #read(Path)
+     */
+    public static <T> Tensor<T> read(Path path, Class<T> type) throws IOException {
+        return read(path).expect(type);
+    }
+
+    /**
+     * Reads a tensor from a stream of {@code .npy} data, which is read to its end but not closed
+     *
+     * @param input the stream to read
+     * @return the dense tensor
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the data is not a supported {@code .npy} file
+     */
+    public static Tensor<?> read(InputStream input) throws IOException {
+        return read(ByteBuffer.wrap(input.readAllBytes()), true);
+    }
+
+    /**
+     * Reads every {@code .npy} entry of a {@code .npz} archive, keyed by entry name without the extension
+     *
+     * @param path the archive to read
+     * @return the dense tensors, in archive order
+     * @throws IOException              if the archive cannot be read
+     * @throws IllegalArgumentException if an entry is not a supported {@code .npy} file
+     */
+    public static Map<String, Tensor<?>> readArchive(Path path) throws IOException {
+        Map<String, Tensor<?>> tensors = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            Iterator<? extends ZipEntry> entries = zip.entries().asIterator();
+            while (entries.hasNext()) {
+                ZipEntry entry = entries.next();
+                if (entry.isDirectory() || !entry.getName().endsWith(EXTENSION)) continue;
+                try (InputStream input = zip.getInputStream(entry)) {
+                    String name = entry.getName();
+                    tensors.put(name.substring(0, name.length() - EXTENSION.length()), read(input));
+                }
+            }
+        }
+        return tensors;
+    }
+
+    /**
+     * Writes a tensor to a {@code .npy} file in C order
+     *
+     * @param tensor the tensor to write
+     * @param path   the file to write
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if the tensor elements do not correspond to a supported dtype
+     * @see #write(Tensor, OutputStream, boolean)
+     */
+    public static void write(Tensor<?> tensor, Path path) throws IOException {
+        try (OutputStream output = Files.newOutputStream(path)) {
+            write(tensor, output, false);
+        }
+    }
+
+    /**
+     * Writes a tensor to a stream in the {@code .npy} format in C order, without closing the stream
+     *
+     * @param tensor the tensor to write
+     * @param output the stream to write to
+     * @throws IOException              if the stream cannot be written
+     * @throws IllegalArgumentException if the tensor elements do not correspond to a supported dtype
+     * @see #write(Tensor, OutputStream, boolean)
+     */
+    public static void write(Tensor<?> tensor, OutputStream output) throws IOException {
+        write(tensor, output, false);
+    }
+
+    /**
+     * Writes a tensor to a stream in the {@code .npy} format, without closing the stream
+     * <p>
+     * The dtype is chosen from the element types: {@code bool}, {@code int32}, {@code int64} and {@code float32} for
+     * tensors consisting only of {@link Boolean}, {@link Integer}, {@link Long} and {@link Float} elements respectively,
+     * {@code int64} for tensors mixing {@link Integer} and {@link Long} elements, and {@code float64} for any other
+     * numeric tensor. Elements are read from storage and written in fixed-size chunks, so no dense copy of the tensor is
+     * made.
+     *
+     * @param tensor       the tensor to write
+     * @param output       the stream to write to
+     * @param fortranOrder whether to write in Fortran order rather than C order
+     * @throws IOException              if the stream cannot be written
+     * @throws IllegalArgumentException if the tensor elements do not correspond to a supported dtype
+     */
+    public static void write(Tensor<?> tensor, OutputStream output, boolean fortranOrder) throws IOException {
+        Dtype dtype = Dtype.of(tensor.map);
+        long[] shape = tensor.map.isEmpty()
+                ? new long[]{0}
+                : tensor.dimensions().stream().mapToLong(Long::longValue).toArray();
+
+        output.write(header(dtype, shape, fortranOrder));
+
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (!tensor.map.isEmpty()) {
+            long[] coordinates = new long[shape.length];
+            do {
+                if (chunk.remaining() < dtype.width()) flush(chunk, output);
+                dtype.put(chunk, tensor.map.get(new Index(coordinates.clone())));
+            } while (increment(coordinates, shape, fortranOrder));
+        }
+        flush(chunk, output);
+    }
+
+    /**
+     * Writes tensors to a {@code .npz} archive, one {@code .npy} entry per map key
+     *
+     * @param tensors the tensors to write, keyed by entry name without the extension
+     * @param path    the archive to write
+     * @throws IOException              if the archive cannot be written
+     * @throws IllegalArgumentException if the elements of any tensor do not correspond to a supported dtype
+     */
+    public static void writeArchive(Map<String, ? extends Tensor<?>> tensors, Path path) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+            for (Map.Entry<String, ? extends Tensor<?>> entry : tensors.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey() + EXTENSION));
+                write(entry.getValue(), zip, false);
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Reads a tensor over the given buffer, which the tensor may write to if it is owned and otherwise copies first
+     */
+    private static Tensor<?> read(ByteBuffer buffer, boolean owned) {
+        Header header = header(buffer);
+        DenseStorage<?> storage = header.dtype.storage(buffer.slice().order(header.byteOrder), header.shape, header.strides());
+        if ((long) storage.size() * header.dtype.width() > buffer.remaining())
+            throw new IllegalArgumentException("Truncated .npy payload");
+        return tensor(storage, owned);
+    }
+
+    private static <T> Tensor<T> tensor(DenseStorage<T> storage, boolean owned) {
+        return new Tensor<>(owned ? new CopyOnWriteMap<>(storage) : CopyOnWriteMap.view(storage), false);
+    }
+
+    /**
+     * Parsed {@code .npy} header, describing the layout of the payload which follows it
+     */
+    private record Header(Dtype dtype, ByteOrder byteOrder, boolean fortranOrder, long[] shape) {
+
+        long[] strides() {
+            return fortranOrder ? DenseStorage.reversedStrides(shape) : DenseStorage.contiguousStrides(shape);
+        }
+
+        /**
+         * Reads the payload starting at the given position of the channel into heap storage, in fixed-size chunks
+         */
+        DenseStorage<?> read(FileChannel channel, long position) throws IOException {
+            long volume = DensityPolicy.volume(shape);
+            if (volume > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Dense storage cannot exceed " + Integer.MAX_VALUE + " elements");
+            long end = position + volume * dtype.width();
+            if (end > channel.size()) throw new IllegalArgumentException("Truncated .npy payload");
+
+            Buffer target = switch (dtype) {
+                case BOOL -> ByteBuffer.allocate((int) volume);
+                case INT32 -> IntBuffer.allocate((int) volume);
+                case INT64 -> LongBuffer.allocate((int) volume);
+                case FLOAT32 -> FloatBuffer.allocate((int) volume);
+                case FLOAT64 -> DoubleBuffer.allocate((int) volume);
+            };
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).order(byteOrder);
+            while (position < end) {
+                chunk.clear().limit((int) Math.min(CHUNK_SIZE, end - position));
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, position + chunk.position()) < 0)
+                        throw new IllegalArgumentException("Truncated .npy payload");
+                }
+                position += chunk.flip().remaining();
+                switch (dtype) {
+                    case BOOL -> ((ByteBuffer) target).put(chunk);
+                    case INT32 -> ((IntBuffer) target).put(chunk.asIntBuffer());
+                    case INT64 -> ((LongBuffer) target).put(chunk.asLongBuffer());
+                    case FLOAT32 -> ((FloatBuffer) target).put(chunk.asFloatBuffer());
+                    case FLOAT64 -> ((DoubleBuffer) target).put(chunk.asDoubleBuffer());
+                }
+            }
+            target.flip();
+            return switch (dtype) {
+                case BOOL -> DenseStorage.ofBooleans((ByteBuffer) target, shape, strides());
+                case INT32 -> DenseStorage.ofInts((IntBuffer) target, shape, strides());
+                case INT64 -> DenseStorage.ofLongs((LongBuffer) target, shape, strides());
+                case FLOAT32 -> DenseStorage.ofFloats((FloatBuffer) target, shape, strides());
+                case FLOAT64 -> DenseStorage.ofDoubles((DoubleBuffer) target, shape, strides());
+            };
+        }
+    }
+
+    /**
+     * Parses the header at the start of the given buffer, leaving the buffer positioned at the payload
+     */
+    private static Header header(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.remaining() < MAGIC.length + 4 || !Arrays.equals(MAGIC, readBytes(buffer, magic)))
+            throw new IllegalArgumentException("Data is not in the .npy format");
+
+        int major = buffer.get();
+        buffer.get();
+        int headerLength = switch (major) {
+            case 1 -> Short.toUnsignedInt(buffer.getShort());
+            case 2, 3 -> buffer.getInt();
+            default -> throw new IllegalArgumentException("Unsupported .npy format version " + major);
+        };
+        if (headerLength < 0 || headerLength > buffer.remaining())
+            throw new IllegalArgumentException("Truncated .npy header");
+        byte[] headerBytes = new byte[headerLength];
+        buffer.get(headerBytes);
+        String header = new String(headerBytes, major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+
+        String descr = group(DESCR, header, "descr");
+        boolean fortranOrder = group(FORTRAN_ORDER, header, "fortran_order").equals("True");
+        long[] shape = parseShape(group(SHAPE, header, "shape"));
+
+        ByteOrder byteOrder = switch (descr.charAt(0)) {
+            case '>' -> ByteOrder.BIG_ENDIAN;
+            case '<', '|' -> ByteOrder.LITTLE_ENDIAN;
+            case '=' -> ByteOrder.nativeOrder();
+            default -> throw new IllegalArgumentException("Unsupported dtype " + descr);
+        };
+        return new Header(Dtype.ofCode(descr.substring(1)), byteOrder, fortranOrder, shape);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String group(Pattern pattern, String header, String key) {
+        Matcher matcher = pattern.matcher(header);
+        if (!matcher.find()) throw new IllegalArgumentException("Missing " + key + " in .npy header");
+        return matcher.group(1);
+    }
+
+    // NumPy shapes list the slowest-varying axis first, whereas tensor dimension 0 is the fastest-varying
+    private static long[] parseShape(String shape) {
+        long[] dimensions = Arrays.stream(shape.split(","))
+                .map(String::trim)
+                .filter(dimension -> !dimension.isEmpty())
+                .mapToLong(dimension -> Long.parseLong(dimension.endsWith("L") ? dimension.substring(0, dimension.length() - 1) : dimension))
+                .toArray();
+        long[] reversed = new long[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++) {
+            reversed[i] = dimensions[dimensions.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    private static byte[] header(Dtype dtype, long[] shape, boolean fortranOrder) {
+        StringJoiner dimensions = new StringJoiner(", ", "(", shape.length == 1 ? ",)" : ")");
+        for (int d = shape.length - 1; d >= 0; d--) {
+            dimensions.add(Long.toString(shape[d]));
+        }
+        String dictionary = "{'descr': '" + dtype.descr() + "', 'fortran_order': " + (fortranOrder ? "True" : "False")
+                + ", 'shape': " + dimensions + ", }";
+
+        int major = 1;
+        int prefixLength = MAGIC.length + 4;
+        int headerLength = padded(prefixLength, dictionary.length());
+        if (headerLength > 0xFFFF) {
+            major = 2;
+            prefixLength = MAGIC.length + 6;
+            headerLength = padded(prefixLength, dictionary.length());
+        }
+        int padding = headerLength - dictionary.length() - 1;
+
+        ByteBuffer header = ByteBuffer.allocate(prefixLength + headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).put((byte) major).put((byte) 0);
+        if (major == 1) header.putShort((short) headerLength);
+        else header.putInt(headerLength);
+        header.put(dictionary.getBytes(StandardCharsets.ISO_8859_1));
+        for (int i = 0; i < padding; i++) header.put((byte) ' ');
+        header.put((byte) '\n');
+        return header.array();
+    }
+
+    // The header is terminated by a newline and space-padded so that the payload is aligned
+    private static int padded(int prefixLength, int dictionaryLength) {
+        int unpadded = prefixLength + dictionaryLength + 1;
+        return (unpadded + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT - prefixLength;
+    }
+
+    private static boolean increment(long[] coordinates, long[] shape, boolean fortranOrder) {
+        for (int i = 0; i < coordinates.length; i++) {
+            int d = fortranOrder ? coordinates.length - 1 - i : i;
+            if (++coordinates[d] < shape[d]) return true;
+            coordinates[d] = 0;
+        }
+        return false;
+    }
+
+    private static void flush(ByteBuffer chunk, OutputStream output) throws IOException {
+        output.write(chunk.array(), 0, chunk.position());
+        chunk.clear();
+    }
+
+}
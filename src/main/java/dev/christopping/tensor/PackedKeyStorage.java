@@ -0,0 +1,245 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Sparse {@link Map} implementation which packs each index within a fixed shape into a single {@code long} key
+ * <p>
+ * Keys are held in a primitive open-addressing table with linear probing, so no {@link Index} or hash node is retained
+ * per element; indices are only materialised when iterating. Elements may be added, replaced and removed within the
+ * shape, but not outside it.
+ *
+ * @param <T> element value type
+ */
+final class PackedKeyStorage<T> extends AbstractMap<Index, T> {
+
+    private static final long EMPTY = -1;
+
+    final long[] shape;
+    private final long[] strides;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    PackedKeyStorage(long[] shape, int expectedSize) {
+        long volume = 1;
+        for (long dimension : shape) {
+            if (dimension < 0) throw new IllegalArgumentException("Dimensions cannot be negative");
+            try {
+                volume = Math.multiplyExact(volume, dimension);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Shape cannot be packed into a long key");
+            }
+        }
+        this.shape = shape.clone();
+        this.strides = DenseStorage.contiguousStrides(shape);
+        allocate(capacityFor(expectedSize));
+    }
+
+    private PackedKeyStorage(PackedKeyStorage<T> source) {
+        this.shape = source.shape;
+        this.strides = source.strides;
+        this.keys = source.keys.clone();
+        this.values = source.values.clone();
+        this.size = source.size;
+    }
+
+    /**
+     * Copies the given storage into packed-key storage of the given shape
+     */
+    static <T> PackedKeyStorage<T> of(Map<Index, T> storage, long[] shape) {
+        PackedKeyStorage<T> packed = new PackedKeyStorage<>(shape, storage.size());
+        packed.putAll(storage);
+        return packed;
+    }
+
+    /**
+     * Returns the number of slots of a table sized for the given number of elements
+     */
+    static int capacityFor(int size) {
+        long capacity = Long.highestOneBit(Math.max(8, (long) size + (size >> 1)) - 1L) << 1;
+        if (capacity > 1 << 30) throw new IllegalArgumentException("Packed-key storage cannot exceed " + (1 << 29) + " elements");
+        return (int) capacity;
+    }
+
+    /**
+     * Returns a copy of this storage, of the same shape and capacity
+     */
+    PackedKeyStorage<T> copy() {
+        return new PackedKeyStorage<>(this);
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+    }
+
+    private long pack(Object key) {
+        if (!(key instanceof Index index) || index.order() != shape.length) return EMPTY;
+        long packed = 0;
+        for (int d = 0; d < shape.length; d++) {
+            long coordinate = index.get(d);
+            if (coordinate >= shape[d]) return EMPTY;
+            packed += coordinate * strides[d];
+        }
+        return packed;
+    }
+
+    private Index unpack(long key) {
+        long[] coordinates = new long[shape.length];
+        for (int d = shape.length - 1; d >= 0; d--) {
+            coordinates[d] = key / strides[d];
+            key %= strides[d];
+        }
+        return new Index(coordinates);
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+            if (keys[slot] == EMPTY) return -1;
+        }
+    }
+
+    /**
+     * Returns whether an element can be written at the given index, which it can within the shape
+     */
+    boolean accepts(Object key) {
+        return pack(key) != EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        long packed = pack(key);
+        return packed != EMPTY && find(packed) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(Object key) {
+        long packed = pack(key);
+        if (packed == EMPTY) return null;
+        int slot = find(packed);
+        return slot < 0 ? null : (T) values[slot];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T put(Index key, T value) {
+        long packed = pack(key);
+        if (packed == EMPTY)
+            throw new UnsupportedOperationException("Index " + key + " is outside the packed shape " + Arrays.toString(shape));
+        int mask = keys.length - 1;
+        int slot = home(packed);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == packed) {
+                T previous = (T) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = packed;
+        values[slot] = value;
+        if (++size > keys.length - (keys.length >> 2)) rehash(keys.length << 1);
+        return null;
+    }
+
+    private void rehash(int capacity) {
+        long[] previousKeys = keys;
+        Object[] previousValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (previousKeys[i] == EMPTY) continue;
+            int slot = home(previousKeys[i]);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = previousKeys[i];
+            values[slot] = previousValues[i];
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(Object key) {
+        long packed = pack(key);
+        if (packed == EMPTY) return null;
+        int slot = find(packed);
+        if (slot < 0) return null;
+        T previous = (T) values[slot];
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = home(keys[next]);
+            boolean reachable = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!reachable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Index, T>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<Index, T>> iterator() {
+                return new Iterator<>() {
+                    private int slot = advance(0);
+
+                    private int advance(int from) {
+                        while (from < keys.length && keys[from] == EMPTY) from++;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Index, T> next() {
+                        if (slot >= keys.length) throw new NoSuchElementException();
+                        Entry<Index, T> entry = new SimpleImmutableEntry<>(unpack(keys[slot]), (T) values[slot]);
+                        slot = advance(slot + 1);
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -0,0 +1,407 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Hash array mapped trie implementation of {@link Map}
+ * <p>
+ * Nodes are never modified once created: every update copies only the path from the root to the affected entry and
+ * shares all other nodes, costing O(log n). {@link #fork()} therefore creates an independent copy in O(1), and forks
+ * never observe each other's updates. Iterators remain valid across updates and traverse the state at their creation.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private Object root;
+    private int size;
+
+    PersistentMap() {
+        this(EMPTY, 0);
+    }
+
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static <K, V> PersistentMap<K, V> copyOf(Map<K, V> map) {
+        if (map instanceof PersistentMap<K, V> persistent) return persistent.fork();
+        PersistentMap<K, V> copy = new PersistentMap<>();
+        map.forEach(copy::put);
+        return copy;
+    }
+
+    /**
+     * Returns an independent copy of this map which shares all of its structure
+     *
+     * @return the forked map
+     */
+    PersistentMap<K, V> fork() {
+        return new PersistentMap<>(root, size);
+    }
+
+    /**
+     * Returns a new map with the given entry added or replaced, leaving this map unchanged
+     */
+    PersistentMap<K, V> plus(K key, V value) {
+        PersistentMap<K, V> updated = fork();
+        updated.put(key, value);
+        return updated;
+    }
+
+    /**
+     * Returns a new map with the given key removed, leaving this map unchanged
+     */
+    PersistentMap<K, V> minus(Object key) {
+        PersistentMap<K, V> updated = fork();
+        updated.remove(key);
+        return updated;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Leaf<K, V> leaf = find(key);
+        return leaf == null ? null : leaf.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Leaf<K, V> leaf = find(key);
+        return leaf == null ? defaultValue : leaf.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Change<V> change = new Change<>();
+        root = put(root, 0, hash(key), key, value, change);
+        if (change.added) size++;
+        return change.previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Change<V> change = new Change<>();
+        Object updated = remove(root, 0, hash(key), key, change);
+        root = updated == null || updated instanceof Leaf<?, ?> || updated instanceof CollisionNode<?, ?>
+                ? wrapRoot(updated)
+                : updated;
+        if (change.removed) size--;
+        return change.previous;
+    }
+
+    @Override
+    public void clear() {
+        root = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new TrieIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry<?, ?> entry)) return false;
+                Leaf<K, V> leaf = find(entry.getKey());
+                return leaf != null && Objects.equals(leaf.value, entry.getValue());
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int hash = Objects.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    private Object wrapRoot(Object node) {
+        if (node == null) return EMPTY;
+        int hash = node instanceof Leaf<?, ?> leaf ? leaf.hash : ((CollisionNode<?, ?>) node).hash;
+        return new BitmapNode(1 << fragment(hash, 0), new Object[]{node});
+    }
+
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> find(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (true) {
+            if (node instanceof BitmapNode bitmapNode) {
+                int bit = 1 << fragment(hash, shift);
+                if ((bitmapNode.bitmap & bit) == 0) return null;
+                node = bitmapNode.children[Integer.bitCount(bitmapNode.bitmap & (bit - 1))];
+                shift += BITS;
+            } else if (node instanceof Leaf<?, ?> leaf) {
+                return leaf.hash == hash && Objects.equals(leaf.key, key) ? (Leaf<K, V>) leaf : null;
+            } else {
+                CollisionNode<K, V> collision = (CollisionNode<K, V>) node;
+                if (collision.hash != hash) return null;
+                for (Leaf<K, V> leaf : collision.leaves) {
+                    if (Objects.equals(leaf.key, key)) return leaf;
+                }
+                return null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object put(Object node, int shift, int hash, K key, V value, Change<V> change) {
+        if (node instanceof BitmapNode bitmapNode) {
+            int bit = 1 << fragment(hash, shift);
+            int position = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+            if ((bitmapNode.bitmap & bit) == 0) {
+                change.added = true;
+                Object[] children = new Object[bitmapNode.children.length + 1];
+                System.arraycopy(bitmapNode.children, 0, children, 0, position);
+                children[position] = new Leaf<>(hash, key, value);
+                System.arraycopy(bitmapNode.children, position, children, position + 1, bitmapNode.children.length - position);
+                return new BitmapNode(bitmapNode.bitmap | bit, children);
+            }
+            Object child = bitmapNode.children[position];
+            Object updated = put(child, shift + BITS, hash, key, value, change);
+            if (updated == child) return bitmapNode;
+            Object[] children = bitmapNode.children.clone();
+            children[position] = updated;
+            return new BitmapNode(bitmapNode.bitmap, children);
+        } else if (node instanceof Leaf<?, ?> existing) {
+            Leaf<K, V> leaf = (Leaf<K, V>) existing;
+            if (leaf.hash == hash && Objects.equals(leaf.key, key)) {
+                change.previous = leaf.value;
+                return leaf.value == value ? leaf : new Leaf<>(hash, key, value);
+            }
+            change.added = true;
+            Leaf<K, V> added = new Leaf<>(hash, key, value);
+            if (leaf.hash == hash) return new CollisionNode<>(hash, List.of(leaf, added));
+            return merge(leaf, leaf.hash, added, shift);
+        } else {
+            CollisionNode<K, V> collision = (CollisionNode<K, V>) node;
+            if (collision.hash != hash) {
+                change.added = true;
+                return merge(collision, collision.hash, new Leaf<>(hash, key, value), shift);
+            }
+            List<Leaf<K, V>> leaves = new ArrayList<>(collision.leaves);
+            for (int i = 0; i < leaves.size(); i++) {
+                if (Objects.equals(leaves.get(i).key, key)) {
+                    change.previous = leaves.get(i).value;
+                    leaves.set(i, new Leaf<>(hash, key, value));
+                    return new CollisionNode<>(hash, List.copyOf(leaves));
+                }
+            }
+            change.added = true;
+            leaves.add(new Leaf<>(hash, key, value));
+            return new CollisionNode<>(hash, List.copyOf(leaves));
+        }
+    }
+
+    /**
+     * Creates the smallest sub-trie at the given shift which holds both the existing node and the new leaf
+     */
+    private static Object merge(Object existing, int existingHash, Leaf<?, ?> added, int shift) {
+        int existingFragment = fragment(existingHash, shift);
+        int addedFragment = fragment(added.hash, shift);
+        if (existingFragment == addedFragment) {
+            return new BitmapNode(1 << existingFragment, new Object[]{merge(existing, existingHash, added, shift + BITS)});
+        }
+        Object[] children = existingFragment < addedFragment ? new Object[]{existing, added} : new Object[]{added, existing};
+        return new BitmapNode((1 << existingFragment) | (1 << addedFragment), children);
+    }
+
+    /**
+     * Removes the key from the sub-trie, returning the updated sub-trie, or {@code null} if it became empty.
+     * Sub-tries reduced to a single leaf or collision are returned unwrapped so that the parent can inline them.
+     */
+    @SuppressWarnings("unchecked")
+    private Object remove(Object node, int shift, int hash, Object key, Change<V> change) {
+        if (node instanceof BitmapNode bitmapNode) {
+            int bit = 1 << fragment(hash, shift);
+            if ((bitmapNode.bitmap & bit) == 0) return bitmapNode;
+            int position = Integer.bitCount(bitmapNode.bitmap & (bit - 1));
+            Object child = bitmapNode.children[position];
+            Object updated = remove(child, shift + BITS, hash, key, change);
+            if (updated == child) return bitmapNode;
+            if (updated == null) {
+                if (bitmapNode.children.length == 1) return null;
+                Object[] children = new Object[bitmapNode.children.length - 1];
+                System.arraycopy(bitmapNode.children, 0, children, 0, position);
+                System.arraycopy(bitmapNode.children, position + 1, children, position, children.length - position);
+                if (children.length == 1 && !(children[0] instanceof BitmapNode)) return children[0];
+                return new BitmapNode(bitmapNode.bitmap & ~bit, children);
+            }
+            if (bitmapNode.children.length == 1 && !(updated instanceof BitmapNode)) return updated;
+            Object[] children = bitmapNode.children.clone();
+            children[position] = updated;
+            return new BitmapNode(bitmapNode.bitmap, children);
+        } else if (node instanceof Leaf<?, ?> leaf) {
+            if (leaf.hash != hash || !Objects.equals(leaf.key, key)) return leaf;
+            change.previous = (V) leaf.value;
+            change.removed = true;
+            return null;
+        } else {
+            CollisionNode<K, V> collision = (CollisionNode<K, V>) node;
+            if (collision.hash != hash) return collision;
+            List<Leaf<K, V>> leaves = new ArrayList<>(collision.leaves);
+            for (int i = 0; i < leaves.size(); i++) {
+                if (Objects.equals(leaves.get(i).key, key)) {
+                    change.previous = leaves.remove(i).value;
+                    change.removed = true;
+                    return leaves.size() == 1 ? leaves.get(0) : new CollisionNode<>(hash, List.copyOf(leaves));
+                }
+            }
+            return collision;
+        }
+    }
+
+    private static final class Change<V> {
+        V previous;
+        boolean added;
+        boolean removed;
+    }
+
+    private record BitmapNode(int bitmap, Object[] children) {
+    }
+
+    private record CollisionNode<K, V>(int hash, List<Leaf<K, V>> leaves) {
+    }
+
+    private static final class Leaf<K, V> implements Map.Entry<K, V> {
+        private final int hash;
+        private final K key;
+        private final V value;
+
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Entries of a persistent map cannot be modified in place");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry && Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Depth-first iterator over the trie as it was when the iterator was created
+     */
+    private final class TrieIterator implements Iterator<Entry<K, V>> {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Leaf<K, V> next;
+        private Leaf<K, V> last;
+
+        TrieIterator() {
+            push(root);
+            advance();
+        }
+
+        private void push(Object node) {
+            if (node instanceof BitmapNode bitmapNode) {
+                arrays.push(bitmapNode.children);
+            } else if (node instanceof CollisionNode<?, ?> collision) {
+                arrays.push(collision.leaves.toArray());
+            } else {
+                arrays.push(new Object[]{node});
+            }
+            positions.push(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object child = array[position];
+                if (child instanceof Leaf<?, ?> leaf) {
+                    next = (Leaf<K, V>) leaf;
+                    return;
+                }
+                push(child);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            last = next;
+            advance();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            PersistentMap.this.remove(last.key);
+            last = null;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package dev.christopping.tensor;
+
+/**
+ * Immutable tensor implementation backed by a persistent hash trie
+ * <p>
+ * Single-element updates return a new version in O(log n) which shares all unaffected structure with this version, so
+ * many versions of the same large tensor can be retained cheaply. Conversions to other tensor types share structure
+ * with this tensor in O(1), and the converted tensors copy only the updated paths when they are later modified.
+ *
+ * @param <T> element value type
+ */
+public class PersistentTensor<T> extends Tensor<T> {
+
+    PersistentTensor(PersistentMap<Index, T> storage) {
+        super(storage, false);
+    }
+
+    /**
+     * Creates a new empty {@code PersistentTensor}
+     *
+     * @param <T> the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> PersistentTensor<T> empty() {
+        return new PersistentTensor<>(new PersistentMap<>());
+    }
+
+    /**
+     * Creates a new {@code PersistentTensor} comprising the elements of the provided tensor
+     * </p>
+     * Costs O(1) if the provided tensor is already backed by persistent storage, and O(n) otherwise
+     *
+     * @param tensor the tensor to snapshot
+     * @param <T>    the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> PersistentTensor<T> of(Tensor<T> tensor) {
+        return new PersistentTensor<>(PersistentMap.copyOf(tensor.map));
+    }
+
+    /**
+     * Returns a new version of this tensor with the element set at the given index
+     *
+     * @param element the value of the element to be set
+     * @param index   the index at which to set the value
+     * @return the new version
+     */
+    public PersistentTensor<T> with(T element, Index index) {
+        if (!isEmpty() && order() != index.order())
+            throw new IllegalArgumentException("Index order should be equal to tensor order");
+        return new PersistentTensor<>(storage().plus(index, element));
+    }
+
+    public PersistentTensor<T> with(T element, long... coordinates) {
+        return with(element, Index.of(coordinates));
+    }
+
+    public PersistentTensor<T> with(T element, int... coordinates) {
+        return with(element, Index.of(coordinates));
+    }
+
+    /**
+     * Returns a new version of this tensor without the element at the given index
+     *
+     * @param index the index at which to remove the value
+     * @return the new version
+     */
+    public PersistentTensor<T> without(Index index) {
+        return new PersistentTensor<>(storage().minus(index));
+    }
+
+    @Override
+    public void set(T element, Index index) {
+        throw new UnsupportedOperationException("PersistentTensor is immutable, use with() instead");
+    }
+
+    @Override
+    public void setIfAbsent(T element, Index index) {
+        throw new UnsupportedOperationException("PersistentTensor is immutable, use with() instead");
+    }
+
+    @Override
+    public void remove(Index index) {
+        throw new UnsupportedOperationException("PersistentTensor is immutable, use without() instead");
+    }
+
+    @Override
+    public PersistentTensor<T> toPersistent() {
+        return this;
+    }
+
+    private PersistentMap<Index, T> storage() {
+        return (PersistentMap<Index, T>) map;
+    }
+
+}
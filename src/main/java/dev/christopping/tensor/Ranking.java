@@ -0,0 +1,165 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Selection of the greatest elements along a dimension of a tensor using a bounded heap per fiber
+ * <p>
+ * A fiber is the set of elements sharing every coordinate but the one in the ranked dimension. Only present elements are
+ * ranked, so sparse tensors are never densified, and each fiber retains at most {@code k} candidates at a time. Elements
+ * which compare equal are ranked by ascending coordinate.
+ */
+final class Ranking {
+
+    private Ranking() {
+    }
+
+    static <T> Tensor.TopK<T> topK(Map<Index, T> map, int k, int dimension, Comparator<? super T> comparator, boolean parallel) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive");
+        if (comparator == null) throw new IllegalArgumentException("Comparator must not be null");
+        Stream<Map.Entry<Index, T>> entries = parallel ? map.entrySet().parallelStream() : map.entrySet().stream();
+        Map<Index, Heap<T>> heaps = entries.collect(collector(k, dimension, comparator));
+
+        Map<Index, T> values = new HashMap<>();
+        Map<Index, Long> indices = new HashMap<>();
+        heaps.forEach((fiber, heap) -> {
+            heap.sort();
+            for (int rank = 0; rank < heap.size; rank++) {
+                long[] coordinates = fiber.coordinates().clone();
+                coordinates[dimension] = rank;
+                Index index = new Index(coordinates);
+                values.put(index, heap.value(rank));
+                indices.put(index, heap.coordinates[rank]);
+            }
+        });
+        return new Tensor.TopK<>(Tensor.adopt(values), Tensor.adopt(indices));
+    }
+
+    static <T> Tensor<Long> arg(Map<Index, T> map, int dimension, Comparator<? super T> comparator) {
+        if (comparator == null) throw new IllegalArgumentException("Comparator must not be null");
+        Map<Index, Heap<T>> heaps = map.entrySet().stream().collect(collector(1, dimension, comparator));
+        Map<Index, Long> result = new HashMap<>();
+        heaps.forEach((fiber, heap) -> result.put(fiber.constrain(dimension), heap.coordinates[0]));
+        return Tensor.adopt(result);
+    }
+
+    static <T> Index arg(Map<Index, T> map, Comparator<? super T> comparator) {
+        if (comparator == null) throw new IllegalArgumentException("Comparator must not be null");
+        Map.Entry<Index, T> best = null;
+        for (Map.Entry<Index, T> entry : map.entrySet()) {
+            if (best == null) {
+                best = entry;
+                continue;
+            }
+            int comparison = comparator.compare(entry.getValue(), best.getValue());
+            if (comparison > 0 || (comparison == 0 && entry.getKey().compareTo(best.getKey()) < 0)) best = entry;
+        }
+        if (best == null) throw new IllegalStateException("Tensor must not be empty");
+        return best.getKey();
+    }
+
+    private static <T> Collector<Map.Entry<Index, T>, ?, Map<Index, Heap<T>>> collector(int k, int dimension, Comparator<? super T> comparator) {
+        return Collector.of(
+                HashMap::new,
+                (heaps, entry) -> {
+                    long[] coordinates = entry.getKey().coordinates();
+                    if (dimension >= coordinates.length) return;
+                    long[] fiber = coordinates.clone();
+                    fiber[dimension] = 0;
+                    heaps.computeIfAbsent(new Index(fiber), key -> new Heap<>(k, comparator))
+                            .offer(entry.getValue(), coordinates[dimension]);
+                },
+                (first, second) -> {
+                    second.forEach((fiber, heap) -> first.merge(fiber, heap, Heap::merge));
+                    return first;
+                });
+    }
+
+    /**
+     * Min-heap of the best {@code k} candidates offered, whose root is the worst candidate retained
+     */
+    private static final class Heap<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private Object[] values;
+        private long[] coordinates;
+        private int size;
+
+        private Heap(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            this.values = new Object[Math.min(k, 16)];
+            this.coordinates = new long[values.length];
+        }
+
+        @SuppressWarnings("unchecked")
+        private T value(int position) {
+            return (T) values[position];
+        }
+
+        private void offer(T value, long coordinate) {
+            if (size < k) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, (int) Math.min(k, 2L * size));
+                    coordinates = Arrays.copyOf(coordinates, values.length);
+                }
+                int position = size++;
+                while (position > 0) {
+                    int parent = (position - 1) >>> 1;
+                    if (!worse(value, coordinate, value(parent), coordinates[parent])) break;
+                    values[position] = values[parent];
+                    coordinates[position] = coordinates[parent];
+                    position = parent;
+                }
+                values[position] = value;
+                coordinates[position] = coordinate;
+            } else if (worse(value(0), coordinates[0], value, coordinate)) {
+                siftDown(value, coordinate, size);
+            }
+        }
+
+        /**
+         * Returns whether the first candidate ranks below the second
+         */
+        private boolean worse(T value, long coordinate, T other, long otherCoordinate) {
+            int comparison = comparator.compare(value, other);
+            return comparison < 0 || (comparison == 0 && coordinate > otherCoordinate);
+        }
+
+        private void siftDown(T value, long coordinate, int limit) {
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= limit) break;
+                if (child + 1 < limit && worse(value(child + 1), coordinates[child + 1], value(child), coordinates[child])) child++;
+                if (!worse(value(child), coordinates[child], value, coordinate)) break;
+                values[position] = values[child];
+                coordinates[position] = coordinates[child];
+                position = child;
+            }
+            values[position] = value;
+            coordinates[position] = coordinate;
+        }
+
+        private Heap<T> merge(Heap<T> other) {
+            for (int position = 0; position < other.size; position++) offer(other.value(position), other.coordinates[position]);
+            return this;
+        }
+
+        /**
+         * Sorts the candidates from best to worst in place, after which the heap must no longer be offered candidates
+         */
+        private void sort() {
+            for (int limit = size - 1; limit > 0; limit--) {
+                T value = value(limit);
+                long coordinate = coordinates[limit];
+                values[limit] = values[0];
+                coordinates[limit] = coordinates[0];
+                siftDown(value, coordinate, limit);
+            }
+        }
+    }
+
+}
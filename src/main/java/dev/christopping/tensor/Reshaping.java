@@ -0,0 +1,246 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Layout changes of tensors, such as permuting, reshaping, squeezing and unsqueezing dimensions, which move no data
+ * <p>
+ * Full dense storage is laid out afresh over the same buffer, by permuting, dropping or inserting strides, whereas any
+ * other storage is wrapped by a {@link View} which remaps each index to the index of the source element. Reshaping
+ * preserves index order, in which dimension 0 varies fastest, so storage is only relaid when it is contiguous.
+ * <p>
+ * Either way, the result is a {@link CopyOnWriteMap#view(Map) copy-on-write view}, which is copied into storage of its
+ * own before it is first written to. Copy-on-write and persistent sources are captured as they were when the view was
+ * created, in O(1), whereas any other source is read live. A copy-on-write source is shared with the view until the view
+ * is copied, so the source only copies its storage before writing to it while the view still reads from it.
+ */
+final class Reshaping {
+
+    private Reshaping() {
+    }
+
+    static <T> Map<Index, T> permute(Tensor<T> tensor, int[] mapping) {
+        long[] shape = shape(tensor);
+        if (mapping == null || mapping.length != shape.length)
+            throw new IllegalArgumentException("Mapping size must be equal to tensor order [" + shape.length + "]");
+        boolean[] mapped = new boolean[shape.length];
+        for (int dimension : mapping) {
+            if (dimension < 0 || dimension >= shape.length || mapped[dimension])
+                throw new IllegalArgumentException("Mapping must be a permutation of the tensor dimensions");
+            mapped[dimension] = true;
+        }
+        return axes(tensor, shape, mapping.clone());
+    }
+
+    static <T> Map<Index, T> reshape(Tensor<T> tensor, long[] dimensions) {
+        if (dimensions == null) throw new IllegalArgumentException("Dimensions must not be null");
+        for (long dimension : dimensions) {
+            if (dimension < 1) throw new IllegalArgumentException("Dimensions must be positive");
+        }
+        if (tensor.isEmpty()) return new CopyOnWriteMap<>();
+        long[] shape = shape(tensor);
+        long volume = DensityPolicy.volume(shape);
+        if (volume != DensityPolicy.volume(dimensions))
+            throw new IllegalArgumentException("Dimensions " + Arrays.toString(dimensions) + " must hold the " + volume
+                    + " elements of dimensions " + Arrays.toString(shape));
+        long[] reshaped = dimensions.clone();
+        Map<Index, T> source = capture(tensor);
+        DenseStorage<T> dense = dense(source);
+        if (dense != null && dense.isContiguous()) {
+            return CopyOnWriteMap.view(dense.restride(reshaped, DenseStorage.contiguousStrides(reshaped)), source);
+        }
+        long[] strides = DenseStorage.contiguousStrides(shape);
+        long[] reshapedStrides = DenseStorage.contiguousStrides(reshaped);
+        return CopyOnWriteMap.view(new View<>(source, reshaped,
+                index -> unravel(ravel(index, reshapedStrides), strides),
+                index -> unravel(ravel(index, strides), reshapedStrides)), source);
+    }
+
+    static <T> Map<Index, T> squeeze(Tensor<T> tensor, int dimension) {
+        long[] shape = shape(tensor);
+        if (dimension < 0 || dimension >= shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        if (shape[dimension] != 1) throw new IllegalArgumentException("Only dimensions of size 1 can be squeezed");
+        int[] axes = new int[shape.length - 1];
+        for (int d = 0; d < axes.length; d++) axes[d] = d < dimension ? d : d + 1;
+        return axes(tensor, shape, axes);
+    }
+
+    static <T> Map<Index, T> squeeze(Tensor<T> tensor) {
+        long[] shape = shape(tensor);
+        return axes(tensor, shape, IntStream.range(0, shape.length).filter(d -> shape[d] != 1).toArray());
+    }
+
+    static <T> Map<Index, T> unsqueeze(Tensor<T> tensor, int dimension) {
+        long[] shape = shape(tensor);
+        if (dimension < 0 || dimension > shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        int[] axes = new int[shape.length + 1];
+        for (int d = 0; d < axes.length; d++) axes[d] = d < dimension ? d : d == dimension ? -1 : d - 1;
+        return axes(tensor, shape, axes);
+    }
+
+    /**
+     * Returns a view whose dimension {@code d} is dimension {@code axes[d]} of the given tensor, or a new dimension of
+     * size 1 where {@code axes[d]} is negative. Dimensions of the tensor missing from the axes must be of size 1.
+     */
+    private static <T> Map<Index, T> axes(Tensor<T> tensor, long[] shape, int[] axes) {
+        if (tensor.isEmpty()) return new CopyOnWriteMap<>();
+        long[] result = new long[axes.length];
+        for (int d = 0; d < axes.length; d++) result[d] = axes[d] < 0 ? 1 : shape[axes[d]];
+        Map<Index, T> source = capture(tensor);
+        DenseStorage<T> dense = dense(source);
+        if (dense != null) {
+            boolean ordered = true;
+            long[] strides = new long[axes.length];
+            for (int d = 0, previous = -1; d < axes.length; d++) {
+                if (axes[d] < 0) continue;
+                strides[d] = dense.strides[axes[d]];
+                ordered &= axes[d] > previous;
+                previous = axes[d];
+            }
+            if (ordered && dense.isContiguous()) strides = DenseStorage.contiguousStrides(result);
+            return CopyOnWriteMap.view(dense.restride(result, strides), source);
+        }
+        int order = shape.length;
+        return CopyOnWriteMap.view(new View<>(source, result,
+                index -> {
+                    long[] coordinates = new long[order];
+                    for (int d = 0; d < axes.length; d++) {
+                        if (axes[d] >= 0) coordinates[axes[d]] = index.get(d);
+                    }
+                    return new Index(coordinates);
+                },
+                index -> {
+                    long[] coordinates = new long[axes.length];
+                    for (int d = 0; d < axes.length; d++) {
+                        if (axes[d] >= 0) coordinates[d] = index.get(axes[d]);
+                    }
+                    return new Index(coordinates);
+                }), source);
+    }
+
+    private static long[] shape(Tensor<?> tensor) {
+        return tensor.dimensions().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the storage of the given tensor as it is now, sharing or forking it in O(1) where it supports doing so
+     * <p>
+     * A share must be passed on to {@link CopyOnWriteMap#view(Map, Map)}, which releases it once the view is copied.
+     */
+    private static <T> Map<Index, T> capture(Tensor<T> tensor) {
+        if (tensor.map instanceof CopyOnWriteMap<Index, T> shared) return shared.share();
+        if (tensor.map instanceof PersistentMap<Index, T> persistent) return persistent.fork();
+        return tensor.map;
+    }
+
+    private static <T> DenseStorage<T> dense(Map<Index, T> storage) {
+        Map<Index, T> backing = storage instanceof CopyOnWriteMap<Index, T> shared ? shared.backing() : storage;
+        return backing instanceof DenseStorage<T> dense && dense.isFull() ? dense : null;
+    }
+
+    private static long ravel(Index index, long[] strides) {
+        long offset = 0;
+        for (int d = 0; d < strides.length; d++) offset += index.get(d) * strides[d];
+        return offset;
+    }
+
+    private static Index unravel(long offset, long[] strides) {
+        long[] coordinates = new long[strides.length];
+        for (int d = strides.length - 1; d >= 0; d--) {
+            coordinates[d] = offset / strides[d];
+            offset %= strides[d];
+        }
+        return new Index(coordinates);
+    }
+
+    /**
+     * Read-only view of a map whose indices are remapped one to one, within a fixed shape
+     */
+    static final class View<T> extends AbstractMap<Index, T> {
+
+        private final Map<Index, T> source;
+        private final long[] shape;
+        private final UnaryOperator<Index> toSource;
+        private final UnaryOperator<Index> fromSource;
+
+        View(Map<Index, T> source, long[] shape, UnaryOperator<Index> toSource, UnaryOperator<Index> fromSource) {
+            this.source = source;
+            this.shape = shape;
+            this.toSource = toSource;
+            this.fromSource = fromSource;
+        }
+
+        /**
+         * Returns the index of the source element at the given index, or {@code null} if it is outside the shape
+         */
+        private Index source(Object key) {
+            if (!(key instanceof Index index) || index.order() != shape.length) return null;
+            for (int d = 0; d < shape.length; d++) {
+                if (index.get(d) >= shape[d]) return null;
+            }
+            return toSource.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Index index = source(key);
+            return index != null && source.containsKey(index);
+        }
+
+        @Override
+        public T get(Object key) {
+            Index index = source(key);
+            return index == null ? null : source.get(index);
+        }
+
+        @Override
+        public T put(Index key, T value) {
+            throw new UnsupportedOperationException("Reshaped views are read-only");
+        }
+
+        @Override
+        public T remove(Object key) {
+            throw new UnsupportedOperationException("Reshaped views are read-only");
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException("Reshaped views are read-only");
+        }
+
+        @Override
+        public Set<Entry<Index, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return source.size();
+                }
+
+                @Override
+                public Iterator<Entry<Index, T>> iterator() {
+                    Iterator<Entry<Index, T>> entries = source.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Index, T> next() {
+                            Entry<Index, T> entry = entries.next();
+                            return new SimpleImmutableEntry<>(fromSource.apply(entry.getKey()), entry.getValue());
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+}
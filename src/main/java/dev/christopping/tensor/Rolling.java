@@ -0,0 +1,210 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+
+/**
+ * Aggregation of sliding windows along a dimension of a tensor, each fiber being swept once by an {@link Aggregator}
+ * <p>
+ * Window {@code w} of a fiber covers coordinates {@code w * step} inclusive to {@code w * step + window} exclusive, and
+ * only windows lying wholly within the dimension are aggregated. Each element is added to and removed from the window
+ * state at most once, so a fiber of {@code n} elements is aggregated in O(n) however large the window. Absent elements
+ * are not aggregated, and windows holding no elements are absent from the result.
+ */
+final class Rolling {
+
+    private Rolling() {
+    }
+
+    static <T, R> Tensor<R> rolling(Tensor<T> tensor, int dimension, int window, int step, Aggregator<? super T, R> aggregator) {
+        if (aggregator == null) throw new IllegalArgumentException("Aggregator must not be null");
+        if (window < 1) throw new IllegalArgumentException("Window must be positive");
+        if (step < 1) throw new IllegalArgumentException("Step must be positive");
+        Map<Index, R> result = new HashMap<>();
+        if (tensor.isEmpty()) return Tensor.adopt(result);
+        long[] shape = Doubles.shape(tensor);
+        if (dimension < 0 || dimension >= shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        long windows = windows(shape[dimension], window, step);
+        if (windows == 0) return Tensor.adopt(result);
+
+        DenseStorage<T> dense = tensor.dense();
+        if (dense != null && dense.isFull()) {
+            long[] resultShape = shape.clone();
+            resultShape[dimension] = windows;
+            long[] strides = DenseStorage.contiguousStrides(resultShape);
+            Object[] aggregates = new Object[Math.toIntExact(DensityPolicy.volume(resultShape))];
+            denseFibers(dense, shape, dimension, (fiber, values) -> {
+                long base = 0;
+                for (int d = 0; d < strides.length; d++) base += fiber[d] * strides[d];
+                long offset = base;
+                slide(aggregator.window(), null, values, values.length, windows, window, step,
+                        (w, aggregate) -> aggregates[(int) (offset + w * strides[dimension])] = aggregate);
+            });
+            return collect(aggregates, resultShape);
+        }
+        for (Map.Entry<Index, Fiber<T>> entry : fibers(tensor.map, dimension).entrySet()) {
+            Fiber<T> fiber = entry.getValue();
+            long[] coordinates = entry.getKey().coordinates();
+            fiber.sort();
+            slide(aggregator.window(), fiber.positions, fiber.values, fiber.size, windows, window, step, (w, aggregate) -> {
+                long[] index = coordinates.clone();
+                index[dimension] = w;
+                result.put(new Index(index), aggregate);
+            });
+        }
+        return Tensor.adopt(result);
+    }
+
+    /**
+     * Returns a tensor of the given shape holding the aggregates laid out in index order, directly in dense storage if
+     * every aggregate is a double
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Tensor<R> collect(Object[] aggregates, long[] shape) {
+        double[] doubles = new double[aggregates.length];
+        for (int offset = 0; offset < aggregates.length && doubles != null; offset++) {
+            if (aggregates[offset] instanceof Double value) doubles[offset] = value;
+            else doubles = null;
+        }
+        if (doubles != null) return (Tensor<R>) Doubles.tensor(doubles, shape);
+        Map<Index, R> result = new HashMap<>();
+        long[] coordinates = new long[shape.length];
+        for (Object aggregate : aggregates) {
+            if (aggregate != null) result.put(new Index(coordinates.clone()), (R) aggregate);
+            for (int d = 0; d < coordinates.length; d++) {
+                if (++coordinates[d] < shape[d]) break;
+                coordinates[d] = 0;
+            }
+        }
+        return Tensor.adopt(result);
+    }
+
+    /**
+     * Returns the number of whole windows within a dimension of the given size
+     */
+    static long windows(long size, int window, int step) {
+        return size < window ? 0 : (size - window) / step + 1;
+    }
+
+    /**
+     * Aggregates every window of a fiber whose present elements, in ascending order, are at the given positions, or at
+     * every position if there are none, passing each non-empty aggregate to the given consumer with its window
+     */
+    private static <T, R> void slide(Aggregator.Window<? super T, R> state, long[] positions, T[] values, int size,
+                                     long windows, int window, int step, WindowConsumer<R> consumer) {
+        int head = 0;
+        int tail = 0;
+        for (long w = 0; w < windows; w++) {
+            long start = w * step;
+            while (tail < head && position(positions, tail) < start) state.remove(values[tail++]);
+            if (tail == head) {
+                if (head == size) return;
+                long next = position(positions, head);
+                if (next >= start + window) {
+                    w = (next - window) / step + 1;
+                    if (w >= windows) return;
+                    start = w * step;
+                }
+                while (head < size && position(positions, head) < start) head++;
+                tail = head;
+            }
+            while (head < size && position(positions, head) < start + window) state.add(values[head++]);
+            R aggregate = state.result();
+            if (aggregate != null) consumer.accept(w, aggregate);
+        }
+    }
+
+    private static long position(long[] positions, int i) {
+        return positions == null ? i : positions[i];
+    }
+
+    /**
+     * Passes the coordinates of each fiber of full dense storage, with coordinate 0 in the given dimension, to the given
+     * consumer along with its elements in order
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void denseFibers(DenseStorage<T> dense, long[] shape, int dimension, FiberConsumer<T> consumer) {
+        int length = (int) shape[dimension];
+        long stride = dense.strides[dimension];
+        long[] coordinates = new long[shape.length];
+        long fibers = DensityPolicy.volume(shape) / length;
+        for (long f = 0; f < fibers; f++) {
+            long base = 0;
+            for (int d = 0; d < shape.length; d++) base += coordinates[d] * dense.strides[d];
+            T[] values = (T[]) new Object[length];
+            for (int i = 0; i < length; i++) values[i] = dense.read((int) (base + i * stride));
+            consumer.accept(coordinates.clone(), values);
+            for (int d = 0; d < shape.length; d++) {
+                if (d == dimension) continue;
+                if (++coordinates[d] < shape[d]) break;
+                coordinates[d] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the present elements of each fiber along the given dimension, by the coordinates of the fiber with
+     * coordinate 0 in that dimension
+     */
+    static <T> Map<Index, Fiber<T>> fibers(Map<Index, T> map, int dimension) {
+        Map<Index, Fiber<T>> fibers = new HashMap<>();
+        for (Map.Entry<Index, T> entry : map.entrySet()) {
+            long[] coordinates = entry.getKey().coordinates();
+            if (dimension >= coordinates.length) continue;
+            long[] fiber = coordinates.clone();
+            fiber[dimension] = 0;
+            fibers.computeIfAbsent(new Index(fiber), key -> new Fiber<>()).add(coordinates[dimension], entry.getValue());
+        }
+        return fibers;
+    }
+
+    @FunctionalInterface
+    private interface FiberConsumer<T> {
+        void accept(long[] fiber, T[] values);
+    }
+
+    @FunctionalInterface
+    private interface WindowConsumer<R> {
+        void accept(long window, R aggregate);
+    }
+
+    /**
+     * Present elements of a sparse fiber, in the order they were found until sorted by position
+     */
+    static final class Fiber<T> {
+        long[] positions = new long[4];
+        T[] values = newArray(4);
+        int size;
+
+        @SuppressWarnings("unchecked")
+        private static <T> T[] newArray(int length) {
+            return (T[]) new Object[length];
+        }
+
+        private void add(long position, T value) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            positions[size] = position;
+            values[size++] = value;
+        }
+
+        void sort() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) sorted = positions[i - 1] < positions[i];
+            if (sorted) return;
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, Comparator.comparingLong(i -> positions[i]));
+            long[] sortedPositions = new long[positions.length];
+            T[] sortedValues = newArray(values.length);
+            for (int i = 0; i < size; i++) {
+                sortedPositions[i] = positions[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            positions = sortedPositions;
+            values = sortedValues;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package dev.christopping.tensor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Sliding window over a stream of elements, such as the observations of a time series, which emits an aggregate each
+ * time a window is completed
+ * <p>
+ * Windows are laid out as by {@link Tensor#rolling(int, int, int, Aggregator)}: window {@code w} covers the elements
+ * pushed at positions {@code w * step} to {@code w * step + window - 1}. Only the elements of the current window are
+ * retained, and each is added to and removed from the {@link Aggregator} state once. A {@code null} element is a missing
+ * observation, which occupies a position without being aggregated.
+ *
+ * @param <T> element value type
+ * @param <R> aggregate value type
+ */
+public final class RollingWindow<T, R> {
+
+    private final int window;
+    private final int step;
+    private final Aggregator.Window<? super T, R> state;
+    private final Deque<T> values = new ArrayDeque<>();
+    private final Deque<Long> positions = new ArrayDeque<>();
+    private long position;
+    private long completed;
+
+    private RollingWindow(int window, int step, Aggregator<? super T, R> aggregator) {
+        if (aggregator == null) throw new IllegalArgumentException("Aggregator must not be null");
+        if (window < 1) throw new IllegalArgumentException("Window must be positive");
+        if (step < 1) throw new IllegalArgumentException("Step must be positive");
+        this.window = window;
+        this.step = step;
+        this.state = aggregator.window();
+    }
+
+    /**
+     * Returns an empty sliding window
+     *
+     * @param window     the number of positions in each window
+     * @param step       the number of positions between the starts of consecutive windows
+     * @param aggregator the aggregator of each window
+     * @param <T>        element value type
+     * @param <R>        aggregate value type
+     * @return the sliding window
+     * @throws IllegalArgumentException if the window or step is not positive
+     */
+    public static <T, R> RollingWindow<T, R> of(int window, int step, Aggregator<? super T, R> aggregator) {
+        return new RollingWindow<>(window, step, aggregator);
+    }
+
+    /**
+     * Pushes the element at the next position, returning the aggregate of the window it completes, if any
+     *
+     * @param element the element, or {@code null} if it is missing
+     * @return the aggregate of the completed window, or {@code null} if no window was completed or it held no elements
+     */
+    public R push(T element) {
+        long current = position++;
+        long start = completed * step;
+        if (element != null && current >= start) {
+            state.add(element);
+            values.addLast(element);
+            positions.addLast(current);
+        }
+        if (current != start + window - 1) return null;
+        R aggregate = state.result();
+        long next = ++completed * step;
+        while (!positions.isEmpty() && positions.peekFirst() < next) {
+            positions.pollFirst();
+            state.remove(values.pollFirst());
+        }
+        return aggregate;
+    }
+
+    /**
+     * Pushes the elements of the given vector in order, from index 0 to its size, returning the aggregates of the
+     * windows they complete
+     *
+     * @param elements the elements, of which absent ones are missing
+     * @return the aggregates, in order from index 0
+     */
+    public Vector<R> pushAll(Vector<? extends T> elements) {
+        if (elements == null) throw new IllegalArgumentException("Elements must not be null");
+        Vector<R> aggregates = new Vector<>(new CopyOnWriteMap<>(), false);
+        long first = completed;
+        long size = elements.size();
+        for (long i = 0; i < size; i++) {
+            R aggregate = push(elements.map.get(Index.of(i)));
+            if (aggregate != null) aggregates.map.put(Index.of(completed - 1 - first), aggregate);
+        }
+        return aggregates;
+    }
+
+    /**
+     * Returns the number of elements pushed so far
+     *
+     * @return the number of positions
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of windows completed so far
+     *
+     * @return the number of windows
+     */
+    public long completed() {
+        return completed;
+    }
+
+}
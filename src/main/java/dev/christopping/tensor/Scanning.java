@@ -0,0 +1,231 @@
+package dev.christopping.tensor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Inclusive scans along a dimension of a tensor, in which each element is combined with every element preceding it in
+ * its fiber
+ * <p>
+ * Elements are laid out in index order, so the fibers of a dimension with stride {@code s} are interleaved: row
+ * {@code k} of {@code s} consecutive elements is combined with row {@code k - 1}, which sweeps memory sequentially, and
+ * large tensors are split into independent runs of rows by column. Where there are too few fibers to occupy every
+ * thread, each long fiber is scanned by Blelloch's work-efficient parallel prefix: blocks are reduced concurrently,
+ * the block totals are scanned by an up-sweep and down-sweep of a balanced tree, and every block is then scanned
+ * concurrently from the total preceding it. The operator must therefore be associative, but need not be commutative.
+ */
+final class Scanning {
+
+    private static final int PARALLEL_VOLUME = 1 << 16;
+    private static final int MINIMUM_BLOCK = 1 << 12;
+    private static final int COLUMN_CHUNK = 1 << 10;
+
+    private Scanning() {
+    }
+
+    /**
+     * Returns the scan of the given numeric tensor along the given dimension, in which absent elements read as zero
+     */
+    static Tensor<Double> numeric(Tensor<?> tensor, int dimension, double identity, DoubleBinaryOperator operator) {
+        if (tensor.isEmpty()) return Tensor.adopt(new HashMap<>());
+        long[] shape = Doubles.shape(tensor);
+        if (dimension < 0 || dimension >= shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+        double[] values = Doubles.of(tensor, shape);
+        scan(values, shape, dimension, identity, operator);
+        return Doubles.tensor(values, shape);
+    }
+
+    /**
+     * Returns the scan of the present elements of the given tensor along the given dimension, starting from the identity
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Tensor<T> scan(Tensor<T> tensor, T identity, BinaryOperator<T> operator, int dimension) {
+        if (operator == null) throw new IllegalArgumentException("Operator must not be null");
+        Map<Index, T> result = new HashMap<>();
+        if (tensor.isEmpty()) return Tensor.adopt(result);
+        long[] shape = Doubles.shape(tensor);
+        if (dimension < 0 || dimension >= shape.length) throw new IndexOutOfBoundsException("Dimension exceeds tensor order");
+
+        DenseStorage<T> dense = tensor.dense();
+        if (dense != null && dense.isFull()) {
+            long[] strides = DenseStorage.contiguousStrides(shape);
+            Object[] values = new Object[dense.volume()];
+            for (Map.Entry<Index, T> entry : dense.entrySet()) {
+                long offset = 0;
+                for (int d = 0; d < strides.length; d++) offset += entry.getKey().get(d) * strides[d];
+                values[(int) offset] = entry.getValue();
+            }
+            scan((T[]) values, shape, dimension, identity, operator);
+            long[] coordinates = new long[shape.length];
+            for (Object value : values) {
+                result.put(new Index(coordinates.clone()), (T) value);
+                for (int d = 0; d < coordinates.length; d++) {
+                    if (++coordinates[d] < shape[d]) break;
+                    coordinates[d] = 0;
+                }
+            }
+            return Tensor.adopt(result);
+        }
+        for (Map.Entry<Index, Rolling.Fiber<T>> entry : Rolling.fibers(tensor.map, dimension).entrySet()) {
+            Rolling.Fiber<T> fiber = entry.getValue();
+            fiber.sort();
+            T accumulated = identity;
+            for (int i = 0; i < fiber.size; i++) {
+                accumulated = operator.apply(accumulated, fiber.values[i]);
+                long[] coordinates = entry.getKey().coordinates().clone();
+                coordinates[dimension] = fiber.positions[i];
+                result.put(new Index(coordinates), accumulated);
+            }
+        }
+        return Tensor.adopt(result);
+    }
+
+    /**
+     * Scans the given values of the given shape, laid out in index order, in place along the given dimension
+     */
+    private static void scan(double[] values, long[] shape, int dimension, double identity, DoubleBinaryOperator operator) {
+        int length = (int) shape[dimension];
+        int stride = stride(shape, dimension);
+        int outer = values.length / (stride * length);
+        if (values.length < PARALLEL_VOLUME) {
+            for (int o = 0; o < outer; o++) rows(values, o * stride * length, stride, 0, stride, length, operator);
+        } else if ((long) outer * stride < parallelism() && length >= 2 * MINIMUM_BLOCK) {
+            for (int o = 0; o < outer; o++) {
+                for (int i = 0; i < stride; i++) blelloch(values, o * stride * length + i, stride, length, identity, operator);
+            }
+        } else {
+            int chunks = (stride + COLUMN_CHUNK - 1) / COLUMN_CHUNK;
+            IntStream.range(0, outer * chunks).parallel().forEach(unit -> {
+                int from = unit % chunks * COLUMN_CHUNK;
+                rows(values, unit / chunks * stride * length, stride, from, Math.min(stride, from + COLUMN_CHUNK), length, operator);
+            });
+        }
+    }
+
+    private static void rows(double[] values, int base, int stride, int from, int to, int length, DoubleBinaryOperator operator) {
+        for (int k = 1; k < length; k++) {
+            int row = base + k * stride;
+            int previous = row - stride;
+            for (int i = from; i < to; i++) values[row + i] = operator.applyAsDouble(values[previous + i], values[row + i]);
+        }
+    }
+
+    private static void blelloch(double[] values, int base, int stride, int length, double identity, DoubleBinaryOperator operator) {
+        int blocks = Math.min(length / MINIMUM_BLOCK, 4 * parallelism());
+        int size = (length + blocks - 1) / blocks;
+        double[] totals = new double[Integer.highestOneBit(blocks - 1) << 1];
+        Arrays.fill(totals, identity);
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(length, (b + 1) * size);
+            double total = values[base + b * size * stride];
+            for (int k = b * size + 1; k < end; k++) total = operator.applyAsDouble(total, values[base + k * stride]);
+            totals[b] = total;
+        });
+        for (int width = 1; width < totals.length; width <<= 1) {
+            for (int i = 2 * width - 1; i < totals.length; i += 2 * width) {
+                totals[i] = operator.applyAsDouble(totals[i - width], totals[i]);
+            }
+        }
+        totals[totals.length - 1] = identity;
+        for (int width = totals.length >> 1; width >= 1; width >>= 1) {
+            for (int i = 2 * width - 1; i < totals.length; i += 2 * width) {
+                double left = totals[i - width];
+                totals[i - width] = totals[i];
+                totals[i] = operator.applyAsDouble(totals[i], left);
+            }
+        }
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(length, (b + 1) * size);
+            double accumulated = totals[b];
+            for (int k = b * size; k < end; k++) {
+                int offset = base + k * stride;
+                accumulated = operator.applyAsDouble(accumulated, values[offset]);
+                values[offset] = accumulated;
+            }
+        });
+    }
+
+    /**
+     * Scans the given values of the given shape, laid out in index order, in place along the given dimension, starting
+     * each fiber from the identity
+     */
+    private static <T> void scan(T[] values, long[] shape, int dimension, T identity, BinaryOperator<T> operator) {
+        int length = (int) shape[dimension];
+        int stride = stride(shape, dimension);
+        int outer = values.length / (stride * length);
+        if (values.length < PARALLEL_VOLUME) {
+            for (int o = 0; o < outer; o++) rows(values, o * stride * length, stride, 0, stride, length, identity, operator);
+        } else if ((long) outer * stride < parallelism() && length >= 2 * MINIMUM_BLOCK) {
+            for (int o = 0; o < outer; o++) {
+                for (int i = 0; i < stride; i++) blelloch(values, o * stride * length + i, stride, length, identity, operator);
+            }
+        } else {
+            int chunks = (stride + COLUMN_CHUNK - 1) / COLUMN_CHUNK;
+            IntStream.range(0, outer * chunks).parallel().forEach(unit -> {
+                int from = unit % chunks * COLUMN_CHUNK;
+                rows(values, unit / chunks * stride * length, stride, from, Math.min(stride, from + COLUMN_CHUNK), length, identity, operator);
+            });
+        }
+    }
+
+    private static <T> void rows(T[] values, int base, int stride, int from, int to, int length, T identity, BinaryOperator<T> operator) {
+        for (int i = from; i < to; i++) values[base + i] = operator.apply(identity, values[base + i]);
+        for (int k = 1; k < length; k++) {
+            int row = base + k * stride;
+            int previous = row - stride;
+            for (int i = from; i < to; i++) values[row + i] = operator.apply(values[previous + i], values[row + i]);
+        }
+    }
+
+    private static <T> void blelloch(T[] values, int base, int stride, int length, T identity, BinaryOperator<T> operator) {
+        int blocks = Math.min(length / MINIMUM_BLOCK, 4 * parallelism());
+        int size = (length + blocks - 1) / blocks;
+        @SuppressWarnings("unchecked")
+        T[] totals = (T[]) new Object[Integer.highestOneBit(blocks - 1) << 1];
+        Arrays.fill(totals, identity);
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(length, (b + 1) * size);
+            T total = values[base + b * size * stride];
+            for (int k = b * size + 1; k < end; k++) total = operator.apply(total, values[base + k * stride]);
+            totals[b] = total;
+        });
+        for (int width = 1; width < totals.length; width <<= 1) {
+            for (int i = 2 * width - 1; i < totals.length; i += 2 * width) {
+                totals[i] = operator.apply(totals[i - width], totals[i]);
+            }
+        }
+        totals[totals.length - 1] = identity;
+        for (int width = totals.length >> 1; width >= 1; width >>= 1) {
+            for (int i = 2 * width - 1; i < totals.length; i += 2 * width) {
+                T left = totals[i - width];
+                totals[i - width] = totals[i];
+                totals[i] = operator.apply(totals[i], left);
+            }
+        }
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(length, (b + 1) * size);
+            T accumulated = totals[b];
+            for (int k = b * size; k < end; k++) {
+                int offset = base + k * stride;
+                accumulated = operator.apply(accumulated, values[offset]);
+                values[offset] = accumulated;
+            }
+        });
+    }
+
+    private static int stride(long[] shape, int dimension) {
+        int stride = 1;
+        for (int d = 0; d < dimension; d++) stride *= (int) shape[d];
+        return stride;
+    }
+
+    private static int parallelism() {
+        return ForkJoinPool.getCommonPoolParallelism();
+    }
+
+}
@@ -0,0 +1,64 @@
+package dev.christopping.tensor;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Algebraic structure used to combine and accumulate elements during tensor contraction
+ * <p>
+ * Matched element pairs are combined using {@code multiply}, and all products landing on the same resultant index are
+ * accumulated using {@code add}. {@code zero} is the implicit value of absent elements.
+ *
+ * @param zero     the additive identity
+ * @param add      the accumulating operator
+ * @param multiply the combining operator
+ * @param <T>      element value type
+ */
+public record Semiring<T>(T zero, BinaryOperator<T> add, BinaryOperator<T> multiply) {
+
+    public Semiring {
+        Objects.requireNonNull(add, "Add operator cannot be null");
+        Objects.requireNonNull(multiply, "Multiply operator cannot be null");
+    }
+
+    /**
+     * Creates a new {@code Semiring} from the provided identity and operators
+     *
+     * @param zero     the additive identity
+     * @param add      the accumulating operator
+     * @param multiply the combining operator
+     * @param <T>      element value type
+     * @return the new semiring
+     */
+    public static <T> Semiring<T> of(T zero, BinaryOperator<T> add, BinaryOperator<T> multiply) {
+        return new Semiring<>(zero, add, multiply);
+    }
+
+    /**
+     * Returns the standard arithmetic semiring, i.e. sum of products
+     *
+     * @return the plus/times semiring
+     */
+    public static Semiring<Double> plusTimes() {
+        return new Semiring<>(0.0, Double::sum, (a, b) -> a * b);
+    }
+
+    /**
+     * Returns the tropical semiring, i.e. minimum of sums, as used in shortest path computations
+     *
+     * @return the min/plus semiring
+     */
+    public static Semiring<Double> minPlus() {
+        return new Semiring<>(Double.POSITIVE_INFINITY, Math::min, Double::sum);
+    }
+
+    /**
+     * Returns the boolean semiring, i.e. disjunction of conjunctions, as used in reachability computations
+     *
+     * @return the or/and semiring
+     */
+    public static Semiring<Boolean> orAnd() {
+        return new Semiring<>(false, Boolean::logicalOr, Boolean::logicalAnd);
+    }
+
+}
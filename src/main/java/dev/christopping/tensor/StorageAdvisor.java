@@ -0,0 +1,285 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the memory footprint of tensor storage and recommends the most compact storage layout for a tensor
+ * <p>
+ * Estimates assume a 64-bit JVM with compressed references, i.e. 12 byte object headers, 4 byte references and 8 byte
+ * alignment, and count the keys, boxed values and tables retained by each layout. Small cached boxes, such as
+ * {@link Boolean} values and integers within {@code [-128, 127]}, are not counted. Off-heap and memory-mapped buffers
+ * of dense storage are counted as well.
+ * <p>
+ * The layout is chosen from the density, order and element type of the tensor:
+ * <ul>
+ *     <li>{@link Layout#SPARSE_MAP}: a hash map from {@link Index} to element, which supports any tensor</li>
+ *     <li>{@link Layout#PACKED_KEY}: an open-addressing table of indices packed into {@code long} keys</li>
+ *     <li>{@link Layout#DENSE_PRIMITIVE}: a primitive buffer spanning the dimensions, for numeric and boolean elements of a single type</li>
+ *     <li>{@link Layout#CSR}: compressed sparse rows, for order 2 tensors</li>
+ *     <li>{@link Layout#STRUCTURED}: elements implied by their coordinates, such as identity and banded matrices, which
+ *     is never recommended but always kept</li>
+ * </ul>
+ * Converted storage is wrapped as tensor storage usually is, so it keeps adapting as elements are written: an element
+ * outside the dimensions of packed-key storage, or one added to or removed from CSR storage, which is fixed to its present
+ * indices, migrates the tensor to a hash map, while dense storage grows or migrates as set out by {@link DensityPolicy}.
+ */
+public final class StorageAdvisor {
+
+    /**
+     * The minimum fraction of the current footprint which a different layout must save to be recommended
+     */
+    private static final double MINIMUM_SAVING = 0.25;
+
+    private static final int HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int MAP_OVERHEAD = 48;
+    private static final int HASH_NODE = 32;
+    private static final int TRIE_NODE = 36;
+
+    private StorageAdvisor() {
+    }
+
+    public enum Layout {
+        SPARSE_MAP, PACKED_KEY, DENSE_PRIMITIVE, CSR, STRUCTURED
+    }
+
+    /**
+     * Recommended layout of a tensor, along with the estimated footprint of every layout applicable to it
+     *
+     * @param current      the current layout
+     * @param recommended  the recommended layout, which is the current layout unless switching saves enough memory
+     * @param currentBytes the estimated footprint of the current storage
+     * @param estimates    the estimated footprint of each applicable layout
+     */
+    public record Recommendation(Layout current, Layout recommended, long currentBytes, Map<Layout, Long> estimates) {
+
+        public long recommendedBytes() {
+            return recommended == current ? currentBytes : estimates.get(recommended);
+        }
+
+        public boolean isSwitch() {
+            return recommended != current;
+        }
+    }
+
+    /**
+     * Returns an estimate, in bytes, of the memory retained by the given storage
+     *
+     * @see Tensor#memoryFootprint()
+     */
+    static long footprint(Map<Index, ?> storage) {
+        storage = backing(storage);
+        if (storage instanceof DenseStorage<?> dense) {
+            int width = Dtype.exact(dense.elementType()).map(Dtype::width).orElse(8);
+            return MAP_OVERHEAD + (long) dense.volume() * width + array(8, dense.presenceWords());
+        }
+        if (storage instanceof BitStorage bits) return MAP_OVERHEAD + bits.bits.footprint();
+        if (storage instanceof StructuredStorage<?> structured) {
+            long values = boxed(structured.zero);
+            for (Map.Entry<Index, ?> entry : structured.support()) values += boxed(entry.getValue());
+            return MAP_OVERHEAD + structured.footprint() + values;
+        }
+        long values = 0;
+        int order = -1;
+        for (Map.Entry<Index, ?> entry : storage.entrySet()) {
+            values += boxed(entry.getValue());
+            order = Math.max(order, entry.getKey().order());
+        }
+        if (storage instanceof PackedKeyStorage<?> packed) {
+            return packedKey(packed.capacity()) + values;
+        } else if (storage instanceof CsrStorage<?> csr) {
+            return csr(csr.shape[1], storage.size()) + values;
+        } else if (storage instanceof PersistentMap<?, ?>) {
+            return MAP_OVERHEAD + storage.size() * (TRIE_NODE + index(order)) + values;
+        }
+        return sparseMap(storage.size(), order) + values;
+    }
+
+    /**
+     * Returns the layout recommended for the given tensor, along with the estimates it was chosen from
+     * <p>
+     * Persistent and concurrent tensors always keep their layout, as switching would lose their guarantees, and
+     * structured tensors keep theirs without enumerating their implied elements.
+     *
+     * @param tensor the tensor to advise on
+     * @return the recommendation
+     */
+    public static Recommendation advise(Tensor<?> tensor) {
+        Layout current = layoutOf(tensor.map);
+        long currentBytes = footprint(tensor.map);
+        if (current == Layout.STRUCTURED) return new Recommendation(current, current, currentBytes, Map.of(current, currentBytes));
+        Map<Layout, Long> estimates = estimates(Profile.of(tensor.map));
+        Layout recommended = current;
+        if (!(tensor.map instanceof PersistentMap<?, ?>) && !(tensor.map instanceof ConcurrentHashMap<?, ?>)) {
+            Layout best = Collections.min(estimates.entrySet(), Map.Entry.comparingByValue()).getKey();
+            if (best != current && estimates.get(best) <= currentBytes * (1 - MINIMUM_SAVING)) recommended = best;
+        }
+        return new Recommendation(current, recommended, currentBytes, estimates);
+    }
+
+    /**
+     * Converts the given tensor to its {@link #advise(Tensor) recommended} layout
+     *
+     * @param tensor the tensor to optimize
+     * @param <T>    the type of values contained in the tensor
+     * @return the tensor itself if its layout is already recommended, otherwise a new tensor of the recommended layout
+     */
+    public static <T> Tensor<T> optimize(Tensor<T> tensor) {
+        Recommendation recommendation = advise(tensor);
+        return recommendation.isSwitch() ? convert(tensor, recommendation.recommended()) : tensor;
+    }
+
+    /**
+     * Copies the given tensor into a new tensor of the given layout
+     *
+     * @param tensor the tensor to convert
+     * @param layout the layout to convert to
+     * @param <T>    the type of values contained in the tensor
+     * @return the new tensor
+     * @throws IllegalArgumentException if the layout is not applicable to the tensor
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Tensor<T> convert(Tensor<T> tensor, Layout layout) {
+        Profile profile = Profile.of(tensor.map);
+        if (!estimates(profile).containsKey(layout))
+            throw new IllegalArgumentException("Layout " + layout + " is not applicable to the tensor");
+        Map<Index, T> storage = switch (layout) {
+            case SPARSE_MAP -> CopyOnWriteMap.fixed(new HashMap<>(tensor.map));
+            case PACKED_KEY -> new CopyOnWriteMap<>(PackedKeyStorage.of(tensor.map, profile.shape));
+            case DENSE_PRIMITIVE -> {
+                DenseStorage<T> dense = (DenseStorage<T>) DenseStorage.allocate(profile.dtype, profile.shape);
+                dense.putAll(tensor.map);
+                yield new CopyOnWriteMap<>(dense);
+            }
+            case CSR -> new CopyOnWriteMap<>(CsrStorage.of(tensor.map, profile.shape));
+            case STRUCTURED -> throw new IllegalArgumentException("Layout " + layout + " is not applicable to the tensor");
+        };
+        return new Tensor<>(storage, false);
+    }
+
+    /**
+     * Returns the map underlying copy-on-write storage, which may have adapted its layout, or the storage itself
+     */
+    private static Map<Index, ?> backing(Map<Index, ?> storage) {
+        return storage instanceof CopyOnWriteMap<Index, ?> shared ? shared.backing() : storage;
+    }
+
+    static Layout layoutOf(Map<Index, ?> storage) {
+        storage = backing(storage);
+        if (storage instanceof DenseStorage<?>) return Layout.DENSE_PRIMITIVE;
+        if (storage instanceof PackedKeyStorage<?>) return Layout.PACKED_KEY;
+        if (storage instanceof CsrStorage<?>) return Layout.CSR;
+        if (storage instanceof StructuredStorage<?>) return Layout.STRUCTURED;
+        return Layout.SPARSE_MAP;
+    }
+
+    private static Map<Layout, Long> estimates(Profile profile) {
+        Map<Layout, Long> estimates = new EnumMap<>(Layout.class);
+        estimates.put(Layout.SPARSE_MAP, sparseMap(profile.size, profile.order) + profile.values);
+        if (profile.shape == null) return estimates;
+        if (profile.volume >= 0 && profile.size <= 1 << 29) {
+            estimates.put(Layout.PACKED_KEY, packedKey(PackedKeyStorage.capacityFor(profile.size)) + profile.values);
+        }
+        if (profile.dtype != null && profile.volume >= 0 && profile.volume * profile.dtype.width() <= Integer.MAX_VALUE) {
+            long presence = (profile.volume + 63) / 64;
+            estimates.put(Layout.DENSE_PRIMITIVE, MAP_OVERHEAD + array(profile.dtype.width(), profile.volume) + array(8, presence));
+        }
+        if (profile.shape.length == 2 && profile.shape[0] <= Integer.MAX_VALUE && profile.shape[1] < Integer.MAX_VALUE) {
+            estimates.put(Layout.CSR, csr(profile.shape[1], profile.size) + profile.values);
+        }
+        return estimates;
+    }
+
+    private static long sparseMap(long size, int order) {
+        if (size == 0) return MAP_OVERHEAD;
+        long table = Long.highestOneBit(Math.max(1, (long) Math.ceil(size / 0.75) - 1)) << 1;
+        return MAP_OVERHEAD + array(REFERENCE, table) + size * (HASH_NODE + index(order));
+    }
+
+    private static long packedKey(long capacity) {
+        return MAP_OVERHEAD + array(8, capacity) + array(REFERENCE, capacity);
+    }
+
+    private static long csr(long rows, long size) {
+        return MAP_OVERHEAD + array(4, rows + 1) + array(4, size) + array(REFERENCE, size);
+    }
+
+    private static long index(int order) {
+        return align(HEADER + REFERENCE) + array(8, Math.max(order, 0));
+    }
+
+    private static long array(int width, long length) {
+        return align(HEADER + 4 + width * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long boxed(Object value) {
+        if (value == null || value instanceof Boolean || value instanceof Byte) return 0;
+        if (value instanceof Double || value instanceof Long) {
+            return value instanceof Long number && number >= -128 && number <= 127 ? 0 : align(HEADER + 8);
+        }
+        if (value instanceof Integer number && number >= -128 && number <= 127) return 0;
+        if (value instanceof Short number && number >= -128 && number <= 127) return 0;
+        if (value instanceof Character character && character <= 127) return 0;
+        return align(HEADER + 4);
+    }
+
+    /**
+     * Statistics of a storage map gathered in a single pass
+     */
+    private static final class Profile {
+        private int size;
+        private int order = -1;
+        private long values;
+        private long[] shape;
+        private long volume;
+        private Dtype dtype;
+
+        private static Profile of(Map<Index, ?> storage) {
+            Profile profile = new Profile();
+            profile.size = storage.size();
+            if (backing(storage) instanceof DenseStorage<?> dense && dense.isFull()) {
+                profile.order = dense.shape.length;
+                profile.shape = dense.shape.clone();
+                profile.volume = dense.volume();
+                profile.dtype = Dtype.exact(dense.elementType()).orElse(null);
+                for (Object value : dense.values()) profile.values += boxed(value);
+                return profile;
+            }
+            long[] maxima = null;
+            boolean consistent = true;
+            Class<?> type = null;
+            for (Map.Entry<Index, ?> entry : storage.entrySet()) {
+                Index index = entry.getKey();
+                Object value = entry.getValue();
+                profile.values += boxed(value);
+                if (maxima == null) maxima = new long[index.order()];
+                if (index.order() != maxima.length) consistent = false;
+                for (int d = 0; d < Math.min(maxima.length, index.order()); d++) {
+                    maxima[d] = Math.max(maxima[d], index.get(d) + 1);
+                }
+                if (value == null || (type != null && type != value.getClass())) {
+                    type = Object.class;
+                } else if (type == null) {
+                    type = value.getClass();
+                }
+            }
+            if (maxima == null || !consistent) return profile;
+            profile.order = maxima.length;
+            profile.shape = maxima;
+            profile.volume = 1;
+            try {
+                for (long dimension : maxima) profile.volume = Math.multiplyExact(profile.volume, dimension);
+            } catch (ArithmeticException e) {
+                profile.volume = -1;
+            }
+            profile.dtype = type == null ? null : Dtype.exact(type).orElse(null);
+            return profile;
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+package dev.christopping.tensor;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * {@link Map} implementation of a fixed shape whose elements are implied by their coordinates rather than stored
+ * <p>
+ * Elements inside a band around the diagonal take either a single constant value or one value per diagonal position,
+ * and every other element of the shape is {@code zero}, which is never stored. For order 2 storage, the element at
+ * {@code (x, y)} is inside the band when {@code -lower <= x - y <= upper}, which covers identity and diagonal matrices
+ * as well as banded and triangular masks. Storage of any other order only supports the diagonal itself, i.e. indices
+ * whose coordinates are all equal.
+ * <p>
+ * Every index within the shape is present. Elements inside the band may be replaced when values are stored per
+ * position, but no element may be removed or set outside the band.
+ */
+final class StructuredStorage<T> extends AbstractMap<Index, T> {
+
+    final long[] shape;
+    final long lower;
+    final long upper;
+    final T zero;
+    private final T value;
+    private final Object[] values;
+    private final long volume;
+
+    private StructuredStorage(long[] shape, long lower, long upper, T zero, T value, Object[] values) {
+        this.shape = shape.clone();
+        this.volume = DensityPolicy.volume(shape);
+        if (volume == Long.MAX_VALUE) throw new IllegalArgumentException("Shape cannot be addressed by long offsets");
+        if (shape.length == 2) {
+            this.lower = Math.min(lower, Math.max(shape[1] - 1, 0));
+            this.upper = Math.min(upper, Math.max(shape[0] - 1, 0));
+        } else {
+            this.lower = 0;
+            this.upper = 0;
+        }
+        this.zero = zero;
+        this.value = value;
+        this.values = values;
+    }
+
+    /**
+     * Creates storage which is {@code value} inside the band and {@code zero} outside it
+     */
+    static <T> StructuredStorage<T> band(long[] shape, long lower, long upper, T value, T zero) {
+        for (long dimension : shape) {
+            if (dimension < 1) throw new IllegalArgumentException("Dimensions must be positive");
+        }
+        if (lower < 0 || upper < 0) throw new IllegalArgumentException("Bandwidths cannot be negative");
+        if (shape.length != 2 && (lower != 0 || upper != 0))
+            throw new IllegalArgumentException("Bands are only supported by order 2 tensors");
+        return new StructuredStorage<>(shape, lower, upper, zero, value, null);
+    }
+
+    /**
+     * Creates storage whose diagonal holds the given values and which is {@code zero} elsewhere
+     */
+    static <T> StructuredStorage<T> diagonal(long[] shape, List<T> diagonal, T zero) {
+        StructuredStorage<T> storage = band(shape, 0, 0, null, zero);
+        Object[] values = new Object[storage.slots()];
+        if (diagonal.size() != values.length)
+            throw new IllegalArgumentException("Diagonal must contain " + values.length + " elements");
+        for (int i = 0; i < values.length; i++) values[i] = diagonal.get(i);
+        return new StructuredStorage<>(shape, 0, 0, zero, null, values);
+    }
+
+    /**
+     * Creates storage whose diagonal holds {@code value} at each position, so that it may be replaced, and which is
+     * {@code zero} elsewhere
+     */
+    static <T> StructuredStorage<T> diagonal(long[] shape, T value, T zero) {
+        StructuredStorage<T> storage = band(shape, 0, 0, null, zero);
+        Object[] values = new Object[storage.slots()];
+        Arrays.fill(values, value);
+        return new StructuredStorage<>(shape, 0, 0, zero, null, values);
+    }
+
+    /**
+     * Returns the number of positions inside the band, including those of rows which overhang the shape
+     */
+    private int slots() {
+        long slots = shape.length == 2 ? shape[1] * (lower + upper + 1) : Arrays.stream(shape).min().orElse(1);
+        if (slots > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Band cannot exceed " + (Integer.MAX_VALUE - 8) + " elements");
+        return (int) slots;
+    }
+
+    /**
+     * Returns the position of the given index inside the band, -1 if the index is in the shape but outside the band,
+     * or -2 if the index is outside the shape
+     */
+    private long slot(Index index) {
+        if (index.order() != shape.length) return -2;
+        for (int d = 0; d < shape.length; d++) {
+            if (index.get(d) >= shape[d]) return -2;
+        }
+        if (shape.length == 2) {
+            long offset = index.get(0) - index.get(1);
+            return offset < -lower || offset > upper ? -1 : index.get(1) * (lower + upper + 1) + offset + lower;
+        }
+        return index.isIdentityIndex() ? (shape.length == 0 ? 0 : index.get(0)) : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T valueAt(long slot) {
+        return values == null ? value : (T) values[(int) slot];
+    }
+
+    /**
+     * Returns whether the given element can be written without changing the structure
+     */
+    boolean accepts(Object key, Object element) {
+        return values != null && key instanceof Index index && slot(index) >= 0
+                && (element == null || zero == null || element.getClass() == zero.getClass());
+    }
+
+    /**
+     * Returns the class shared by every element, or {@code Object} if the elements differ in class
+     */
+    Class<?> valueClass() {
+        Class<?> type = zero == null ? null : zero.getClass();
+        for (Object element : values == null ? new Object[]{value} : values) {
+            if (element == null || element.getClass() != type) return Object.class;
+        }
+        return type == null ? Object.class : type;
+    }
+
+    /**
+     * Returns the elements inside the band, in index order
+     */
+    List<Map.Entry<Index, T>> support() {
+        List<Map.Entry<Index, T>> support = new ArrayList<>();
+        if (shape.length == 2) {
+            for (long y = 0; y < shape[1]; y++) {
+                for (long x = Math.max(0, y - lower); x <= Math.min(shape[0] - 1, y + upper); x++) {
+                    support.add(new SimpleImmutableEntry<>(Index.of(x, y), valueAt(y * (lower + upper + 1) + x - y + lower)));
+                }
+            }
+        } else {
+            for (int i = 0; i < slots(); i++) {
+                long[] coordinates = new long[shape.length];
+                Arrays.fill(coordinates, i);
+                support.add(new SimpleImmutableEntry<>(new Index(coordinates), valueAt(i)));
+            }
+        }
+        return support;
+    }
+
+    /**
+     * Applies the given function to two structured storages of the same shape, returning storage spanning the union of
+     * their bands, or {@code null} if the storages differ in shape
+     */
+    static <T, U, S> StructuredStorage<S> piecewise(StructuredStorage<T> first, StructuredStorage<U> second, BiFunction<T, U, S> function) {
+        if (!Arrays.equals(first.shape, second.shape)) return null;
+        S zero = function.apply(first.zero, second.zero);
+        long lower = Math.max(first.lower, second.lower);
+        long upper = Math.max(first.upper, second.upper);
+        if (first.values == null && second.values == null && first.lower == second.lower && first.upper == second.upper) {
+            return new StructuredStorage<>(first.shape, lower, upper, zero, function.apply(first.value, second.value), null);
+        }
+        StructuredStorage<S> result = new StructuredStorage<>(first.shape, lower, upper, zero, null, null);
+        Object[] values = new Object[result.slots()];
+        for (Map.Entry<Index, S> entry : result.support()) {
+            Index index = entry.getKey();
+            values[(int) result.slot(index)] = function.apply(first.get(index), second.get(index));
+        }
+        return new StructuredStorage<>(first.shape, lower, upper, zero, null, values);
+    }
+
+    StructuredStorage<T> copy() {
+        return values == null ? this : new StructuredStorage<>(shape, lower, upper, zero, null, values.clone());
+    }
+
+    /**
+     * Returns an estimate, in bytes, of the memory retained by the band values, excluding boxes
+     */
+    long footprint() {
+        return values == null ? 0 : 16 + values.length * 4L;
+    }
+
+    List<Long> dimensions() {
+        return Arrays.stream(shape).boxed().toList();
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(volume, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return volume == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Index index && slot(index) != -2;
+    }
+
+    @Override
+    public T get(Object key) {
+        if (!(key instanceof Index index)) return null;
+        long slot = slot(index);
+        return slot == -2 ? null : slot == -1 ? zero : valueAt(slot);
+    }
+
+    @Override
+    public T put(Index key, T element) {
+        if (!accepts(key, element))
+            throw new UnsupportedOperationException("Index " + key + " cannot be set without changing the structure");
+        long slot = slot(key);
+        T previous = valueAt(slot);
+        values[(int) slot] = element;
+        return previous;
+    }
+
+    @Override
+    public T remove(Object key) {
+        throw new UnsupportedOperationException("Cannot remove elements from structured storage");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Cannot remove elements from structured storage");
+    }
+
+    @Override
+    public Set<Entry<Index, T>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return StructuredStorage.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<Index, T>> iterator() {
+                return new Iterator<>() {
+                    private final long[] coordinates = new long[shape.length];
+                    private long offset = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return offset < volume;
+                    }
+
+                    @Override
+                    public Entry<Index, T> next() {
+                        if (offset >= volume) throw new NoSuchElementException();
+                        Index index = new Index(coordinates.clone());
+                        offset++;
+                        for (int d = 0; d < coordinates.length; d++) {
+                            if (++coordinates[d] < shape[d]) break;
+                            coordinates[d] = 0;
+                        }
+                        return new SimpleImmutableEntry<>(index, get(index));
+                    }
+                };
+            }
+        };
+    }
+
+}
@@ -1,8 +1,11 @@
 package dev.christopping.tensor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -21,14 +24,38 @@ public class Tensor<T> {
      * Constructs a new empty {@code Tensor}
      */
     protected Tensor() {
-        map = new HashMap<>();
+        map = new CopyOnWriteMap<>();
     }
 
     /**
      * Constructs a new {@code Tensor} comprising values contained within the map provided
      */
     protected Tensor(Map<Index, T> map) {
-        this.map = new HashMap<>(map);
+        this(map, true);
+    }
+
+    /**
+     * Constructs a new {@code Tensor} backed directly by the provided storage map, without copying it
+     * </p>
+     * Persistent and copy-on-write storage is never copied in full: it is forked or shared in O(1) instead
+     */
+    Tensor(Map<Index, T> storage, boolean copy) {
+        if (!copy) {
+            this.map = storage;
+        } else if (storage instanceof PersistentMap<Index, T> persistent) {
+            this.map = persistent.fork();
+        } else if (storage instanceof CopyOnWriteMap<Index, T> shared) {
+            this.map = shared.share();
+        } else {
+            this.map = new CopyOnWriteMap<>(new HashMap<>(storage));
+        }
+    }
+
+    /**
+     * Creates a new {@code Tensor} which takes ownership of a freshly built map without copying it
+     */
+    static <T> Tensor<T> adopt(Map<Index, T> owned) {
+        return new Tensor<>(new CopyOnWriteMap<>(owned), false);
     }
 
     /**
@@ -43,44 +70,48 @@ public class Tensor<T> {
 
     /**
      * Creates a new {@code Tensor} comprising items of the given type contained in the list
+     * </p>
+     * The outermost list forms the highest dimension and the innermost lists form dimension 0. Every element is visited
+     * once and written straight into storage, as described by {@link NestedLoader}
      *
      * @param list nested list of values
      * @param type type of values
      * @param <T>  the type of values contained in this tensor
      * @return The new tensor
+     * @throws IllegalArgumentException if any element is not of the given type or the lists are not nested to a consistent depth
      */
     public static <T> Tensor<T> of(List<?> list, Class<T> type) {
-        if (list == null || list.isEmpty()) {
-            return empty();
-        } else if (list.get(0) instanceof List) {
-            List<Tensor<T>> slices = list.stream().map(sublist -> of((List<?>) sublist, type)).collect(Collectors.toList());
-            return Tensor.combine(slices);
-        } else if (list.size() > 1) {
-            return Vector.of(list).expect(type);
-        } else {
-            return Scalar.of(list.get(0)).expect(type);
-        }
+        return NestedLoader.load(list, type);
     }
 
     /**
      * Creates a new {@code Tensor} comprising items of the given type contained in the list
+     * </p>
+     * The innermost arrays may be primitive arrays, such as those of a {@code double[][]}, which are loaded without boxing
      *
      * @param array nested array of values
      * @param type  type of values
      * @param <T>   the type of values contained in this tensor
      * @return The new tensor
+     * @throws IllegalArgumentException if any element is not of the given type or the arrays are not nested to a consistent depth
      */
     public static <T> Tensor<T> of(Object[] array, Class<T> type) {
-        if (array == null || array.length == 0) {
-            return empty();
-        } else if (type.isInstance(array[0]) && array.length > 1) {
-            return Vector.of(array).expect(type);
-        } else if (type.isInstance(array[0]) && array.length == 1) {
-            return Scalar.of(array[0]).expect(type);
-        } else {
-            List<Tensor<T>> slices = Arrays.stream(array).map(sublist -> of((Object[]) sublist, type)).collect(Collectors.toList());
-            return Tensor.combine(slices);
-        }
+        return NestedLoader.load(array, type);
+    }
+
+    /**
+     * Creates a new {@code Tensor} comprising items of the given type contained in an array of any kind, including
+     * primitive arrays such as {@code double[]} or {@code int[][][]}, which are loaded without boxing
+     *
+     * @param array nested array of values
+     * @param type  type of values, which for primitive arrays must be assignable from their wrapper type
+     * @param <T>   the type of values contained in this tensor
+     * @return The new tensor
+     * @throws IllegalArgumentException if the given object is not an array or any element is not of the given type
+     */
+    public static <T> Tensor<T> ofArray(Object array, Class<T> type) {
+        if (array != null && !array.getClass().isArray()) throw new IllegalArgumentException("Value must be an array");
+        return NestedLoader.load(array, type);
     }
 
     /**
@@ -92,7 +123,9 @@ public class Tensor<T> {
      * @return The new tensor
      */
     public static <T> Tensor<T> fill(T value, Index shape) {
-        return generate(i -> value, shape);
+        Tensor<T> tensor = parallelGenerate(i -> value, shape);
+        if (value != null) tensor.assumeElementType(value.getClass());
+        return tensor;
     }
 
     /**
@@ -120,8 +153,18 @@ public class Tensor<T> {
         return fill(value, compute);
     }
 
+    /**
+     * Creates a new identity {@code Tensor}, which is 1 where all coordinates are equal and 0 elsewhere
+     * </p>
+     * Only the diagonal is stored, and may be written in place. Elements off the diagonal are implied by their coordinates
+     * until one of them is written, when every element is stored
+     *
+     * @param shape the shape index of the resultant tensor
+     * @return The new tensor
+     */
     public static Tensor<Integer> identity(Index shape) {
-        return Tensor.generate(index -> index.isIdentityIndex() ? 1 : 0, shape);
+        long[] dimensions = Arrays.stream(shape.coordinates()).map(coordinate -> coordinate + 1).toArray();
+        return new Tensor<>(new CopyOnWriteMap<>(StructuredStorage.diagonal(dimensions, 1, 0)), false);
     }
 
     /**
@@ -133,14 +176,52 @@ public class Tensor<T> {
      * @return The new tensor
      */
     public static <T> Tensor<T> generate(Function<Index, T> generator, Index shape) {
+        return generate(generator, shape, false);
+    }
+
+    /**
+     * Creates a new {@code Tensor} using a generator function evaluated concurrently
+     * </p>
+     * The index space is split into contiguous blocks which are evaluated on worker threads, so the generator must be
+     * safe to call concurrently and must not depend on the order in which indices are visited
+     *
+     * @param generator the stateless generator function
+     * @param shape     the shape index of the resultant tensor
+     * @param <T>       the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> Tensor<T> parallelGenerate(Function<Index, T> generator, Index shape) {
+        return generate(generator, shape, true);
+    }
+
+    /**
+     * Creates a new {@code Tensor} using a generator function evaluated concurrently
+     *
+     * @param generator  the stateless generator function
+     * @param dimensions the dimensions of the new tensor
+     * @param <T>        the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> Tensor<T> parallelGenerate(Function<Index, T> generator, long... dimensions) {
+        return parallelGenerate(generator, Index.of(dimensions).compute(index -> index - 1));
+    }
+
+    /**
+     * Creates a new {@code Tensor} using a generator function evaluated concurrently
+     *
+     * @param generator  the stateless generator function
+     * @param dimensions the dimensions of the new tensor
+     * @param <T>        the type of values contained in this tensor
+     * @return The new tensor
+     */
+    public static <T> Tensor<T> parallelGenerate(Function<Index, T> generator, int... dimensions) {
+        return parallelGenerate(generator, Index.of(dimensions).compute(index -> index - 1));
+    }
+
+    private static <T> Tensor<T> generate(Function<Index, T> generator, Index shape, boolean parallel) {
         if (null == generator) throw new IllegalArgumentException("Generator function must not be null");
-        Tensor<T> tensor = new Tensor<>();
-        if (shape.isEmpty()) {
-            tensor.set(generator.apply(Index.of()), Index.of());
-        } else {
-            Index.range(shape).forEach(i -> tensor.set(generator.apply(i), i));
-        }
-        return tensor;
+        long[] dimensions = Arrays.stream(shape.coordinates()).map(coordinate -> coordinate + 1).toArray();
+        return Generation.generate(generator, dimensions, parallel);
     }
 
     /**
@@ -178,13 +259,15 @@ public class Tensor<T> {
      */
     public static <T> Tensor<T> combine(List<Tensor<T>> slices) {
         if (slices == null || slices.isEmpty()) return Tensor.empty();
-        Map<Index, T> map = IntStream.range(0, slices.size())
-                .mapToObj(coordinate -> slices.get(coordinate).computeAndUpdateIndices(entry -> Map.entry(entry.getKey().extrude(coordinate), entry.getValue())))
-                .map(tensor -> new HashMap<>(tensor.map))
-                .map(HashMap::entrySet)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Tensor<>(map);
+        TensorOperationEvent event = TensorOperationEvent.begin("combine", slices);
+        int size = slices.stream().mapToInt(slice -> slice.map.size()).sum();
+        Map<Index, T> map = new HashMap<>((int) (size / 0.75f) + 1);
+        for (int coordinate = 0; coordinate < slices.size(); coordinate++) {
+            for (Map.Entry<Index, T> entry : slices.get(coordinate).map.entrySet()) {
+                map.put(entry.getKey().extrude(coordinate), entry.getValue());
+            }
+        }
+        return event.end(adopt(map));
     }
 
     /**
@@ -200,6 +283,100 @@ public class Tensor<T> {
         return combine(Arrays.stream(slices).toList());
     }
 
+    /**
+     * Concatenates tensors end to end along an existing dimension
+     * </p>
+     * The resultant dimensions are computed up front and each tensor is copied once into storage sized to hold them all.
+     * Full, dense tensors of the same element type are copied buffer to buffer. Empty tensors are ignored.
+     *
+     * @param dimension the dimension along which to concatenate
+     * @param tensors   the tensors to concatenate, in order
+     * @param <T>       type of the tensor element values
+     * @return the concatenated tensor
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of the tensors
+     * @throws IllegalArgumentException  if the tensors differ in order or in any other dimension
+     */
+    public static <T> Tensor<T> concat(int dimension, List<Tensor<T>> tensors) {
+        if (tensors == null || tensors.stream().anyMatch(Objects::isNull))
+            throw new IllegalArgumentException("Tensors must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin("concat", tensors);
+        return event.end(Concatenation.concat(dimension, tensors));
+    }
+
+    /**
+     * Concatenates the given tensors as with {@link #concat(int, List)}
+     *
+     * @param dimension the dimension along which to concatenate
+     * @param tensors   the tensors to concatenate, in order
+     * @param <T>       type of the tensor element values
+     * @return the concatenated tensor
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of the tensors
+     * @throws IllegalArgumentException  if the tensors differ in order or in any other dimension
+     */
+    @SafeVarargs
+    public static <T> Tensor<T> concat(int dimension, Tensor<T>... tensors) {
+        if (tensors == null) throw new IllegalArgumentException("Tensors must not be null");
+        List<Tensor<T>> list = new ArrayList<>(tensors.length);
+        for (Tensor<T> tensor : tensors) list.add(tensor);
+        return concat(dimension, list);
+    }
+
+    /**
+     * Stacks same-dimensional tensors along a new dimension inserted at the given position, whose coordinate is the position of each tensor
+     * </p>
+     * The resultant dimensions are computed up front and each tensor is copied once, as with {@link #concat(int, List)}
+     *
+     * @param dimension the position of the new dimension, from 0 up to and including the order of the tensors
+     * @param tensors   the tensors to stack, in order
+     * @param <T>       type of the tensor element values
+     * @return the stacked tensor
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of the tensors
+     * @throws IllegalArgumentException  if the tensors differ in dimensions
+     */
+    public static <T> Tensor<T> stack(int dimension, List<Tensor<T>> tensors) {
+        if (tensors == null || tensors.stream().anyMatch(Objects::isNull))
+            throw new IllegalArgumentException("Tensors must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin("stack", tensors);
+        return event.end(Concatenation.stack(dimension, tensors));
+    }
+
+    /**
+     * Stacks the given tensors as with {@link #stack(int, List)}
+     *
+     * @param dimension the position of the new dimension, from 0 up to and including the order of the tensors
+     * @param tensors   the tensors to stack, in order
+     * @param <T>       type of the tensor element values
+     * @return the stacked tensor
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of the tensors
+     * @throws IllegalArgumentException  if the tensors differ in dimensions
+     */
+    @SafeVarargs
+    public static <T> Tensor<T> stack(int dimension, Tensor<T>... tensors) {
+        if (tensors == null) throw new IllegalArgumentException("Tensors must not be null");
+        List<Tensor<T>> list = new ArrayList<>(tensors.length);
+        for (Tensor<T> tensor : tensors) list.add(tensor);
+        return stack(dimension, list);
+    }
+
+    /**
+     * Creates a read-only view of tensors concatenated along an existing dimension, without copying any elements
+     * </p>
+     * Each read is translated to the tensor containing the index. Tensors with copy-on-write or persistent storage are
+     * captured as they were when the view was created, whereas other tensors are read live. Writing to the view throws
+     * an {@link UnsupportedOperationException}.
+     *
+     * @param dimension the dimension along which to concatenate
+     * @param tensors   the tensors to concatenate, in order
+     * @param <T>       type of the tensor element values
+     * @return the concatenated view
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of the tensors
+     * @throws IllegalArgumentException  if the tensors differ in order or in any other dimension
+     */
+    public static <T> Tensor<T> concatView(int dimension, List<Tensor<T>> tensors) {
+        TensorOperationEvent event = TensorOperationEvent.begin("concatView", tensors);
+        return event.end(new Tensor<>(new Concatenation.View<>(dimension, tensors), false));
+    }
+
     /**
      * Returns the value at a given index
      *
@@ -292,12 +469,43 @@ public class Tensor<T> {
         map.remove(index);
     }
 
+    /**
+     * Returns the dense storage backing this tensor, directly or through copy-on-write storage, if any
+     */
+    DenseStorage<T> dense() {
+        return backing() instanceof DenseStorage<T> dense ? dense : null;
+    }
+
+    /**
+     * Returns the structured storage backing this tensor through copy-on-write storage, if any
+     */
+    StructuredStorage<T> structured() {
+        return backing() instanceof StructuredStorage<T> structured ? structured : null;
+    }
+
+    private Map<Index, T> backing() {
+        return map instanceof CopyOnWriteMap<Index, T> shared ? shared.backing() : map;
+    }
+
+    /**
+     * Returns an estimate, in bytes, of the memory retained by the storage of this tensor
+     * </p>
+     * The estimate counts indices, boxed elements and the tables or buffers holding them, as described by {@link StorageAdvisor}
+     *
+     * @return the estimated footprint
+     */
+    public long memoryFootprint() {
+        return StorageAdvisor.footprint(map);
+    }
+
     /**
      * Returns the number of dimensions (i.e. order) of the tensor
      *
      * @return the order
      */
     public int order() {
+        DenseStorage<T> dense = dense();
+        if (dense != null && dense.isFull()) return dense.dimensions().size();
         return map.keySet().stream()
                 .findFirst()
                 .map(Index::order)
@@ -324,6 +532,10 @@ public class Tensor<T> {
      * @return the dimensions
      */
     public List<Long> dimensions() {
+        DenseStorage<T> dense = dense();
+        if (dense != null && dense.isFull()) return dense.dimensions();
+        StructuredStorage<T> structured = structured();
+        if (structured != null) return structured.dimensions();
         int order = order();
         long[] maxDims = new long[order];
 
@@ -389,26 +601,52 @@ public class Tensor<T> {
      * @throws IllegalArgumentException if there are any failed type-matches against any of the elements
      */
     public <S> Tensor<S> expect(Class<S> type) {
-        if (!elements().stream().allMatch(type::isInstance))
+        if (map instanceof CopyOnWriteMap<Index, T> storage && storage.isKnownToContain(type)) {
+            return retyped();
+        }
+        DenseStorage<T> dense = dense();
+        if (dense != null && type.isAssignableFrom(dense.elementType())) {
+            return retyped();
+        }
+        if (!map.values().stream().allMatch(type::isInstance))
             throw new IllegalArgumentException("Tensor cannot be expected to be of given type");
+        assumeElementType(type);
+        return retyped();
+    }
+
+    /**
+     * Returns this tensor as a tensor of another element type, which every element has been checked to be
+     */
+    @SuppressWarnings("unchecked")
+    private <S> Tensor<S> retyped() {
         return (Tensor<S>) this;
     }
 
+    /**
+     * Records that all elements are known to be instances of the given type, so that {@link #expect(Class)} need not check them
+     */
+    void assumeElementType(Class<?> type) {
+        if (map instanceof CopyOnWriteMap<Index, T> storage) {
+            storage.elementType(type);
+        }
+    }
+
     /**
      * Returns a copy of the original tensor where all non-present elements in the tensor are set to the provided element value
      *
      * @param element the value to be back-filled
      */
     public Tensor<T> backfill(T element) {
+        TensorOperationEvent event = TensorOperationEvent.begin("backfill", this);
         List<Index> indices = indices();
 
         if (indices.isEmpty()) {
-            return new Tensor<>(map);
+            return event.end(new Tensor<>(map));
         }
 
         Map<Index, T> backfilledMap = indices.stream()
                 .collect(Collectors.toMap(index -> index, index -> map.getOrDefault(index, element)));
-        return new Tensor<>(backfilledMap);
+        return event.end(adopt(backfilledMap));
     }
 
     /**
@@ -419,7 +657,89 @@ public class Tensor<T> {
      * @return the transposed tensor
      */
     public Tensor<T> transpose() {
-        return computeAndUpdateIndices(entry -> Map.entry(entry.getKey().transpose(), entry.getValue()));
+        TensorOperationEvent event = TensorOperationEvent.begin("transpose", this);
+        return event.end(computeAndUpdateIndices(entry -> Map.entry(entry.getKey().transpose(), entry.getValue())));
+    }
+
+    /**
+     * Returns a view of this tensor with its dimensions reordered, without moving any elements
+     * </p>
+     * Dimension {@code d} of the view is dimension {@code mapping[d]} of this tensor, as by {@link Index#reorder(int...)}.
+     * Dense tensors are viewed through permuted strides over the same buffer and sparse tensors by remapping indices.
+     * The view captures this tensor as it is now and is only copied into storage of its own when it is first written to,
+     * so materializing it, e.g. by {@link #toTensor()}, is left to the caller.
+     *
+     * @param mapping the dimension of this tensor to place at each dimension of the view
+     * @return the permuted view
+     * @throws IllegalArgumentException if the mapping is not a permutation of the dimensions of this tensor
+     */
+    public Tensor<T> permute(int... mapping) {
+        TensorOperationEvent event = TensorOperationEvent.begin("permute", this);
+        return event.end(new Tensor<>(Reshaping.permute(this, mapping), false));
+    }
+
+    /**
+     * Returns a view of this tensor with the given dimensions, without moving any elements
+     * </p>
+     * Elements keep their position in index order, in which dimension 0 varies fastest. Contiguous dense tensors are
+     * viewed through new strides over the same buffer and any other tensor by remapping indices. As with
+     * {@link #permute(int...)}, the view is only copied when it is first written to.
+     *
+     * @param dimensions the dimensions of the view
+     * @return the reshaped view
+     * @throws IllegalArgumentException if the dimensions hold a different number of elements than those of this tensor
+     */
+    public Tensor<T> reshape(long... dimensions) {
+        TensorOperationEvent event = TensorOperationEvent.begin("reshape", this);
+        return event.end(new Tensor<>(Reshaping.reshape(this, dimensions), false));
+    }
+
+    /**
+     * Returns a view of this tensor without any of its dimensions of size 1
+     *
+     * @return the squeezed view
+     */
+    public Tensor<T> squeeze() {
+        TensorOperationEvent event = TensorOperationEvent.begin("squeeze", this);
+        return event.end(new Tensor<>(Reshaping.squeeze(this), false));
+    }
+
+    /**
+     * Returns a view of this tensor without the given dimension, which must be of size 1
+     *
+     * @param dimension the dimension to remove
+     * @return the squeezed view
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     * @throws IllegalArgumentException  if the dimension is not of size 1
+     */
+    public Tensor<T> squeeze(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("squeeze", this);
+        return event.end(new Tensor<>(Reshaping.squeeze(this, dimension), false));
+    }
+
+    /**
+     * Returns a view of this tensor with a new dimension of size 1 inserted at the given dimension
+     *
+     * @param dimension the position of the new dimension, from 0 up to and including the order of this tensor
+     * @return the unsqueezed view
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     */
+    public Tensor<T> unsqueeze(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("unsqueeze", this);
+        return event.end(new Tensor<>(Reshaping.unsqueeze(this, dimension), false));
+    }
+
+    /**
+     * Returns a view of this tensor as a vector of its elements in index order, without moving any elements
+     * </p>
+     * Unlike {@link #flatten(Object)}, absent elements are left absent rather than back-filled.
+     *
+     * @return the flattened view
+     */
+    public Vector<T> flattenView() {
+        TensorOperationEvent event = TensorOperationEvent.begin("flattenView", this);
+        long volume = dimensions().stream().reduce(1L, (first, second) -> first * second);
+        return event.end(new Vector<>(Reshaping.reshape(this, new long[]{volume}), false));
     }
 
     /**
@@ -430,9 +750,10 @@ public class Tensor<T> {
      * @return the new tensor
      */
     public <S> Tensor<S> compute(Function<T, S> computeFunction) {
+        TensorOperationEvent event = TensorOperationEvent.begin("compute", this);
         Map<Index, S> map = this.map.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, entry -> computeFunction.apply(entry.getValue())));
-        return new Tensor<>(map);
+        return event.end(adopt(map));
     }
 
     /**
@@ -443,9 +764,10 @@ public class Tensor<T> {
      * @return the new tensor
      */
     public <S> Tensor<S> computeWithIndices(Function<Map.Entry<Index, T>, S> computeFunction) {
+        TensorOperationEvent event = TensorOperationEvent.begin("computeWithIndices", this);
         Map<Index, S> map = this.map.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, computeFunction));
-        return new Tensor<>(map);
+        return event.end(adopt(map));
     }
 
     /**
@@ -460,13 +782,14 @@ public class Tensor<T> {
                 .map(computeFunction)
                 .filter(java.util.Objects::nonNull)
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Tensor<>(map);
+        return adopt(map);
     }
 
     public Tensor<T> reduce(T identity, BinaryOperator<T> accumulator, int dimension) {
         if (dimension > order() - 1) {
             throw new IndexOutOfBoundsException("Specified dimension greater than order of tensor");
         }
+        TensorOperationEvent event = TensorOperationEvent.begin("reduce", this);
 
         Map<Index, T> reduced = map.entrySet().stream()
                 .sorted(Map.Entry.comparingByKey())
@@ -477,13 +800,14 @@ public class Tensor<T> {
                         e -> e.stream().map(Map.Entry::getValue).reduce(identity, accumulator)
                 ));
 
-        return new Tensor<>(reduced);
+        return event.end(adopt(reduced));
     }
 
     public <S> Tensor<S> reduce(S identity, BiFunction<S, T, S> accumulator, BinaryOperator<S> combiner, int dimension) {
         if (dimension >= order()) {
             throw new IndexOutOfBoundsException("Specified dimension greater than order of tensor");
         }
+        TensorOperationEvent event = TensorOperationEvent.begin("reduce", this);
 
         Map<Index, S> reduced = map.entrySet().stream()
                 .sorted(Map.Entry.comparingByKey())
@@ -496,29 +820,226 @@ public class Tensor<T> {
                             return t.stream().reduce(identity, accumulator, combiner);
                         }));
 
-        return new Tensor<>(reduced);
+        return event.end(adopt(reduced));
+    }
+
+    /**
+     * Returns the coordinate along the given dimension of the greatest element of each fiber of that dimension
+     * </p>
+     * The result is indexed like {@link #reduce(Object, BinaryOperator, int)}. Only present elements are considered, and
+     * of elements which compare equal, the one with the lowest coordinate is chosen.
+     *
+     * @param dimension  the dimension to search along
+     * @param comparator the ordering of the elements
+     * @return the coordinates of the greatest elements
+     * @throws IndexOutOfBoundsException if the dimension is not less than the order of the tensor
+     */
+    public Tensor<Long> argmax(int dimension, Comparator<? super T> comparator) {
+        if (dimension >= order()) {
+            throw new IndexOutOfBoundsException("Specified dimension greater than order of tensor");
+        }
+        TensorOperationEvent event = TensorOperationEvent.begin("argmax", this);
+        return event.end(Ranking.arg(map, dimension, comparator));
+    }
+
+    /**
+     * Returns the coordinate along the given dimension of the least element of each fiber of that dimension
+     *
+     * @param dimension  the dimension to search along
+     * @param comparator the ordering of the elements
+     * @return the coordinates of the least elements
+     * @throws IndexOutOfBoundsException if the dimension is not less than the order of the tensor
+     * @see #argmax(int, Comparator)
+     */
+    public Tensor<Long> argmin(int dimension, Comparator<? super T> comparator) {
+        return argmax(dimension, reverse(comparator));
+    }
+
+    /**
+     * Returns the index of the greatest element, preferring the lowest index of elements which compare equal
+     *
+     * @param comparator the ordering of the elements
+     * @return the index of the greatest element
+     * @throws IllegalStateException if the tensor is empty
+     */
+    public Index argmax(Comparator<? super T> comparator) {
+        return Ranking.arg(map, comparator);
+    }
+
+    /**
+     * Returns the index of the least element, preferring the lowest index of elements which compare equal
+     *
+     * @param comparator the ordering of the elements
+     * @return the index of the least element
+     * @throws IllegalStateException if the tensor is empty
+     */
+    public Index argmin(Comparator<? super T> comparator) {
+        return Ranking.arg(map, reverse(comparator));
+    }
+
+    private static <T> Comparator<T> reverse(Comparator<T> comparator) {
+        if (comparator == null) throw new IllegalArgumentException("Comparator must not be null");
+        return comparator.reversed();
+    }
+
+    /**
+     * Selects the {@code k} greatest elements of each fiber of the given dimension using a bounded heap per fiber
+     * </p>
+     * In both resulting tensors, the coordinate along the dimension is the rank of the element, from 0 for the greatest,
+     * and fibers with fewer than {@code k} present elements have fewer ranks. Only present elements are considered, and
+     * elements which compare equal are ranked by ascending coordinate.
+     *
+     * @param k          the number of elements to select per fiber
+     * @param dimension  the dimension to rank along
+     * @param comparator the ordering of the elements
+     * @return the selected elements and their coordinates along the dimension
+     * @throws IllegalArgumentException  if k is not positive
+     * @throws IndexOutOfBoundsException if the dimension is not less than the order of the tensor
+     */
+    public TopK<T> topK(int k, int dimension, Comparator<? super T> comparator) {
+        return topK(k, dimension, comparator, false);
+    }
+
+    /**
+     * Selects the {@code k} greatest elements of each fiber of the given dimension, ranking the elements on the common
+     * fork-join pool and merging the heaps of each worker
+     *
+     * @see #topK(int, int, Comparator)
+     */
+    public TopK<T> parallelTopK(int k, int dimension, Comparator<? super T> comparator) {
+        return topK(k, dimension, comparator, true);
+    }
+
+    private TopK<T> topK(int k, int dimension, Comparator<? super T> comparator, boolean parallel) {
+        if (dimension >= order()) {
+            throw new IndexOutOfBoundsException("Specified dimension greater than order of tensor");
+        }
+        TensorOperationEvent event = TensorOperationEvent.begin("topK", this);
+        TopK<T> topK = Ranking.topK(map, k, dimension, comparator, parallel);
+        event.end(topK.values());
+        return topK;
     }
 
+    /**
+     * Greatest elements selected along a dimension, and their original coordinates along that dimension
+     *
+     * @param values  the selected elements, ranked along the dimension
+     * @param indices the original coordinates of the selected elements
+     * @param <T>     the type of the selected elements
+     */
+    public record TopK<T>(Tensor<T> values, Tensor<Long> indices) {
+    }
+
+    /**
+     * Replaces all elements whose corresponding mask value is not {@code true} with the masked value
+     * </p>
+     * The mask is broadcast against this tensor following the same rules as {@link #piecewise(BiFunction, Tensor)}. A
+     * {@link BitTensor} mask of the same dimensions is applied word by word instead.
+     *
+     * @param mask        the boolean mask
+     * @param maskedValue the value set wherever the mask is not {@code true}
+     * @return the masked tensor
+     */
     public Tensor<T> mask(Tensor<Boolean> mask, T maskedValue) {
+        if (mask instanceof BitTensor bits && bits.dimensions().equals(dimensions())) {
+            TensorOperationEvent event = TensorOperationEvent.begin("mask", this);
+            return event.end(bits.applyTo(this, maskedValue));
+        }
         return piecewise((element, o) -> ((Boolean.TRUE.equals(o)) ? element : maskedValue), mask);
     }
 
     /**
      * Applies a piecewise bi-function onto the tensor and another provided tensor
+     * </p>
+     * The tensors are broadcast against each other: dimensions are aligned from dimension 0, and any dimension which is
+     * missing or of size 1 in one tensor is virtually stretched to the size of that dimension in the other tensor.
+     * Broadcast operands are read by remapping each result index rather than being materialized. Two structured tensors,
+     * such as identity or banded tensors, of the same dimensions are combined inside the union of their bands only, and
+     * the result remains structured.
      *
-     * @param piecewiseFunction the function which takes values of two same-dimensioned tensors at each index and returns a new value
+     * @param piecewiseFunction the function which takes values of two broadcast-compatible tensors at each index and returns a new value
      * @param other             the other tensor
      * @param <U>               - the type of the other tensor
      * @param <S>               - the type of the new tensor
      * @return the resultant tensor
+     * @throws IllegalArgumentException if the other tensor is null or the dimensions cannot be broadcast together
      */
     public <S, U> Tensor<S> piecewise(BiFunction<T, U, S> piecewiseFunction, Tensor<U> other) {
-        if (other == null || !dimensions().equals(other.dimensions()))
-            throw new IllegalArgumentException("Tensor dimensions must match");
-        Map<Index, S> resultMap = map.keySet().stream()
-                .filter(index -> other.get(index) != null)
-                .collect(Collectors.toMap(index -> index, index -> piecewiseFunction.apply(get(index), other.get(index))));
-        return new Tensor<>(resultMap);
+        if (other == null)
+            throw new IllegalArgumentException("Other tensor must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin("piecewise", this);
+        List<Long> dimensions = dimensions();
+        List<Long> otherDimensions = other.dimensions();
+
+        StructuredStorage<T> structured = structured();
+        StructuredStorage<U> otherStructured = other.structured();
+        if (structured != null && otherStructured != null) {
+            StructuredStorage<S> result = StructuredStorage.piecewise(structured, otherStructured, piecewiseFunction);
+            if (result != null) return event.end(new Tensor<>(new CopyOnWriteMap<>(result), false));
+        }
+
+        if (dimensions.equals(otherDimensions)) {
+            Map<Index, S> resultMap = map.keySet().stream()
+                    .filter(index -> other.get(index) != null)
+                    .collect(Collectors.toMap(index -> index, index -> piecewiseFunction.apply(get(index), other.get(index))));
+            return event.end(adopt(resultMap));
+        }
+
+        long[] broadcast = broadcastDimensions(dimensions, otherDimensions);
+        int[] stretched = stretchedDimensions(dimensions, broadcast);
+        Map<Index, S> resultMap = new HashMap<>();
+        for (Map.Entry<Index, T> entry : map.entrySet()) {
+            forEachBroadcastIndex(entry.getKey(), stretched, broadcast, index -> {
+                U otherValue = other.get(broadcastSource(index, otherDimensions));
+                if (otherValue != null) {
+                    resultMap.put(index, piecewiseFunction.apply(entry.getValue(), otherValue));
+                }
+            });
+        }
+        return event.end(adopt(resultMap));
+    }
+
+    private static long[] broadcastDimensions(List<Long> first, List<Long> second) {
+        int order = Math.max(first.size(), second.size());
+        long[] broadcast = new long[order];
+        for (int dimension = 0; dimension < order; dimension++) {
+            long a = dimension < first.size() ? first.get(dimension) : 1;
+            long b = dimension < second.size() ? second.get(dimension) : 1;
+            if (a != b && a != 1 && b != 1)
+                throw new IllegalArgumentException("Tensor dimensions must match or be broadcastable");
+            broadcast[dimension] = Math.max(a, b);
+        }
+        return broadcast;
+    }
+
+    private static Index broadcastSource(Index index, List<Long> dimensions) {
+        long[] coordinates = new long[dimensions.size()];
+        for (int dimension = 0; dimension < coordinates.length; dimension++) {
+            coordinates[dimension] = dimensions.get(dimension) == 1 ? 0 : index.get(dimension);
+        }
+        return new Index(coordinates);
+    }
+
+    private static int[] stretchedDimensions(List<Long> dimensions, long[] broadcast) {
+        return IntStream.range(0, broadcast.length)
+                .filter(dimension -> dimension >= dimensions.size() || (dimensions.get(dimension) == 1 && broadcast[dimension] > 1))
+                .toArray();
+    }
+
+    private static void forEachBroadcastIndex(Index source, int[] stretched, long[] broadcast, Consumer<Index> action) {
+        long[] coordinates = Arrays.copyOf(source.coordinates(), broadcast.length);
+        for (int dimension : stretched) {
+            coordinates[dimension] = 0;
+        }
+        while (true) {
+            action.accept(new Index(coordinates.clone()));
+            int position = 0;
+            while (position < stretched.length && ++coordinates[stretched[position]] == broadcast[stretched[position]]) {
+                coordinates[stretched[position]] = 0;
+                position++;
+            }
+            if (position == stretched.length) return;
+        }
     }
 
     /**
@@ -529,6 +1050,7 @@ public class Tensor<T> {
      * @return the sliced tensor
      */
     public Tensor<T> slice(Map<Integer, Long> constraints) {
+        TensorOperationEvent event = TensorOperationEvent.begin("slice", this);
         List<Map.Entry<Index, T>> list = map.entrySet().stream()
                 .filter(entry -> entry.getKey().hasCoordinates(constraints))
                 .map(entry -> {
@@ -537,7 +1059,7 @@ public class Tensor<T> {
                 }).collect(Collectors.toList());
         Map<Index, T> slicedMap = list.stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Tensor<>(slicedMap);
+        return event.end(adopt(slicedMap));
     }
 
     /**
@@ -554,7 +1076,7 @@ public class Tensor<T> {
                         .collect(Collectors.toList())
                 ).flatMap(Collection::stream)
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Tensor<>(extrudedMap);
+        return adopt(extrudedMap);
     }
 
     public Tensor<T> extract(Index min, Index max) {
@@ -565,6 +1087,7 @@ public class Tensor<T> {
             throw new IllegalArgumentException("Min must be bounded by max");
         }
 
+        TensorOperationEvent event = TensorOperationEvent.begin("extract", this);
         // Directly use min and max as boundaries, treating 'max' as an upper bound, not a range
         Map<Index, T> extractedMap = map.entrySet().stream()
                 .filter(entry -> entry.getKey().isWithinBounds(min, max))
@@ -573,7 +1096,338 @@ public class Tensor<T> {
                         Map.Entry::getValue
                 ));
 
-        return new Tensor<>(extractedMap);
+        return event.end(adopt(extractedMap));
+    }
+
+    /**
+     * Evaluates an Einstein summation over numeric tensors
+     * </p>
+     * Each comma-separated group of letters labels the dimensions of the corresponding operand, starting at dimension 0.
+     * Labels shared between operands are multiplied together, and labels absent from the output are summed over,
+     * e.g. {@code "ij,jk->ik"} for matrix multiplication, {@code "i,j->ij"} for an outer product and {@code "ii->"} for a trace.
+     * If the output is omitted, it comprises the labels which appear exactly once, in alphabetical order.</p>
+     * Absent elements are treated as zero, and elements of the result which are zero are left absent, whether the
+     * operands were contracted densely or sparsely. A label must have the same size in every operand in which all
+     * elements are present, and no sparse operand may extend beyond it.
+     *
+     * @param spec     the einsum specification
+     * @param operands the numeric tensors to contract
+     * @return the contracted tensor
+     * @throws IllegalArgumentException if the specification does not match the operands, a label has different sizes
+     *                                  or any element is not numeric
+     */
+    public static Tensor<Double> einsum(String spec, Tensor<?>... operands) {
+        TensorOperationEvent event = TensorOperationEvent.begin("einsum", operands);
+        return event.end(Contraction.einsum(spec, operands));
+    }
+
+    /**
+     * Contracts this numeric tensor with another over the given pairs of dimensions
+     * </p>
+     * The resultant dimensions are the uncontracted dimensions of this tensor followed by those of the other tensor.
+     *
+     * @param other the other numeric tensor
+     * @param axesA the dimensions of this tensor to contract
+     * @param axesB the dimensions of the other tensor to contract, paired with {@code axesA}
+     * @return the contracted tensor
+     */
+    public Tensor<Double> tensordot(Tensor<?> other, int[] axesA, int[] axesB) {
+        TensorOperationEvent event = TensorOperationEvent.begin("tensordot", this, other);
+        return event.end(Contraction.tensordot(this, other, axesA, axesB));
+    }
+
+    /**
+     * Contracts this tensor with another over the given pairs of dimensions using the provided semiring
+     * </p>
+     * A hash index is built on the contracted coordinates of the smaller tensor, and the larger tensor is streamed
+     * against it, so only present elements are visited. The resultant dimensions are the uncontracted dimensions of this
+     * tensor followed by those of the other tensor, and only indices with at least one matched pair are present.
+     *
+     * @param other           the other tensor
+     * @param dimensions      the dimensions of this tensor to contract
+     * @param otherDimensions the dimensions of the other tensor to contract, paired with {@code dimensions}
+     * @param semiring        the semiring used to combine matched pairs and accumulate their products
+     * @return the contracted tensor
+     */
+    public Tensor<T> contract(Tensor<T> other, int[] dimensions, int[] otherDimensions, Semiring<T> semiring) {
+        TensorOperationEvent event = TensorOperationEvent.begin("contract", this, other);
+        return event.end(Contraction.contract(this, other, dimensions, otherDimensions, semiring));
+    }
+
+    /**
+     * Convolves this numeric tensor with a kernel over dimension 0
+     * </p>
+     * Dimension 0 of this tensor and the kernel is spatial. It may be followed, in this tensor, by a dimension of input
+     * channels and, in the kernel, by dimensions of input and output channels. The result has a dimension of output
+     * channels after its spatial dimension whenever the kernel does. As in most neural network libraries, the kernel is
+     * not flipped, so each result element is the sum of the kernel multiplied by a window of this tensor.</p>
+     * Absent elements are treated as zero. Depending on the size of the problem, windows are either accumulated directly
+     * or laid out as the columns of a matrix which is multiplied by the kernel, and output channels may be computed
+     * concurrently.
+     *
+     * @param kernel   the numeric kernel
+     * @param stride   the distance between consecutive windows
+     * @param padding  the number of zeros implied before and after the spatial dimension
+     * @param dilation the distance between consecutive kernel elements within a window
+     * @return the convolved tensor
+     * @throws IllegalArgumentException if the shapes are incompatible, the kernel does not fit or any element is not numeric
+     * @throws IllegalStateException    if either tensor is empty
+     */
+    public Tensor<Double> conv1d(Tensor<?> kernel, int stride, int padding, int dilation) {
+        return convolve("conv1d", kernel, 1, stride, padding, dilation);
+    }
+
+    public Tensor<Double> conv1d(Tensor<?> kernel) {
+        return conv1d(kernel, 1, 0, 1);
+    }
+
+    /**
+     * Convolves this numeric tensor with a kernel over dimensions 0 and 1, as set out by {@link #conv1d(Tensor, int, int, int)}
+     *
+     * @param kernel   the numeric kernel
+     * @param stride   the distance between consecutive windows in each spatial dimension
+     * @param padding  the number of zeros implied before and after each spatial dimension
+     * @param dilation the distance between consecutive kernel elements within a window in each spatial dimension
+     * @return the convolved tensor
+     */
+    public Tensor<Double> conv2d(Tensor<?> kernel, int stride, int padding, int dilation) {
+        return convolve("conv2d", kernel, 2, stride, padding, dilation);
+    }
+
+    public Tensor<Double> conv2d(Tensor<?> kernel) {
+        return conv2d(kernel, 1, 0, 1);
+    }
+
+    /**
+     * Convolves this numeric tensor with a kernel over dimensions 0, 1 and 2, as set out by {@link #conv1d(Tensor, int, int, int)}
+     *
+     * @param kernel   the numeric kernel
+     * @param stride   the distance between consecutive windows in each spatial dimension
+     * @param padding  the number of zeros implied before and after each spatial dimension
+     * @param dilation the distance between consecutive kernel elements within a window in each spatial dimension
+     * @return the convolved tensor
+     */
+    public Tensor<Double> conv3d(Tensor<?> kernel, int stride, int padding, int dilation) {
+        return convolve("conv3d", kernel, 3, stride, padding, dilation);
+    }
+
+    public Tensor<Double> conv3d(Tensor<?> kernel) {
+        return conv3d(kernel, 1, 0, 1);
+    }
+
+    private Tensor<Double> convolve(String operation, Tensor<?> kernel, int dimensions, int stride, int padding, int dilation) {
+        if (kernel == null) throw new IllegalArgumentException("Kernel must not be null");
+        TensorOperationEvent event = TensorOperationEvent.begin(operation, this, kernel);
+        return event.end(Convolution.convolve(this, kernel, dimensions, stride, padding, dilation));
+    }
+
+    /**
+     * Returns the maximum of each window of this numeric tensor over dimension 0
+     * </p>
+     * A dimension following the spatial dimension is treated as channels, each of which is pooled separately. Absent
+     * elements are treated as zero.
+     *
+     * @param size   the size of each window
+     * @param stride the distance between consecutive windows
+     * @return the pooled tensor
+     * @throws IllegalArgumentException if the window does not fit or any element is not numeric
+     */
+    public Tensor<Double> maxPool1d(int size, int stride) {
+        return pool("maxPool1d", 1, size, stride, true);
+    }
+
+    /**
+     * Returns the maximum of each window of this numeric tensor over dimensions 0 and 1, as set out by {@link #maxPool1d(int, int)}
+     *
+     * @param size   the size of each window in each spatial dimension
+     * @param stride the distance between consecutive windows in each spatial dimension
+     * @return the pooled tensor
+     */
+    public Tensor<Double> maxPool2d(int size, int stride) {
+        return pool("maxPool2d", 2, size, stride, true);
+    }
+
+    /**
+     * Returns the maximum of each window of this numeric tensor over dimensions 0, 1 and 2, as set out by {@link #maxPool1d(int, int)}
+     *
+     * @param size   the size of each window in each spatial dimension
+     * @param stride the distance between consecutive windows in each spatial dimension
+     * @return the pooled tensor
+     */
+    public Tensor<Double> maxPool3d(int size, int stride) {
+        return pool("maxPool3d", 3, size, stride, true);
+    }
+
+    /**
+     * Returns the mean of each window of this numeric tensor over dimension 0, as set out by {@link #maxPool1d(int, int)}
+     *
+     * @param size   the size of each window
+     * @param stride the distance between consecutive windows
+     * @return the pooled tensor
+     */
+    public Tensor<Double> avgPool1d(int size, int stride) {
+        return pool("avgPool1d", 1, size, stride, false);
+    }
+
+    /**
+     * Returns the mean of each window of this numeric tensor over dimensions 0 and 1, as set out by {@link #maxPool1d(int, int)}
+     *
+     * @param size   the size of each window in each spatial dimension
+     * @param stride the distance between consecutive windows in each spatial dimension
+     * @return the pooled tensor
+     */
+    public Tensor<Double> avgPool2d(int size, int stride) {
+        return pool("avgPool2d", 2, size, stride, false);
+    }
+
+    /**
+     * Returns the mean of each window of this numeric tensor over dimensions 0, 1 and 2, as set out by {@link #maxPool1d(int, int)}
+     *
+     * @param size   the size of each window in each spatial dimension
+     * @param stride the distance between consecutive windows in each spatial dimension
+     * @return the pooled tensor
+     */
+    public Tensor<Double> avgPool3d(int size, int stride) {
+        return pool("avgPool3d", 3, size, stride, false);
+    }
+
+    private Tensor<Double> pool(String operation, int dimensions, int size, int stride, boolean max) {
+        TensorOperationEvent event = TensorOperationEvent.begin(operation, this);
+        return event.end(Convolution.pool(this, dimensions, size, stride, max));
+    }
+
+    /**
+     * Returns the discrete Fourier transform of this complex tensor along the given dimension
+     * </p>
+     * Complex tensors hold the real and imaginary part of each element at coordinate 0 and 1 of a trailing dimension, so
+     * the transformed dimension must precede it. Absent elements are treated as zero. Lengths which are powers of 2 are
+     * transformed by the radix-2 algorithm and any other length by Bluestein's algorithm, in O(n log n) either way.
+     *
+     * @param dimension the dimension along which to transform
+     * @return the complex transform
+     * @throws IllegalArgumentException  if the trailing dimension exceeds 2 or any element is not numeric
+     * @throws IndexOutOfBoundsException if the dimension is not one preceding the trailing dimension
+     * @throws IllegalStateException     if this tensor is empty
+     */
+    public Tensor<Double> fft(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("fft", this);
+        return event.end(Fourier.complex(this, dimension, false));
+    }
+
+    /**
+     * Returns the inverse discrete Fourier transform of this complex tensor along the given dimension, scaled by the
+     * reciprocal of its length, as set out by {@link #fft(int)}
+     *
+     * @param dimension the dimension along which to transform
+     * @return the complex inverse transform
+     */
+    public Tensor<Double> ifft(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("ifft", this);
+        return event.end(Fourier.complex(this, dimension, true));
+    }
+
+    /**
+     * Returns the discrete Fourier transform of this real tensor along the given dimension
+     * </p>
+     * Only the first {@code n / 2 + 1} frequencies of a length {@code n} are kept, the others being their conjugates.
+     * They are followed by a trailing dimension holding their real and imaginary parts, as set out by {@link #fft(int)}.
+     *
+     * @param dimension the dimension along which to transform
+     * @return the complex transform
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     */
+    public Tensor<Double> rfft(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("rfft", this);
+        return event.end(Fourier.real(this, dimension));
+    }
+
+    /**
+     * Returns the real signal of the given length whose non-redundant frequencies along the given dimension are held by
+     * this complex tensor, as returned by {@link #rfft(int)}
+     *
+     * @param dimension the dimension along which to transform
+     * @param length    the length of the signal along the dimension
+     * @return the real inverse transform
+     * @throws IllegalArgumentException if there are more than {@code length / 2 + 1} frequencies
+     */
+    public Tensor<Double> irfft(int dimension, int length) {
+        TensorOperationEvent event = TensorOperationEvent.begin("irfft", this);
+        return event.end(Fourier.inverseReal(this, dimension, length));
+    }
+
+    /**
+     * Returns the aggregate of each sliding window along the given dimension, at the index of the window in that dimension
+     * </p>
+     * Window {@code w} covers coordinates {@code w * step} to {@code w * step + window - 1}, and only windows lying wholly
+     * within the dimension are aggregated. The aggregator is updated incrementally as each element enters and leaves the
+     * window, so each fiber is aggregated in O(n) whatever the size of the window. Absent elements are not aggregated,
+     * and windows holding no elements are absent from the result.
+     *
+     * @param dimension  the dimension along which to slide
+     * @param window     the size of each window
+     * @param step       the distance between the starts of consecutive windows
+     * @param aggregator the aggregator of each window, such as {@link Aggregator#sum()}
+     * @param <R>        aggregate value type
+     * @return the aggregated tensor
+     * @throws IllegalArgumentException  if the window or step is not positive
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     */
+    public <R> Tensor<R> rolling(int dimension, int window, int step, Aggregator<? super T, R> aggregator) {
+        TensorOperationEvent event = TensorOperationEvent.begin("rolling", this);
+        return event.end(Rolling.rolling(this, dimension, window, step, aggregator));
+    }
+
+    /**
+     * Returns the inclusive scan of this tensor along the given dimension, in which each present element is combined
+     * with the identity and every present element preceding it in its fiber, in order
+     * </p>
+     * Large dense tensors are scanned in parallel, by Blelloch's parallel prefix where there are too few fibers to
+     * scan each on its own thread, so the operator must be associative.
+     *
+     * @param identity  the identity of the operator
+     * @param operator  the associative operator
+     * @param dimension the dimension along which to scan
+     * @return the scanned tensor
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     */
+    public Tensor<T> scan(T identity, BinaryOperator<T> operator, int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("scan", this);
+        return event.end(Scanning.scan(this, identity, operator, dimension));
+    }
+
+    /**
+     * Returns the cumulative sum of this numeric tensor along the given dimension, in which absent elements are zero
+     *
+     * @param dimension the dimension along which to sum
+     * @return the cumulative sum
+     * @throws IllegalArgumentException  if any element is not numeric
+     * @throws IndexOutOfBoundsException if the dimension exceeds the order of this tensor
+     */
+    public Tensor<Double> cumsum(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("cumsum", this);
+        return event.end(Scanning.numeric(this, dimension, 0, Double::sum));
+    }
+
+    /**
+     * Returns the cumulative product of this numeric tensor along the given dimension, in which absent elements are zero
+     *
+     * @param dimension the dimension along which to multiply
+     * @return the cumulative product
+     */
+    public Tensor<Double> cumprod(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("cumprod", this);
+        return event.end(Scanning.numeric(this, dimension, 1, (first, second) -> first * second));
+    }
+
+    /**
+     * Returns the running maximum of this numeric tensor along the given dimension, in which absent elements are zero
+     *
+     * @param dimension the dimension along which to take the maximum
+     * @return the running maximum
+     */
+    public Tensor<Double> cummax(int dimension) {
+        TensorOperationEvent event = TensorOperationEvent.begin("cummax", this);
+        return event.end(Scanning.numeric(this, dimension, Double.NEGATIVE_INFINITY, Math::max));
     }
 
     public boolean isScalar() {
@@ -632,6 +1486,17 @@ public class Tensor<T> {
         return new Tensor<>(map);
     }
 
+    /**
+     * Coerces the tensor to an immutable {@code PersistentTensor}
+     * </p>
+     * Tensors already backed by persistent storage are converted in O(1) by sharing structure
+     *
+     * @return the persistent tensor
+     */
+    public PersistentTensor<T> toPersistent() {
+        return PersistentTensor.of(this);
+    }
+
     /**
      * Converts tensor to string representation
      *
@@ -639,7 +1504,7 @@ public class Tensor<T> {
      */
     @Override
     public String toString() {
-        return toString("[", "]", ",", "", " ", false);
+        return toString(TensorFormat.DEFAULT);
     }
 
     /**
@@ -656,59 +1521,86 @@ public class Tensor<T> {
      * @return tensor string representation
      */
     public String toString(String open, String close, String separator, String delineator, String defaultValue, boolean repeatedDelineator) {
-        // Handle empty map
-        if (map.isEmpty()) {
-            return "";
-        }
+        return toString(new TensorFormat(open, close, separator, delineator, defaultValue, repeatedDelineator));
+    }
 
-        // Handle scalar value
-        if (order() == 0) {
-            return get().toString();
+    /**
+     * Converts tensor to string representation using the given format
+     *
+     * @param format the format of the representation
+     * @return tensor string representation
+     */
+    public String toString(TensorFormat format) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writeTo(builder, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return builder.toString();
+    }
 
-        List<Index> sortedIndices = indices().stream()
-                .sorted(Index::compareTo)
-                .collect(Collectors.toList());
+    public String toFormattedString() {
+        return toString(TensorFormat.FORMATTED);
+    }
 
-        int order = sortedIndices.get(sortedIndices.size() - 1)
-                .highestOrderDifference(sortedIndices.get(0));
-        long sizeOfLowestDimension = sortedIndices.get(sortedIndices.size() - 1).get(0);
+    /**
+     * Streams the string representation of the tensor to the given appendable
+     * </p>
+     * Cells are visited in index order by an odometer over the bounding box given by {@link #dimensions()}, so memory use
+     * is independent of the size of the tensor. Nesting depth between consecutive cells is derived from the highest
+     * dimension carried by the odometer.
+     *
+     * @param appendable the destination, e.g. a {@link java.io.Writer} or {@link StringBuilder}
+     * @param format     the format of the representation
+     * @throws IOException if the appendable throws
+     */
+    public void writeTo(Appendable appendable, TensorFormat format) throws IOException {
+        if (map.isEmpty()) {
+            return;
+        }
+        if (order() == 0) {
+            appendable.append(get().toString());
+            return;
+        }
 
-        StringBuilder builder = new StringBuilder().append(open.repeat(order));
+        long[] dimensions = dimensions().stream().mapToLong(Long::longValue).toArray();
+        int order = 0;
+        for (int d = 0; d < dimensions.length; d++) {
+            if (dimensions[d] > 1) order = d + 1;
+        }
 
+        String open = format.open();
+        String close = format.close();
+        String delineator = format.delineator();
         boolean delineatorSurroundedByWhitespace = delineator.matches("\s.\s");
-
         String normalisedDelineator = delineator.trim().length() == 0 ? delineator : delineator.trim();
-
-        Index previous = null;
-        for (Index current : sortedIndices) {
-            if (previous != null) {
-                if (previous.get(0) != sizeOfLowestDimension) {
-                    builder.append(separator);
-                }
-
-                int distance = previous.highestOrderDifference(current);
-                if (distance > 1) {
-                    builder.append(close.repeat(Math.max(distance - 1, 0)))
-                            .append(delineatorSurroundedByWhitespace ? " " : "")
-                            .append(repeatedDelineator ? normalisedDelineator.repeat(Math.max(distance - 1, 0)) : delineator)
-                            .append(delineatorSurroundedByWhitespace ? " " : "")
-                            .append(open.repeat(Math.max(distance - 1, 0)));
-                }
-
+        String padding = delineatorSurroundedByWhitespace ? " " : "";
+
+        appendable.append(open.repeat(order));
+        long[] coordinates = new long[dimensions.length];
+        while (true) {
+            T element = map.get(new Index(coordinates));
+            appendable.append(element == null ? format.defaultValue() : element.toString());
+
+            int carried = 0;
+            while (carried < dimensions.length && ++coordinates[carried] == dimensions[carried]) {
+                coordinates[carried] = 0;
+                carried++;
+            }
+            if (carried == dimensions.length) break;
+
+            if (carried == 0) {
+                appendable.append(format.separator());
+            } else {
+                appendable.append(close.repeat(carried))
+                        .append(padding)
+                        .append(format.repeatedDelineator() ? normalisedDelineator.repeat(carried) : delineator)
+                        .append(padding)
+                        .append(open.repeat(carried));
             }
-            T element = map.get(current);
-            builder.append(element == null ? defaultValue : element);
-
-            previous = current;
         }
-
-        return builder.append(close.repeat(order))
-                .toString();
-    }
-
-    public String toFormattedString() {
-        return toString("", "", "\t", "\n", ".", true);
+        appendable.append(close.repeat(order));
     }
 
     @Override
@@ -0,0 +1,35 @@
+package dev.christopping.tensor;
+
+import java.util.Objects;
+
+/**
+ * Formatting options for tensor text representations
+ *
+ * @param open               opening bracketing symbol
+ * @param close              closing bracketing symbol
+ * @param separator          element separator
+ * @param delineator         sub-tensor delineator
+ * @param defaultValue       default value for non-present elements
+ * @param repeatedDelineator determines whether the delineator is repeated on nested sub-tensors
+ */
+public record TensorFormat(String open, String close, String separator, String delineator, String defaultValue, boolean repeatedDelineator) {
+
+    /**
+     * Bracketed, comma separated format used by {@link Tensor#toString()}
+     */
+    public static final TensorFormat DEFAULT = new TensorFormat("[", "]", ",", "", " ", false);
+
+    /**
+     * Tab separated, newline delineated format used by {@link Tensor#toFormattedString()}
+     */
+    public static final TensorFormat FORMATTED = new TensorFormat("", "", "\t", "\n", ".", true);
+
+    public TensorFormat {
+        Objects.requireNonNull(open, "Open symbol cannot be null");
+        Objects.requireNonNull(close, "Close symbol cannot be null");
+        Objects.requireNonNull(separator, "Separator cannot be null");
+        Objects.requireNonNull(delineator, "Delineator cannot be null");
+        Objects.requireNonNull(defaultValue, "Default value cannot be null");
+    }
+
+}
@@ -0,0 +1,172 @@
+package dev.christopping.tensor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in, in-process registry of per-operation counters and latency histograms for tensor operations
+ * <p>
+ * The registry is disabled by default, in which case operations record nothing. Once {@link #enable() enabled}, each
+ * instrumented operation increments its counters and the histogram bucket of its latency. Recording is lock-free, so
+ * operations on different threads do not contend with each other.
+ * <p>
+ * {@link #snapshot()} returns the current values, and {@link #writeTo(Appendable)} writes them in the Prometheus text
+ * exposition format, so that they can be scraped without any external dependency.
+ */
+public final class TensorMetrics {
+
+    private static final long[] BUCKET_BOUNDS = {
+            1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L, 10_000_000_000L
+    };
+
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+    private static volatile boolean enabled;
+
+    private TensorMetrics() {
+    }
+
+    /**
+     * Returns the upper bounds, in nanoseconds, of the latency histogram buckets, excluding the final unbounded bucket
+     *
+     * @return the bucket bounds
+     */
+    public static long[] bucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * Starts recording instrumented operations, keeping any values recorded before
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Stops recording instrumented operations, keeping the values recorded so far until {@link #reset()}
+     */
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Returns whether instrumented operations are being recorded
+     *
+     * @return true if the registry is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Discards all recorded values
+     */
+    public static void reset() {
+        OPERATIONS.clear();
+    }
+
+    /**
+     * Returns the recorded values of each operation, ordered by operation name
+     *
+     * @return the snapshots by operation name
+     */
+    public static Map<String, OperationSnapshot> snapshot() {
+        Map<String, OperationSnapshot> snapshot = new TreeMap<>();
+        OPERATIONS.forEach((operation, metrics) -> snapshot.put(operation, metrics.snapshot(operation)));
+        return snapshot;
+    }
+
+    /**
+     * Writes the recorded values in the Prometheus text exposition format
+     *
+     * @param appendable the appendable to write to
+     * @throws IOException if the appendable cannot be written
+     */
+    public static void writeTo(Appendable appendable) throws IOException {
+        Map<String, OperationSnapshot> snapshot = snapshot();
+        appendable.append("# TYPE tensor_operations_total counter\n");
+        for (OperationSnapshot operation : snapshot.values()) {
+            appendable.append("tensor_operations_total{operation=\"").append(operation.operation()).append("\"} ")
+                    .append(Long.toString(operation.count())).append('\n');
+        }
+        appendable.append("# TYPE tensor_operation_entries_total counter\n");
+        for (OperationSnapshot operation : snapshot.values()) {
+            appendable.append("tensor_operation_entries_total{operation=\"").append(operation.operation()).append("\",direction=\"input\"} ")
+                    .append(Long.toString(operation.inputEntries())).append('\n');
+            appendable.append("tensor_operation_entries_total{operation=\"").append(operation.operation()).append("\",direction=\"output\"} ")
+                    .append(Long.toString(operation.outputEntries())).append('\n');
+        }
+        appendable.append("# TYPE tensor_operation_duration_seconds histogram\n");
+        for (OperationSnapshot operation : snapshot.values()) {
+            long cumulative = 0;
+            for (int bucket = 0; bucket <= BUCKET_BOUNDS.length; bucket++) {
+                cumulative += operation.buckets()[bucket];
+                String bound = bucket < BUCKET_BOUNDS.length ? Double.toString(BUCKET_BOUNDS[bucket] / 1e9) : "+Inf";
+                appendable.append("tensor_operation_duration_seconds_bucket{operation=\"").append(operation.operation())
+                        .append("\",le=\"").append(bound).append("\"} ").append(Long.toString(cumulative)).append('\n');
+            }
+            appendable.append("tensor_operation_duration_seconds_sum{operation=\"").append(operation.operation()).append("\"} ")
+                    .append(Double.toString(operation.totalNanos() / 1e9)).append('\n');
+            appendable.append("tensor_operation_duration_seconds_count{operation=\"").append(operation.operation()).append("\"} ")
+                    .append(Long.toString(operation.count())).append('\n');
+        }
+    }
+
+    static void record(String operation, long nanos, long inputEntries, long outputEntries) {
+        OPERATIONS.computeIfAbsent(operation, name -> new OperationMetrics()).record(nanos, inputEntries, outputEntries);
+    }
+
+    /**
+     * Recorded values of a single operation
+     *
+     * @param operation     the operation name
+     * @param count         the number of times the operation completed
+     * @param totalNanos    the total duration of the operation
+     * @param maxNanos      the longest duration of the operation
+     * @param inputEntries  the total number of input entries
+     * @param outputEntries the total number of output entries
+     * @param buckets       the number of durations within each bucket of {@link #bucketBounds()}, followed by the number exceeding them all
+     */
+    public record OperationSnapshot(String operation, long count, long totalNanos, long maxNanos,
+                                    long inputEntries, long outputEntries, long[] buckets) {
+
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+    }
+
+    private static final class OperationMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder inputEntries = new LongAdder();
+        private final LongAdder outputEntries = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+        private OperationMetrics() {
+            Arrays.setAll(buckets, bucket -> new LongAdder());
+        }
+
+        private void record(long nanos, long inputs, long outputs) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            inputEntries.add(inputs);
+            outputEntries.add(outputs);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && nanos > BUCKET_BOUNDS[bucket]) bucket++;
+            buckets[bucket].increment();
+        }
+
+        private OperationSnapshot snapshot(String operation) {
+            long[] counts = Arrays.stream(buckets).mapToLong(LongAdder::sum).toArray();
+            return new OperationSnapshot(operation, count.sum(), totalNanos.sum(), maxNanos.get(),
+                    inputEntries.sum(), outputEntries.sum(), counts);
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package dev.christopping.tensor;
+
+import jdk.jfr.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JFR event recorded for each instrumented tensor operation, which also feeds {@link TensorMetrics} when enabled
+ * <p>
+ * Operations call {@link #begin(String, Tensor)} on entry and {@link #end(Tensor)} with their result. When neither
+ * the event nor the metrics registry is enabled, no inputs are inspected and no clock is read.
+ */
+@Name("dev.christopping.tensor.Operation")
+@Label("Tensor Operation")
+@Category("Tensor")
+@Description("An operation producing a tensor from one or more input tensors")
+@StackTrace(false)
+final class TensorOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Order")
+    int inputOrder;
+
+    @Label("Output Order")
+    int outputOrder;
+
+    @Label("Input Entries")
+    long inputEntries;
+
+    @Label("Output Entries")
+    long outputEntries;
+
+    @Label("Storage")
+    @Description("Storage backend of the (first) input tensor")
+    String storage;
+
+    private transient long start;
+
+    static TensorOperationEvent begin(String operation, Tensor<?> input) {
+        TensorOperationEvent event = new TensorOperationEvent();
+        boolean metrics = TensorMetrics.isEnabled();
+        if (!metrics && !event.isEnabled()) return event;
+        event.operation = operation;
+        if (input != null) {
+            event.inputOrder = input.order();
+            event.inputEntries = input.map.size();
+            event.storage = storageKind(input.map);
+        }
+        if (metrics) event.start = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    static TensorOperationEvent begin(String operation, Tensor<?>... inputs) {
+        return begin(operation, inputs == null ? List.<Tensor<?>>of() : Arrays.asList(inputs));
+    }
+
+    static TensorOperationEvent begin(String operation, Collection<? extends Tensor<?>> inputs) {
+        Tensor<?> first = inputs == null ? null : inputs.stream().filter(Objects::nonNull).findFirst().orElse(null);
+        TensorOperationEvent event = begin(operation, first);
+        if (event.operation != null && first != null) {
+            event.inputEntries = inputs.stream().filter(Objects::nonNull).mapToLong(input -> input.map.size()).sum();
+        }
+        return event;
+    }
+
+    /**
+     * Ends the operation, committing the event and recording metrics as enabled
+     *
+     * @param output the result of the operation
+     * @return the result of the operation
+     */
+    <R extends Tensor<?>> R end(R output) {
+        if (operation == null) return output;
+        end(output.order(), output.map.size());
+        return output;
+    }
+
+    /**
+     * Ends an operation whose result is not a tensor, such as a list of elements or a decomposition
+     *
+     * @param order   the order of the result
+     * @param entries the number of entries in the result
+     */
+    void end(int order, long entries) {
+        if (operation == null) return;
+        end();
+        outputEntries = entries;
+        if (shouldCommit()) {
+            outputOrder = order;
+            commit();
+        }
+        if (start != 0) {
+            TensorMetrics.record(operation, System.nanoTime() - start, inputEntries, outputEntries);
+        }
+    }
+
+    private static final Map<Class<?>, String> STORAGE_KINDS = new ConcurrentHashMap<>(Map.of(
+            CopyOnWriteMap.class, "copy-on-write",
+            PersistentMap.class, "persistent",
+            ConcurrentHashMap.class, "concurrent"
+    ));
+
+    static String storageKind(Map<?, ?> storage) {
+        if (storage instanceof CopyOnWriteMap<?, ?> shared && shared.backing() instanceof DenseStorage<?>) return "dense";
+        if (storage instanceof DenseStorage<?>) return "dense";
+        if (storage instanceof CopyOnWriteMap<?, ?> shared && shared.backing() instanceof StructuredStorage<?>) return "structured";
+        return STORAGE_KINDS.computeIfAbsent(storage.getClass(), Class::getSimpleName);
+    }
+
+}
@@ -14,18 +14,22 @@ public class Vector<T> extends Tensor<T> {
         super(map);
     }
 
+    Vector(Map<Index, T> storage, boolean copy) {
+        super(storage, copy);
+    }
+
     public static <T> Vector<T> of(List<T> list) {
         Map<Index, T> map = IntStream.range(0, list.size())
                 .mapToObj(i -> Map.entry(Index.of(i), list.get(i)))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Vector<>(map);
+        return new Vector<>(new CopyOnWriteMap<>(map), false);
     }
 
     public static <T> Vector<T> of(T... array) {
         Map<Index, T> map = IntStream.range(0, array.length)
                 .mapToObj(i -> Map.entry(Index.of(i), array[i]))
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Vector<>(map);
+        return new Vector<>(new CopyOnWriteMap<>(map), false);
     }
 
     public static <T> Vector<T> fill(T value, long size) {
@@ -78,6 +82,98 @@ public class Vector<T> extends Tensor<T> {
         set(element, Index.of(0));
     }
 
+    /**
+     * Returns the discrete Fourier transform of this real vector, with the real and imaginary parts of every frequency
+     * in rows 0 and 1
+     *
+     * @return the complex transform
+     */
+    public Matrix<Double> fft() {
+        return unsqueeze(1).fft(0).toMatrix();
+    }
+
+    /**
+     * Returns the full linear convolution of this numeric vector with another, of length {@code n + m - 1}
+     * </p>
+     * Long vectors are convolved by multiplying their Fourier transforms, in O((n + m) log(n + m)).
+     *
+     * @param other the other numeric vector
+     * @return the convolution
+     */
+    public Vector<Double> convolve(Vector<?> other) {
+        return convolve(other, false);
+    }
+
+    /**
+     * Returns the full cross-correlation of this numeric vector with another, whose element {@code k} is the
+     * correlation at lag {@code k - (m - 1)}
+     *
+     * @param other the other numeric vector, of length {@code m}
+     * @return the cross-correlation
+     */
+    public Vector<Double> correlate(Vector<?> other) {
+        return convolve(other, true);
+    }
+
+    private Vector<Double> convolve(Vector<?> other, boolean correlate) {
+        if (other == null) throw new IllegalArgumentException("Other vector must not be null");
+        if (isEmpty() || other.isEmpty()) throw new IllegalStateException("Vectors must not be empty");
+        TensorOperationEvent event = TensorOperationEvent.begin(correlate ? "correlate" : "convolve", this, other);
+        double[] first = Doubles.of(this, new long[]{size()});
+        double[] second = Doubles.of(other, new long[]{other.size()});
+        double[] result = Fourier.convolve(first, second, correlate);
+        return event.end(Doubles.tensor(result, new long[]{result.length}).toVector());
+    }
+
+    /**
+     * Returns the aggregate of each sliding window of this vector, as set out by {@link #rolling(int, int, int, Aggregator)}
+     *
+     * @param window     the size of each window
+     * @param step       the distance between the starts of consecutive windows
+     * @param aggregator the aggregator of each window
+     * @param <R>        aggregate value type
+     * @return the aggregated vector
+     */
+    public <R> Vector<R> rolling(int window, int step, Aggregator<? super T, R> aggregator) {
+        return rolling(0, window, step, aggregator).toVector();
+    }
+
+    /**
+     * Returns a sliding window which has been pushed the elements of this vector, so that further observations of the
+     * series can be streamed into it
+     *
+     * @param window     the size of each window
+     * @param step       the distance between the starts of consecutive windows
+     * @param aggregator the aggregator of each window
+     * @param <R>        aggregate value type
+     * @return the sliding window
+     */
+    public <R> RollingWindow<T, R> rollingWindow(int window, int step, Aggregator<? super T, R> aggregator) {
+        RollingWindow<T, R> rolling = RollingWindow.of(window, step, aggregator);
+        rolling.pushAll(this);
+        return rolling;
+    }
+
+    @Override
+    public Vector<T> scan(T identity, BinaryOperator<T> operator, int dimension) {
+        return super.scan(identity, operator, dimension).toVector();
+    }
+
+    @Override
+    public Vector<Double> cumsum(int dimension) {
+        return super.cumsum(dimension).toVector();
+    }
+
+    @Override
+    public Vector<Double> cumprod(int dimension) {
+        return super.cumprod(dimension).toVector();
+    }
+
+    @Override
+    public Vector<Double> cummax(int dimension) {
+        return super.cummax(dimension).toVector();
+    }
+
     @Override
     public Vector<T> transpose() {
         return new Vector<>(map);
@@ -0,0 +1,178 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static dev.christopping.tensor.TensorAssertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BitTensorTest {
+
+    private static final Integer[][] INT_ARRAY_2D = {{1, 2}, {3, 4}, {5, 6}};
+
+    private static BitTensor random(long size, double density, long seed, BitSet expected) {
+        Random random = new Random(seed);
+        BitTensor bits = BitTensor.zeros(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < density) {
+                bits.set(true, i);
+                expected.set(i);
+            }
+        }
+        return bits;
+    }
+
+    @DisplayName("where(Tensor<T> tensor, Predicate<? super T> predicate)")
+    @Nested
+    class Where {
+
+        @DisplayName("Should be true where the predicate holds and false elsewhere")
+        @Test
+        void shouldBeTrueWhereThePredicateHoldsAndFalseElsewhere() {
+            BitTensor even = BitTensor.where(Tensor.of(INT_ARRAY_2D, Integer.class), value -> value % 2 == 0);
+            assertMatrix(even, "[[false,true][false,true][false,true]]");
+            assertThat(even.dimensions()).containsExactly(2L, 3L);
+            assertThat(even.cardinality()).isEqualTo(3L);
+        }
+
+        @DisplayName("Given numeric comparisons - should generate masks")
+        @Test
+        void givenNumericComparisons_shouldGenerateMasks() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(BitTensor.greaterThan(tensor, 3), "[[false,false][false,true][true,true]]");
+            assertMatrix(BitTensor.lessThan(tensor, 2), "[[true,false][false,false][false,false]]");
+            assertMatrix(BitTensor.equalTo(tensor, 4), "[[false,false][false,true][false,false]]");
+        }
+
+        @DisplayName("Given boolean tensor with absent elements - should treat them as false")
+        @Test
+        void givenBooleanTensorWithAbsentElements_shouldTreatThemAsFalse() {
+            Tensor<Boolean> sparse = Tensor.<Boolean>builder().add(Index.of(0), true).add(Index.of(3), true).build();
+            assertVector(BitTensor.of(sparse), "[true,false,false,true]");
+        }
+
+    }
+
+    @DisplayName("and(BitTensor other), or(BitTensor other), xor(BitTensor other), not()")
+    @Nested
+    class Bitwise {
+
+        @DisplayName("Given masks of varying density - should match BitSet")
+        @ParameterizedTest
+        @ValueSource(doubles = {0.001, 0.05, 0.5, 0.99})
+        void givenMasksOfVaryingDensity_shouldMatchBitSet(double density) {
+            int size = 300_000;
+            BitSet first = new BitSet();
+            BitSet second = new BitSet();
+            BitTensor a = random(size, density, 1, first);
+            BitTensor b = random(size, 0.02, 2, second);
+
+            BitSet and = (BitSet) first.clone();
+            and.and(second);
+            BitSet or = (BitSet) first.clone();
+            or.or(second);
+            BitSet xor = (BitSet) first.clone();
+            xor.xor(second);
+            BitSet not = (BitSet) first.clone();
+            not.flip(0, size);
+
+            assertThat(a.cardinality()).isEqualTo((long) first.cardinality());
+            assertThat(a.and(b).cardinality()).isEqualTo((long) and.cardinality());
+            assertThat(a.or(b).cardinality()).isEqualTo((long) or.cardinality());
+            assertThat(a.xor(b).cardinality()).isEqualTo((long) xor.cardinality());
+            assertThat(a.not().cardinality()).isEqualTo((long) not.cardinality());
+            assertThat(IntStream.range(0, size).allMatch(i -> a.xor(b).get(i) == xor.get(i))).isTrue();
+        }
+
+        @DisplayName("Given bits set then cleared - should compress back to an empty mask")
+        @Test
+        void givenBitsSetThenCleared_shouldCompressBackToAnEmptyMask() {
+            BitTensor bits = BitTensor.zeros(100, 100);
+            IntStream.range(0, 10_000).forEach(i -> bits.set(true, i % 100, i / 100));
+            assertThat(bits).isEqualTo(BitTensor.ones(100, 100));
+            IntStream.range(0, 10_000).forEach(i -> bits.set(false, i % 100, i / 100));
+            assertThat(bits).isEqualTo(BitTensor.zeros(100, 100));
+            assertThat(bits.memoryFootprint() < 200).isTrue();
+        }
+
+        @DisplayName("Given not of partial last word - should not set bits beyond the shape")
+        @Test
+        void givenNotOfPartialLastWord_shouldNotSetBitsBeyondTheShape() {
+            assertThat(BitTensor.zeros(70).not().cardinality()).isEqualTo(70L);
+            assertThat(BitTensor.ones(3, 3).not()).isEqualTo(BitTensor.zeros(3, 3));
+        }
+
+        @DisplayName("Given different dimensions - should throw exception")
+        @Test
+        void givenDifferentDimensions_shouldThrowException() {
+            assertThatThrownBy(() -> BitTensor.zeros(2, 3).and(BitTensor.zeros(3, 2))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("Tensor.mask(Tensor<Boolean> mask, T maskedValue)")
+    @Nested
+    class Mask {
+
+        @DisplayName("Should mask like the equivalent boolean tensor")
+        @Test
+        void shouldMaskLikeTheEquivalentBooleanTensor() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            BitTensor mask = BitTensor.greaterThan(tensor, 2);
+            assertMatrix(tensor.mask(mask, 0), "[[0,0][3,4][5,6]]");
+            assertThat(tensor.mask(mask, 0)).isEqualTo(tensor.mask(mask.compute(bit -> bit), 0));
+        }
+
+        @DisplayName("Given dense tensor - should mask word by word")
+        @Test
+        void givenDenseTensor_shouldMaskWordByWord() {
+            Tensor<Double> tensor = Tensor.generate(index -> (double) index.get(0), 200, 100);
+            BitTensor mask = BitTensor.where(tensor, value -> value % 3 == 0);
+            Tensor<Double> masked = tensor.mask(mask, -1.0);
+            assertThat(masked.get(3, 99)).isEqualTo(3.0);
+            assertThat(masked.get(4, 99)).isEqualTo(-1.0);
+            assertThat(masked).isEqualTo(tensor.compute(value -> value % 3 == 0 ? value : -1.0));
+        }
+
+        @DisplayName("Given sparse tensor - should only mask present elements")
+        @Test
+        void givenSparseTensor_shouldOnlyMaskPresentElements() {
+            Tensor<Integer> tensor = Tensor.<Integer>builder().add(Index.of(0, 0), 1).add(Index.of(2, 2), 2).build();
+            Tensor<Integer> masked = tensor.mask(BitTensor.zeros(3, 3), 0);
+            assertThat(masked.elements()).containsExactlyInAnyOrder(0, 0);
+            assertThat(masked.get(1, 1)).isNull();
+        }
+
+        @DisplayName("Given lower order mask - should broadcast mask")
+        @Test
+        void givenLowerOrderMask_shouldBroadcastMask() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            BitTensor mask = BitTensor.of(Tensor.of(new Boolean[]{false, true}, Boolean.class));
+            assertMatrix(tensor.mask(mask, 0), "[[0,2][0,4][0,6]]");
+        }
+
+    }
+
+    @DisplayName("set(Boolean element, Index index)")
+    @Nested
+    class Set {
+
+        @DisplayName("Given index outside the shape - should throw exception")
+        @Test
+        void givenIndexOutsideTheShape_shouldThrowException() {
+            BitTensor bits = BitTensor.zeros(2, 2);
+            assertThatThrownBy(() -> bits.set(true, 2, 0)).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> bits.remove(Index.of(0, 0))).isInstanceOf(UnsupportedOperationException.class);
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static dev.christopping.tensor.TensorAssertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkedStoreTest {
+
+    private static final Integer[][] INT_ARRAY_2D = {{1, 2, 3, 4, 5}, {6, 7, 8, 9, 10}, {11, 12, 13, 14, 15}};
+
+    @TempDir
+    Path directory;
+
+    private ChunkedStore<Integer> store(ChunkedStore.Codec codec) throws IOException {
+        return ChunkedStore.write(Tensor.of(INT_ARRAY_2D, Integer.class), directory, new long[]{2, 2}, codec);
+    }
+
+    @DisplayName("write(Tensor<T> tensor, Path directory, long[] chunkShape, Codec codec)")
+    @Nested
+    class Write {
+
+        @DisplayName("Given each codec - should read back the same tensor")
+        @ParameterizedTest
+        @ValueSource(strings = {"NONE", "DEFLATE", "LZ4"})
+        void givenEachCodec_shouldReadBackTheSameTensor(String codec) throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.valueOf(codec));
+            assertThat(store.read()).isEqualTo(Tensor.of(INT_ARRAY_2D, Integer.class));
+            assertThat(ChunkedStore.open(directory, Integer.class).read()).isEqualTo(Tensor.of(INT_ARRAY_2D, Integer.class));
+        }
+
+        @DisplayName("Should store one file per chunk, clipped at the edges")
+        @Test
+        void shouldStoreOneFilePerChunk() throws IOException {
+            store(ChunkedStore.Codec.DEFLATE);
+            for (String chunk : List.of("0.0", "1.0", "2.0", "0.1", "1.1", "2.1")) {
+                assertThat(Files.exists(directory.resolve(chunk))).isTrue();
+            }
+            assertThat(Files.exists(directory.resolve("3.0"))).isFalse();
+        }
+
+        @DisplayName("Given sparse tensor - should not store empty chunks")
+        @Test
+        void givenSparseTensor_shouldNotStoreEmptyChunks() throws IOException {
+            Tensor<Double> sparse = Tensor.<Double>builder().add(Index.of(0, 0), 1.5).add(Index.of(99, 99), 2.5).build();
+            ChunkedStore<Double> store = ChunkedStore.write(sparse, directory, new long[]{10, 10}, ChunkedStore.Codec.LZ4);
+            try (var files = Files.list(directory)) {
+                assertThat(files.count()).isEqualTo(3L);
+            }
+            assertThat(store.dimensions()).containsExactly(100L, 100L);
+            assertThat(store.read()).isEqualTo(sparse);
+        }
+
+        @DisplayName("Given existing store - should replace its chunks")
+        @Test
+        void givenExistingStore_shouldReplaceItsChunks() throws IOException {
+            store(ChunkedStore.Codec.NONE);
+            Tensor<Integer> smaller = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            ChunkedStore.write(smaller, directory, new long[]{2, 2}, ChunkedStore.Codec.NONE);
+            assertThat(ChunkedStore.open(directory).read()).isEqualTo(smaller);
+            assertThat(Files.exists(directory.resolve("1.1"))).isFalse();
+        }
+
+        @DisplayName("Given directory without store - should not delete files named like chunks")
+        @Test
+        void givenDirectoryWithoutStore_shouldNotDeleteFilesNamedLikeChunks() throws IOException {
+            Files.writeString(directory.resolve("2024"), "unrelated");
+            Files.writeString(directory.resolve("9.9"), "unrelated");
+            store(ChunkedStore.Codec.NONE);
+            assertThat(Files.readString(directory.resolve("2024"))).isEqualTo("unrelated");
+            assertThat(Files.readString(directory.resolve("9.9"))).isEqualTo("unrelated");
+            assertThat(ChunkedStore.open(directory).read()).isEqualTo(Tensor.of(INT_ARRAY_2D, Integer.class));
+        }
+
+        @DisplayName("Given scalar - should read back the same scalar")
+        @Test
+        void givenScalar_shouldReadBackTheSameScalar() throws IOException {
+            Tensor<Double> scalar = Tensor.<Double>builder().add(Index.of(), 4.0).build();
+            ChunkedStore<Double> store = ChunkedStore.write(scalar, directory, new long[0], ChunkedStore.Codec.DEFLATE);
+            assertScalar(store.read(), "4.0");
+        }
+
+        @DisplayName("Given chunk shape of different order - should throw exception")
+        @Test
+        void givenChunkShapeOfDifferentOrder_shouldThrowException() {
+            assertThatThrownBy(() -> ChunkedStore.write(Tensor.of(INT_ARRAY_2D, Integer.class), directory, new long[]{2}, ChunkedStore.Codec.NONE))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("extract(Index min, Index max)")
+    @Nested
+    class Extract {
+
+        @DisplayName("Should match extracting from the tensor")
+        @Test
+        void shouldMatchExtractingFromTheTensor() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.LZ4);
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(store.extract(Index.of(1, 1), Index.of(3, 2)), "[[7,8,9][12,13,14]]");
+            assertThat(store.extract(Index.of(1, 1), Index.of(3, 2))).isEqualTo(tensor.extract(Index.of(1, 1), Index.of(3, 2)));
+        }
+
+        @DisplayName("Should only read overlapping chunks")
+        @Test
+        void shouldOnlyReadOverlappingChunks() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.DEFLATE);
+            Files.write(directory.resolve("2.1"), new byte[]{0, 0, 0, 1, 42});
+            assertMatrix(store.extract(Index.of(0, 0), Index.of(1, 1)), "[[1,2][6,7]]");
+            assertThatThrownBy(store::read).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given max beyond stored dimensions - should clip to stored elements")
+        @Test
+        void givenMaxBeyondStoredDimensions_shouldClipToStoredElements() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.NONE);
+            assertMatrix(store.extract(Index.of(3, 1), Index.of(100, 100)), "[[9,10][14,15]]");
+        }
+
+        @DisplayName("Given min not bounded by max - should throw exception")
+        @Test
+        void givenMinNotBoundedByMax_shouldThrowException() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.NONE);
+            assertThatThrownBy(() -> store.extract(Index.of(2, 2), Index.of(1, 1))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("slice(Map<Integer, Long> constraints)")
+    @Nested
+    class Slice {
+
+        @DisplayName("Should match slicing the tensor")
+        @Test
+        void shouldMatchSlicingTheTensor() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.DEFLATE);
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertVector(store.slice(Map.of(1, 2L)), "[11,12,13,14,15]");
+            assertVector(store.slice(Map.of(0, 3L)), "[4,9,14]");
+            assertThat(store.slice(Map.of(0, 3L))).isEqualTo(tensor.slice(Map.of(0, 3L)));
+        }
+
+        @DisplayName("Given dimension exceeding order - should throw exception")
+        @Test
+        void givenDimensionExceedingOrder_shouldThrowException() throws IOException {
+            ChunkedStore<Integer> store = store(ChunkedStore.Codec.NONE);
+            assertThatThrownBy(() -> store.slice(Map.of(2, 0L))).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("open(Path directory, Class<T> type)")
+    @Nested
+    class Open {
+
+        @DisplayName("Given mismatched type - should throw exception")
+        @Test
+        void givenMismatchedType_shouldThrowException() throws IOException {
+            store(ChunkedStore.Codec.NONE);
+            assertThatThrownBy(() -> ChunkedStore.open(directory, Double.class)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given directory without store - should throw exception")
+        @Test
+        void givenDirectoryWithoutStore_shouldThrowException() {
+            assertThatThrownBy(() -> ChunkedStore.open(directory)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("Lz4")
+    @Nested
+    class Lz4Codec {
+
+        @DisplayName("Given repetitive and random data - should round trip")
+        @Test
+        void givenRepetitiveAndRandomData_shouldRoundTrip() {
+            Random random = new Random(7);
+            byte[] random64k = new byte[1 << 16];
+            random.nextBytes(random64k);
+            byte[] repetitive = new byte[100_000];
+            for (int i = 0; i < repetitive.length; i++) repetitive[i] = (byte) (i % 13 == 0 ? random.nextInt() : i % 7);
+
+            for (byte[] input : List.of(new byte[0], new byte[]{1, 2, 3}, new byte[1000], random64k, repetitive)) {
+                byte[] compressed = Lz4.compress(input);
+                assertThat(Arrays.equals(Lz4.decompress(compressed, input.length), input)).isTrue();
+            }
+            assertThat(Lz4.compress(new byte[1000]).length < 100).isTrue();
+        }
+
+    }
+
+}
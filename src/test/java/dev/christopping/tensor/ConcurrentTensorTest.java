@@ -0,0 +1,229 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.christopping.tensor.TensorAssertions.assertMatrix;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentTensorTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 10_000;
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @DisplayName("of(Tensor<T> tensor)")
+    @Nested
+    class Of {
+
+        @DisplayName("Should copy all elements and dimensions")
+        @Test
+        void shouldCopyAllElementsAndDimensions() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.of(Tensor.of(new Integer[][]{{1, 2}, {3, 4}, {5, 6}}, Integer.class));
+            assertThat(tensor.order()).isEqualTo(2);
+            assertThat(tensor.dimensions()).containsExactly(2L, 3L);
+            assertMatrix(tensor, "[[1,2][3,4][5,6]]");
+        }
+
+    }
+
+    @DisplayName("set(T element, Index index)")
+    @Nested
+    class Set {
+
+        @DisplayName("Given index of different order - should throw error")
+        @Test
+        void givenIndexOfDifferentOrder_shouldThrowError() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            tensor.set(1, 0, 0);
+            assertThatThrownBy(() -> tensor.set(1, 0, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given concurrent writers - should retain all elements and dimensions")
+        @Test
+        void givenConcurrentWriters_shouldRetainAllElementsAndDimensions() throws Exception {
+            ConcurrentTensor<Long> tensor = ConcurrentTensor.empty();
+            runConcurrently(() -> {
+                for (long i = 0; i < WRITES_PER_THREAD; i++) {
+                    tensor.set(i, i, Thread.currentThread().getId() % 3);
+                }
+            });
+            assertThat(tensor.size(0)).isEqualTo(WRITES_PER_THREAD);
+            assertThat(tensor.get(WRITES_PER_THREAD - 1, tensor.size(1) - 1)).isEqualTo(WRITES_PER_THREAD - 1L);
+        }
+
+    }
+
+    @DisplayName("remove(Index index)")
+    @Nested
+    class Remove {
+
+        @DisplayName("Given outermost element removed - should shrink dimensions")
+        @Test
+        void givenOutermostElementRemoved_shouldShrinkDimensions() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            tensor.set(1, 0, 0);
+            tensor.set(2, 4, 1);
+            tensor.remove(Index.of(4, 1));
+            assertThat(tensor.dimensions()).containsExactly(1L, 1L);
+        }
+
+        @DisplayName("Given all elements removed - should be empty")
+        @Test
+        void givenAllElementsRemoved_shouldBeEmpty() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            tensor.set(1, 3, 3);
+            tensor.remove(Index.of(3, 3));
+            assertThat(tensor.order()).isEqualTo(0);
+            assertThat(tensor.dimensions()).isEmpty();
+        }
+
+        @DisplayName("Given all elements removed - should accept index of another order")
+        @Test
+        void givenAllElementsRemoved_shouldAcceptIndexOfAnotherOrder() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            tensor.set(1, 3, 3);
+            tensor.remove(Index.of(3, 3));
+            tensor.set(2, 1, 2, 3);
+            assertThat(tensor.order()).isEqualTo(3);
+            assertThat(tensor.dimensions()).containsExactly(2L, 3L, 4L);
+        }
+
+        @DisplayName("Given concurrent set and remove of last element - should neither reject nor lose the index")
+        @Test
+        void givenConcurrentSetAndRemoveOfLastElement_shouldNeitherRejectNorLoseTheIndex() throws Exception {
+            for (int round = 0; round < 50; round++) {
+                ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+                AtomicInteger threads = new AtomicInteger();
+                runConcurrently(() -> {
+                    boolean setter = threads.getAndIncrement() % 2 == 0;
+                    for (int i = 0; i < 2_000; i++) {
+                        if (setter) {
+                            tensor.set(i, 1, 2);
+                        } else {
+                            tensor.remove(Index.of(1, 2));
+                        }
+                    }
+                });
+                tensor.set(3, 1, 2);
+                assertThat(tensor.order()).isEqualTo(2);
+                assertThat(tensor.dimensions()).containsExactly(2L, 3L);
+            }
+        }
+
+    }
+
+    @DisplayName("accumulate(Index index, T delta, BinaryOperator<T> accumulator)")
+    @Nested
+    class Accumulate {
+
+        @DisplayName("Given absent element - should set delta")
+        @Test
+        void givenAbsentElement_shouldSetDelta() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            assertThat(tensor.accumulate(Index.of(1, 1), 5, Integer::sum)).isEqualTo(5);
+            assertThat(tensor.dimensions()).containsExactly(2L, 2L);
+        }
+
+        @DisplayName("Given concurrent accumulators on same index - should not lose updates")
+        @Test
+        void givenConcurrentAccumulatorsOnSameIndex_shouldNotLoseUpdates() throws Exception {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            runConcurrently(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    tensor.accumulate(Index.of(i % 4), 1, Integer::sum);
+                }
+            });
+            assertThat(tensor.get(0)).isEqualTo(THREADS * WRITES_PER_THREAD / 4);
+        }
+
+    }
+
+    @DisplayName("merge(Index index, T value, BinaryOperator<T> remapping)")
+    @Nested
+    class Merge {
+
+        @DisplayName("Given present element - should replace it with remapped value")
+        @Test
+        void givenPresentElement_shouldReplaceItWithRemappedValue() {
+            ConcurrentTensor<String> tensor = ConcurrentTensor.empty();
+            assertThat(tensor.merge(Index.of(0), "a", String::concat)).isEqualTo("a");
+            assertThat(tensor.merge(Index.of(0), "b", String::concat)).isEqualTo("ab");
+        }
+
+        @DisplayName("Given remapping to null - should remove element and shrink dimensions")
+        @Test
+        void givenRemappingToNull_shouldRemoveElementAndShrinkDimensions() {
+            ConcurrentTensor<Integer> tensor = ConcurrentTensor.empty();
+            tensor.set(1, 0, 0);
+            tensor.set(2, 2, 2);
+            assertThat(tensor.merge(Index.of(2, 2), 5, (present, value) -> null)).isNull();
+            assertThat(tensor.get(2, 2)).isNull();
+            assertThat(tensor.dimensions()).containsExactly(1L, 1L);
+        }
+
+    }
+
+    @DisplayName("doubleSum()")
+    @Nested
+    class DoubleSum {
+
+        @DisplayName("Given concurrent scatter-add on overlapping cells - should sum all deltas")
+        @Test
+        void givenConcurrentScatterAdd_shouldSumAllDeltas() throws Exception {
+            ConcurrentTensor.DoubleSum tensor = ConcurrentTensor.doubleSum();
+            runConcurrently(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    tensor.add(0.5, i % 2, 0);
+                }
+            });
+            Tensor<Double> sum = tensor.sum();
+            assertThat(sum.get(0, 0)).isEqualTo(THREADS * WRITES_PER_THREAD / 4.0);
+            assertThat(sum.get(1, 0)).isEqualTo(THREADS * WRITES_PER_THREAD / 4.0);
+        }
+
+    }
+
+    @DisplayName("longSum()")
+    @Nested
+    class LongSum {
+
+        @DisplayName("Given concurrent scatter-add on overlapping cells - should sum all deltas")
+        @Test
+        void givenConcurrentScatterAdd_shouldSumAllDeltas() throws Exception {
+            ConcurrentTensor.LongSum tensor = ConcurrentTensor.longSum();
+            runConcurrently(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    tensor.add(2L, Index.of(i % 5));
+                }
+            });
+            assertThat(tensor.sum().get(3)).isEqualTo(2L * THREADS * WRITES_PER_THREAD / 5);
+            assertThat(tensor.dimensions()).containsExactly(5L);
+        }
+
+    }
+
+}
@@ -756,6 +756,30 @@ class IndexTest {
 
     }
 
+    @DisplayName("select(int... dimensions)")
+    @Nested
+    class Select {
+
+        @DisplayName("Given no dimensions - should return empty index")
+        @Test
+        void givenNoDimensions_shouldReturnEmptyIndex() {
+            assertThat(Index.of(1, 2, 3).select()).isEqualTo(Index.of());
+        }
+
+        @DisplayName("Given dimensions - should return coordinates in the given order")
+        @Test
+        void givenDimensions_shouldReturnCoordinatesInGivenOrder() {
+            assertThat(Index.of(1, 2, 3, 4, 5, 6).select(4, 0, 2)).isEqualTo(Index.of(5, 1, 3));
+        }
+
+        @DisplayName("Given dimension out of bounds - should throw exception")
+        @Test
+        void givenDimensionOutOfBounds_shouldThrowException() {
+            assertThatThrownBy(() -> Index.of(1, 2).select(2)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
     @DisplayName("concatenate(Index other)")
     @Nested
     class Concatenate {
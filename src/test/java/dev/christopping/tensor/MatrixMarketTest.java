@@ -0,0 +1,212 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static dev.christopping.tensor.TensorAssertions.assertMatrix;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MatrixMarketTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file(String content) throws IOException {
+        return Files.writeString(directory.resolve("matrix.mtx"), content);
+    }
+
+    @DisplayName("read(Path path)")
+    @Nested
+    class Read {
+
+        @DisplayName("Given general real matrix - should read 1-based rows and columns")
+        @Test
+        void givenGeneralRealMatrix_shouldRead1BasedRowsAndColumns() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate real general
+                    % comment
+                    2 3 3
+                    1 1 1.5
+                    2 3 -2e2
+                    1 2 .25
+                    """);
+            Matrix<Double> matrix = MatrixMarket.read(path);
+            assertMatrix(matrix.backfill(0.0), "[[1.5,0.25,0.0][0.0,0.0,-200.0]]");
+            assertThat(matrix.get(2, 1)).isEqualTo(-200.0);
+            assertThat(matrix.get(1, 1)).isNull();
+        }
+
+        @DisplayName("Given empty trailing rows and columns - should only span the rows and columns of its entries")
+        @Test
+        void givenEmptyTrailingRowsAndColumns_shouldOnlySpanTheRowsAndColumnsOfItsEntries() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate real general
+                    4 5 2
+                    1 1 1.0
+                    2 3 2.0
+                    """);
+            Matrix<Double> matrix = MatrixMarket.read(path);
+            assertThat(matrix.width()).isEqualTo(3L);
+            assertThat(matrix.height()).isEqualTo(2L);
+            StringWriter writer = new StringWriter();
+            MatrixMarket.write(matrix, writer);
+            assertThat(writer.toString().split("\n")[1]).isEqualTo("2 3 2");
+        }
+
+        @DisplayName("Given symmetric matrix - should insert mirrored entries")
+        @Test
+        void givenSymmetricMatrix_shouldInsertMirroredEntries() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate integer symmetric
+                    2 2 2
+                    1 1 4
+                    2 1 7
+                    """);
+            assertMatrix(MatrixMarket.read(path).backfill(0.0), "[[4.0,7.0][7.0,0.0]]");
+        }
+
+        @DisplayName("Given skew-symmetric pattern matrix - should insert negated mirrored ones")
+        @Test
+        void givenSkewSymmetricPatternMatrix_shouldInsertNegatedMirroredOnes() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate pattern skew-symmetric
+                    2 2 1
+                    2 1
+                    """);
+            Matrix<Double> matrix = MatrixMarket.read(path);
+            assertThat(matrix.get(0, 1)).isEqualTo(1.0);
+            assertThat(matrix.get(1, 0)).isEqualTo(-1.0);
+        }
+
+        @DisplayName("Given entry count differing from size line - should throw exception")
+        @Test
+        void givenEntryCountDifferingFromSizeLine_shouldThrowException() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate real general
+                    2 2 3
+                    1 1 1
+                    """);
+            assertThatThrownBy(() -> MatrixMarket.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given entry outside matrix size - should throw exception")
+        @Test
+        void givenEntryOutsideMatrixSize_shouldThrowException() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate real general
+                    2 2 1
+                    3 1 1
+                    """);
+            assertThatThrownBy(() -> MatrixMarket.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given array format - should throw exception")
+        @Test
+        void givenArrayFormat_shouldThrowException() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix array real general
+                    1 1
+                    1
+                    """);
+            assertThatThrownBy(() -> MatrixMarket.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given malformed value - should throw exception")
+        @Test
+        void givenMalformedValue_shouldThrowException() throws IOException {
+            Path path = file("""
+                    %%MatrixMarket matrix coordinate real general
+                    1 1 1
+                    1 1 one
+                    """);
+            assertThatThrownBy(() -> MatrixMarket.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("readCoordinates(Path path, ForkJoinPool pool)")
+    @Nested
+    class ReadCoordinates {
+
+        @DisplayName("Given 0-based comma separated lines - should read matrix")
+        @Test
+        void given0BasedCommaSeparatedLines_shouldReadMatrix() throws IOException {
+            Path path = file("# row,column,value\r\n0,0,1\r\n\r\n1,1,2.5E-1\r\n0,1,NaN\r\n");
+            Matrix<Double> matrix = MatrixMarket.readCoordinates(path);
+            assertThat(matrix.get(0, 0)).isEqualTo(1.0);
+            assertThat(matrix.get(1, 1)).isEqualTo(0.25);
+            assertThat(matrix.get(1, 0).isNaN()).isTrue();
+        }
+
+        @DisplayName("Given file spanning many chunks - should read every entry")
+        @Test
+        void givenFileSpanningManyChunks_shouldReadEveryEntry() throws IOException {
+            StringBuilder content = new StringBuilder();
+            int rows = 200_000;
+            for (int y = 0; y < rows; y++) {
+                content.append(y).append(' ').append(y % 7).append(' ').append(y * 0.5).append('\n');
+            }
+            Path path = file(content.toString());
+
+            Matrix<Double> matrix = MatrixMarket.readCoordinates(path, new ForkJoinPool(4));
+
+            assertThat(matrix.elements()).hasSize(rows);
+            assertThat(matrix.height()).isEqualTo(rows);
+            for (int y = 0; y < rows; y += 997) {
+                assertThat(matrix.get(y % 7, y)).isEqualTo(y * 0.5);
+            }
+        }
+
+        @DisplayName("Given high precision values - should parse correctly rounded doubles")
+        @Test
+        void givenHighPrecisionValues_shouldParseCorrectlyRoundedDoubles() throws IOException {
+            String[] values = {"0.1", "3.141592653589793", "1.7976931348623157e308", "4.9e-324", "123456789012345678901234", "-0.000001"};
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                content.append(i).append(" 0 ").append(values[i]).append('\n');
+            }
+            Matrix<Double> matrix = MatrixMarket.readCoordinates(file(content.toString()));
+            for (int i = 0; i < values.length; i++) {
+                assertThat(matrix.get(0, i)).isEqualTo(Double.parseDouble(values[i]));
+            }
+        }
+
+    }
+
+    @DisplayName("write(Matrix<? extends Number> matrix, Writer writer)")
+    @Nested
+    class Write {
+
+        @DisplayName("Should write banner, size line and 1-based entries")
+        @Test
+        void shouldWriteBannerSizeLineAnd1BasedEntries() throws IOException {
+            StringWriter writer = new StringWriter();
+            MatrixMarket.write(Matrix.of(new Integer[][]{{5, 6, 7}}), writer);
+            List<String> lines = List.of(writer.toString().split("\n"));
+            assertThat(lines.get(0)).isEqualTo("%%MatrixMarket matrix coordinate real general");
+            assertThat(lines.get(1)).isEqualTo("1 3 3");
+            assertThat(lines).contains("1 1 5", "1 2 6", "1 3 7");
+        }
+
+        @DisplayName("Should read back the same matrix")
+        @Test
+        void shouldReadBackTheSameMatrix() throws IOException {
+            Matrix<Double> matrix = Matrix.of(new Double[][]{{1.5, -2.0}, {1e-300, 4.0}});
+            Path path = directory.resolve("round-trip.mtx");
+            MatrixMarket.write(matrix, path);
+            assertThat(MatrixMarket.read(path)).isEqualTo(matrix);
+        }
+
+    }
+
+}
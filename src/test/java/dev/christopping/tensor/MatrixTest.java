@@ -2,8 +2,15 @@ package dev.christopping.tensor;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+import static dev.christopping.tensor.TensorAssertions.assertMatrix;
+import static dev.christopping.tensor.TensorAssertions.assertVector;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 class MatrixTest {
 
@@ -13,6 +20,294 @@ class MatrixTest {
 
     }
 
+    @DisplayName("band(T value, T zero, long x, long y, long lower, long upper)")
+    @Nested
+    class Band {
+
+        @DisplayName("Given bandwidths - should imply values inside the band and zero elsewhere")
+        @Test
+        void givenBandwidths_shouldImplyValuesInsideTheBandAndZeroElsewhere() {
+            assertMatrix(Matrix.band(1, 0, 4, 3, 1, 0), "[[1,0,0,0][1,1,0,0][0,1,1,0]]");
+            assertMatrix(Matrix.lowerTriangular(true, false, 3, 3), "[[true,false,false][true,true,false][true,true,true]]");
+            assertMatrix(Matrix.upperTriangular(2, 0, 3, 2), "[[2,2,2][0,2,2]]");
+        }
+
+        @DisplayName("Given large identity - should not store elements")
+        @Test
+        void givenLargeIdentity_shouldNotStoreElements() {
+            Matrix<Integer> identity = Matrix.identity(100_000);
+            assertThat(identity.dimensions()).containsExactly(100_000L, 100_000L);
+            assertThat(identity.get(99_999, 99_999)).isEqualTo(1);
+            assertThat(identity.get(5, 99_999)).isEqualTo(0);
+            assertThat(identity.get(100_000, 0)).isNull();
+            assertThat(identity.memoryFootprint()).isLessThan(100L);
+        }
+
+        @DisplayName("Given element set outside the band - should materialize equivalent elements")
+        @Test
+        void givenElementSetOutsideTheBand_shouldMaterializeEquivalentElements() {
+            Matrix<Integer> band = Matrix.band(1, 0, 3, 3, 0, 1);
+            Matrix<Integer> shared = band.toMatrix();
+            band.set(7, 0, 2);
+            assertMatrix(band, "[[1,1,0][0,1,1][7,0,1]]");
+            assertMatrix(shared, "[[1,1,0][0,1,1][0,0,1]]");
+        }
+
+        @DisplayName("Given negative bandwidth - should throw exception")
+        @Test
+        void givenNegativeBandwidth_shouldThrowException() {
+            assertThatThrownBy(() -> Matrix.band(1, 0, 3, 3, -1, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("diagonal(List<T> diagonal, T zero)")
+    @Nested
+    class Diagonal {
+
+        @DisplayName("Given diagonal values - should only allow diagonal to be replaced in place")
+        @Test
+        void givenDiagonalValues_shouldOnlyAllowDiagonalToBeReplacedInPlace() {
+            Matrix<Double> diagonal = Matrix.diagonal(List.of(1.0, 2.0, 3.0), 0.0);
+            assertMatrix(diagonal, "[[1.0,0.0,0.0][0.0,2.0,0.0][0.0,0.0,3.0]]");
+            diagonal.set(5.0, 1, 1);
+            assertThat(diagonal.structured()).isNotNull();
+            assertMatrix(diagonal, "[[1.0,0.0,0.0][0.0,5.0,0.0][0.0,0.0,3.0]]");
+        }
+
+    }
+
+    @DisplayName("Structured multiplication and piecewise operations")
+    @Nested
+    class StructuredOperations {
+
+        private final Matrix<Integer> matrix = Matrix.of(new Integer[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+
+        @DisplayName("Given identity - should contract to the other operand")
+        @Test
+        void givenIdentity_shouldContractToTheOtherOperand() {
+            Tensor<Double> expected = matrix.compute(Integer::doubleValue).toTensor();
+            assertThat(Matrix.identity(3).tensordot(matrix, new int[]{1}, new int[]{0})).isEqualTo(expected);
+            assertThat(Tensor.einsum("ij,jk->ik", Matrix.identity(3), matrix)).isEqualTo(expected);
+        }
+
+        @DisplayName("Given diagonal and semiring - should scale columns by the diagonal")
+        @Test
+        void givenDiagonalAndSemiring_shouldScaleColumnsByTheDiagonal() {
+            Matrix<Double> diagonal = Matrix.diagonal(List.of(1.0, 2.0, 3.0), 0.0);
+            Tensor<Double> result = diagonal.contract(matrix.compute(Integer::doubleValue), new int[]{1}, new int[]{0}, Semiring.plusTimes());
+            assertMatrix(result, "[[1.0,4.0,9.0][4.0,10.0,18.0][7.0,16.0,27.0]]");
+        }
+
+        @DisplayName("Given two structured operands - should combine within the union of their bands")
+        @Test
+        void givenTwoStructuredOperands_shouldCombineWithinTheUnionOfTheirBands() {
+            Matrix<Integer> lower = Matrix.lowerTriangular(1, 0, 3, 3);
+            Matrix<Integer> sum = lower.piecewise(Integer::sum, Matrix.diagonal(List.of(1, 2, 3), 0));
+            assertThat(sum.structured()).isNotNull();
+            assertMatrix(sum, "[[2,0,0][1,3,0][1,1,4]]");
+            assertThat(sum).isEqualTo(Matrix.of(new Integer[][]{{1, 0, 0}, {1, 1, 0}, {1, 1, 1}})
+                    .piecewise(Integer::sum, Matrix.of(new Integer[][]{{1, 0, 0}, {0, 2, 0}, {0, 0, 3}})));
+        }
+
+    }
+
+    @DisplayName("lu()")
+    @Nested
+    class Lu {
+
+        @DisplayName("Given square matrix - should factor rows permuted by partial pivoting")
+        @Test
+        void givenSquareMatrix_shouldFactorRowsPermutedByPartialPivoting() {
+            Matrix.LU lu = Matrix.of(new Double[][]{{4.0, 3.0}, {6.0, 3.0}}).lu();
+            assertThat(lu.permutation()).containsExactly(1, 0);
+            assertMatrix(lu.upper(), "[[6.0,3.0][0.0,1.0]]");
+            assertThat(lu.lower().get(0, 1)).isCloseTo(2.0 / 3, within(1e-12));
+            assertThat(lu.determinant()).isCloseTo(-6.0, within(1e-12));
+            assertThat(lu.isSingular()).isFalse();
+        }
+
+        @DisplayName("Given singular matrix - should throw exception when solving")
+        @Test
+        void givenSingularMatrix_shouldThrowExceptionWhenSolving() {
+            Matrix.LU lu = Matrix.of(new Integer[][]{{1, 2}, {2, 4}}).lu();
+            assertThat(lu.isSingular()).isTrue();
+            assertThat(lu.determinant()).isCloseTo(0.0, within(1e-12));
+            assertThatThrownBy(() -> lu.solve(Vector.of(1, 2))).isInstanceOf(IllegalStateException.class);
+        }
+
+        @DisplayName("Given non-square matrix - should throw exception")
+        @Test
+        void givenNonSquareMatrix_shouldThrowException() {
+            assertThatThrownBy(() -> Matrix.of(new Double[][]{{1.0, 2.0}}).lu()).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("cholesky()")
+    @Nested
+    class Cholesky {
+
+        @DisplayName("Given positive definite matrix - should factor and solve")
+        @Test
+        void givenPositiveDefiniteMatrix_shouldFactorAndSolve() {
+            Matrix.Cholesky cholesky = Matrix.of(new Double[][]{{4.0, 2.0}, {2.0, 5.0}}).cholesky();
+            assertMatrix(cholesky.lower(), "[[2.0,0.0][1.0,2.0]]");
+            assertThat(cholesky.determinant()).isEqualTo(16.0);
+            assertVector(cholesky.solve(Vector.of(8.0, 12.0)), "[1.0,2.0]");
+        }
+
+        @DisplayName("Given matrix which is not positive definite - should throw exception")
+        @Test
+        void givenMatrixWhichIsNotPositiveDefinite_shouldThrowException() {
+            assertThatThrownBy(() -> Matrix.of(new Double[][]{{1.0, 2.0}, {2.0, 1.0}}).cholesky()).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("qr()")
+    @Nested
+    class Qr {
+
+        @DisplayName("Given tall matrix - should factor into orthonormal columns and upper triangle")
+        @Test
+        void givenTallMatrix_shouldFactorIntoOrthonormalColumnsAndUpperTriangle() {
+            Matrix<Double> matrix = Matrix.of(new Double[][]{{3.0, 1.0}, {4.0, 2.0}, {0.0, 5.0}});
+            Matrix.QR qr = matrix.qr();
+            Matrix<Double> q = qr.q();
+            Matrix<Double> r = qr.r();
+            assertThat(q.dimensions()).containsExactly(2L, 3L);
+            assertThat(r.get(0, 1)).isEqualTo(0.0);
+            assertThat(Math.abs(r.get(0, 0))).isCloseTo(5.0, within(1e-12));
+            for (int y = 0; y < 3; y++) {
+                for (int x = 0; x < 2; x++) {
+                    double product = q.get(0, y) * r.get(x, 0) + q.get(1, y) * r.get(x, 1);
+                    assertThat(product).isCloseTo(matrix.get(x, y), within(1e-12));
+                }
+            }
+        }
+
+    }
+
+    @DisplayName("solve(Vector<?> other)")
+    @Nested
+    class Solve {
+
+        @DisplayName("Given square system - should return exact solution")
+        @Test
+        void givenSquareSystem_shouldReturnExactSolution() {
+            Vector<Double> solution = Matrix.of(new Integer[][]{{2, 1}, {1, 3}}).solve(Vector.of(3, 5));
+            assertThat(solution.get(0)).isCloseTo(0.8, within(1e-12));
+            assertThat(solution.get(1)).isCloseTo(1.4, within(1e-12));
+        }
+
+        @DisplayName("Given overdetermined system - should return least squares solution")
+        @Test
+        void givenOverdeterminedSystem_shouldReturnLeastSquaresSolution() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{1, 0}, {1, 1}, {1, 2}, {1, 3}});
+            Vector<Double> solution = matrix.solve(Vector.of(1.0, 3.5, 5.0, 7.5));
+            assertThat(solution.get(0)).isCloseTo(1.1, within(1e-12));
+            assertThat(solution.get(1)).isCloseTo(2.1, within(1e-12));
+        }
+
+        @DisplayName("Given underdetermined system - should throw exception")
+        @Test
+        void givenUnderdeterminedSystem_shouldThrowException() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{1, 2, 3}, {4, 5, 6}});
+            assertThatThrownBy(() -> matrix.solve(Vector.of(1, 2))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given right-hand side of wrong size - should throw exception")
+        @Test
+        void givenRightHandSideOfWrongSize_shouldThrowException() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{2, 1}, {1, 3}});
+            assertThatThrownBy(() -> matrix.solve(Vector.of(1, 2, 3))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given null right-hand side - should throw exception")
+        @Test
+        void givenNullRightHandSide_shouldThrowException() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{2, 1}, {1, 3}});
+            assertThatThrownBy(() -> matrix.solve((Vector<?>) null)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> matrix.solve((Matrix<?>) null)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("inverse()")
+    @Nested
+    class Inverse {
+
+        @DisplayName("Given invertible matrix - should return inverse")
+        @Test
+        void givenInvertibleMatrix_shouldReturnInverse() {
+            Matrix<Double> inverse = Matrix.of(new Integer[][]{{4, 7}, {2, 6}}).inverse();
+            assertThat(inverse.get(0, 0)).isCloseTo(0.6, within(1e-12));
+            assertThat(inverse.get(1, 0)).isCloseTo(-0.7, within(1e-12));
+            assertThat(inverse.get(0, 1)).isCloseTo(-0.2, within(1e-12));
+            assertThat(inverse.get(1, 1)).isCloseTo(0.4, within(1e-12));
+        }
+
+        @DisplayName("Given singular matrix - should throw exception")
+        @Test
+        void givenSingularMatrix_shouldThrowException() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{1, 2}, {2, 4}});
+            assertThatThrownBy(matrix::inverse).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
+    @DisplayName("luInPlace()")
+    @Nested
+    class LuInPlace {
+
+        @DisplayName("Given large dense matrix written to afterwards - should leave the decomposition unaffected")
+        @Test
+        void givenLargeDenseMatrixWrittenToAfterwards_shouldLeaveTheDecompositionUnaffected() {
+            Matrix<Double> matrix = Tensor.fill(1.0, 40, 40).computeWithIndices(e -> e.getKey().get(0) == e.getKey().get(1) ? 50.0 : 1.0 / (1 + e.getKey().get(0) + e.getKey().get(1))).toMatrix();
+            double determinant = matrix.determinant();
+            Matrix.LU lu = matrix.luInPlace();
+            matrix.set(0.0, 3, 3);
+            assertThat(matrix.get(3, 3)).isEqualTo(0.0);
+            assertThat(lu.determinant()).isCloseTo(determinant, within(Math.abs(determinant) * 1e-12));
+        }
+
+    }
+
+    @DisplayName("invertInPlace()")
+    @Nested
+    class InvertInPlace {
+
+        @DisplayName("Given large dense matrix - should overwrite it without affecting sharers")
+        @Test
+        void givenLargeDenseMatrix_shouldOverwriteItWithoutAffectingSharers() {
+            Matrix<Double> matrix = Tensor.fill(1.0, 40, 40).computeWithIndices(e -> e.getKey().get(0) == e.getKey().get(1) ? 50.0 : 1.0 / (1 + e.getKey().get(0) + e.getKey().get(1))).toMatrix();
+            Matrix<Double> shared = matrix.toMatrix();
+            Matrix<Double> inverse = matrix.inverse();
+            matrix.invertInPlace();
+            assertThat(shared.get(3, 3)).isEqualTo(50.0);
+            for (int y = 0; y < 40; y++) {
+                for (int x = 0; x < 40; x++) assertThat(matrix.get(x, y)).isCloseTo(inverse.get(x, y), within(1e-12));
+            }
+        }
+
+        @DisplayName("Given small matrix of doubles - should overwrite it")
+        @Test
+        void givenSmallMatrixOfDoubles_shouldOverwriteIt() {
+            Matrix<Double> matrix = Matrix.of(new Double[][]{{2.0, 1.0}, {1.0, 1.0}});
+            matrix.invertInPlace();
+            assertMatrix(matrix, "[[1.0,-1.0][-1.0,2.0]]");
+        }
+
+        @DisplayName("Given matrix of integers - should throw exception")
+        @Test
+        void givenMatrixOfIntegers_shouldThrowException() {
+            Matrix<Integer> matrix = Matrix.of(new Integer[][]{{1, 0}, {0, 1}});
+            assertThatThrownBy(matrix::invertInPlace).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
 //    @DisplayName("toNestedList()")
 //    @Nested
 //    class ToNestedList {
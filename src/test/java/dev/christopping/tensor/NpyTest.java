@@ -0,0 +1,268 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static dev.christopping.tensor.TensorAssertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NpyTest {
+
+    private static final Integer[][] INT_ARRAY_2D = {{1, 2, 3}, {4, 5, 6}};
+
+    @TempDir
+    Path directory;
+
+    private static byte[] npy(String descr, boolean fortranOrder, String shape, ByteBuffer payload) {
+        String dictionary = "{'descr': '" + descr + "', 'fortran_order': " + (fortranOrder ? "True" : "False") + ", 'shape': " + shape + ", }\n";
+        ByteBuffer buffer = ByteBuffer.allocate(10 + dictionary.length() + payload.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+        buffer.putShort((short) dictionary.length());
+        buffer.put(dictionary.getBytes(StandardCharsets.ISO_8859_1));
+        buffer.put(payload.array());
+        return buffer.array();
+    }
+
+    private static ByteBuffer ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int value : values) buffer.putInt(value);
+        return buffer;
+    }
+
+    private Path file(byte[] bytes) throws IOException {
+        return Files.write(directory.resolve("tensor.npy"), bytes);
+    }
+
+    private Tensor<?> roundTrip(Tensor<?> tensor) throws IOException {
+        Path path = directory.resolve("round-trip.npy");
+        Npy.write(tensor, path);
+        return Npy.read(path);
+    }
+
+    @DisplayName("read(Path path)")
+    @Nested
+    class ReadPath {
+
+        @DisplayName("Given C order array - should read last axis as dimension 0")
+        @Test
+        void givenCOrderArray_shouldReadLastAxisAsDimension0() throws IOException {
+            Tensor<?> tensor = Npy.read(file(npy("<i4", false, "(2, 3)", ints(1, 2, 3, 4, 5, 6))));
+            assertMatrix(tensor, "[[1,2,3][4,5,6]]");
+            assertThat(tensor).isEqualTo(Tensor.of(INT_ARRAY_2D, Integer.class));
+        }
+
+        @DisplayName("Given Fortran order array - should read the same tensor as C order")
+        @Test
+        void givenFortranOrderArray_shouldReadTheSameTensorAsCOrder() throws IOException {
+            Tensor<?> tensor = Npy.read(file(npy("<i4", true, "(2, 3)", ints(1, 4, 2, 5, 3, 6))));
+            assertMatrix(tensor, "[[1,2,3][4,5,6]]");
+        }
+
+        @DisplayName("Given big-endian float64 array - should read values")
+        @Test
+        void givenBigEndianFloat64Array_shouldReadValues() throws IOException {
+            ByteBuffer payload = ByteBuffer.allocate(24).putDouble(1.5).putDouble(-2).putDouble(3.25);
+            Tensor<?> tensor = Npy.read(file(npy(">f8", false, "(3,)", payload)));
+            assertVector(tensor, "[1.5,-2.0,3.25]");
+        }
+
+        @DisplayName("Given bool array - should read booleans")
+        @Test
+        void givenBoolArray_shouldReadBooleans() throws IOException {
+            Tensor<?> tensor = Npy.read(file(npy("|b1", false, "(3,)", ByteBuffer.wrap(new byte[]{1, 0, 1}))));
+            assertVector(tensor, "[true,false,true]");
+        }
+
+        @DisplayName("Given zero-dimensional array - should read scalar")
+        @Test
+        void givenZeroDimensionalArray_shouldReadScalar() throws IOException {
+            Tensor<?> tensor = Npy.read(file(npy("<i4", false, "()", ints(7))));
+            assertScalar(tensor, "7");
+        }
+
+        @DisplayName("Given mapped tensor - should be dense and copy before first write")
+        @Test
+        void givenMappedTensor_shouldBeDenseAndCopyBeforeFirstWrite() throws IOException {
+            Path path = file(npy("<i4", false, "(2, 2)", ints(0, 0, 0, 0)));
+            Tensor<Integer> tensor = Npy.read(path, Integer.class);
+            assertThat(tensor.elements()).hasSize(4);
+            assertThat(tensor.get(1, 1)).isEqualTo(0);
+            tensor.set(1, 0, 0);
+            tensor.set(7, 5, 5);
+            tensor.remove(Index.of(1, 1));
+            assertThat(tensor.get(0, 0)).isEqualTo(1);
+            assertThat(tensor.get(5, 5)).isEqualTo(7);
+            assertThat(tensor.get(1, 1)).isNull();
+            assertMatrix(Npy.read(path), "[[0,0][0,0]]");
+        }
+
+        @DisplayName("Given file larger than mapping limit - should read payload in chunks")
+        @Test
+        void givenFileLargerThanMappingLimit_shouldReadPayloadInChunks() throws IOException {
+            Tensor<Double> expected = Tensor.generate(index -> (double) (index.get(0) * 1000 + index.get(1)), 300, 200);
+            Path path = directory.resolve("large.npy");
+            Npy.write(expected, path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                Tensor<?> tensor = Npy.read(channel, 1024);
+                assertThat(tensor).isEqualTo(expected);
+                assertThat(tensor.dense()).isNotNull();
+            }
+        }
+
+        @DisplayName("Given mismatched expected type - should throw exception")
+        @Test
+        void givenMismatchedExpectedType_shouldThrowException() throws IOException {
+            Path path = file(npy("<i4", false, "(2,)", ints(1, 2)));
+            assertThatThrownBy(() -> Npy.read(path, Double.class)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given unsupported dtype - should throw exception")
+        @Test
+        void givenUnsupportedDtype_shouldThrowException() throws IOException {
+            Path path = file(npy("<c16", false, "(1,)", ByteBuffer.allocate(16)));
+            assertThatThrownBy(() -> Npy.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given file without magic string - should throw exception")
+        @Test
+        void givenFileWithoutMagicString_shouldThrowException() throws IOException {
+            Path path = file("[[1,2,3][4,5,6]]".getBytes(StandardCharsets.US_ASCII));
+            assertThatThrownBy(() -> Npy.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given truncated payload - should throw exception")
+        @Test
+        void givenTruncatedPayload_shouldThrowException() throws IOException {
+            Path path = file(npy("<i4", false, "(2, 3)", ints(1, 2, 3)));
+            assertThatThrownBy(() -> Npy.read(path)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("write(Tensor<?> tensor, OutputStream output, boolean fortranOrder)")
+    @Nested
+    class Write {
+
+        @DisplayName("Should write aligned version 1.0 header")
+        @Test
+        void shouldWriteAlignedVersion1Header() throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Npy.write(Tensor.of(INT_ARRAY_2D, Integer.class), output);
+            byte[] bytes = output.toByteArray();
+            int headerLength = (bytes[8] & 0xFF) | (bytes[9] & 0xFF) << 8;
+            String header = new String(bytes, 10, headerLength, StandardCharsets.ISO_8859_1);
+
+            assertThat(new String(bytes, 1, 5, StandardCharsets.ISO_8859_1)).isEqualTo("NUMPY");
+            assertThat((10 + headerLength) % 64).isEqualTo(0);
+            assertThat(header.trim()).isEqualTo("{'descr': '<i4', 'fortran_order': False, 'shape': (2, 3), }");
+            assertThat(bytes.length).isEqualTo(10 + headerLength + 6 * 4);
+        }
+
+        @DisplayName("Given each supported element type - should round trip")
+        @Test
+        void givenEachSupportedElementType_shouldRoundTrip() throws IOException {
+            Tensor<?>[] tensors = {
+                    Tensor.of(INT_ARRAY_2D, Integer.class),
+                    Tensor.of(new Long[]{1L, Long.MAX_VALUE}, Long.class),
+                    Tensor.of(new Float[]{1.5f, -2f}, Float.class),
+                    Tensor.of(new Double[][]{{1.5, 2.5}, {3.5, 4.5}}, Double.class),
+                    Tensor.of(new Boolean[]{true, false, true}, Boolean.class)
+            };
+            for (Tensor<?> tensor : tensors) {
+                assertThat(roundTrip(tensor)).isEqualTo(tensor);
+            }
+        }
+
+        @DisplayName("Given sparse tensor - should write non-present elements as zero")
+        @Test
+        void givenSparseTensor_shouldWriteNonPresentElementsAsZero() throws IOException {
+            Tensor<Integer> tensor = Tensor.<Integer>builder().add(Index.of(0, 0), 5).add(Index.of(2, 1), 7).build();
+            assertMatrix(roundTrip(tensor), "[[5,0,0][0,0,7]]");
+        }
+
+        @DisplayName("Given mixed numeric elements - should write float64")
+        @Test
+        void givenMixedNumericElements_shouldWriteFloat64() throws IOException {
+            Tensor<Number> tensor = Tensor.<Number>builder().add(Index.of(0), 1).add(Index.of(1), 2.5).build();
+            assertVector(roundTrip(tensor), "[1.0,2.5]");
+        }
+
+        @DisplayName("Given mixed integral elements - should write int64")
+        @Test
+        void givenMixedIntegralElements_shouldWriteInt64() throws IOException {
+            long large = (1L << 53) + 1;
+            Tensor<Number> tensor = Tensor.<Number>builder().add(Index.of(0), 1).add(Index.of(1), large).build();
+            Tensor<?> read = roundTrip(tensor);
+            assertThat(read.get(0)).isEqualTo(1L);
+            assertThat(read.get(1)).isEqualTo(large);
+        }
+
+        @DisplayName("Given Fortran order - should read back the same tensor")
+        @Test
+        void givenFortranOrder_shouldReadBackTheSameTensor() throws IOException {
+            Tensor<Integer> tensor = Tensor.of(new Integer[][][]{{{1, 2}, {3, 4}}, {{5, 6}, {7, 8}}, {{9, 10}, {11, 12}}}, Integer.class);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Npy.write(tensor, output, true);
+            assertThat(Npy.read(new ByteArrayInputStream(output.toByteArray()))).isEqualTo(tensor);
+        }
+
+        @DisplayName("Given scalar - should round trip")
+        @Test
+        void givenScalar_shouldRoundTrip() throws IOException {
+            assertScalar(roundTrip(Tensor.of(new Double[]{4.0}, Double.class)), "4.0");
+        }
+
+        @DisplayName("Given empty tensor - should round trip")
+        @Test
+        void givenEmptyTensor_shouldRoundTrip() throws IOException {
+            assertThat(roundTrip(Tensor.<Double>empty()).isEmpty()).isTrue();
+        }
+
+        @DisplayName("Given non-numeric elements - should throw exception")
+        @Test
+        void givenNonNumericElements_shouldThrowException() {
+            Tensor<String> tensor = Tensor.of(new String[]{"a", "b"}, String.class);
+            assertThatThrownBy(() -> Npy.write(tensor, new ByteArrayOutputStream())).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("writeArchive(Map<String, Tensor<?>> tensors, Path path)")
+    @Nested
+    class WriteArchive {
+
+        @DisplayName("Should read back every tensor by name")
+        @Test
+        void shouldReadBackEveryTensorByName() throws IOException {
+            Map<String, Tensor<?>> tensors = new LinkedHashMap<>();
+            tensors.put("weights", Tensor.of(new Double[][]{{0.5, 1.5}, {2.5, 3.5}}, Double.class));
+            tensors.put("labels", Tensor.of(new Integer[]{3, 1, 2}, Integer.class));
+            Path path = directory.resolve("tensors.npz");
+
+            Npy.writeArchive(tensors, path);
+            Map<String, Tensor<?>> read = Npy.readArchive(path);
+
+            assertThat(read.keySet()).containsExactly("weights", "labels");
+            assertThat(read.get("weights")).isEqualTo(tensors.get("weights"));
+            assertThat(read.get("labels")).isEqualTo(tensors.get("labels"));
+        }
+
+    }
+
+}
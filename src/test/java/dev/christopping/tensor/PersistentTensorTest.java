@@ -0,0 +1,132 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.christopping.tensor.TensorAssertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PersistentTensorTest {
+
+    private static final Integer[][] INT_ARRAY_2D = {{1, 2}, {3, 4}, {5, 6}};
+
+    @DisplayName("of(Tensor<T> tensor)")
+    @Nested
+    class Of {
+
+        @DisplayName("Should contain all elements of the tensor")
+        @Test
+        void shouldContainAllElementsOfTheTensor() {
+            PersistentTensor<Integer> tensor = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            assertMatrix(tensor, "[[1,2][3,4][5,6]]");
+            assertThat(tensor).isEqualTo(Tensor.of(INT_ARRAY_2D, Integer.class));
+        }
+
+        @DisplayName("Given source tensor is modified - should not change")
+        @Test
+        void givenSourceTensorIsModified_shouldNotChange() {
+            Tensor<Integer> source = Tensor.of(INT_ARRAY_2D, Integer.class);
+            PersistentTensor<Integer> tensor = PersistentTensor.of(source);
+            source.set(100, 0, 0);
+            assertThat(tensor.get(0, 0)).isEqualTo(1);
+        }
+
+    }
+
+    @DisplayName("with(T element, Index index)")
+    @Nested
+    class With {
+
+        @DisplayName("Should return new version and leave previous version unchanged")
+        @Test
+        void shouldReturnNewVersionAndLeavePreviousVersionUnchanged() {
+            PersistentTensor<Integer> first = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            PersistentTensor<Integer> second = first.with(100, 1, 2);
+            assertMatrix(first, "[[1,2][3,4][5,6]]");
+            assertMatrix(second, "[[1,2][3,4][5,100]]");
+        }
+
+        @DisplayName("Given many versions - should retain every version")
+        @Test
+        void givenManyVersions_shouldRetainEveryVersion() {
+            List<PersistentTensor<Integer>> versions = new ArrayList<>();
+            PersistentTensor<Integer> tensor = PersistentTensor.empty();
+            for (int i = 0; i < 500; i++) {
+                tensor = tensor.with(i, i % 50, i / 50);
+                versions.add(tensor);
+            }
+            assertThat(versions.get(99).get(49, 1)).isEqualTo(99);
+            assertThat(versions.get(99).get(0, 2)).isNull();
+            assertThat(versions.get(499).get(0, 2)).isEqualTo(100);
+            assertThat(versions.get(499).dimensions()).containsExactly(50L, 10L);
+        }
+
+        @DisplayName("Given index of different order - should throw error")
+        @Test
+        void givenIndexOfDifferentOrder_shouldThrowError() {
+            PersistentTensor<Integer> tensor = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            assertThatThrownBy(() -> tensor.with(1, 0, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("without(Index index)")
+    @Nested
+    class Without {
+
+        @DisplayName("Should return new version and leave previous version unchanged")
+        @Test
+        void shouldReturnNewVersionAndLeavePreviousVersionUnchanged() {
+            PersistentTensor<Integer> first = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            PersistentTensor<Integer> second = first.without(Index.of(0, 0));
+            assertThat(first.get(0, 0)).isEqualTo(1);
+            assertThat(second.get(0, 0)).isNull();
+            assertThat(second.elements()).containsExactly(2, 3, 4, 5, 6);
+        }
+
+    }
+
+    @DisplayName("set(T element, Index index)")
+    @Nested
+    class Set {
+
+        @DisplayName("Should throw error")
+        @Test
+        void shouldThrowError() {
+            PersistentTensor<Integer> tensor = PersistentTensor.empty();
+            assertThatThrownBy(() -> tensor.set(1, 0, 0)).isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> tensor.remove(Index.of(0, 0))).isInstanceOf(UnsupportedOperationException.class);
+        }
+
+    }
+
+    @DisplayName("toMatrix()")
+    @Nested
+    class ToMatrix {
+
+        @DisplayName("Given converted matrix is modified - should not change persistent tensor")
+        @Test
+        void givenConvertedMatrixIsModified_shouldNotChangePersistentTensor() {
+            PersistentTensor<Integer> tensor = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            Matrix<Integer> matrix = tensor.toMatrix();
+            matrix.set(100, 0, 0);
+            matrix.appendRow(List.of(7, 8));
+            assertMatrix(matrix, "[[100,2][3,4][5,6][7,8]]");
+            assertMatrix(tensor, "[[1,2][3,4][5,6]]");
+        }
+
+        @DisplayName("Given converted matrix converted back - should equal original")
+        @Test
+        void givenConvertedMatrixConvertedBack_shouldEqualOriginal() {
+            PersistentTensor<Integer> tensor = PersistentTensor.of(Tensor.of(INT_ARRAY_2D, Integer.class));
+            assertThat(tensor.toMatrix().toPersistent()).isEqualTo(tensor);
+        }
+
+    }
+
+}
@@ -0,0 +1,295 @@
+package dev.christopping.tensor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.stream.IntStream;
+
+import static dev.christopping.tensor.StorageAdvisor.Layout.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageAdvisorTest {
+
+    private static final Double[][] DOUBLE_ARRAY_2D = {{1.5, 2.5, 3.5}, {4.5, 5.5, 6.5}};
+
+    private static Tensor<Double> sparse(int size) {
+        Tensor.TensorBuilder<Double> builder = Tensor.builder();
+        IntStream.range(0, size).forEach(i -> builder.add(Index.of(i * 7, i * 3), i + 0.5));
+        return builder.build();
+    }
+
+    @DisplayName("advise(Tensor<?> tensor)")
+    @Nested
+    class Advise {
+
+        @DisplayName("Given fully populated doubles - should recommend dense primitive layout")
+        @Test
+        void givenFullyPopulatedDoubles_shouldRecommendDensePrimitiveLayout() {
+            StorageAdvisor.Recommendation recommendation = StorageAdvisor.advise(Tensor.generate(index -> 1.5, 30, 30));
+            assertThat(recommendation.current()).isEqualTo(SPARSE_MAP);
+            assertThat(recommendation.recommended()).isEqualTo(DENSE_PRIMITIVE);
+            assertThat(recommendation.isSwitch()).isTrue();
+            assertThat(recommendation.recommendedBytes() < recommendation.currentBytes() / 4).isTrue();
+        }
+
+        @DisplayName("Given very sparse matrix - should not recommend dense primitive layout")
+        @Test
+        void givenVerySparseMatrix_shouldNotRecommendDensePrimitiveLayout() {
+            StorageAdvisor.Recommendation recommendation = StorageAdvisor.advise(sparse(200));
+            assertThat(recommendation.estimates().keySet()).containsExactly(SPARSE_MAP, PACKED_KEY, DENSE_PRIMITIVE, CSR);
+            assertThat(recommendation.recommended()).isIn(PACKED_KEY, CSR);
+        }
+
+        @DisplayName("Given mixed element types - should not offer dense primitive layout")
+        @Test
+        void givenMixedElementTypes_shouldNotOfferDensePrimitiveLayout() {
+            Tensor<Number> mixed = Tensor.<Number>builder().add(Index.of(0), 1).add(Index.of(1), 2.0).build();
+            assertThat(StorageAdvisor.advise(mixed).estimates().keySet()).containsExactly(SPARSE_MAP, PACKED_KEY);
+        }
+
+        @DisplayName("Given persistent tensor - should keep its layout")
+        @Test
+        void givenPersistentTensor_shouldKeepItsLayout() {
+            PersistentTensor<Double> persistent = Tensor.generate(index -> 1.5, 40, 40).toPersistent();
+            assertThat(StorageAdvisor.advise(persistent).isSwitch()).isFalse();
+        }
+
+        @DisplayName("Given structured tensor - should keep its layout without enumerating elements")
+        @Test
+        void givenStructuredTensor_shouldKeepItsLayoutWithoutEnumeratingElements() {
+            StorageAdvisor.Recommendation recommendation = StorageAdvisor.advise(Tensor.identity(Index.of(99_999, 99_999)));
+            assertThat(recommendation.current()).isEqualTo(STRUCTURED);
+            assertThat(recommendation.isSwitch()).isFalse();
+        }
+
+        @DisplayName("Given empty tensor - should keep sparse map layout")
+        @Test
+        void givenEmptyTensor_shouldKeepSparseMapLayout() {
+            StorageAdvisor.Recommendation recommendation = StorageAdvisor.advise(Tensor.empty());
+            assertThat(recommendation.recommended()).isEqualTo(SPARSE_MAP);
+            assertThat(recommendation.estimates().keySet()).containsExactly(SPARSE_MAP);
+        }
+
+    }
+
+    @DisplayName("convert(Tensor<T> tensor, Layout layout)")
+    @Nested
+    class Convert {
+
+        @DisplayName("Given each layout - should preserve elements")
+        @ParameterizedTest
+        @ValueSource(strings = {"SPARSE_MAP", "PACKED_KEY", "DENSE_PRIMITIVE", "CSR"})
+        void givenEachLayout_shouldPreserveElements(String layout) {
+            Tensor<Double> tensor = sparse(50);
+            Tensor<Double> converted = StorageAdvisor.convert(tensor, StorageAdvisor.Layout.valueOf(layout));
+            assertThat(converted).isEqualTo(tensor);
+            assertThat(converted.dimensions()).isEqualTo(tensor.dimensions());
+            assertThat(converted.get(7, 3)).isEqualTo(1.5);
+            assertThat(converted.get(8, 3)).isNull();
+            assertThat(StorageAdvisor.advise(converted).current()).isEqualTo(StorageAdvisor.Layout.valueOf(layout));
+        }
+
+        @DisplayName("Given packed key layout - should add and remove within shape")
+        @Test
+        void givenPackedKeyLayout_shouldAddAndRemoveWithinShape() {
+            Tensor<Double> packed = StorageAdvisor.convert(sparse(50), PACKED_KEY);
+            IntStream.range(0, 50).forEach(i -> packed.remove(Index.of(i * 7, i * 3)));
+            packed.set(9.5, 1, 2);
+            assertThat(packed.elements()).containsExactly(9.5);
+            assertThat(StorageAdvisor.advise(packed).current()).isEqualTo(PACKED_KEY);
+        }
+
+        @DisplayName("Given packed key layout - should migrate to sparse map when set outside shape")
+        @Test
+        void givenPackedKeyLayout_shouldMigrateToSparseMapWhenSetOutsideShape() {
+            Tensor<Double> packed = StorageAdvisor.convert(sparse(50), PACKED_KEY);
+            packed.set(1.0, 1000, 0);
+            assertThat(packed.get(1000, 0)).isEqualTo(1.0);
+            assertThat(packed.get(7, 3)).isEqualTo(1.5);
+            assertThat(StorageAdvisor.advise(packed).current()).isEqualTo(SPARSE_MAP);
+        }
+
+        @DisplayName("Given dense primitive layout of sparse tensor - should leave absent elements absent")
+        @Test
+        void givenDensePrimitiveLayoutOfSparseTensor_shouldLeaveAbsentElementsAbsent() {
+            Tensor<Double> dense = StorageAdvisor.convert(sparse(3), DENSE_PRIMITIVE);
+            assertThat(dense.elements()).containsExactly(0.5, 1.5, 2.5);
+            dense.remove(Index.of(14, 6));
+            assertThat(dense.dimensions()).containsExactly(8L, 4L);
+        }
+
+        @DisplayName("Given CSR layout - should replace present elements only")
+        @Test
+        void givenCsrLayout_shouldReplacePresentElementsOnly() {
+            Tensor<Double> csr = StorageAdvisor.convert(Tensor.of(DOUBLE_ARRAY_2D, Double.class), CSR);
+            csr.set(0.0, 2, 1);
+            assertThat(csr.get(2, 1)).isEqualTo(0.0);
+            assertThat(csr.elements()).containsExactly(1.5, 2.5, 3.5, 4.5, 5.5, 0.0);
+            assertThat(StorageAdvisor.advise(csr).current()).isEqualTo(CSR);
+        }
+
+        @DisplayName("Given CSR layout - should migrate when elements are added or removed")
+        @Test
+        void givenCsrLayout_shouldMigrateWhenElementsAreAddedOrRemoved() {
+            Tensor<Double> tensor = sparse(50);
+            Tensor<Double> added = StorageAdvisor.convert(tensor, CSR);
+            added.set(1.0, 1, 0);
+            assertThat(added.get(1, 0)).isEqualTo(1.0);
+            assertThat(added.elements()).hasSize(51);
+            Tensor<Double> removed = StorageAdvisor.convert(tensor, CSR);
+            removed.remove(Index.of(7, 3));
+            assertThat(removed.get(7, 3)).isNull();
+            assertThat(removed.elements()).hasSize(49);
+            assertThat(tensor.get(7, 3)).isEqualTo(1.5);
+        }
+
+        @DisplayName("Given shared converted tensor written to - should keep the layout of both")
+        @ParameterizedTest
+        @ValueSource(strings = {"PACKED_KEY", "CSR"})
+        void givenSharedConvertedTensorWrittenTo_shouldKeepTheLayoutOfBoth(String layout) {
+            Tensor<Double> converted = StorageAdvisor.convert(sparse(50), StorageAdvisor.Layout.valueOf(layout));
+            Matrix<Double> shared = converted.toMatrix();
+            converted.set(-1.0, 7, 3);
+            assertThat(converted.get(7, 3)).isEqualTo(-1.0);
+            assertThat(shared.get(7, 3)).isEqualTo(1.5);
+            assertThat(StorageAdvisor.advise(converted).current()).isEqualTo(StorageAdvisor.Layout.valueOf(layout));
+            assertThat(StorageAdvisor.advise(shared).current()).isEqualTo(StorageAdvisor.Layout.valueOf(layout));
+        }
+
+        @DisplayName("Given inapplicable layout - should throw exception")
+        @Test
+        void givenInapplicableLayout_shouldThrowException() {
+            Tensor<Double> vector = Tensor.of(new Double[]{1.0, 2.0}, Double.class);
+            assertThatThrownBy(() -> StorageAdvisor.convert(vector, CSR)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("optimize(Tensor<T> tensor)")
+    @Nested
+    class Optimize {
+
+        @DisplayName("Should reduce the memory footprint and preserve elements")
+        @Test
+        void shouldReduceTheMemoryFootprintAndPreserveElements() {
+            Tensor<Double> tensor = Tensor.generate(index -> (double) index.get(0), 30, 30);
+            Tensor<Double> optimized = StorageAdvisor.optimize(tensor);
+            assertThat(optimized).isEqualTo(tensor);
+            assertThat(optimized.memoryFootprint() < tensor.memoryFootprint() / 4).isTrue();
+            assertThat(StorageAdvisor.optimize(optimized)).isSameAs(optimized);
+        }
+
+        @DisplayName("Given optimized tensor - should still set and remove elements")
+        @Test
+        void givenOptimizedTensor_shouldStillSetAndRemoveElements() {
+            Tensor<Double> optimized = StorageAdvisor.optimize(Tensor.generate(index -> (double) index.get(0), 30, 30));
+            optimized.set(-1.0, 40, 40);
+            optimized.remove(Index.of(0, 0));
+            assertThat(optimized.get(40, 40)).isEqualTo(-1.0);
+            assertThat(optimized.get(0, 0)).isNull();
+            assertThat(optimized.get(29, 29)).isEqualTo(29.0);
+        }
+
+    }
+
+    @DisplayName("Adaptive layout")
+    @Nested
+    class AdaptiveLayout {
+
+        private Tensor<Double> filled(int width, int height) {
+            Tensor<Double> tensor = Tensor.empty();
+            IntStream.range(0, width * height).forEach(i -> tensor.set((double) i, i % width, i / width));
+            return tensor;
+        }
+
+        @DisplayName("Given many set elements - should migrate to dense layout")
+        @Test
+        void givenManySetElements_shouldMigrateToDenseLayout() {
+            Tensor<Double> tensor = filled(50, 40);
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(DENSE_PRIMITIVE);
+            assertThat(tensor.get(49, 39)).isEqualTo(1999.0);
+            assertThat(tensor.dimensions()).containsExactly(50L, 40L);
+            assertThat(tensor).isEqualTo(StorageAdvisor.convert(tensor, SPARSE_MAP));
+        }
+
+        @DisplayName("Given backfilled sparse tensor - should migrate to dense layout")
+        @Test
+        void givenBackfilledSparseTensor_shouldMigrateToDenseLayout() {
+            Tensor<Double> tensor = Tensor.<Double>builder().add(Index.of(0, 0), 1.0).add(Index.of(99, 99), 2.0).build();
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(SPARSE_MAP);
+            Tensor<Double> backfilled = tensor.backfill(0.0);
+            assertThat(StorageAdvisor.advise(backfilled).current()).isEqualTo(DENSE_PRIMITIVE);
+            assertThat(backfilled.get(99, 99)).isEqualTo(2.0);
+            assertThat(backfilled.get(50, 50)).isEqualTo(0.0);
+        }
+
+        @DisplayName("Given removals below sparse threshold - should migrate back to sparse layout")
+        @Test
+        void givenRemovalsBelowSparseThreshold_shouldMigrateBackToSparseLayout() {
+            Tensor<Double> tensor = filled(50, 40);
+            IntStream.range(0, 1000).forEach(i -> tensor.remove(Index.of(i % 50, i / 50)));
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(DENSE_PRIMITIVE);
+            IntStream.range(1000, 1600).forEach(i -> tensor.remove(Index.of(i % 50, i / 50)));
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(SPARSE_MAP);
+            assertThat(tensor.elements()).hasSize(400);
+            assertThat(tensor.get(0, 39)).isEqualTo(1950.0);
+        }
+
+        @DisplayName("Given element outside dense shape - should grow dense layout")
+        @Test
+        void givenElementOutsideDenseShape_shouldGrowDenseLayout() {
+            Tensor<Double> tensor = filled(50, 40);
+            tensor.set(-1.0, 60, 0);
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(DENSE_PRIMITIVE);
+            assertThat(tensor.dimensions()).containsExactly(61L, 40L);
+            assertThat(tensor.get(60, 0)).isEqualTo(-1.0);
+            assertThat(tensor.get(60, 1)).isNull();
+        }
+
+        @DisplayName("Given element of different type - should migrate to sparse layout")
+        @Test
+        void givenElementOfDifferentType_shouldMigrateToSparseLayout() {
+            Tensor<Number> tensor = Tensor.generate(index -> (Number) 1.5, 50, 40);
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(DENSE_PRIMITIVE);
+            tensor.set(7, 0, 0);
+            assertThat(StorageAdvisor.advise(tensor).current()).isEqualTo(SPARSE_MAP);
+            assertThat(tensor.get(0, 0)).isEqualTo(7);
+        }
+
+        @DisplayName("Given copy of dense tensor - should not observe writes to the original")
+        @Test
+        void givenCopyOfDenseTensor_shouldNotObserveWritesToTheOriginal() {
+            Tensor<Double> tensor = filled(50, 40);
+            Tensor<Double> copy = tensor.toTensor();
+            tensor.set(-1.0, 0, 0);
+            assertThat(copy.get(0, 0)).isEqualTo(0.0);
+            assertThat(StorageAdvisor.advise(copy).current()).isEqualTo(DENSE_PRIMITIVE);
+        }
+
+    }
+
+    @DisplayName("Tensor.memoryFootprint()")
+    @Nested
+    class MemoryFootprint {
+
+        @DisplayName("Should grow with the number of elements")
+        @Test
+        void shouldGrowWithTheNumberOfElements() {
+            assertThat(sparse(10).memoryFootprint() < sparse(100).memoryFootprint()).isTrue();
+            assertThat(Tensor.empty().memoryFootprint() > 0).isTrue();
+        }
+
+        @DisplayName("Given dense storage - should count primitive elements")
+        @Test
+        void givenDenseStorage_shouldCountPrimitiveElements() {
+            Tensor<Double> dense = StorageAdvisor.convert(Tensor.generate(index -> 1.0, 100, 10), DENSE_PRIMITIVE);
+            assertThat(dense.memoryFootprint() >= 8_000L && dense.memoryFootprint() < 8_400L).isTrue();
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package dev.christopping.tensor;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TensorMetricsTest {
+
+    private static final Integer[][] INT_ARRAY_2D = {{1, 2}, {3, 4}, {5, 6}};
+
+    @TempDir
+    Path directory;
+
+    private static void withMetrics(Runnable runnable) {
+        TensorMetrics.reset();
+        TensorMetrics.enable();
+        try {
+            runnable.run();
+        } finally {
+            TensorMetrics.disable();
+        }
+    }
+
+    @DisplayName("snapshot()")
+    @Nested
+    class Snapshot {
+
+        @DisplayName("Given enabled registry - should count operations and entries")
+        @Test
+        void givenEnabledRegistry_shouldCountOperationsAndEntries() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            withMetrics(() -> {
+                tensor.compute(value -> value * 2).compute(value -> value + 1);
+                tensor.reduce(0, Integer::sum, 0);
+            });
+
+            Map<String, TensorMetrics.OperationSnapshot> snapshot = TensorMetrics.snapshot();
+            TensorMetrics.OperationSnapshot compute = snapshot.get("compute");
+            assertThat(compute.count()).isEqualTo(2L);
+            assertThat(compute.inputEntries()).isEqualTo(12L);
+            assertThat(compute.outputEntries()).isEqualTo(12L);
+            assertThat(Arrays.stream(compute.buckets()).sum()).isEqualTo(2L);
+            assertThat(compute.maxNanos() <= compute.totalNanos()).isTrue();
+            assertThat(snapshot.get("reduce").outputEntries()).isEqualTo(3L);
+        }
+
+        @DisplayName("Given disabled registry - should record nothing")
+        @Test
+        void givenDisabledRegistry_shouldRecordNothing() {
+            TensorMetrics.reset();
+            Tensor.of(INT_ARRAY_2D, Integer.class).compute(value -> value * 2);
+            assertThat(TensorMetrics.snapshot().isEmpty()).isTrue();
+        }
+
+        @DisplayName("Given matrix operations - should record them by name")
+        @Test
+        void givenMatrixOperations_shouldRecordThemByName() {
+            Matrix<Integer> matrix = Matrix.of(INT_ARRAY_2D);
+            withMetrics(() -> {
+                matrix.insertColumn(List.of(0, 0, 0), 0);
+                matrix.slice(Map.of(0, 0L));
+                matrix.extract(Index.of(0, 0), Index.of(1, 1));
+                Tensor.combine(List.of(matrix, matrix));
+            });
+            assertThat(TensorMetrics.snapshot().keySet()).containsExactly("combine", "extract", "insertColumn", "slice");
+            assertThat(TensorMetrics.snapshot().get("combine").inputEntries()).isEqualTo(18L);
+        }
+
+        @DisplayName("Given matrix factories and conversions - should record them by name")
+        @Test
+        void givenMatrixFactoriesAndConversions_shouldRecordThemByName() {
+            withMetrics(() -> {
+                Matrix<Integer> matrix = Matrix.of(INT_ARRAY_2D);
+                Matrix.identity(3);
+                Matrix.diagonal(List.of(1, 2), 0);
+                matrix.getVector(0, 1);
+                matrix.toNestedList();
+            });
+            assertThat(TensorMetrics.snapshot().keySet()).containsExactly("band", "diagonal", "getVector", "of", "toNestedList");
+            assertThat(TensorMetrics.snapshot().get("getVector").outputEntries()).isEqualTo(3L);
+            assertThat(TensorMetrics.snapshot().get("toNestedList").inputEntries()).isEqualTo(6L);
+        }
+
+        @DisplayName("Given concatenation - should record copies and views")
+        @Test
+        void givenConcatenation_shouldRecordCopiesAndViews() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            withMetrics(() -> {
+                Tensor.concat(0, tensor, tensor);
+                Tensor.concatView(0, List.of(tensor, tensor));
+            });
+            assertThat(TensorMetrics.snapshot().keySet()).containsExactly("concat", "concatView");
+            assertThat(TensorMetrics.snapshot().get("concatView").outputEntries()).isEqualTo(12L);
+        }
+
+        @DisplayName("Given null operand - should throw illegal argument error")
+        @Test
+        void givenNullOperand_shouldThrowIllegalArgumentError() {
+            Tensor<Double> matrix = Tensor.fill(1.0, 2, 2);
+            withMetrics(() -> {
+                assertThatThrownBy(() -> matrix.tensordot(null, new int[]{0}, new int[]{0})).isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> matrix.contract(null, new int[]{0}, new int[]{0}, Semiring.plusTimes())).isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> Tensor.einsum("ij,jk->ik", matrix, null)).isInstanceOf(IllegalArgumentException.class);
+            });
+        }
+
+    }
+
+    @DisplayName("writeTo(Appendable appendable)")
+    @Nested
+    class WriteTo {
+
+        @DisplayName("Should write counters and cumulative histogram buckets")
+        @Test
+        void shouldWriteCountersAndCumulativeHistogramBuckets() throws IOException {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            withMetrics(() -> tensor.backfill(0));
+            StringBuilder builder = new StringBuilder();
+            TensorMetrics.writeTo(builder);
+            List<String> lines = List.of(builder.toString().split("\n"));
+
+            assertThat(lines).contains(
+                    "tensor_operations_total{operation=\"backfill\"} 1",
+                    "tensor_operation_entries_total{operation=\"backfill\",direction=\"input\"} 6",
+                    "tensor_operation_duration_seconds_bucket{operation=\"backfill\",le=\"+Inf\"} 1",
+                    "tensor_operation_duration_seconds_count{operation=\"backfill\"} 1"
+            );
+        }
+
+    }
+
+    @DisplayName("TensorOperationEvent")
+    @Nested
+    class Events {
+
+        @DisplayName("Given enabled recording - should commit event per operation")
+        @Test
+        void givenEnabledRecording_shouldCommitEventPerOperation() throws IOException {
+            Path file = directory.resolve("operations.jfr");
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> bias = Tensor.of(new Integer[]{10, 20}, Integer.class);
+            try (Recording recording = new Recording()) {
+                recording.enable(TensorOperationEvent.class).withThreshold(java.time.Duration.ZERO);
+                recording.start();
+                tensor.piecewise(Integer::sum, bias);
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("dev.christopping.tensor.Operation"))
+                    .toList();
+            assertThat(events).hasSize(1);
+            RecordedEvent event = events.get(0);
+            assertThat(event.getString("operation")).isEqualTo("piecewise");
+            assertThat(event.getInt("inputOrder")).isEqualTo(2);
+            assertThat(event.getInt("outputOrder")).isEqualTo(2);
+            assertThat(event.getLong("inputEntries")).isEqualTo(6L);
+            assertThat(event.getLong("outputEntries")).isEqualTo(6L);
+            assertThat(event.getString("storage")).isEqualTo("copy-on-write");
+        }
+
+    }
+
+}
@@ -5,14 +5,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static dev.christopping.tensor.TensorAssertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 class TensorTest {
 
@@ -140,6 +146,65 @@ class TensorTest {
 
     }
 
+    @DisplayName("ofArray(Object array, Class<T> type)")
+    @Nested
+    class OfArray {
+
+        @DisplayName("Given primitive vector - should return vector")
+        @Test
+        void givenPrimitiveVector_shouldReturnVector() {
+            Tensor<Double> tensor = Tensor.ofArray(new double[]{1.5, 2.5, 3.5}, Double.class);
+            assertThat(tensor).isInstanceOf(Vector.class);
+            assertVector(tensor, "[1.5,2.5,3.5]");
+        }
+
+        @DisplayName("Given order 3 primitive array - should return 3-tensor")
+        @Test
+        void givenOrder3PrimitiveArray_shouldReturn3Tensor() {
+            Tensor<Integer> tensor = Tensor.ofArray(new int[][][]{{{1, 2}, {3, 4}}, {{5, 6}, {7, 8}}}, Integer.class);
+            assertThat(tensor).isEqualTo(Tensor.of(new Integer[][][]{{{1, 2}, {3, 4}}, {{5, 6}, {7, 8}}}, Integer.class));
+            assertTensor(tensor, "[[[1,2][3,4]][[5,6][7,8]]]");
+        }
+
+        @DisplayName("Given large primitive matrix - should copy rows into dense storage")
+        @Test
+        void givenLargePrimitiveMatrix_shouldCopyRowsIntoDenseStorage() {
+            double[][] rows = new double[40][50];
+            for (int y = 0; y < rows.length; y++) {
+                for (int x = 0; x < rows[y].length; x++) rows[y][x] = y * 100 + x;
+            }
+            Tensor<Double> tensor = Tensor.ofArray(rows, Double.class);
+            assertThat(tensor.dense()).isNotNull();
+            assertThat(tensor.dimensions()).containsExactly(50L, 40L);
+            assertThat(tensor.get(49, 39)).isEqualTo(3949.0);
+            assertThat(tensor.get(3, 2)).isEqualTo(203.0);
+        }
+
+        @DisplayName("Given primitive array of incompatible type - should throw exception")
+        @Test
+        void givenPrimitiveArrayOfIncompatibleType_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.ofArray(new int[][]{{1, 2}, {3, 4}}, Double.class)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.ofArray("abc", String.class)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given ragged nested list - should leave missing elements absent")
+        @Test
+        void givenRaggedNestedList_shouldLeaveMissingElementsAbsent() {
+            Tensor<Integer> tensor = Tensor.of(List.of(List.of(1, 2, 3), List.of(4)), Integer.class);
+            assertThat(tensor.dimensions()).containsExactly(3L, 2L);
+            assertThat(tensor.get(0, 1)).isEqualTo(4);
+            assertThat(tensor.get(1, 1)).isNull();
+        }
+
+        @DisplayName("Given inconsistent nesting depth - should throw exception")
+        @Test
+        void givenInconsistentNestingDepth_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.of(List.of(List.of(1, 2), List.of(List.of(3, 4))), Integer.class))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
     @DisplayName("fill(T value, Index index)")
     @Nested
     class FillByIndex {
@@ -326,6 +391,18 @@ class TensorTest {
             assertTensor(result, "[[[1,0,0][0,0,0][0,0,0]][[0,0,0][0,1,0][0,0,0]][[0,0,0][0,0,0][0,0,1]][[0,0,0][0,0,0][0,0,0]]]");
         }
 
+        @Test
+        @DisplayName("Given element written on the diagonal: should keep the structure")
+        void givenElementWrittenOnTheDiagonal_ShouldKeepTheStructure() {
+            Tensor<Integer> result = Tensor.identity(Index.of(3, 3));
+            result.set(5, 2, 2);
+            assertThat(result.get(2, 2)).isEqualTo(5);
+            assertThat(StorageAdvisor.advise(result).current()).isEqualTo(StorageAdvisor.Layout.STRUCTURED);
+            result.set(7, 0, 2);
+            assertMatrix(result.toMatrix(), "[[1,0,0,0][0,1,0,0][7,0,5,0][0,0,0,1]]");
+            assertThat(StorageAdvisor.advise(result).current()).isNotEqualTo(StorageAdvisor.Layout.STRUCTURED);
+        }
+
     }
 
     @DisplayName("generate(Function<Index, T> generator, int... dimensions)")
@@ -435,6 +512,58 @@ class TensorTest {
 
     }
 
+    @DisplayName("parallelGenerate(Function<Index, T> generator, long... dimensions)")
+    @Nested
+    class ParallelGenerateByLongVarargs {
+
+        @DisplayName("Given null generator function - should throw error")
+        @Test
+        void givenNullGeneratorFunction_shouldThrowError() {
+            assertThatThrownBy(() -> Tensor.parallelGenerate(null, 1L, 2L)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given 2 dimensions - should return matrix")
+        @Test
+        void given2Dimensions_shouldReturnMatrix() {
+            Tensor<String> tensor = Tensor.parallelGenerate(Index::toString, 2L, 2L);
+            assertMatrix(tensor, "[[(0, 0),(1, 0)][(0, 1),(1, 1)]]");
+        }
+
+        @DisplayName("Given many blocks - should evaluate each index once and match sequential generation")
+        @Test
+        void givenManyBlocks_shouldEvaluateEachIndexOnceAndMatchSequentialGeneration() {
+            AtomicInteger calls = new AtomicInteger();
+            Function<Index, Long> generator = index -> {
+                calls.incrementAndGet();
+                return index.get(0) * 1000 + index.get(1) * 10 + index.get(2);
+            };
+            Tensor<Long> parallel = Tensor.parallelGenerate(generator, 97L, 61L, 7L);
+            assertThat(calls.get()).isEqualTo(97 * 61 * 7);
+            assertThat(parallel).isEqualTo(Tensor.generate(generator, 97L, 61L, 7L));
+            assertThat(parallel.get(96, 60, 6)).isEqualTo(96606L);
+            assertThat(parallel.dimensions()).containsExactly(97L, 61L, 7L);
+        }
+
+        @DisplayName("Given total primitive generator - should write dense storage")
+        @Test
+        void givenTotalPrimitiveGenerator_shouldWriteDenseStorage() {
+            Tensor<Double> tensor = Tensor.parallelGenerate(index -> (double) index.get(0), 100L, 100L);
+            assertThat(tensor.dense()).isNotNull();
+            assertThat(tensor.dense().isFull()).isTrue();
+            assertThat(tensor.get(42, 7)).isEqualTo(42.0);
+        }
+
+        @DisplayName("Given generator returning null - should keep hashed storage")
+        @Test
+        void givenGeneratorReturningNull_shouldKeepHashedStorage() {
+            Tensor<Double> tensor = Tensor.parallelGenerate(index -> index.get(0) == 0 ? null : 1.0, 100L, 100L);
+            assertThat(tensor.dense()).isNull();
+            assertThat(tensor.get(0, 5)).isNull();
+            assertThat(tensor.get(1, 5)).isEqualTo(1.0);
+        }
+
+    }
+
     @DisplayName("combine(List<Tensor<T>> slices)")
     @Nested
     class CombineList {
@@ -511,6 +640,120 @@ class TensorTest {
 
     }
 
+    @DisplayName("concat(int dimension, Tensor<T>... tensors)")
+    @Nested
+    class Concat {
+
+        @DisplayName("Given matrices - should join them along the dimension")
+        @Test
+        void givenMatrices_shouldJoinThemAlongTheDimension() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(Tensor.concat(0, matrix, matrix), "[[1,2,1,2][3,4,3,4][5,6,5,6]]");
+            assertMatrix(Tensor.concat(1, matrix, matrix), "[[1,2][3,4][5,6][1,2][3,4][5,6]]");
+        }
+
+        @DisplayName("Given dense tensors - should copy runs into dense storage")
+        @Test
+        void givenDenseTensors_shouldCopyRunsIntoDenseStorage() {
+            Tensor<Double> first = Tensor.generate(index -> index.get(0) + index.get(1) * 100.0, 40, 30);
+            Tensor<Double> second = Tensor.generate(index -> -index.get(0) - index.get(1) * 100.0, 40, 20);
+            Tensor<Double> concatenated = Tensor.concat(1, first, second);
+            assertThat(concatenated.dense()).isNotNull();
+            assertThat(concatenated).isEqualTo(Tensor.generate(index -> index.get(1) < 30
+                    ? index.get(0) + index.get(1) * 100.0 : -index.get(0) - (index.get(1) - 30) * 100.0, 40, 50));
+            assertThat(Tensor.concat(0, first, first).get(79, 29)).isEqualTo(2939.0);
+        }
+
+        @DisplayName("Given empty tensor - should ignore it")
+        @Test
+        void givenEmptyTensor_shouldIgnoreIt() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertThat(Tensor.concat(1, Tensor.empty(), matrix)).isEqualTo(matrix);
+        }
+
+        @DisplayName("Given mismatched dimensions - should throw exception")
+        @Test
+        void givenMismatchedDimensions_shouldThrowException() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> vector = Tensor.of(INT_ARRAY_1D, Integer.class);
+            assertThatThrownBy(() -> Tensor.concat(0, matrix, matrix.transpose())).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.concat(0, matrix, vector)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.concat(2, matrix, matrix)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("stack(int dimension, Tensor<T>... tensors)")
+    @Nested
+    class Stack {
+
+        @DisplayName("Given vectors - should insert new dimension at position")
+        @Test
+        void givenVectors_shouldInsertNewDimensionAtPosition() {
+            Tensor<Integer> first = Tensor.of(new Integer[]{1, 2, 3}, Integer.class);
+            Tensor<Integer> second = Tensor.of(new Integer[]{4, 5, 6}, Integer.class);
+            assertMatrix(Tensor.stack(0, first, second), "[[1,4][2,5][3,6]]");
+            assertMatrix(Tensor.stack(1, first, second), "[[1,2,3][4,5,6]]");
+        }
+
+        @DisplayName("Given trailing dimension - should match combine")
+        @Test
+        void givenTrailingDimension_shouldMatchCombine() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> other = matrix.compute(value -> value * 10);
+            assertThat(Tensor.stack(2, matrix, other)).isEqualTo(Tensor.combine(List.of(matrix, other)));
+        }
+
+        @DisplayName("Given dense tensors - should interleave runs into dense storage")
+        @Test
+        void givenDenseTensors_shouldInterleaveRunsIntoDenseStorage() {
+            Tensor<Integer> first = Tensor.generate(index -> (int) (index.get(0) * 1000 + index.get(1)), 50, 30);
+            Tensor<Integer> second = first.compute(value -> -value);
+            Tensor<Integer> stacked = Tensor.stack(1, first, second);
+            assertThat(stacked.dense()).isNotNull();
+            assertThat(stacked.dimensions()).containsExactly(50L, 2L, 30L);
+            assertThat(stacked.get(49, 0, 29)).isEqualTo(49029);
+            assertThat(stacked.get(49, 1, 29)).isEqualTo(-49029);
+        }
+
+        @DisplayName("Given different dimensions - should throw exception")
+        @Test
+        void givenDifferentDimensions_shouldThrowException() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertThatThrownBy(() -> Tensor.stack(0, matrix, matrix.transpose())).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.stack(3, matrix, matrix)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("concatView(int dimension, List<Tensor<T>> tensors)")
+    @Nested
+    class ConcatView {
+
+        @DisplayName("Given matrices - should read through to the tensor containing each index")
+        @Test
+        void givenMatrices_shouldReadThroughToTheTensorContainingEachIndex() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> other = matrix.compute(value -> value * 10);
+            Tensor<Integer> view = Tensor.concatView(1, List.of(matrix, other));
+            assertThat(view).isEqualTo(Tensor.concat(1, matrix, other));
+            assertThat(view.get(1, 4)).isEqualTo(40);
+            assertThat(view.get(1, 6)).isNull();
+            assertThat(view.get(2, 0)).isNull();
+        }
+
+        @DisplayName("Given source modified afterwards - should keep the elements captured")
+        @Test
+        void givenSourceModifiedAfterwards_shouldKeepTheElementsCaptured() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> view = Tensor.concatView(0, List.of(matrix, matrix));
+            matrix.set(100, 0, 0);
+            assertThat(view.get(2, 0)).isEqualTo(1);
+            assertThatThrownBy(() -> view.set(7, 0, 0)).isInstanceOf(UnsupportedOperationException.class);
+        }
+
+    }
+
     @DisplayName("get(Index index)")
     @Nested
     class GetByIndex {
@@ -1223,6 +1466,167 @@ class TensorTest {
 
     }
 
+    @DisplayName("permute(int... mapping)")
+    @Nested
+    class Permute {
+
+        @DisplayName("Given matrix - should match transpose")
+        @Test
+        void givenMatrix_shouldMatchTranspose() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(matrix.permute(1, 0), "[[1,3,5][2,4,6]]");
+        }
+
+        @DisplayName("Given dense tensor - should permute strides over the same elements")
+        @Test
+        void givenDenseTensor_shouldPermuteStridesOverTheSameElements() {
+            Tensor<Double> tensor = Tensor.generate(index -> index.get(0) + index.get(1) * 100.0 + index.get(2) * 10000.0, 20, 30, 4);
+            Tensor<Double> permuted = tensor.permute(2, 0, 1);
+            assertThat(permuted.dense()).isNotNull();
+            assertThat(permuted.dimensions()).containsExactly(4L, 20L, 30L);
+            assertThat(permuted).isEqualTo(Tensor.generate(index -> index.get(1) + index.get(2) * 100.0 + index.get(0) * 10000.0, 4, 20, 30));
+        }
+
+        @DisplayName("Given writes afterwards - should not affect each other")
+        @Test
+        void givenWritesAfterwards_shouldNotAffectEachOther() {
+            Tensor<Double> tensor = Tensor.generate(index -> (double) index.get(0) * index.get(1), 40, 40);
+            Tensor<Double> permuted = tensor.permute(1, 0);
+            tensor.set(-1.0, 3, 2);
+            permuted.set(-2.0, 5, 4);
+            assertThat(permuted.get(2, 3)).isEqualTo(6.0);
+            assertThat(tensor.get(4, 5)).isEqualTo(20.0);
+            assertThat(permuted.get(5, 4)).isEqualTo(-2.0);
+        }
+
+        @DisplayName("Given invalid mapping - should throw exception")
+        @Test
+        void givenInvalidMapping_shouldThrowException() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_3D, Integer.class);
+            assertThatThrownBy(() -> tensor.permute(1, 0)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> tensor.permute(0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("reshape(long... dimensions)")
+    @Nested
+    class Reshape {
+
+        @DisplayName("Given matrix - should keep elements in index order")
+        @Test
+        void givenMatrix_shouldKeepElementsInIndexOrder() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(matrix.reshape(3, 2), "[[1,2,3][4,5,6]]");
+            assertMatrix(matrix.reshape(1, 6), "[[1][2][3][4][5][6]]");
+        }
+
+        @DisplayName("Given sparse tensor - should remap present indices")
+        @Test
+        void givenSparseTensor_shouldRemapPresentIndices() {
+            Tensor<String> tensor = Tensor.empty();
+            tensor.set("A", 1, 0);
+            tensor.set("B", 2, 3);
+            Tensor<String> reshaped = tensor.reshape(6, 2);
+            assertThat(reshaped.elements()).hasSize(2);
+            assertThat(reshaped.get(1, 0)).isEqualTo("A");
+            assertThat(reshaped.get(5, 1)).isEqualTo("B");
+        }
+
+        @DisplayName("Given permuted dense tensor - should reshape in index order of the permutation")
+        @Test
+        void givenPermutedDenseTensor_shouldReshapeInIndexOrderOfThePermutation() {
+            Tensor<Double> tensor = Tensor.generate(index -> index.get(0) * 100.0 + index.get(1), 40, 30);
+            Tensor<Double> reshaped = tensor.permute(1, 0).reshape(1200);
+            assertThat(reshaped.get(7 + 30 * 5)).isEqualTo(507.0);
+        }
+
+        @DisplayName("Given dense tensor - should keep the view unchanged by writes to the source")
+        @Test
+        void givenDenseTensor_shouldKeepTheViewUnchangedByWritesToTheSource() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> reshaped = matrix.reshape(6);
+            matrix.set(10, 0, 0);
+            assertThat(reshaped.get(0)).isEqualTo(1);
+            assertThat(matrix.get(0, 0)).isEqualTo(10);
+        }
+
+        @DisplayName("Given view written to - should let the source write in place")
+        @Test
+        void givenViewWrittenTo_shouldLetTheSourceWriteInPlace() {
+            Tensor<Double> matrix = Tensor.generate(index -> index.get(0) * 100.0 + index.get(1), 40, 30);
+            DenseStorage<Double> dense = matrix.dense();
+            Tensor<Double> reshaped = matrix.reshape(1200);
+            reshaped.set(-1.0, 1);
+            matrix.set(-2.0, 0, 0);
+            assertThat(dense).isNotNull();
+            assertThat(matrix.dense()).isSameAs(dense);
+            assertThat(reshaped.get(0)).isEqualTo(0.0);
+            assertThat(reshaped.get(1)).isEqualTo(-1.0);
+            assertThat(matrix.get(1, 0)).isEqualTo(100.0);
+        }
+
+        @DisplayName("Given mismatched volume - should throw exception")
+        @Test
+        void givenMismatchedVolume_shouldThrowException() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertThatThrownBy(() -> matrix.reshape(4, 2)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> matrix.reshape(6, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("squeeze()")
+    @Nested
+    class Squeeze {
+
+        @DisplayName("Given dimensions of size 1 - should remove them")
+        @Test
+        void givenDimensionsOfSize1_shouldRemoveThem() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> unsqueezed = matrix.unsqueeze(0).unsqueeze(3);
+            assertThat(unsqueezed.dimensions()).containsExactly(1L, 2L, 3L, 1L);
+            assertThat(unsqueezed.get(0, 1, 2, 0)).isEqualTo(6);
+            assertThat(unsqueezed.squeeze()).isEqualTo(matrix);
+            assertThat(unsqueezed.squeeze(3).dimensions()).containsExactly(1L, 2L, 3L);
+        }
+
+        @DisplayName("Given dimension not of size 1 - should throw exception")
+        @Test
+        void givenDimensionNotOfSize1_shouldThrowException() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertThatThrownBy(() -> matrix.squeeze(0)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> matrix.squeeze(2)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> matrix.unsqueeze(3)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("flattenView()")
+    @Nested
+    class FlattenView {
+
+        @DisplayName("Given dense tensor - should view elements as vector")
+        @Test
+        void givenDenseTensor_shouldViewElementsAsVector() {
+            Tensor<Integer> tensor = Tensor.generate(index -> (int) (index.get(0) + index.get(1) * 40), 40, 40);
+            Vector<Integer> flattened = tensor.flattenView();
+            assertThat(flattened.dense()).isNotNull();
+            assertThat(flattened.elements()).isEqualTo(tensor.elements());
+        }
+
+        @DisplayName("Given sparse tensor - should leave absent elements absent")
+        @Test
+        void givenSparseTensor_shouldLeaveAbsentElementsAbsent() {
+            Tensor<Object> tensor = Tensor.empty();
+            tensor.set(100, 1, 1);
+            Vector<Object> flattened = tensor.flattenView();
+            assertThat(flattened.elements()).containsExactly(100);
+            assertThat(flattened.get(3)).isEqualTo(100);
+        }
+
+    }
+
     @DisplayName("backfill(T value)")
     @Nested
     class Backfill {
@@ -1471,6 +1875,115 @@ class TensorTest {
 
     }
 
+    @Nested
+    @DisplayName("argmax(int dimension, Comparator<? super T> comparator)")
+    class ArgmaxByDimension {
+
+        @Test
+        @DisplayName("Given matrix: should return coordinate of greatest element of each fiber")
+        void givenMatrix_ShouldReturnCoordinateOfGreatestElementOfEachFiber() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertVector(tensor.argmax(0, Comparator.naturalOrder()), "[1,1,1]");
+            assertVector(tensor.argmax(1, Comparator.naturalOrder()), "[2,2]");
+            assertVector(tensor.argmin(1, Comparator.naturalOrder()), "[0,0]");
+        }
+
+        @Test
+        @DisplayName("Given equal elements: should return lowest coordinate")
+        void givenEqualElements_ShouldReturnLowestCoordinate() {
+            Tensor<Integer> tensor = Tensor.of(new Integer[]{1, 3, 2, 3}, Integer.class);
+            assertScalar(tensor.argmax(0, Comparator.naturalOrder()), "1");
+        }
+
+        @Test
+        @DisplayName("Given sparse matrix: should only consider present elements")
+        void givenSparseMatrix_ShouldOnlyConsiderPresentElements() {
+            Tensor<Integer> tensor = Tensor.<Integer>builder()
+                    .add(Index.of(0, 0), -1).add(Index.of(5, 0), -9).add(Index.of(2, 1), 4).build();
+            assertVector(tensor.argmax(0, Comparator.naturalOrder()), "[0,2]");
+        }
+
+        @Test
+        @DisplayName("Given dimension greater than order: should throw IndexOutOfBoundsException")
+        void givenDimensionGreaterThanOrder_ShouldThrowIndexOutOfBoundsException() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_1D, Integer.class);
+            assertThatThrownBy(() -> tensor.argmax(1, Comparator.naturalOrder())).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("argmax(Comparator<? super T> comparator)")
+    class Argmax {
+
+        @Test
+        @DisplayName("Given 3D tensor: should return index of greatest and least elements")
+        void given3DTensor_ShouldReturnIndexOfGreatestAndLeastElements() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_3D, Integer.class);
+            assertThat(tensor.argmax(Comparator.naturalOrder())).isEqualTo(Index.of(1, 2, 1));
+            assertThat(tensor.argmin(Comparator.naturalOrder())).isEqualTo(Index.of(0, 0, 0));
+        }
+
+        @Test
+        @DisplayName("Given empty tensor: should throw IllegalStateException")
+        void givenEmptyTensor_ShouldThrowIllegalStateException() {
+            Tensor<Integer> tensor = Tensor.empty();
+            assertThatThrownBy(() -> tensor.argmax(Comparator.naturalOrder())).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("topK(int k, int dimension, Comparator<? super T> comparator)")
+    class TopK {
+
+        @Test
+        @DisplayName("Given matrix: should rank greatest elements of each fiber along dimension")
+        void givenMatrix_ShouldRankGreatestElementsOfEachFiberAlongDimension() {
+            Tensor.TopK<Integer> topK = Tensor.of(INT_ARRAY_2D, Integer.class).topK(2, 1, Comparator.naturalOrder());
+            assertMatrix(topK.values(), "[[5,6][3,4]]");
+            assertMatrix(topK.indices(), "[[2,2][1,1]]");
+        }
+
+        @Test
+        @DisplayName("Given equal elements: should rank by ascending coordinate")
+        void givenEqualElements_ShouldRankByAscendingCoordinate() {
+            Tensor.TopK<Integer> topK = Tensor.of(new Integer[]{3, 1, 3}, Integer.class).topK(2, 0, Comparator.naturalOrder());
+            assertVector(topK.values(), "[3,3]");
+            assertVector(topK.indices(), "[0,2]");
+        }
+
+        @Test
+        @DisplayName("Given k greater than fiber length: should return all present elements")
+        void givenKGreaterThanFiberLength_ShouldReturnAllPresentElements() {
+            Tensor.TopK<Integer> topK = Tensor.of(INT_ARRAY_1D, Integer.class).topK(10, 0, Comparator.reverseOrder());
+            assertVector(topK.values(), "[1,2,3,4]");
+        }
+
+        @Test
+        @DisplayName("Given non-positive k: should throw IllegalArgumentException")
+        void givenNonPositiveK_ShouldThrowIllegalArgumentException() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_1D, Integer.class);
+            assertThatThrownBy(() -> tensor.topK(0, 0, Comparator.naturalOrder())).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Given large sparse tensor: parallel variant should match sequential")
+        void givenLargeSparseTensor_ParallelVariantShouldMatchSequential() {
+            Random random = new Random(3);
+            Tensor.TensorBuilder<Double> builder = Tensor.builder();
+            for (int i = 0; i < 50_000; i++) builder.add(Index.of(random.nextInt(10_000), random.nextInt(100)), random.nextDouble());
+            Tensor<Double> scores = builder.build();
+
+            Tensor.TopK<Double> sequential = scores.topK(5, 0, Comparator.naturalOrder());
+            Tensor.TopK<Double> parallel = scores.parallelTopK(5, 0, Comparator.naturalOrder());
+            assertThat(parallel.values()).isEqualTo(sequential.values());
+            assertThat(parallel.indices()).isEqualTo(sequential.indices());
+            assertThat(sequential.values().slice(Map.of(0, 0L))).isEqualTo(scores.reduce(0.0, Math::max, 0));
+        }
+
+    }
+
     @Nested
     @DisplayName("mask()")
     class Mask {
@@ -1507,6 +2020,14 @@ class TensorTest {
             assertVector(result, "[1,0,0,4]");
         }
 
+        @Test
+        @DisplayName("Given lower order mask: should broadcast mask across missing dimensions")
+        void givenLowerOrderMask_ShouldBroadcastMask() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Boolean> mask = Tensor.of(new Boolean[]{false, true}, Boolean.class);
+            assertMatrix(tensor.mask(mask, 0), "[[0,2][0,4][0,6]]");
+        }
+
     }
 
     @DisplayName("piecewise(BiFunction<T, T, S> piecewiseFunction, Tensor other")
@@ -1516,23 +2037,48 @@ class TensorTest {
         @DisplayName("Given null other - should throw error")
         @Test
         void givenNullOther_shouldThrowError() {
-            assertThatThrownBy(() -> Tensor.empty().piecewise((o, o2) -> o, null)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.empty().piecewise((o, o2) -> o, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("must not be null");
         }
 
-        @DisplayName("Given other has smaller order - should throw error")
+        @DisplayName("Given other has smaller order - should broadcast other across missing dimensions")
         @Test
-        void givenOtherHasSmallerOrder_shouldThrowError() {
+        void givenOtherHasSmallerOrder_shouldBroadcastOther() {
             Tensor<Integer> first = Tensor.of(INT_ARRAY_3D, Integer.class);
             Tensor<Integer> second = Tensor.of(INT_ARRAY_2D, Integer.class);
-            assertThatThrownBy(() -> first.piecewise((a, b) -> a * b, second)).isInstanceOf(IllegalArgumentException.class);
+            assertTensor(first.piecewise((a, b) -> a * b, second), "[[[1,4][9,16][25,36]][[10,40][90,160][250,360]]]");
         }
 
-        @DisplayName("Given other has larger order - should throw error")
+        @DisplayName("Given other has larger order - should broadcast tensor across missing dimensions")
         @Test
-        void givenOtherHasLargerOrder_shouldThrowError() {
+        void givenOtherHasLargerOrder_shouldBroadcastTensor() {
             Tensor<Integer> first = Tensor.of(INT_ARRAY_2D, Integer.class);
             Tensor<Integer> second = Tensor.of(INT_ARRAY_3D, Integer.class);
-            assertThatThrownBy(() -> first.piecewise((a, b) -> a * b, second)).isInstanceOf(IllegalArgumentException.class);
+            assertTensor(first.piecewise((a, b) -> a * b, second), "[[[1,4][9,16][25,36]][[10,40][90,160][250,360]]]");
+        }
+
+        @DisplayName("Given vector and matrix - should apply vector to every row")
+        @Test
+        void givenVectorAndMatrix_shouldApplyVectorToEveryRow() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Tensor<Integer> bias = Tensor.of(new Integer[]{10, 20}, Integer.class);
+            assertMatrix(matrix.piecewise(Integer::sum, bias), "[[11,22][13,24][15,26]]");
+        }
+
+        @DisplayName("Given size 1 dimensions in both tensors - should stretch both")
+        @Test
+        void givenSize1DimensionsInBothTensors_shouldStretchBoth() {
+            Tensor<Integer> column = Tensor.<Integer>builder().add(Index.of(0, 0), 1).add(Index.of(0, 1), 2).add(Index.of(0, 2), 3).build();
+            Tensor<Integer> row = Tensor.<Integer>builder().add(Index.of(0, 0), 10).add(Index.of(1, 0), 20).build();
+            assertMatrix(column.piecewise(Integer::sum, row), "[[11,21][12,22][13,23]]");
+        }
+
+        @DisplayName("Given scalar - should apply scalar to every element")
+        @Test
+        void givenScalar_shouldApplyScalarToEveryElement() {
+            Tensor<Integer> matrix = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertMatrix(matrix.piecewise((a, b) -> a * b, Scalar.of(2)), "[[2,4][6,8][10,12]]");
         }
 
         @DisplayName("Given orders match but sizes do not - should throw error")
@@ -1651,6 +2197,15 @@ class TensorTest {
             tensor.expect(Object.class);
         }
 
+        @DisplayName("Given element of other type set after expect - should fail")
+        @Test
+        void givenElementOfOtherTypeSetAfterExpect_shouldFail() {
+            Tensor<Object> tensor = Tensor.fill(1, 2, 2);
+            tensor.expect(Integer.class);
+            tensor.set("abc", 0, 0);
+            assertThatThrownBy(() -> tensor.expect(Integer.class)).isInstanceOf(IllegalArgumentException.class);
+        }
+
     }
 
     @DisplayName("extrude(long size")
@@ -1781,6 +2336,605 @@ class TensorTest {
         }
     }
 
+    @DisplayName("einsum(String spec, Tensor<?>... operands)")
+    @Nested
+    class Einsum {
+
+        @DisplayName("Given matrices - should perform matrix multiplication")
+        @Test
+        void givenMatrices_shouldPerformMatrixMultiplication() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertMatrix(Tensor.einsum("ij,jk->ik", matrix, matrix), "[[7.0,10.0][15.0,22.0]]");
+        }
+
+        @DisplayName("Given repeated label - should compute trace")
+        @Test
+        void givenRepeatedLabel_shouldComputeTrace() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertScalar(Tensor.einsum("ii->", matrix), "5.0");
+        }
+
+        @DisplayName("Given implicit output - should sum over repeated labels")
+        @Test
+        void givenImplicitOutput_shouldSumOverRepeatedLabels() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertScalar(Tensor.einsum("ii", matrix), "5.0");
+        }
+
+        @DisplayName("Given disjoint labels - should compute outer product")
+        @Test
+        void givenDisjointLabels_shouldComputeOuterProduct() {
+            Tensor<Double> result = Tensor.einsum("i,j->ij", Vector.of(1, 2), Vector.of(10, 20, 30));
+            assertMatrix(result, "[[10.0,20.0][20.0,40.0][30.0,60.0]]");
+        }
+
+        @DisplayName("Given three operands - should contract all of them")
+        @Test
+        void givenThreeOperands_shouldContractAllOfThem() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertMatrix(Tensor.einsum("ij,jk,kl->il", matrix, matrix, matrix), "[[37.0,54.0][81.0,118.0]]");
+        }
+
+        @DisplayName("Given sparse operand - should only produce entries with matching pairs")
+        @Test
+        void givenSparseOperand_shouldOnlyProduceEntriesWithMatchingPairs() {
+            Tensor<Integer> sparse = Tensor.<Integer>builder().add(Index.of(0, 0), 2).add(Index.of(2, 1), 3).build();
+            Tensor<Integer> ones = Tensor.fill(1, 3, 3);
+            Tensor<Double> result = Tensor.einsum("ij,jk->ik", sparse, ones);
+            assertThat(result.get(0, 2)).isEqualTo(2.0);
+            assertThat(result.get(2, 2)).isEqualTo(3.0);
+            assertThat(result.get(1, 2)).isNull();
+        }
+
+        @DisplayName("Given dense and sparse operands of equal values - should produce the same elements")
+        @Test
+        void givenDenseAndSparseOperandsOfEqualValues_shouldProduceTheSameElements() {
+            Tensor<Double> dense = Tensor.of(new Double[][]{{1.0, 0.0}, {0.0, 0.0}}, Double.class);
+            Tensor<Double> sparse = Tensor.<Double>builder().add(Index.of(0, 0), 1.0).add(Index.of(1, 1), 0.0).build();
+            Tensor<Double> fromDense = Tensor.einsum("ij,jk->ik", dense, dense);
+            Tensor<Double> fromSparse = Tensor.einsum("ij,jk->ik", sparse, sparse);
+            assertThat(fromDense).isEqualTo(fromSparse);
+            assertThat(fromDense.elements()).containsExactly(1.0);
+        }
+
+        @DisplayName("Given sparse operand without matching pairs contracted to scalar - should produce scalar zero")
+        @Test
+        void givenSparseOperandWithoutMatchingPairsContractedToScalar_shouldProduceScalarZero() {
+            Tensor<Integer> sparse = Tensor.<Integer>builder().add(Index.of(0, 1), 2).add(Index.of(1, 0), 3).build();
+            Tensor<Double> result = Tensor.einsum("ii->", sparse);
+            assertThat(result.order()).isEqualTo(0);
+            assertScalar(result, "0.0");
+        }
+
+        @DisplayName("Given operands whose products are all zero contracted to scalar - should produce scalar zero")
+        @Test
+        void givenOperandsWhoseProductsAreAllZeroContractedToScalar_shouldProduceScalarZero() {
+            assertScalar(Tensor.einsum("i,i->", Vector.of(1, 0), Vector.of(0, 5)), "0.0");
+        }
+
+        @DisplayName("Given label of different sizes - should throw error")
+        @Test
+        void givenLabelOfDifferentSizes_shouldThrowError() {
+            assertThatThrownBy(() -> Tensor.einsum("ij,jk->ik", Tensor.fill(1, 2, 3), Tensor.fill(1, 2, 2))).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.einsum("i,i->", Vector.of(1, 2), Vector.of(1, 2, 3))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given operand count mismatch - should throw error")
+        @Test
+        void givenOperandCountMismatch_shouldThrowError() {
+            assertThatThrownBy(() -> Tensor.einsum("ij,jk->ik", Tensor.fill(1, 2, 2))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given label count does not match order - should throw error")
+        @Test
+        void givenLabelCountDoesNotMatchOrder_shouldThrowError() {
+            assertThatThrownBy(() -> Tensor.einsum("ijk->i", Tensor.fill(1, 2, 2))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given non-numeric elements - should throw error")
+        @Test
+        void givenNonNumericElements_shouldThrowError() {
+            assertThatThrownBy(() -> Tensor.einsum("i->i", Vector.of("a", "b"))).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("tensordot(Tensor<?> other, int[] axesA, int[] axesB)")
+    @Nested
+    class Tensordot {
+
+        @DisplayName("Given single axis pair - should contract over it")
+        @Test
+        void givenSingleAxisPair_shouldContractOverIt() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertMatrix(matrix.tensordot(matrix, new int[]{1}, new int[]{0}), "[[7.0,10.0][15.0,22.0]]");
+        }
+
+        @DisplayName("Given all axes - should compute inner product")
+        @Test
+        void givenAllAxes_shouldComputeInnerProduct() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2}, {3, 4}}, Integer.class);
+            assertScalar(matrix.tensordot(matrix, new int[]{0, 1}, new int[]{0, 1}), "30.0");
+        }
+
+        @DisplayName("Given mismatched axes - should throw error")
+        @Test
+        void givenMismatchedAxes_shouldThrowError() {
+            Tensor<Integer> matrix = Tensor.fill(1, 2, 2);
+            assertThatThrownBy(() -> matrix.tensordot(matrix, new int[]{0, 1}, new int[]{0})).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("conv1d(Tensor<?> kernel, int stride, int padding, int dilation)")
+    @Nested
+    class Conv1d {
+
+        @DisplayName("Given vector - should correlate kernel with each window")
+        @Test
+        void givenVector_shouldCorrelateKernelWithEachWindow() {
+            Tensor<Integer> vector = Tensor.of(new Integer[]{1, 2, 3, 4, 5}, Integer.class);
+            Tensor<Integer> kernel = Tensor.of(new Integer[]{1, 0, -1}, Integer.class);
+            assertVector(vector.conv1d(kernel), "[-2.0,-2.0,-2.0]");
+        }
+
+        @DisplayName("Given stride, padding and dilation - should apply them")
+        @Test
+        void givenStridePaddingAndDilation_shouldApplyThem() {
+            Tensor<Integer> vector = Tensor.of(new Integer[]{1, 2, 3, 4, 5}, Integer.class);
+            Tensor<Integer> kernel = Tensor.of(new Integer[]{1, 0, -1}, Integer.class);
+            assertVector(vector.conv1d(kernel, 1, 1, 1), "[-2.0,-2.0,-2.0,-2.0,4.0]");
+            assertVector(vector.conv1d(kernel, 2, 1, 1), "[-2.0,-2.0,4.0]");
+            assertVector(vector.conv1d(Tensor.of(new Integer[]{1, 1}, Integer.class), 1, 0, 2), "[4.0,6.0,8.0]");
+        }
+
+        @DisplayName("Given channels - should sum over input channels for each output channel")
+        @Test
+        void givenChannels_shouldSumOverInputChannelsForEachOutputChannel() {
+            Tensor<Integer> signal = Tensor.of(new Integer[][]{{1, 2, 3, 4}, {10, 20, 30, 40}}, Integer.class);
+            Tensor<Integer> kernel = Tensor.of(new Integer[][][]{{{1, 1}, {0, 0}}, {{0, 0}, {1, -1}}}, Integer.class);
+            assertMatrix(signal.conv1d(kernel), "[[3.0,5.0,7.0][-10.0,-10.0,-10.0]]");
+        }
+
+        @DisplayName("Given kernel larger than input - should throw exception")
+        @Test
+        void givenKernelLargerThanInput_shouldThrowException() {
+            Tensor<Integer> vector = Tensor.of(new Integer[]{1, 2}, Integer.class);
+            Tensor<Integer> kernel = Tensor.of(new Integer[]{1, 2, 3}, Integer.class);
+            assertThatThrownBy(() -> vector.conv1d(kernel)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> vector.conv1d(kernel, 0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.empty().conv1d(kernel)).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
+    @DisplayName("conv2d(Tensor<?> kernel, int stride, int padding, int dilation)")
+    @Nested
+    class Conv2d {
+
+        @DisplayName("Given matrix - should correlate kernel with each window")
+        @Test
+        void givenMatrix_shouldCorrelateKernelWithEachWindow() {
+            Tensor<Integer> matrix = Tensor.of(new Integer[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 9}}, Integer.class);
+            Tensor<Integer> kernel = Tensor.of(new Integer[][]{{1, 0}, {0, 1}}, Integer.class);
+            assertMatrix(matrix.conv2d(kernel), "[[6.0,8.0][12.0,14.0]]");
+        }
+
+        @DisplayName("Given either strategy - should produce the same result")
+        @Test
+        void givenEitherStrategy_shouldProduceTheSameResult() {
+            Tensor<Double> image = Tensor.generate(index -> (double) ((index.get(0) * 7 + index.get(1) * 3 + index.get(2)) % 11), 12, 10, 3);
+            Tensor<Double> kernel = Tensor.generate(index -> (double) ((index.get(0) + index.get(1) * 2 + index.get(2) * 5 + index.get(3)) % 5 - 2), 3, 3, 3, 5);
+            Tensor<Double> direct = Convolution.convolve(image, kernel, 2, 2, 1, 1, Convolution.Strategy.DIRECT);
+            Tensor<Double> im2col = Convolution.convolve(image, kernel, 2, 2, 1, 1, Convolution.Strategy.IM2COL);
+            assertThat(direct.dimensions()).containsExactly(6L, 5L, 5L);
+            assertThat(im2col).isEqualTo(direct);
+            assertThat(image.conv2d(kernel, 2, 1, 1)).isEqualTo(direct);
+        }
+
+        @DisplayName("Given mismatched channels - should throw exception")
+        @Test
+        void givenMismatchedChannels_shouldThrowException() {
+            Tensor<Integer> image = Tensor.fill(1, 4, 4, 3);
+            Tensor<Integer> kernel = Tensor.fill(1, 2, 2, 2, 1);
+            assertThatThrownBy(() -> image.conv2d(kernel)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("conv3d(Tensor<?> kernel)")
+    @Nested
+    class Conv3d {
+
+        @DisplayName("Given order 3 tensor - should correlate kernel with each window")
+        @Test
+        void givenOrder3Tensor_shouldCorrelateKernelWithEachWindow() {
+            Tensor<Double> convolved = Tensor.fill(1.0, 3, 3, 3).conv3d(Tensor.fill(1.0, 2, 2, 2));
+            assertThat(convolved).isEqualTo(Tensor.fill(8.0, 2, 2, 2));
+        }
+
+    }
+
+    @DisplayName("maxPool2d(int size, int stride)")
+    @Nested
+    class MaxPool2d {
+
+        @DisplayName("Given matrix - should take maximum of each window")
+        @Test
+        void givenMatrix_shouldTakeMaximumOfEachWindow() {
+            Tensor<Double> matrix = Tensor.generate(index -> (double) (index.get(0) + index.get(1) * 4), 4, 4);
+            assertMatrix(matrix.maxPool2d(2, 2), "[[5.0,7.0][13.0,15.0]]");
+            assertMatrix(matrix.maxPool2d(3, 1), "[[10.0,11.0][14.0,15.0]]");
+        }
+
+        @DisplayName("Given window larger than input - should throw exception")
+        @Test
+        void givenWindowLargerThanInput_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.fill(1, 2, 2).maxPool2d(3, 1)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("avgPool1d(int size, int stride)")
+    @Nested
+    class AvgPool1d {
+
+        @DisplayName("Given channels - should average each window of each channel")
+        @Test
+        void givenChannels_shouldAverageEachWindowOfEachChannel() {
+            Tensor<Integer> signal = Tensor.of(new Integer[][]{{1, 2, 3, 4}, {10, 20, 30, 40}}, Integer.class);
+            assertMatrix(signal.avgPool1d(2, 2), "[[1.5,3.5][15.0,35.0]]");
+        }
+
+        @DisplayName("Given non-numeric elements - should throw exception")
+        @Test
+        void givenNonNumericElements_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.fill("A", 4).avgPool1d(2, 2)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("fft(int dimension)")
+    @Nested
+    class Fft {
+
+        @DisplayName("Given complex matrix - should transform each fiber along dimension")
+        @Test
+        void givenComplexMatrix_shouldTransformEachFiberAlongDimension() {
+            Tensor<Integer> signals = Tensor.of(new Integer[][]{{1, 2, 3, 4}, {1, 1, 1, 1}}, Integer.class).unsqueeze(2);
+            Tensor<Double> spectra = signals.fft(0);
+            assertThat(spectra.dimensions()).containsExactly(4L, 2L, 2L);
+            assertThat(spectra.get(0, 0, 0)).isCloseTo(10.0, within(1e-12));
+            assertThat(spectra.get(1, 0, 0)).isCloseTo(-2.0, within(1e-12));
+            assertThat(spectra.get(1, 0, 1)).isCloseTo(2.0, within(1e-12));
+            assertThat(spectra.get(0, 1, 0)).isCloseTo(4.0, within(1e-12));
+            assertThat(spectra.get(2, 1, 0)).isCloseTo(0.0, within(1e-12));
+        }
+
+        @DisplayName("Given length which is not a power of 2 - should invert with ifft")
+        @Test
+        void givenLengthWhichIsNotAPowerOf2_shouldInvertWithIfft() {
+            Tensor<Double> signal = Tensor.generate(index -> Math.cos(index.get(0) * 1.3 + index.get(1) * 0.4), 45, 2);
+            Tensor<Double> spectrum = signal.fft(0);
+            double expected = 0;
+            for (int t = 0; t < 45; t++) {
+                expected += Math.cos(t * 1.3) * Math.cos(2 * Math.PI * 7 * t / 45) + Math.cos(t * 1.3 + 0.4) * Math.sin(2 * Math.PI * 7 * t / 45);
+            }
+            assertThat(spectrum.get(7, 0)).isCloseTo(expected, within(1e-9));
+            Tensor<Double> inverse = spectrum.ifft(0);
+            for (int t = 0; t < 45; t++) {
+                assertThat(inverse.get(t, 0)).isCloseTo(signal.get(t, 0), within(1e-12));
+                assertThat(inverse.get(t, 1)).isCloseTo(signal.get(t, 1), within(1e-12));
+            }
+        }
+
+        @DisplayName("Given tensor which is not complex - should throw exception")
+        @Test
+        void givenTensorWhichIsNotComplex_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.fill(1.0, 4, 3).fft(0)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> Tensor.fill(1.0, 4, 2).fft(1)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("rfft(int dimension)")
+    @Nested
+    class Rfft {
+
+        @DisplayName("Given real vector - should keep non-redundant frequencies")
+        @Test
+        void givenRealVector_shouldKeepNonRedundantFrequencies() {
+            Tensor<Double> spectrum = Tensor.of(new Integer[]{1, 2, 3, 4}, Integer.class).rfft(0);
+            assertThat(spectrum.dimensions()).containsExactly(3L, 2L);
+            assertThat(spectrum.get(0, 0)).isCloseTo(10.0, within(1e-12));
+            assertThat(spectrum.get(1, 0)).isCloseTo(-2.0, within(1e-12));
+            assertThat(spectrum.get(1, 1)).isCloseTo(2.0, within(1e-12));
+            assertThat(spectrum.get(2, 0)).isCloseTo(-2.0, within(1e-12));
+            assertThat(spectrum.get(2, 1)).isCloseTo(0.0, within(1e-12));
+        }
+
+        @DisplayName("Given odd and even lengths - should invert with irfft")
+        @Test
+        void givenOddAndEvenLengths_shouldInvertWithIrfft() {
+            for (int length : new int[]{7, 64, 100}) {
+                Tensor<Double> signal = Tensor.generate(index -> Math.sin(index.get(0) * 0.3) + index.get(1), 3, length);
+                Tensor<Double> inverse = signal.rfft(1).irfft(1, length);
+                assertThat(inverse.dimensions()).containsExactly(3L, (long) length);
+                for (int t = 0; t < length; t++) {
+                    assertThat(inverse.get(2, t)).isCloseTo(signal.get(2, t), within(1e-12));
+                }
+            }
+        }
+
+        @DisplayName("Given too many frequencies for length - should throw exception")
+        @Test
+        void givenTooManyFrequenciesForLength_shouldThrowException() {
+            Tensor<Double> spectrum = Tensor.fill(1.0, 8).rfft(0);
+            assertThatThrownBy(() -> spectrum.irfft(0, 4)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
+    @DisplayName("rolling(int dimension, int window, int step, Aggregator<? super T, R> aggregator)")
+    @Nested
+    class Rolling {
+
+        @DisplayName("Given sum aggregator - should sum each window along dimension")
+        @Test
+        void givenSumAggregator_shouldSumEachWindowAlongDimension() {
+            Tensor<Long> tensor = Tensor.generate(index -> index.get(0) + 10 * index.get(1), 2, 5);
+            Tensor<Double> rolling = tensor.rolling(1, 3, 1, Aggregator.sum());
+            assertThat(rolling.dimensions()).containsExactly(2L, 3L);
+            assertThat(rolling.get(0, 0)).isEqualTo(30.0);
+            assertThat(rolling.get(1, 0)).isEqualTo(33.0);
+            assertThat(rolling.get(1, 2)).isEqualTo(93.0);
+        }
+
+        @DisplayName("Given step greater than one - should skip windows")
+        @Test
+        void givenStepGreaterThanOne_shouldSkipWindows() {
+            Tensor<Integer> tensor = Tensor.of(new Integer[]{5, 1, 4, 2, 3, 9, 0}, Integer.class);
+            Tensor<Integer> rolling = tensor.rolling(0, 2, 2, Aggregator.max(Comparator.<Integer>naturalOrder()));
+            assertTensor(rolling, "[5,4,9]");
+        }
+
+        @DisplayName("Given large dense tensor - should match sum of each window")
+        @Test
+        void givenLargeDenseTensor_shouldMatchSumOfEachWindow() {
+            Tensor<Double> tensor = Tensor.generate(index -> Math.sin(index.get(0)), 5000);
+            Tensor<Double> rolling = tensor.rolling(0, 250, 7, Aggregator.mean());
+            assertThat(rolling.size(0)).isEqualTo((5000 - 250) / 7 + 1);
+            for (int w = 0; w < rolling.size(0); w += 97) {
+                double sum = 0;
+                for (int i = w * 7; i < w * 7 + 250; i++) sum += Math.sin(i);
+                assertThat(rolling.get(w)).isCloseTo(sum / 250, within(1e-12));
+            }
+        }
+
+        @DisplayName("Given sparse tensor - should aggregate present elements only")
+        @Test
+        void givenSparseTensor_shouldAggregatePresentElementsOnly() {
+            Tensor<Integer> tensor = new Tensor<>();
+            tensor.set(4, 0, 0);
+            tensor.set(8, 2, 0);
+            tensor.set(1, 9, 1);
+            Tensor<Double> rolling = tensor.rolling(0, 3, 1, Aggregator.mean());
+            assertThat(rolling.get(0, 0)).isEqualTo(6.0);
+            assertThat(rolling.get(2, 0)).isEqualTo(8.0);
+            assertThat(rolling.get(7, 1)).isEqualTo(1.0);
+            assertThat(rolling.elements()).containsExactly(6.0, 8.0, 8.0, 1.0);
+        }
+
+        @DisplayName("Given associative aggregator - should combine each window in order")
+        @Test
+        void givenAssociativeAggregator_shouldCombineEachWindowInOrder() {
+            Tensor<String> tensor = Tensor.of(new String[]{"a", "b", "c", "d", "e"}, String.class);
+            Tensor<String> rolling = tensor.rolling(0, 3, 1, Aggregator.associative(String::concat));
+            assertThat(rolling.elements()).containsExactly("abc", "bcd", "cde");
+        }
+
+        @DisplayName("Given window larger than dimension - should return empty tensor")
+        @Test
+        void givenWindowLargerThanDimension_shouldReturnEmptyTensor() {
+            assertThat(Tensor.fill(1, 3).rolling(0, 4, 1, Aggregator.sum()).isEmpty()).isTrue();
+        }
+
+        @DisplayName("Given invalid arguments - should throw exception")
+        @Test
+        void givenInvalidArguments_shouldThrowException() {
+            Tensor<Integer> tensor = Tensor.fill(1, 3, 3);
+            assertThatThrownBy(() -> tensor.rolling(0, 0, 1, Aggregator.sum())).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> tensor.rolling(0, 2, 0, Aggregator.sum())).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> tensor.rolling(2, 2, 1, Aggregator.sum())).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("scan(T identity, BinaryOperator<T> operator, int dimension)")
+    @Nested
+    class Scan {
+
+        @DisplayName("Given matrix - should scan along each dimension")
+        @Test
+        void givenMatrix_shouldScanAlongEachDimension() {
+            Tensor<Integer> tensor = Tensor.of(new Integer[][]{{1, 2, 3}, {4, 5, 6}}, Integer.class);
+            assertTensor(tensor.scan(0, Integer::sum, 0), "[[1,3,6][4,9,15]]");
+            assertTensor(tensor.scan(0, Integer::sum, 1), "[[1,2,3][5,7,9]]");
+        }
+
+        @DisplayName("Given non-commutative operator - should combine in order")
+        @Test
+        void givenNonCommutativeOperator_shouldCombineInOrder() {
+            Tensor<String> tensor = Tensor.of(new String[]{"a", "b", "c"}, String.class);
+            assertThat(tensor.scan(">", String::concat, 0).elements()).containsExactly(">a", ">ab", ">abc");
+        }
+
+        @DisplayName("Given sparse tensor - should scan present elements only")
+        @Test
+        void givenSparseTensor_shouldScanPresentElementsOnly() {
+            Tensor<Integer> tensor = new Tensor<>();
+            tensor.set(2, 1, 0);
+            tensor.set(3, 4, 0);
+            tensor.set(5, 2, 1);
+            Tensor<Integer> scanned = tensor.scan(0, Integer::sum, 0);
+            assertThat(scanned.get(4, 0)).isEqualTo(5);
+            assertThat(scanned.get(2, 1)).isEqualTo(5);
+            assertThat(scanned.elements()).hasSize(3);
+        }
+
+        @DisplayName("Given large dense tensor - should scan in parallel")
+        @Test
+        void givenLargeDenseTensor_shouldScanInParallel() {
+            Tensor<Double> tensor = Tensor.fill(1.0, 3, 70000);
+            Tensor<Double> scanned = tensor.scan(0.0, Double::sum, 1);
+            assertThat(scanned.get(2, 69999)).isEqualTo(70000.0);
+            assertThat(scanned.get(0, 1234)).isEqualTo(1235.0);
+        }
+
+        @DisplayName("Given dimension exceeding order - should throw exception")
+        @Test
+        void givenDimensionExceedingOrder_shouldThrowException() {
+            assertThatThrownBy(() -> Tensor.fill(1, 2, 2).scan(0, Integer::sum, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+    }
+
+    @DisplayName("cumsum(int dimension)")
+    @Nested
+    class Cumsum {
+
+        @DisplayName("Given order 3 tensor - should sum along middle dimension")
+        @Test
+        void givenOrder3Tensor_shouldSumAlongMiddleDimension() {
+            Tensor<Long> tensor = Tensor.generate(index -> index.get(0) + index.get(1) + index.get(2), 2, 3, 2);
+            Tensor<Double> cumsum = tensor.cumsum(1);
+            assertThat(cumsum.dimensions()).containsExactly(2L, 3L, 2L);
+            assertThat(cumsum.get(1, 2, 1)).isEqualTo(9.0);
+            assertThat(cumsum.get(0, 1, 0)).isEqualTo(1.0);
+        }
+
+        @DisplayName("Given long vector - should sum by parallel prefix")
+        @Test
+        void givenLongVector_shouldSumByParallelPrefix() {
+            Tensor<Double> tensor = Tensor.generate(index -> (double) (index.get(0) % 10), 200000);
+            Tensor<Double> cumsum = tensor.cumsum(0);
+            for (int i : new int[]{0, 9, 65535, 100000, 199999}) {
+                assertThat(cumsum.get(i)).isEqualTo(45.0 * ((i + 1) / 10) + (i + 1) % 10 * ((i + 1) % 10 - 1) / 2.0);
+            }
+        }
+
+        @DisplayName("Given absent elements - should treat them as zero")
+        @Test
+        void givenAbsentElements_shouldTreatThemAsZero() {
+            Tensor<Integer> tensor = new Tensor<>();
+            tensor.set(1, 0);
+            tensor.set(2, 3);
+            assertTensor(tensor.cumsum(0), "[1.0,1.0,1.0,3.0]");
+        }
+
+    }
+
+    @DisplayName("cumprod(int dimension)")
+    @Nested
+    class Cumprod {
+
+        @DisplayName("Given matrix - should multiply along dimension")
+        @Test
+        void givenMatrix_shouldMultiplyAlongDimension() {
+            Tensor<Integer> tensor = Tensor.of(new Integer[][]{{1, 2, 3}, {4, 5, 6}}, Integer.class);
+            assertTensor(tensor.cumprod(0), "[[1.0,2.0,6.0][4.0,20.0,120.0]]");
+        }
+
+    }
+
+    @DisplayName("cummax(int dimension)")
+    @Nested
+    class Cummax {
+
+        @DisplayName("Given negative elements - should keep running maximum")
+        @Test
+        void givenNegativeElements_shouldKeepRunningMaximum() {
+            Tensor<Integer> tensor = Tensor.of(new Integer[]{-5, -7, -2, -3, 4, 1}, Integer.class);
+            assertTensor(tensor.cummax(0), "[-5.0,-5.0,-2.0,-2.0,4.0,4.0]");
+        }
+
+    }
+
+    @DisplayName("contract(Tensor<T> other, int[] dimensions, int[] otherDimensions, Semiring<T> semiring)")
+    @Nested
+    class Contract {
+
+        @DisplayName("Given plus/times semiring - should perform matrix multiplication")
+        @Test
+        void givenPlusTimesSemiring_shouldPerformMatrixMultiplication() {
+            Tensor<Double> matrix = Tensor.of(new Double[][]{{1.0, 2.0}, {3.0, 4.0}}, Double.class);
+            Tensor<Double> result = matrix.contract(matrix, new int[]{1}, new int[]{0}, Semiring.plusTimes());
+            assertMatrix(result, "[[7.0,10.0][15.0,22.0]]");
+        }
+
+        @DisplayName("Given min/plus semiring - should compute shortest two-step paths")
+        @Test
+        void givenMinPlusSemiring_shouldComputeShortestTwoStepPaths() {
+            Tensor<Double> edges = Tensor.<Double>builder()
+                    .add(Index.of(0, 1), 1.0)
+                    .add(Index.of(1, 2), 2.0)
+                    .add(Index.of(0, 2), 5.0)
+                    .add(Index.of(2, 2), 0.0)
+                    .build();
+            Tensor<Double> result = edges.contract(edges, new int[]{1}, new int[]{0}, Semiring.minPlus());
+            assertThat(result.get(0, 2)).isEqualTo(3.0);
+            assertThat(result.get(1, 2)).isEqualTo(2.0);
+            assertThat(result.get(0, 1)).isNull();
+        }
+
+        @DisplayName("Given or/and semiring - should compute reachability")
+        @Test
+        void givenOrAndSemiring_shouldComputeReachability() {
+            Tensor<Boolean> edges = Tensor.<Boolean>builder()
+                    .add(Index.of(0, 1), true)
+                    .add(Index.of(1, 2), true)
+                    .add(Index.of(2, 0), false)
+                    .build();
+            Tensor<Boolean> result = edges.contract(edges, new int[]{1}, new int[]{0}, Semiring.orAnd());
+            assertThat(result.get(0, 2)).isTrue();
+            assertThat(result.get(1, 0)).isFalse();
+            assertThat(result.get(2, 1)).isFalse();
+        }
+
+        @DisplayName("Given sparse higher order tensors - should only produce matched indices")
+        @Test
+        void givenSparseHigherOrderTensors_shouldOnlyProduceMatchedIndices() {
+            Tensor<Double> first = Tensor.<Double>builder()
+                    .add(Index.of(1000, 7, 2000), 2.0)
+                    .add(Index.of(3, 7, 4), 5.0)
+                    .build();
+            Tensor<Double> second = Tensor.<Double>builder()
+                    .add(Index.of(7, 5000, 1), 3.0)
+                    .add(Index.of(8, 5000, 1), 11.0)
+                    .build();
+            Tensor<Double> result = first.contract(second, new int[]{1}, new int[]{0}, Semiring.plusTimes());
+            assertThat(result.order()).isEqualTo(4);
+            assertThat(result.get(1000, 2000, 5000, 1)).isEqualTo(6.0);
+            assertThat(result.get(3, 4, 5000, 1)).isEqualTo(15.0);
+            assertThat(result.elements()).hasSize(2);
+        }
+
+        @DisplayName("Given mismatched dimensions - should throw error")
+        @Test
+        void givenMismatchedDimensions_shouldThrowError() {
+            Tensor<Double> matrix = Tensor.fill(1.0, 2, 2);
+            assertThatThrownBy(() -> matrix.contract(matrix, new int[]{0}, new int[]{}, Semiring.plusTimes())).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @DisplayName("Given null semiring - should throw error")
+        @Test
+        void givenNullSemiring_shouldThrowError() {
+            Tensor<Double> matrix = Tensor.fill(1.0, 2, 2);
+            assertThatThrownBy(() -> matrix.contract(matrix, new int[]{0}, new int[]{0}, null)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+    }
+
     @Nested
     @DisplayName("isScalar()")
     class IsScalar {
@@ -2035,6 +3189,25 @@ class TensorTest {
             assertThatThrownBy(() -> Tensor.fill("123", 2, 2, 2).toMatrix()).isInstanceOf(IllegalStateException.class);
         }
 
+        @DisplayName("Given converted matrix is modified - should not modify original tensor")
+        @Test
+        void givenConvertedMatrixIsModified_shouldNotModifyOriginalTensor() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Matrix<Integer> matrix = tensor.toMatrix();
+            matrix.set(100, 0, 0);
+            assertMatrix(tensor, "[[1,2][3,4][5,6]]");
+            assertMatrix(matrix, "[[100,2][3,4][5,6]]");
+        }
+
+        @DisplayName("Given original tensor is modified - should not modify converted matrix")
+        @Test
+        void givenOriginalTensorIsModified_shouldNotModifyConvertedMatrix() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            Matrix<Integer> matrix = tensor.toMatrix();
+            tensor.remove(Index.of(0, 0));
+            assertMatrix(matrix, "[[1,2][3,4][5,6]]");
+        }
+
     }
 
     @Nested
@@ -2226,6 +3399,45 @@ class TensorTest {
 
     }
 
+    @DisplayName("writeTo(Appendable appendable, TensorFormat format)")
+    @Nested
+    class WriteTo {
+
+        @DisplayName("Given empty tensor - should write nothing")
+        @Test
+        void givenEmptyTensor_shouldWriteNothing() throws IOException {
+            StringWriter writer = new StringWriter();
+            Tensor.empty().writeTo(writer, TensorFormat.DEFAULT);
+            assertThat(writer.toString()).isEqualTo("");
+        }
+
+        @DisplayName("Given default format - should write same representation as toString()")
+        @Test
+        void givenDefaultFormat_shouldWriteSameRepresentationAsToString() throws IOException {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_3D, Integer.class);
+            StringWriter writer = new StringWriter();
+            tensor.writeTo(writer, TensorFormat.DEFAULT);
+            assertThat(writer.toString()).isEqualTo("[[[1,2][3,4][5,6]][[10,20][30,40][50,60]]]");
+        }
+
+        @DisplayName("Given sparse tensor and formatted format - should write default values for absent elements")
+        @Test
+        void givenSparseTensorAndFormattedFormat_shouldWriteDefaultValues() throws IOException {
+            Tensor<Integer> tensor = Tensor.<Integer>builder().add(Index.of(0, 0), 1).add(Index.of(2, 1), 2).build();
+            StringWriter writer = new StringWriter();
+            tensor.writeTo(writer, TensorFormat.FORMATTED);
+            assertThat(writer.toString()).isEqualTo("1\t.\t.\n.\t.\t2");
+        }
+
+        @DisplayName("Given custom format - should use custom symbols")
+        @Test
+        void givenCustomFormat_shouldUseCustomSymbols() {
+            Tensor<Integer> tensor = Tensor.of(INT_ARRAY_2D, Integer.class);
+            assertThat(tensor.toString(new TensorFormat("(", ")", ";", "|", "-", false))).isEqualTo("((1;2)|(3;4)|(5;6))");
+        }
+
+    }
+
     @DisplayName("equals(Object o)")
     @Nested
     class Equals {
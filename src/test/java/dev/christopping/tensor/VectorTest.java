@@ -4,6 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -13,6 +14,7 @@ import java.util.function.Function;
 import static dev.christopping.tensor.TensorAssertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 class VectorTest {
 
@@ -560,13 +562,13 @@ class VectorTest {
             assertThatThrownBy(() -> Vector.empty().piecewise((o, o2) -> o, null)).isInstanceOf(IllegalArgumentException.class);
         }
 
-        @DisplayName("Given other has smaller order - should throw error")
+        @DisplayName("Given other has smaller order - should broadcast other")
         @Test
-        void givenOtherHasSmallerOrder_shouldThrowError() {
+        void givenOtherHasSmallerOrder_shouldBroadcastOther() {
             Vector<Integer> first = Vector.of(1, 2, 3, 10, 20, 30);
-            Tensor<Integer> second = Scalar.of(1);
+            Tensor<Integer> second = Scalar.of(2);
 
-            assertThatThrownBy(() -> first.piecewise((a, b) -> a * b, second)).isInstanceOf(IllegalArgumentException.class);
+            assertVector(first.piecewise((a, b) -> a * b, second), "[2,4,6,20,40,60]");
         }
 
         @DisplayName("Given other has larger order - should throw error")
@@ -811,4 +813,152 @@ class VectorTest {
 
     }
 
-}
\ No newline at end of file
+    @Nested
+    @DisplayName("fft()")
+    class Fft {
+
+        @Test
+        @DisplayName("Given real vector: should return real and imaginary parts of each frequency")
+        void givenRealVector_shouldReturnRealAndImaginaryPartsOfEachFrequency() {
+            Matrix<Double> spectrum = Vector.of(1, 2, 3, 4).fft();
+            double[][] expected = {{10, -2, -2, -2}, {0, 2, 0, -2}};
+
+            assertThat(spectrum.dimensions()).containsExactly(4L, 2L);
+            for (int part = 0; part < 2; part++) {
+                for (int frequency = 0; frequency < 4; frequency++) {
+                    assertThat(spectrum.get(frequency, part)).isCloseTo(expected[part][frequency], within(1e-12));
+                }
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("convolve(Vector<?> other)")
+    class Convolve {
+
+        @Test
+        @DisplayName("Given short vectors: should return full convolution")
+        void givenShortVectors_shouldReturnFullConvolution() {
+            assertVector(Vector.of(1, 2, 3).convolve(Vector.of(0, 1, 0.5)), "[0.0,1.0,2.5,4.0,1.5]");
+        }
+
+        @Test
+        @DisplayName("Given long vectors: should convolve by Fourier transform")
+        void givenLongVectors_shouldConvolveByFourierTransform() {
+            Vector<Double> first = Vector.fill(1.0, 200);
+            Vector<Double> second = Vector.fill(1.0, 100);
+            Vector<Double> convolved = first.convolve(second);
+
+            assertThat(convolved.size()).isEqualTo(299);
+            for (int k = 0; k < 299; k++) {
+                assertThat(convolved.get(k)).isCloseTo(Math.min(k, 99) - Math.max(0, k - 199) + 1, within(1e-9));
+            }
+        }
+
+        @Test
+        @DisplayName("Given empty vector: should throw exception")
+        void givenEmptyVector_shouldThrowException() {
+            assertThatThrownBy(() -> Vector.of(1, 2).convolve(Vector.of())).isInstanceOf(IllegalStateException.class);
+        }
+
+    }
+
+    @Nested
+    @DisplayName("correlate(Vector<?> other)")
+    class Correlate {
+
+        @Test
+        @DisplayName("Given short vectors: should return correlation at every lag")
+        void givenShortVectors_shouldReturnCorrelationAtEveryLag() {
+            assertVector(Vector.of(1, 2, 3).correlate(Vector.of(0, 1, 0.5)), "[0.5,2.0,3.5,3.0,0.0]");
+        }
+
+        @Test
+        @DisplayName("Given long vectors: should peak at the lag of the shifted pattern")
+        void givenLongVectors_shouldPeakAtTheLagOfTheShiftedPattern() {
+            Vector<Double> pattern = Vector.fill(0.0, 100);
+            for (int i = 0; i < 100; i++) pattern.set(Math.sin(i * i * 0.1), i);
+            Vector<Double> signal = Vector.fill(0.0, 400);
+            for (int i = 0; i < 100; i++) signal.set(pattern.get(i), i + 150);
+            Vector<Double> correlation = signal.correlate(pattern);
+
+            assertThat(correlation.argmax(Double::compare)).isEqualTo(Index.of(150 + 99));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("rolling(int window, int step, Aggregator<? super T, R> aggregator)")
+    class Rolling {
+
+        @Test
+        @DisplayName("Given minimum aggregator: should return minimum of each window")
+        void givenMinimumAggregator_shouldReturnMinimumOfEachWindow() {
+            Vector<Integer> series = Vector.of(4, 2, 12, 3, 8, 6, 1);
+            assertVector(series.rolling(3, 1, Aggregator.min(Comparator.<Integer>naturalOrder())), "[2,2,3,3,1]");
+        }
+
+        @Test
+        @DisplayName("Given invertible aggregator: should subtract leaving elements")
+        void givenInvertibleAggregator_shouldSubtractLeavingElements() {
+            Vector<Integer> series = Vector.of(1, 2, 3, 4, 5);
+            assertVector(series.rolling(2, 1, Aggregator.invertible(0, Integer::sum, (a, b) -> a - b)), "[3,5,7,9]");
+        }
+
+    }
+
+    @Nested
+    @DisplayName("rollingWindow(int window, int step, Aggregator<? super T, R> aggregator)")
+    class RollingWindowTest {
+
+        @Test
+        @DisplayName("Given streamed observations: should emit aggregate of each completed window")
+        void givenStreamedObservations_shouldEmitAggregateOfEachCompletedWindow() {
+            RollingWindow<Integer, Double> rolling = Vector.of(1, 2, 3).rollingWindow(3, 1, Aggregator.sum());
+
+            assertThat(rolling.completed()).isEqualTo(1);
+            assertThat(rolling.push(4)).isEqualTo(9.0);
+            assertThat(rolling.push(null)).isEqualTo(7.0);
+            assertVector(rolling.pushAll(Vector.of(5, 6)), "[9.0,11.0]");
+            assertThat(rolling.position()).isEqualTo(7);
+        }
+
+        @Test
+        @DisplayName("Given step greater than window: should skip observations between windows")
+        void givenStepGreaterThanWindow_shouldSkipObservationsBetweenWindows() {
+            RollingWindow<Integer, Integer> rolling = RollingWindow.of(2, 3, Aggregator.max(Comparator.<Integer>naturalOrder()));
+
+            assertVector(rolling.pushAll(Vector.of(1, 5, 9, 2, 3, 9, 4, 1)), "[5,3,4]");
+        }
+
+        @Test
+        @DisplayName("Given matching series: should agree with rolling")
+        void givenMatchingSeries_shouldAgreeWithRolling() {
+            Vector<Double> series = Vector.fill(0.0, 500);
+            for (int i = 0; i < 500; i++) series.set(Math.cos(i * 0.7) * 100, i);
+            Vector<Double> streamed = RollingWindow.of(40, 3, Aggregator.mean()).pushAll(series);
+            Vector<Double> rolled = series.rolling(40, 3, Aggregator.mean());
+
+            assertThat(streamed.size()).isEqualTo(rolled.size());
+            for (int w = 0; w < rolled.size(); w++) {
+                assertThat(streamed.get(w)).isCloseTo(rolled.get(w), within(1e-9));
+            }
+        }
+
+    }
+
+    @Nested
+    @DisplayName("cumsum(int dimension)")
+    class Cumsum {
+
+        @Test
+        @DisplayName("Given vector: should return vector of running totals")
+        void givenVector_shouldReturnVectorOfRunningTotals() {
+            Vector<Double> cumsum = Vector.of(1, 2, 3, 4).cumsum(0);
+            assertVector(cumsum, "[1.0,3.0,6.0,10.0]");
+        }
+
+    }
+
+}